@@ -17,18 +17,22 @@ package com.alibaba.csp.sentinel.adapter.grpc;
 
 import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.ResourceHandle;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import io.grpc.ForwardingServerCall;
 import io.grpc.ForwardingServerCallListener;
 import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -51,13 +55,18 @@ public class SentinelGrpcServerInterceptor implements ServerInterceptor {
             "Flow control limit exceeded (server side)");
     private static final StatusRuntimeException STATUS_RUNTIME_EXCEPTION = new StatusRuntimeException(Status.CANCELLED);
 
+    /**
+     * Pre-resolved resource handles of the gRPC methods (method descriptors are registered once per service).
+     */
+    private final ConcurrentMap<MethodDescriptor<?, ?>, ResourceHandle> handleMap = new ConcurrentHashMap<>();
+
     @Override
     public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
-        String fullMethodName = call.getMethodDescriptor().getFullMethodName();
+        ResourceHandle handle = getResourceHandle(call.getMethodDescriptor());
         // Remote address: serverCall.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
         Entry entry = null;
         try {
-            entry = SphU.asyncEntry(fullMethodName, EntryType.IN);
+            entry = SphU.asyncEntry(handle);
             final AtomicReference<Entry> atomicReferenceEntry = new AtomicReference<>(entry);
             // Allow access, forward the call.
             return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(
@@ -106,4 +115,16 @@ public class SentinelGrpcServerInterceptor implements ServerInterceptor {
             throw e;
         }
     }
+
+    private ResourceHandle getResourceHandle(MethodDescriptor<?, ?> method) {
+        ResourceHandle handle = handleMap.get(method);
+        if (handle == null) {
+            handle = SphU.resource(method.getFullMethodName(), EntryType.IN);
+            ResourceHandle old = handleMap.putIfAbsent(method, handle);
+            if (old != null) {
+                handle = old;
+            }
+        }
+        return handle;
+    }
 }
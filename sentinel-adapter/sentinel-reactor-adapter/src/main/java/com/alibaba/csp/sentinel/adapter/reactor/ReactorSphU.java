@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.adapter.reactor;
 
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.alibaba.csp.sentinel.AsyncEntry;
@@ -23,6 +24,7 @@ import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.flow.QueueingUtil;
 
 import reactor.core.publisher.Mono;
 
@@ -42,9 +44,19 @@ public final class ReactorSphU {
         final AtomicReference<AsyncEntry> entryWrapper = new AtomicReference<>(null);
         return Mono.defer(() -> {
             try {
-                AsyncEntry entry = SphU.asyncEntry(resourceName, entryType);
+                AsyncEntry entry;
+                long delayMs;
+                // Queueing requests (e.g. uniform rate limiting) should not block the (event loop) thread.
+                QueueingUtil.enterNonBlocking();
+                try {
+                    entry = SphU.asyncEntry(resourceName, entryType);
+                } finally {
+                    delayMs = QueueingUtil.exitNonBlocking();
+                }
                 entryWrapper.set(entry);
-                return actual.subscriberContext(context -> {
+                // The pass statistics have been recorded when acquiring the entry (i.e. before the delay).
+                Mono<R> delayedActual = delayMs > 0 ? Mono.delay(Duration.ofMillis(delayMs)).then(actual) : actual;
+                return delayedActual.subscriberContext(context -> {
                     if (entry == null) {
                         return context;
                     }
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.adapter.reactor;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -23,14 +24,25 @@ import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.flow.QueueingUtil;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.function.Supplier;
 
 import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
 import reactor.util.context.Context;
 
 /**
+ * <p>
+ * If the entry needs to queue (e.g. uniform rate limiting), the downstream is subscribed immediately,
+ * while its requests and the terminal signals of the upstream are held back until the queueing delay
+ * elapses, so no element will be emitted before the delay. Note that the pass statistics of the resource
+ * are recorded when the entry is acquired (i.e. before the delay), which is the same as the blocking entry.
+ * </p>
+ *
  * @author Eric Zhao
  * @since 1.5.0
  */
@@ -44,6 +56,11 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
     private volatile AsyncEntry currentEntry;
     private final AtomicBoolean entryExited = new AtomicBoolean(false);
 
+    /**
+     * The gate of the downstream when the entry is delayed by queueing, otherwise null.
+     */
+    private volatile DelayedSubscription delayedSubscription;
+
     public SentinelReactorSubscriber(EntryConfig entryConfig,
                                      CoreSubscriber<? super T> actual,
                                      boolean unary) {
@@ -89,10 +106,26 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
             ContextUtil.enter(sentinelContextConfig.getContextName(), sentinelContextConfig.getOrigin());
         }
         try {
-            AsyncEntry entry = SphU.asyncEntry(entryConfig.getResourceName(), entryConfig.getResourceType(),
-                entryConfig.getEntryType(), entryConfig.getAcquireCount(), entryConfig.getArgs());
+            AsyncEntry entry;
+            long delayMs;
+            // Queueing requests (e.g. uniform rate limiting) should not block the (event loop) thread.
+            QueueingUtil.enterNonBlocking();
+            try {
+                entry = SphU.asyncEntry(entryConfig.getResourceName(), entryConfig.getResourceType(),
+                    entryConfig.getEntryType(), entryConfig.getAcquireCount(), entryConfig.getArgs());
+            } finally {
+                delayMs = QueueingUtil.exitNonBlocking();
+            }
             this.currentEntry = entry;
-            actual.onSubscribe(this);
+            if (delayMs > 0) {
+                // Hold back the requests of the downstream, so that no element will be requested before the delay.
+                DelayedSubscription gate = new DelayedSubscription();
+                this.delayedSubscription = gate;
+                actual.onSubscribe(gate);
+                gate.startTimer(delayMs);
+            } else {
+                actual.onSubscribe(this);
+            }
         } catch (BlockException ex) {
             // Mark as completed (exited) explicitly.
             entryExited.set(true);
@@ -132,6 +165,10 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
 
     @Override
     protected void hookOnComplete() {
+        DelayedSubscription gate = delayedSubscription;
+        if (gate != null && gate.holdTerminal(null)) {
+            return;
+        }
         tryCompleteEntry();
         actual.onComplete();
     }
@@ -145,6 +182,14 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
 
     @Override
     protected void hookOnError(Throwable t) {
+        DelayedSubscription gate = delayedSubscription;
+        if (gate != null && gate.holdTerminal(t)) {
+            return;
+        }
+        signalError(t);
+    }
+
+    private void signalError(Throwable t) {
         if (currentEntry != null && currentEntry.getAsyncContext() != null) {
             // Normal requests with non-BlockException will go through here.
             Tracer.traceContext(t, 1, currentEntry.getAsyncContext());
@@ -155,6 +200,10 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
 
     @Override
     protected void hookOnCancel() {
+        DelayedSubscription gate = delayedSubscription;
+        if (gate != null) {
+            gate.disposeTimer();
+        }
         tryCompleteEntry();
     }
 
@@ -165,4 +214,110 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
         }
         return false;
     }
+
+    /**
+     * The subscription passed to the downstream when the entry is delayed, which holds back the requests
+     * of the downstream and the terminal signals of the upstream until the delay elapses.
+     */
+    private final class DelayedSubscription implements Subscription {
+
+        private volatile Disposable timer;
+
+        private boolean open;
+        private long pendingRequest;
+        private boolean pendingComplete;
+        private Throwable pendingError;
+
+        void startTimer(long delayMs) {
+            this.timer = Mono.delay(Duration.ofMillis(delayMs))
+                .subscribe(t -> open(), this::onTimerError);
+        }
+
+        void disposeTimer() {
+            Disposable timer = this.timer;
+            if (timer != null) {
+                timer.dispose();
+            }
+        }
+
+        private void onTimerError(Throwable t) {
+            // e.g. the scheduler rejects the timer. The entry could not be delayed, so fail the downstream.
+            synchronized (this) {
+                if (open) {
+                    return;
+                }
+                open = true;
+            }
+            SentinelReactorSubscriber.this.cancel();
+            signalError(t);
+        }
+
+        /**
+         * @param error the error signal, or null for the complete signal
+         * @return true if the signal is held back until the delay elapses
+         */
+        boolean holdTerminal(Throwable error) {
+            synchronized (this) {
+                if (open) {
+                    return false;
+                }
+                if (error == null) {
+                    pendingComplete = true;
+                } else {
+                    pendingError = error;
+                }
+                return true;
+            }
+        }
+
+        private void open() {
+            long n;
+            boolean complete;
+            Throwable error;
+            synchronized (this) {
+                if (open) {
+                    return;
+                }
+                open = true;
+                n = pendingRequest;
+                complete = pendingComplete;
+                error = pendingError;
+                pendingRequest = 0;
+            }
+            if (error != null) {
+                signalError(error);
+            } else if (complete) {
+                tryCompleteEntry();
+                actual.onComplete();
+            } else if (n > 0) {
+                SentinelReactorSubscriber.this.request(n);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (!Operators.validate(n)) {
+                return;
+            }
+            synchronized (this) {
+                if (!open) {
+                    pendingRequest = Operators.addCap(pendingRequest, n);
+                    return;
+                }
+            }
+            SentinelReactorSubscriber.this.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                // Drop the held terminal signals.
+                open = true;
+            }
+            disposeTimer();
+            SentinelReactorSubscriber.this.cancel();
+            // The upstream may have been terminated (with a held signal), so complete the entry explicitly.
+            tryCompleteEntry();
+        }
+    }
 }
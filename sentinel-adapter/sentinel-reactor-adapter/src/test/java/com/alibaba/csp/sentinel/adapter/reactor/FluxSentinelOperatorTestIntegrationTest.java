@@ -1,10 +1,12 @@
 package com.alibaba.csp.sentinel.adapter.reactor;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
@@ -69,6 +71,57 @@ public class FluxSentinelOperatorTestIntegrationTest {
         FlowRuleManager.loadRules(new ArrayList<>());
     }
 
+    @Test
+    public void testEmitAfterQueueingDelay() {
+        String resourceName = createResourceName("testEmitAfterQueueingDelay");
+        FlowRuleManager.loadRules(Collections.singletonList(
+            new FlowRule(resourceName).setCount(5)
+                .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+                .setMaxQueueingTimeMs(1000)
+        ));
+        StepVerifier.create(Flux.just(1).transform(new SentinelReactorTransformer<>(resourceName)))
+            .expectNext(1)
+            .verifyComplete();
+        // The second request needs to queue for 200 ms. The downstream should be subscribed immediately,
+        // while no signal should be emitted before the delay.
+        StepVerifier.create(Flux.just(2, 4).transform(new SentinelReactorTransformer<>(resourceName)))
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(100))
+            .expectNext(2, 4)
+            .verifyComplete();
+
+        ClusterNode cn = ClusterBuilderSlot.getClusterNode(resourceName);
+        assertNotNull(cn);
+        assertEquals(0, cn.blockRequest());
+        assertEquals(0, cn.curThreadNum());
+
+        FlowRuleManager.loadRules(new ArrayList<>());
+    }
+
+    @Test
+    public void testCancelDuringQueueingDelay() {
+        String resourceName = createResourceName("testCancelDuringQueueingDelay");
+        FlowRuleManager.loadRules(Collections.singletonList(
+            new FlowRule(resourceName).setCount(5)
+                .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+                .setMaxQueueingTimeMs(1000)
+        ));
+        StepVerifier.create(Flux.just(1).transform(new SentinelReactorTransformer<>(resourceName)))
+            .expectNext(1)
+            .verifyComplete();
+        StepVerifier.create(Flux.just(2).transform(new SentinelReactorTransformer<>(resourceName)))
+            .expectSubscription()
+            .thenCancel()
+            .verify();
+
+        ClusterNode cn = ClusterBuilderSlot.getClusterNode(resourceName);
+        assertNotNull(cn);
+        // The entry should be completed on cancel.
+        assertEquals(0, cn.curThreadNum());
+
+        FlowRuleManager.loadRules(new ArrayList<>());
+    }
+
     private String createResourceName(String resourceName) {
         return "reactor_test_flux_" + resourceName;
     }
@@ -5,6 +5,7 @@ import java.util.Collections;
 
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
@@ -68,6 +69,30 @@ public class ReactorSphUTest {
         assertEquals(1, cn.totalException());
     }
 
+    @Test
+    public void testReactorEntryDelayedWhenQueueing() {
+        String resourceName = createResourceName("testReactorEntryDelayedWhenQueueing");
+        FlowRuleManager.loadRules(Collections.singletonList(
+            new FlowRule(resourceName).setCount(5)
+                .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+                .setMaxQueueingTimeMs(1000)
+        ));
+        long start = System.currentTimeMillis();
+        // The second request needs to queue for 200 ms, which should be delayed without blocking.
+        Mono<Integer> first = ReactorSphU.entryWith(resourceName, Mono.just(1));
+        Mono<Integer> second = ReactorSphU.entryWith(resourceName, Mono.just(2));
+        StepVerifier.create(first.concatWith(second))
+            .expectNext(1, 2)
+            .verifyComplete();
+        assertTrue(System.currentTimeMillis() - start >= 150);
+
+        ClusterNode cn = ClusterBuilderSlot.getClusterNode(resourceName);
+        assertNotNull(cn);
+        assertEquals(0, cn.blockRequest());
+
+        FlowRuleManager.loadRules(new ArrayList<>());
+    }
+
     private String createResourceName(String resourceName) {
         return "reactor_test_SphU_" + resourceName;
     }
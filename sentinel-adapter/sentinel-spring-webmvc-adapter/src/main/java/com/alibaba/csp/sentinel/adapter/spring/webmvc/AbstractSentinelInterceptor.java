@@ -15,20 +15,27 @@
  */
 package com.alibaba.csp.sentinel.adapter.spring.webmvc;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.ResourceHandle;
 import com.alibaba.csp.sentinel.ResourceTypeConstants;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.adapter.spring.webmvc.config.BaseWebMvcConfig;
+import com.alibaba.csp.sentinel.concurrent.ConcurrentRegistry;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.function.Function;
 
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
@@ -42,6 +49,28 @@ public abstract class AbstractSentinelInterceptor implements HandlerInterceptor
     public static final String SENTINEL_SPRING_WEB_CONTEXT_NAME = "sentinel_spring_web_context";
     private static final String EMPTY_ORIGIN = "";
 
+    private static final Function<String, ResourceHandle> HANDLE_FACTORY = new Function<String, ResourceHandle>() {
+        @Override
+        public ResourceHandle apply(String resourceName) {
+            return SphU.resource(resourceName, ResourceTypeConstants.COMMON_WEB, EntryType.IN);
+        }
+    };
+
+    /**
+     * Pre-resolved resource handles of the web resources, so that the slot chain and rules of
+     * the resource could be located without hashing the resource name on every request.
+     */
+    private final ConcurrentRegistry<String, ResourceHandle> handleRegistry
+        = new ConcurrentRegistry<String, ResourceHandle>(Constants.MAX_SLOT_CHAIN_SIZE);
+
+    /**
+     * Resource handles cached per request handler (e.g. {@code HandlerMethod}), so that the resource
+     * name built for each request is only compared rather than hashed. A handler mapped to several
+     * resources (e.g. HTTP method specified) keeps the first one and falls back to the registry for the others.
+     */
+    private final ConcurrentMap<Object, ResourceHandle> handlerHandles
+        = new ConcurrentHashMap<Object, ResourceHandle>();
+
     private final BaseWebMvcConfig baseWebMvcConfig;
 
     public AbstractSentinelInterceptor(BaseWebMvcConfig config) {
@@ -61,7 +90,10 @@ public abstract class AbstractSentinelInterceptor implements HandlerInterceptor
                 String origin = parseOrigin(request);
                 String contextName = getContextName(request);
                 ContextUtil.enter(contextName, origin);
-                Entry entry = SphU.entry(resourceName, ResourceTypeConstants.COMMON_WEB, EntryType.IN);
+                ResourceHandle handle = resolveHandle(handler, resourceName);
+                // Amount of cached handles exceeds the threshold, so just fall back to the resource name.
+                Entry entry = handle != null ? SphU.entry(handle)
+                    : SphU.entry(resourceName, ResourceTypeConstants.COMMON_WEB, EntryType.IN);
 
                 setEntryInRequest(request, baseWebMvcConfig.getRequestAttributeName(), entry);
             }
@@ -76,6 +108,19 @@ public abstract class AbstractSentinelInterceptor implements HandlerInterceptor
         }
     }
 
+    private ResourceHandle resolveHandle(Object handler, String resourceName) {
+        ResourceHandle handle = handler == null ? null : handlerHandles.get(handler);
+        if (handle != null && handle.getName().equals(resourceName)) {
+            return handle;
+        }
+        ResourceHandle resolved = handleRegistry.getOrCreate(resourceName, HANDLE_FACTORY);
+        if (handle == null && resolved != null && handler != null
+            && handlerHandles.size() < Constants.MAX_SLOT_CHAIN_SIZE) {
+            handlerHandles.putIfAbsent(handler, resolved);
+        }
+        return resolved;
+    }
+
     /**
      * Return the resource name of the target web resource.
      *
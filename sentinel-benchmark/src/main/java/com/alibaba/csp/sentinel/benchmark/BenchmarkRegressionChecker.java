@@ -0,0 +1,193 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Compares the benchmark results (in JMH CSV format, see {@link SentinelBenchmarkRunner}) with the baseline,
+ * and exits with status 1 if any of them regresses by more than the threshold:</p>
+ * <ul>
+ * <li>the primary score: lower throughput, or higher time per operation</li>
+ * <li>the allocated bytes per operation ({@code ·gc.alloc.rate.norm}), ignoring the changes less than
+ * {@link #ALLOC_NOISE_BYTES} as the allocation of an almost allocation-free operation is noisy</li>
+ * </ul>
+ * <p>Other secondary results (e.g. GC count and time) are too noisy to compare, so they're ignored.
+ * Results absent in either side are ignored too.</p>
+ * <pre>
+ * java -cp target/benchmarks.jar com.alibaba.csp.sentinel.benchmark.BenchmarkRegressionChecker \
+ *     baseline/benchmark-baseline.csv target/benchmark-results.csv [thresholdPercent]
+ * </pre>
+ *
+ * @author agent
+ */
+public final class BenchmarkRegressionChecker {
+
+    static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    static final double ALLOC_NOISE_BYTES = 8;
+
+    private static final String ALLOC_NORM = ":·gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkRegressionChecker <baseline.csv> <current.csv> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        List<String> regressions = check(read(args[0]), read(args[1]), threshold);
+        for (String regression : regressions) {
+            System.out.println("REGRESSION: " + regression);
+        }
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+        System.out.println("No regression found (threshold: " + threshold + "%)");
+    }
+
+    static List<String> check(Map<String, Result> baseline, Map<String, Result> current, double thresholdPercent) {
+        List<String> regressions = new ArrayList<>();
+        double ratio = thresholdPercent / 100;
+        for (Map.Entry<String, Result> e : current.entrySet()) {
+            Result now = e.getValue();
+            Result base = baseline.get(e.getKey());
+            if (base == null || Double.isNaN(base.score) || Double.isNaN(now.score)) {
+                continue;
+            }
+            boolean regressed;
+            if (now.isAllocation()) {
+                regressed = now.score - base.score > Math.max(ALLOC_NOISE_BYTES, base.score * ratio);
+            } else if (now.isPrimary()) {
+                regressed = now.higherIsBetter() ? now.score < base.score * (1 - ratio)
+                    : now.score > base.score * (1 + ratio);
+            } else {
+                continue;
+            }
+            if (regressed) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s", e.getKey(), base.score, now.score, now.unit));
+            }
+        }
+        return regressions;
+    }
+
+    static Map<String, Result> read(String file) throws IOException {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8")));
+        try {
+            return parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    static Map<String, Result> parse(BufferedReader reader) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        String line = reader.readLine();
+        if (line == null) {
+            return results;
+        }
+        List<String> header = splitCsv(line);
+        int benchmarkIdx = header.indexOf("Benchmark");
+        int modeIdx = header.indexOf("Mode");
+        int threadsIdx = header.indexOf("Threads");
+        int scoreIdx = header.indexOf("Score");
+        int unitIdx = header.indexOf("Unit");
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> fields = splitCsv(line);
+            StringBuilder key = new StringBuilder(fields.get(benchmarkIdx))
+                .append(" [").append(fields.get(modeIdx)).append(", threads=").append(fields.get(threadsIdx));
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                String column = header.get(i);
+                if (column.startsWith("Param: ") && !fields.get(i).isEmpty()) {
+                    key.append(", ").append(column.substring(7)).append('=').append(fields.get(i));
+                }
+            }
+            key.append(']');
+            results.put(key.toString(), new Result(fields.get(benchmarkIdx), parseScore(fields.get(scoreIdx)),
+                fields.get(unitIdx)));
+        }
+        return results;
+    }
+
+    private static double parseScore(String score) {
+        try {
+            // The decimal separator depends on the locale of JMH.
+            return Double.parseDouble(score.replace(',', '.'));
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static final class Result {
+        final String benchmark;
+        final double score;
+        final String unit;
+
+        Result(String benchmark, double score, String unit) {
+            this.benchmark = benchmark;
+            this.score = score;
+            this.unit = unit;
+        }
+
+        boolean isPrimary() {
+            return benchmark.indexOf(':') < 0;
+        }
+
+        boolean isAllocation() {
+            return benchmark.endsWith(ALLOC_NORM);
+        }
+
+        boolean higherIsBetter() {
+            return unit.startsWith("ops/");
+        }
+    }
+
+    private BenchmarkRegressionChecker() {}
+}
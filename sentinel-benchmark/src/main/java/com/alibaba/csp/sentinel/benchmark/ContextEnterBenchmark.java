@@ -0,0 +1,84 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.context.ContextUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link ContextUtil#enter(String, String)} and {@link ContextUtil#exit()} with many contexts,
+ * where the contexts are picked by the uniform or Zipfian distribution (see {@link KeyDistribution}).
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ContextEnterBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int contextCount;
+
+    @Param({KeyDistribution.UNIFORM, KeyDistribution.ZIPFIAN})
+    private String distribution;
+
+    private String[] contextNames;
+    private KeyDistribution keys;
+
+    @Setup
+    public void prepare() {
+        contextNames = new String[contextCount];
+        for (int i = 0; i < contextCount; i++) {
+            contextNames[i] = "benchmark-context-" + i;
+            // Create the entrance nodes before measurement.
+            ContextUtil.enter(contextNames[i], "");
+            ContextUtil.exit();
+        }
+        keys = KeyDistribution.of(distribution, contextCount);
+    }
+
+    private void enterAndExit() {
+        ContextUtil.enter(contextNames[keys.next()], "benchmark-app");
+        ContextUtil.exit();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadEnter() {
+        enterAndExit();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsEnter() {
+        enterAndExit();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.ResourceHandle;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for the allocation of the entry/exit pair on the pass path,
+ * with or without the entry pool ({@link Constants#ENTRY_POOL_ON}).</p>
+ *
+ * <p>Run it with the GC profiler to get the allocated bytes per operation ({@code gc.alloc.rate.norm}):</p>
+ * <pre>
+ * java -jar target/benchmarks.jar EntryAllocationBenchmark -prof gc
+ * </pre>
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EntryAllocationBenchmark {
+
+    @Param({"false", "true"})
+    private boolean pooled;
+
+    private ResourceHandle handle;
+
+    @Setup
+    public void prepare() {
+        Constants.ENTRY_POOL_ON = pooled;
+        handle = SphU.resource("benchmark-entry-allocation", EntryType.IN);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Constants.ENTRY_POOL_ON = false;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testHandleEntryExit() throws BlockException {
+        Entry entry = SphU.entry(handle);
+        entry.exit();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testNameEntryExit() throws BlockException {
+        Entry entry = SphU.entry("benchmark-entry-allocation", EntryType.IN);
+        entry.exit();
+    }
+}
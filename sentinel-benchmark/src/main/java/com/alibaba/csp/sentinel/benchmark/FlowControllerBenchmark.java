@@ -0,0 +1,104 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.node.StatisticNode;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
+import com.alibaba.csp.sentinel.slots.block.flow.controller.DefaultController;
+import com.alibaba.csp.sentinel.slots.block.flow.controller.RateLimiterController;
+import com.alibaba.csp.sentinel.slots.block.flow.controller.WarmUpController;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for {@link TrafficShapingController#canPass} of the flow controllers under contention,
+ * where all threads share the same controller and node.</p>
+ *
+ * <p>{@code limited} controls whether the threshold is low enough to block most of the requests,
+ * so that both the pass path and the block path are covered. The rate limiter never queues
+ * ({@code maxQueueingTimeMs} is 0), so the benchmark measures the decision rather than the sleeping.</p>
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FlowControllerBenchmark {
+
+    @Param({"default", "warmup", "ratelimiter"})
+    private String controllerType;
+
+    @Param({"false", "true"})
+    private boolean limited;
+
+    private TrafficShapingController controller;
+    private StatisticNode node;
+
+    @Setup
+    public void prepare() {
+        double count = limited ? 1000 : Integer.MAX_VALUE;
+        if ("warmup".equals(controllerType)) {
+            controller = new WarmUpController(count, 10);
+        } else if ("ratelimiter".equals(controllerType)) {
+            controller = new RateLimiterController(0, count);
+        } else {
+            controller = new DefaultController(count, RuleConstant.FLOW_GRADE_QPS);
+        }
+        node = new StatisticNode();
+    }
+
+    private boolean canPass() {
+        if (controller.canPass(node, 1)) {
+            node.addPassRequest(1);
+            return true;
+        }
+        node.increaseBlockQps(1);
+        return false;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean testSingleThreadCanPass() {
+        return canPass();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean test8ThreadsCanPass() {
+        return canPass();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean test32ThreadsCanPass() {
+        return canPass();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>Generates indexes in {@code [0, n)} with the given distribution for the multi-key benchmarks.</p>
+ *
+ * <p>The Zipfian distribution (with exponent {@code s}) picks index {@code i} with probability proportional
+ * to {@code 1 / (i + 1)^s}, which is similar to the popularity of the resources in real services
+ * where a few hot resources take most of the traffic. The cumulative probabilities are precomputed,
+ * so {@link #next()} is a binary search without allocation.</p>
+ *
+ * @author agent
+ */
+final class KeyDistribution {
+
+    static final String UNIFORM = "uniform";
+    static final String ZIPFIAN = "zipfian";
+
+    static final double DEFAULT_ZIPFIAN_EXPONENT = 0.99;
+
+    private final int n;
+    /**
+     * Cumulative probabilities of the Zipfian distribution, null for uniform distribution.
+     */
+    private final double[] cdf;
+
+    private KeyDistribution(int n, double[] cdf) {
+        this.n = n;
+        this.cdf = cdf;
+    }
+
+    static KeyDistribution of(String type, int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n should be positive");
+        }
+        if (UNIFORM.equals(type)) {
+            return new KeyDistribution(n, null);
+        }
+        if (ZIPFIAN.equals(type)) {
+            return zipfian(n, DEFAULT_ZIPFIAN_EXPONENT);
+        }
+        throw new IllegalArgumentException("Unknown distribution: " + type);
+    }
+
+    static KeyDistribution zipfian(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return new KeyDistribution(n, cdf);
+    }
+
+    int next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (cdf == null) {
+            return random.nextInt(n);
+        }
+        double p = random.nextDouble();
+        int low = 0;
+        int high = n - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < p) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
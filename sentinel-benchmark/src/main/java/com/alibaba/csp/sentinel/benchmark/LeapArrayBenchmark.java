@@ -0,0 +1,142 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.metric.BucketLeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.metric.LockFreeBucketLeapArray;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Benchmark for bucket rotation of {@link BucketLeapArray} (lock + yield)
+ * and {@link LockFreeBucketLeapArray} (single CAS).
+ *
+ * Smaller windows (larger sample count) lead to more frequent bucket rotation.
+ * The {@code Rollover} benchmarks use a simulated clock that moves to the next bucket every
+ * {@link #OPS_PER_BUCKET} operations of the first thread, so the rotation is measured regardless of
+ * the sample count. Only the first thread writes the clock and the others just read it, so the
+ * multi-thread results are not dominated by the contention on a shared counter.
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class LeapArrayBenchmark {
+
+    @Param({"default", "lockfree"})
+    private String type;
+
+    @Param({"2", "100", "1000"})
+    private int sampleCount;
+
+    /**
+     * Operations of the first thread in a bucket before the simulated clock moves to the next bucket.
+     */
+    static final int OPS_PER_BUCKET = 64;
+
+    private LeapArray<MetricBucket> leapArray;
+
+    /**
+     * The simulated clock, which is only written by the first thread.
+     */
+    private volatile long currentTime;
+    private long windowLengthInMs;
+
+    @State(Scope.Thread)
+    public static class Ticker {
+        boolean ticking;
+        long ops;
+
+        @Setup
+        public void prepare(ThreadParams params) {
+            ticking = params.getThreadIndex() == 0;
+            ops = 0;
+        }
+    }
+
+    @Setup
+    public void prepare() {
+        if ("lockfree".equals(type)) {
+            leapArray = new LockFreeBucketLeapArray(sampleCount, 1000);
+        } else {
+            leapArray = new BucketLeapArray(sampleCount, 1000);
+        }
+        windowLengthInMs = 1000 / sampleCount;
+        currentTime = TimeUtil.currentTimeMillis();
+    }
+
+    private void addPass() {
+        leapArray.currentWindow(TimeUtil.currentTimeMillis()).value().addPass(1);
+    }
+
+    private void addPassWithRollover(Ticker ticker) {
+        long time = currentTime;
+        if (ticker.ticking && ++ticker.ops % OPS_PER_BUCKET == 0) {
+            time += windowLengthInMs;
+            currentTime = time;
+        }
+        leapArray.currentWindow(time).value().addPass(1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadAddPass() {
+        addPass();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsAddPass() {
+        addPass();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void test32ThreadsAddPass() {
+        addPass();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadRollover(Ticker ticker) {
+        addPassWithRollover(ticker);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsRollover(Ticker ticker) {
+        addPassWithRollover(ticker);
+    }
+}
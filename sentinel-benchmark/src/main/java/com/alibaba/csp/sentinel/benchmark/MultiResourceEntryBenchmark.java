@@ -0,0 +1,117 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for the entries of many resources, where the resources are picked by the uniform
+ * or Zipfian distribution (see {@link KeyDistribution}). Every resource has a flow rule that never blocks.</p>
+ *
+ * <p>Compared to {@link SentinelEntryBenchmark}, this covers the lookups of the slot chains and the rules
+ * of many resources, and the cache misses of the statistics when the traffic is spread.</p>
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class MultiResourceEntryBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int resourceCount;
+
+    @Param({KeyDistribution.UNIFORM, KeyDistribution.ZIPFIAN})
+    private String distribution;
+
+    private String[] resources;
+    private KeyDistribution keys;
+
+    @Setup
+    public void prepare() throws BlockException {
+        resources = new String[resourceCount];
+        List<FlowRule> rules = new ArrayList<>(resourceCount);
+        for (int i = 0; i < resourceCount; i++) {
+            resources[i] = "benchmark-resource-" + i;
+            rules.add(new FlowRule(resources[i]).setGrade(RuleConstant.FLOW_GRADE_QPS).setCount(Integer.MAX_VALUE));
+        }
+        FlowRuleManager.loadRules(rules);
+        keys = KeyDistribution.of(distribution, resourceCount);
+        // Create the slot chains and the nodes before measurement.
+        for (String resource : resources) {
+            SphU.entry(resource).exit();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+    }
+
+    private void doEntry() {
+        Entry entry = null;
+        try {
+            entry = SphU.entry(resources[keys.next()]);
+        } catch (BlockException e) {
+        } finally {
+            if (entry != null) {
+                entry.exit();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadEntry() {
+        doEntry();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsEntry() {
+        doEntry();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void test32ThreadsEntry() {
+        doEntry();
+    }
+}
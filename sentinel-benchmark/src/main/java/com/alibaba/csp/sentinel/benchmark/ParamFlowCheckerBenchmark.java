@@ -0,0 +1,117 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowChecker;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRuleManager;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParameterMetricStorage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for {@link ParamFlowChecker#passCheck} with high-cardinality parameter values,
+ * where the values are picked by the uniform or Zipfian distribution (see {@link KeyDistribution}).</p>
+ *
+ * <p>When the cardinality exceeds the capacity of the LRU counters in the parameter metric,
+ * the benchmark also covers the eviction.</p>
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParamFlowCheckerBenchmark {
+
+    private static final String RESOURCE_NAME = "benchmark-param-flow";
+
+    @Param({"100", "10000", "1000000"})
+    private int cardinality;
+
+    @Param({KeyDistribution.UNIFORM, KeyDistribution.ZIPFIAN})
+    private String distribution;
+
+    @Param({"default", "throttle"})
+    private String behavior;
+
+    private final ResourceWrapper resourceWrapper = new StringResourceWrapper(RESOURCE_NAME, EntryType.IN);
+    private ParamFlowRule rule;
+    private Object[][] args;
+    private KeyDistribution keys;
+
+    @Setup
+    public void prepare() {
+        ParamFlowRule rule = new ParamFlowRule(RESOURCE_NAME)
+            .setParamIdx(0)
+            .setGrade(RuleConstant.FLOW_GRADE_QPS)
+            .setCount(100);
+        if ("throttle".equals(behavior)) {
+            rule.setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER).setMaxQueueingTimeMs(0);
+        }
+        ParamFlowRuleManager.loadRules(Collections.singletonList(rule));
+        this.rule = ParamFlowRuleManager.getRulesOfResource(RESOURCE_NAME).get(0);
+        ParameterMetricStorage.initParamMetricsFor(resourceWrapper, this.rule);
+
+        // Box the parameter values in advance, so the benchmark doesn't measure the boxing.
+        args = new Object[cardinality][];
+        for (int i = 0; i < cardinality; i++) {
+            args[i] = new Object[] {"param-" + i};
+        }
+        keys = KeyDistribution.of(distribution, cardinality);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ParamFlowRuleManager.loadRules(null);
+        ParameterMetricStorage.clearParamMetricForResource(RESOURCE_NAME);
+    }
+
+    private boolean passCheck() {
+        return ParamFlowChecker.passCheck(resourceWrapper, rule, 1, args[keys.next()]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean testSingleThreadPassCheck() {
+        return passCheck();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean test8ThreadsPassCheck() {
+        return passCheck();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.CtSph;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Startup benchmark: register {@link Constants#MAX_SLOT_CHAIN_SIZE} distinct resources from 64 threads.
+ * Every iteration starts from an empty slot chain map and cluster node map.
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResourceRegistrationBenchmark {
+
+    private static final int THREADS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Registry {
+
+        private Method resetChainMapMethod;
+
+        @Setup(Level.Trial)
+        public void prepare() throws Exception {
+            resetChainMapMethod = CtSph.class.getDeclaredMethod("resetChainMap");
+            resetChainMapMethod.setAccessible(true);
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() throws Exception {
+            resetChainMapMethod.invoke(null);
+            ClusterBuilderSlot.getClusterNodeMap().clear();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Resources {
+
+        private String[] names;
+
+        @Setup(Level.Trial)
+        public void prepare(ThreadParams threadParams) {
+            int perThread = Constants.MAX_SLOT_CHAIN_SIZE / THREADS;
+            int offset = threadParams.getThreadIndex() * perThread;
+            names = new String[perThread];
+            for (int i = 0; i < perThread; i++) {
+                names[i] = "registration-benchmark-" + (offset + i);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public void testRegisterResources(Registry registry, Resources resources) {
+        for (String name : resources.names) {
+            Entry e = null;
+            try {
+                e = SphU.entry(name);
+            } catch (BlockException ex) {
+                // Ignore.
+            } finally {
+                if (e != null) {
+                    e.exit();
+                }
+            }
+        }
+    }
+}
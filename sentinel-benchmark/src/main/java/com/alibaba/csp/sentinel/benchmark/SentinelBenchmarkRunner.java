@@ -0,0 +1,67 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * <p>Runs the benchmark suite with the GC profiler, which reports the GC events and the allocated bytes
+ * per operation ({@code ·gc.alloc.rate.norm}), and writes the results in CSV format that could be compared
+ * with the baseline via {@link BenchmarkRegressionChecker}.</p>
+ *
+ * <p>All JMH command line options are accepted, e.g. to run the slot benchmarks only:</p>
+ * <pre>
+ * java -cp target/benchmarks.jar com.alibaba.csp.sentinel.benchmark.SentinelBenchmarkRunner SlotBenchmark
+ * </pre>
+ *
+ * @author agent
+ */
+public final class SentinelBenchmarkRunner {
+
+    static final String DEFAULT_RESULT_FILE = "target/benchmark-results.csv";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+        if (!hasGcProfiler(commandLineOptions)) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT_FILE);
+        }
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.CSV);
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static boolean hasGcProfiler(CommandLineOptions options) {
+        for (ProfilerConfig profiler : options.getProfilers()) {
+            if ("gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SentinelBenchmarkRunner() {}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.DefaultSlotChainBuilder;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRule;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRuleManager;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import com.alibaba.csp.sentinel.slots.system.SystemRule;
+import com.alibaba.csp.sentinel.slots.system.SystemRuleManager;
+import com.alibaba.csp.sentinel.util.SpiLoader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark for every slot of {@link DefaultSlotChainBuilder} in isolation, i.e. the entry/exit of
+ * a single slot without the others in the chain.</p>
+ *
+ * <p>Every thread holds an open entry of the resource, so that the slots see the same context
+ * as in a full chain. Rules that never block are loaded, so that the rule checking slots do the real work.</p>
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SlotBenchmark {
+
+    private static final String RESOURCE_NAME = "benchmark-slot";
+    private static final String ORIGIN = "benchmark-app";
+
+    @Param({"NodeSelectorSlot", "ClusterBuilderSlot", "LogSlot", "StatisticSlot", "SystemSlot", "AuthoritySlot",
+        "FlowSlot", "DegradeSlot"})
+    private String slotName;
+
+    private ProcessorSlot<Object> slot;
+    private final ResourceWrapper resourceWrapper = new StringResourceWrapper(RESOURCE_NAME, EntryType.IN);
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void prepare() {
+        List<ProcessorSlot> slots = SpiLoader.loadPrototypeInstanceListSorted(ProcessorSlot.class);
+        for (ProcessorSlot s : slots) {
+            if (s.getClass().getSimpleName().equals(slotName)) {
+                slot = (ProcessorSlot<Object>)s;
+            }
+        }
+        if (slot == null) {
+            throw new IllegalArgumentException("Slot not found: " + slotName);
+        }
+        loadRules();
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+        DegradeRuleManager.loadRules(null);
+        AuthorityRuleManager.loadRules(null);
+        SystemRuleManager.loadRules(null);
+    }
+
+    private static void loadRules() {
+        FlowRuleManager.loadRules(Collections.singletonList(
+            new FlowRule(RESOURCE_NAME).setGrade(RuleConstant.FLOW_GRADE_QPS).setCount(Integer.MAX_VALUE)));
+        DegradeRuleManager.loadRules(Collections.singletonList(
+            new DegradeRule(RESOURCE_NAME).setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO).setCount(1)
+                .setTimeWindow(10)));
+        AuthorityRule authorityRule = new AuthorityRule();
+        authorityRule.setResource(RESOURCE_NAME);
+        authorityRule.setLimitApp(ORIGIN + ",other-app");
+        AuthorityRuleManager.loadRules(Collections.singletonList(
+            authorityRule.setStrategy(RuleConstant.AUTHORITY_WHITE)));
+        SystemRule systemRule = new SystemRule();
+        systemRule.setQps(Integer.MAX_VALUE);
+        SystemRuleManager.loadRules(Collections.singletonList(systemRule));
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadContext {
+        Context context;
+        Entry entry;
+        Node node;
+
+        @Setup
+        public void enter() throws Exception {
+            context = ContextUtil.enter("benchmark-slot-context", ORIGIN);
+            entry = SphU.entry(RESOURCE_NAME, EntryType.IN);
+            node = entry.getCurNode();
+        }
+
+        @TearDown
+        public void exit() {
+            entry.exit();
+            ContextUtil.exit();
+        }
+    }
+
+    private void entryAndExit(ThreadContext tc) throws Throwable {
+        slot.entry(tc.context, resourceWrapper, tc.node, 1, false);
+        slot.exit(tc.context, resourceWrapper, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadEntryExit(ThreadContext tc) throws Throwable {
+        entryAndExit(tc);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsEntryExit(ThreadContext tc) throws Throwable {
+        entryAndExit(tc);
+    }
+}
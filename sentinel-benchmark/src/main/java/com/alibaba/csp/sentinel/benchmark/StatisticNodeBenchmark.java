@@ -0,0 +1,99 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.node.StatisticNode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link StatisticNode} with different metric bucket layouts
+ * ({@link com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket} with one LongAdder per event
+ * and the striped {@link com.alibaba.csp.sentinel.slots.statistic.data.StripedMetricBucket}).
+ *
+ * @author agent
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class StatisticNodeBenchmark {
+
+    @Param({"false", "true"})
+    private String striped;
+
+    private StatisticNode node;
+
+    @Setup
+    public void prepare() {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_STRIPED_BUCKET, striped);
+        node = new StatisticNode();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadAddPass() {
+        node.addPassRequest(1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsAddPass() {
+        node.addPassRequest(1);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void test32ThreadsAddPass() {
+        node.addPassRequest(1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public double test8ThreadsPassQps() {
+        return node.passQps();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public void mixedAddPass() {
+        node.addPassRequest(1);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public double mixedPassQps() {
+        return node.passQps();
+    }
+}
@@ -15,9 +15,15 @@
  */
 package com.alibaba.csp.sentinel.cluster.client;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.alibaba.csp.sentinel.cluster.AsyncClusterTransportClient;
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
 import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
 import com.alibaba.csp.sentinel.cluster.ClusterTransportClient;
@@ -26,29 +32,63 @@ import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.TokenServerDescriptor;
 import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientAssignConfig;
 import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientStartUpConfig;
 import com.alibaba.csp.sentinel.cluster.client.config.ServerChangeObserver;
 import com.alibaba.csp.sentinel.cluster.log.ClusterClientStatLogUtil;
+import com.alibaba.csp.sentinel.cluster.client.FlowRequestBatcher.PendingFlowRequest;
 import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowBatchRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowLeaseRequestData;
 import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
 import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowBatchResponseData;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowLeaseResponseData;
 import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.Consumer;
 
 /**
- * Default implementation of {@link ClusterTokenClient}.
+ * <p>Default implementation of {@link ClusterTokenClient}, which also supports requesting tokens asynchronously.</p>
+ * <p>
+ * If the token lease is enabled ({@code csp.sentinel.cluster.client.token.lease.count} &gt; 0), the client
+ * prefetches a batch of tokens per flow from the token server, and serves the non-prioritized token requests
+ * locally until the lease is exhausted or expired. The leased tokens are counted by the server at once,
+ * so the cluster limit is never exceeded; the unused tokens are given back when the lease is renewed
+ * or the client is stopped.
+ * </p>
+ * <p>
+ * If the request batching is enabled ({@code csp.sentinel.cluster.client.request.batch.size} &gt; 1),
+ * the concurrent flow requests (that are not served by leases) are coalesced into a single batch request,
+ * optionally waiting {@code csp.sentinel.cluster.client.request.batch.window.us} microseconds for more requests.
+ * </p>
  *
  * @author Eric Zhao
  * @since 1.4.0
  */
-public class DefaultClusterTokenClient implements ClusterTokenClient {
+public class DefaultClusterTokenClient implements AsyncClusterTokenClient {
 
     private ClusterTransportClient transportClient;
     private TokenServerDescriptor serverDescriptor;
 
     private final AtomicBoolean shouldStart = new AtomicBoolean(false);
 
+    private final int leaseCount = ClusterClientStartUpConfig.getTokenLeaseCount();
+    private final FlowTokenLeases leases = new FlowTokenLeases();
+    /**
+     * Whether the current token server supports token leases.
+     */
+    private volatile boolean leaseSupported = true;
+
+    private final FlowRequestBatcher batcher = newBatcher();
+    /**
+     * Whether the current token server supports batch requests.
+     */
+    private volatile boolean batchSupported = true;
+
     public DefaultClusterTokenClient() {
         ClusterClientConfigManager.addServerChangeObserver(new ServerChangeObserver() {
             @Override
@@ -91,8 +131,11 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         }
         try {
             if (transportClient != null) {
+                returnLeases();
                 transportClient.stop();
             }
+            leaseSupported = true;
+            batchSupported = true;
             // Replace with new, even if the new client is not ready.
             this.transportClient = new NettyTransportClient(config.getServerHost(), config.getServerPort());
             this.serverDescriptor = new TokenServerDescriptor(config.getServerHost(), config.getServerPort());
@@ -116,6 +159,7 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
     private void stopClientIfStarted() throws Exception {
         if (shouldStart.compareAndSet(true, false)) {
             if (transportClient != null) {
+                returnLeases();
                 transportClient.stop();
             }
         }
@@ -151,8 +195,17 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         if (notValidRequest(flowId, acquireCount)) {
             return badRequest();
         }
+        if (leaseEnabled(prioritized)) {
+            TokenResult result = requestTokenFromLease(flowId, acquireCount);
+            if (result != null) {
+                return result;
+            }
+        }
         FlowRequestData data = new FlowRequestData().setCount(acquireCount)
             .setFlowId(flowId).setPriority(prioritized);
+        if (batchEnabled()) {
+            return awaitResult(batcher.submitAndWait(data));
+        }
         ClusterRequest<FlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data);
         try {
             TokenResult result = sendTokenRequest(request);
@@ -182,6 +235,312 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         }
     }
 
+    @Override
+    public SettableFuture<TokenResult> requestTokenAsync(Long flowId, int acquireCount, boolean prioritized) {
+        if (notValidRequest(flowId, acquireCount)) {
+            return SettableFuture.succeeded(badRequest());
+        }
+        if (leaseEnabled(prioritized)) {
+            // Only serve from the current lease, as renewing the lease blocks.
+            int remaining = leases.tryAcquire(flowId, acquireCount, TimeUtil.currentTimeMillis());
+            if (remaining >= 0) {
+                return SettableFuture.succeeded(leasedResult(remaining));
+            }
+        }
+        FlowRequestData data = new FlowRequestData().setCount(acquireCount)
+            .setFlowId(flowId).setPriority(prioritized);
+        if (batchEnabled()) {
+            return batcher.submit(data);
+        }
+        return sendTokenRequestAsync(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data));
+    }
+
+    @Override
+    public SettableFuture<TokenResult> requestParamTokenAsync(Long flowId, int acquireCount,
+                                                              Collection<Object> params) {
+        if (notValidRequest(flowId, acquireCount) || params == null || params.isEmpty()) {
+            return SettableFuture.succeeded(badRequest());
+        }
+        ParamFlowRequestData data = new ParamFlowRequestData().setCount(acquireCount)
+            .setFlowId(flowId).setParams(params);
+        return sendTokenRequestAsync(new ClusterRequest<>(ClusterConstants.MSG_TYPE_PARAM_FLOW, data));
+    }
+
+    private SettableFuture<TokenResult> sendTokenRequestAsync(ClusterRequest request) {
+        ClusterTransportClient transportClient = this.transportClient;
+        if (transportClient == null) {
+            RecordLog.warn(
+                "[DefaultClusterTokenClient] Client not created, please check your config for cluster client");
+            return SettableFuture.succeeded(clientFail());
+        }
+        if (!(transportClient instanceof AsyncClusterTransportClient)) {
+            // Fall back to the synchronous request.
+            TokenResult result;
+            try {
+                result = toTokenResult(transportClient.sendRequest(request));
+                logForResult(result);
+            } catch (Exception ex) {
+                ClusterClientStatLogUtil.log(ex.getMessage());
+                result = clientFail();
+            }
+            return SettableFuture.succeeded(result);
+        }
+        final SettableFuture<TokenResult> resultFuture = new SettableFuture<>();
+        ((AsyncClusterTransportClient)transportClient).sendRequestAsync(request)
+            .addListener(new Consumer<SettableFuture<ClusterResponse>>() {
+                @Override
+                public void accept(SettableFuture<ClusterResponse> future) {
+                    if (future.isSuccess()) {
+                        TokenResult result = toTokenResult(future.getNow());
+                        logForResult(result);
+                        resultFuture.set(result);
+                    } else {
+                        ClusterClientStatLogUtil.log(future.getCause().getMessage());
+                        resultFuture.set(clientFail());
+                    }
+                }
+            });
+        return resultFuture;
+    }
+
+    private FlowRequestBatcher newBatcher() {
+        int batchSize = ClusterClientStartUpConfig.getRequestBatchSize();
+        if (batchSize <= 1) {
+            return null;
+        }
+        long windowNanos = TimeUnit.MICROSECONDS.toNanos(ClusterClientStartUpConfig.getRequestBatchWindowMicros());
+        return new FlowRequestBatcher(batchSize, windowNanos, new FlowRequestBatcher.BatchSender() {
+            @Override
+            public void send(List<PendingFlowRequest> batch) {
+                sendFlowBatch(batch);
+            }
+        });
+    }
+
+    private boolean batchEnabled() {
+        return batcher != null && batchSupported;
+    }
+
+    private TokenResult awaitResult(SettableFuture<TokenResult> future) {
+        try {
+            // The future is always completed (at least on request timeout) with a token result.
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return clientFail();
+        } catch (ExecutionException ex) {
+            return clientFail();
+        }
+    }
+
+    private void sendFlowBatch(final List<PendingFlowRequest> batch) {
+        ClusterTransportClient transportClient = this.transportClient;
+        if (batch.size() == 1 || !(transportClient instanceof AsyncClusterTransportClient)) {
+            sendEach(batch);
+            return;
+        }
+        List<FlowRequestData> requests = new ArrayList<>(batch.size());
+        for (PendingFlowRequest request : batch) {
+            requests.add(request.data);
+        }
+        ClusterRequest<FlowBatchRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW_BATCH,
+            new FlowBatchRequestData().setRequests(requests));
+        ((AsyncClusterTransportClient)transportClient).sendRequestAsync(request)
+            .addListener(new Consumer<SettableFuture<ClusterResponse>>() {
+                @Override
+                public void accept(SettableFuture<ClusterResponse> future) {
+                    if (!future.isSuccess()) {
+                        ClusterClientStatLogUtil.log(future.getCause().getMessage());
+                        completeAll(batch, clientFail());
+                        return;
+                    }
+                    ClusterResponse response = future.getNow();
+                    Object data = response.getData();
+                    if (!(data instanceof FlowBatchResponseData)
+                        || ((FlowBatchResponseData)data).getResults().size() != batch.size()) {
+                        if (response.getStatus() == ClusterConstants.RESPONSE_STATUS_BAD) {
+                            RecordLog.warn("[DefaultClusterTokenClient] Batch request is not supported by server {}, "
+                                + "falling back to the normal token request", serverDescriptor);
+                            batchSupported = false;
+                            sendEach(batch);
+                        } else {
+                            completeAll(batch, new TokenResult(response.getStatus()));
+                        }
+                        return;
+                    }
+                    List<TokenResult> results = ((FlowBatchResponseData)data).getResults();
+                    for (int i = 0; i < batch.size(); i++) {
+                        logForResult(results.get(i));
+                        batch.get(i).future.set(results.get(i));
+                    }
+                }
+            });
+    }
+
+    private void sendEach(List<PendingFlowRequest> batch) {
+        for (final PendingFlowRequest request : batch) {
+            sendTokenRequestAsync(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, request.data))
+                .addListener(new Consumer<SettableFuture<TokenResult>>() {
+                    @Override
+                    public void accept(SettableFuture<TokenResult> future) {
+                        request.future.set(future.isSuccess() ? future.getNow() : clientFail());
+                    }
+                });
+        }
+    }
+
+    private void completeAll(List<PendingFlowRequest> batch, TokenResult result) {
+        for (PendingFlowRequest request : batch) {
+            request.future.set(result);
+        }
+    }
+
+    private boolean leaseEnabled(boolean prioritized) {
+        // Prioritized requests may wait for the next window, which is decided by the server.
+        return leaseCount > 0 && !prioritized && leaseSupported;
+    }
+
+    /**
+     * <p>Acquire tokens from the lease of the flow, and renew the lease if it's exhausted or expired.</p>
+     * <p>
+     * The renewal is single-flight: the first thread that finds the lease exhausted sends the (blocking)
+     * renewal request without holding any lock, and the other threads of the same flow wait for the same
+     * renewal, i.e. at most one request timeout ({@link ClusterClientConfigManager#getRequestTimeout()}).
+     * Then they all take the tokens from the renewed lease, or take the same failed result. A failed renewal
+     * is remembered until the time advised by the server (e.g. the next bucket for a blocked renewal),
+     * or for one request timeout, so the requests meanwhile fail fast instead of sending another renewal.
+     * The renewal is not started in advance: a lease has to be renewed together with giving back the
+     * unused tokens of the previous one, as the tokens are only valid within the lease TTL.
+     * </p>
+     *
+     * @return the token result, or null if the server does not support token leases
+     */
+    private TokenResult requestTokenFromLease(long flowId, int acquireCount) {
+        int remaining = leases.tryAcquire(flowId, acquireCount, TimeUtil.currentTimeMillis());
+        if (remaining >= 0) {
+            return leasedResult(remaining);
+        }
+        ClusterTransportClient transportClient = this.transportClient;
+        if (transportClient == null) {
+            return clientFail();
+        }
+        FlowTokenLeases.LeaseSlot slot = leases.slotOf(flowId);
+        SettableFuture<Integer> renewal = new SettableFuture<>();
+        SettableFuture<Integer> inFlight;
+        synchronized (slot) {
+            long now = TimeUtil.currentTimeMillis();
+            // The lease may have been renewed by other threads.
+            remaining = slot.tryAcquire(acquireCount, now);
+            if (remaining >= 0) {
+                return leasedResult(remaining);
+            }
+            int failedStatus = slot.failedStatus(now);
+            if (failedStatus != TokenResultStatus.OK) {
+                return new TokenResult(failedStatus);
+            }
+            inFlight = slot.joinRenewal(renewal);
+        }
+        int status = inFlight == renewal ? renewLease(transportClient, slot, flowId, acquireCount)
+            : awaitRenewal(inFlight);
+        if (status == TokenResultStatus.NOT_AVAILABLE) {
+            return null;
+        }
+        if (status != TokenResultStatus.OK) {
+            return new TokenResult(status);
+        }
+        remaining = slot.tryAcquire(acquireCount, TimeUtil.currentTimeMillis());
+        // The renewed lease may have been partially granted, or taken by other waiting threads.
+        return remaining >= 0 ? leasedResult(remaining) : new TokenResult(TokenResultStatus.BLOCKED);
+    }
+
+    /**
+     * Send the renewal request of the lease, record the renewed lease (or the failure) in the slot,
+     * and complete the in-flight renewal.
+     *
+     * @return response status of the renewal, {@link TokenResultStatus#NOT_AVAILABLE} if leases are not supported
+     */
+    private int renewLease(ClusterTransportClient transportClient, FlowTokenLeases.LeaseSlot slot,
+                           long flowId, int acquireCount) {
+        int status = TokenResultStatus.FAIL;
+        long now = TimeUtil.currentTimeMillis();
+        try {
+            FlowLeaseRequestData data = new FlowLeaseRequestData().setFlowId(flowId)
+                .setCount(Math.max(leaseCount, acquireCount))
+                .setReturnCount(slot.drain(now));
+            ClusterResponse response = transportClient.sendRequest(
+                new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW_LEASE, data));
+            if (!(response.getData() instanceof FlowLeaseResponseData)
+                || response.getStatus() == TokenResultStatus.NOT_AVAILABLE) {
+                RecordLog.warn("[DefaultClusterTokenClient] Token lease is not supported by server {}, "
+                    + "falling back to the normal token request", serverDescriptor);
+                leaseSupported = false;
+                status = TokenResultStatus.NOT_AVAILABLE;
+                return status;
+            }
+            FlowLeaseResponseData lease = (FlowLeaseResponseData)response.getData();
+            status = response.getStatus();
+            if (status != TokenResultStatus.OK) {
+                slot.fail(status, now + failureTtl(lease.getLeaseTtlMs()));
+                logForResult(new TokenResult(status));
+                return status;
+            }
+            // Partially granted tokens are kept for smaller requests.
+            slot.renew(lease.getGrantedCount(), now + lease.getLeaseTtlMs());
+            return status;
+        } catch (Exception ex) {
+            status = TokenResultStatus.FAIL;
+            slot.fail(status, now + failureTtl(0));
+            ClusterClientStatLogUtil.log(ex.getMessage());
+            return status;
+        } finally {
+            slot.completeRenewal(status);
+        }
+    }
+
+    private int awaitRenewal(SettableFuture<Integer> renewal) {
+        try {
+            // The renewal is always completed by the renewing thread within one request timeout.
+            return renewal.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return TokenResultStatus.FAIL;
+        } catch (ExecutionException ex) {
+            return TokenResultStatus.FAIL;
+        }
+    }
+
+    /**
+     * @param advisedMs time to remember the failure advised by the server, 0 if none
+     * @return time to remember the failed renewal, in ms
+     */
+    private long failureTtl(int advisedMs) {
+        return advisedMs > 0 ? advisedMs : Math.max(1, ClusterClientConfigManager.getRequestTimeout());
+    }
+
+    /**
+     * Give back the unused tokens of all leases to the current server (best-effort).
+     */
+    private void returnLeases() {
+        Map<Long, Integer> unused = leases.drainAll(TimeUtil.currentTimeMillis());
+        if (unused.isEmpty() || transportClient == null || !transportClient.isReady()) {
+            return;
+        }
+        for (Map.Entry<Long, Integer> e : unused.entrySet()) {
+            FlowLeaseRequestData data = new FlowLeaseRequestData().setFlowId(e.getKey())
+                .setCount(0).setReturnCount(e.getValue());
+            try {
+                transportClient.sendRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW_LEASE, data));
+            } catch (Exception ex) {
+                RecordLog.warn("[DefaultClusterTokenClient] Failed to return unused leased tokens of flow "
+                    + e.getKey(), ex);
+            }
+        }
+    }
+
+    private TokenResult leasedResult(int remaining) {
+        return new TokenResult(TokenResultStatus.OK).setRemaining(remaining).setWaitInMs(0);
+    }
+
     private void logForResult(TokenResult result) {
         switch (result.getStatus()) {
             case TokenResultStatus.NO_RULE_EXISTS:
@@ -200,7 +559,10 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
                 "[DefaultClusterTokenClient] Client not created, please check your config for cluster client");
             return clientFail();
         }
-        ClusterResponse response = transportClient.sendRequest(request);
+        return toTokenResult(transportClient.sendRequest(request));
+    }
+
+    private TokenResult toTokenResult(ClusterResponse response) {
         TokenResult result = new TokenResult(response.getStatus());
         if (response.getData() != null) {
             FlowTokenResponseData responseData = (FlowTokenResponseData)response.getData();
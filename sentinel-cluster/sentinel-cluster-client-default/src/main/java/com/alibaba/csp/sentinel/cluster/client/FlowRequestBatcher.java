@@ -0,0 +1,228 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+/**
+ * <p>
+ * Coalesces the concurrent flow requests into batches, without any extra thread.
+ * </p>
+ * <p>
+ * The request that arrives when no request is pending becomes the leader: it waits for the batch window
+ * (if any), then sends the pending requests in batches of at most {@code maxBatchSize}. The requests that
+ * arrive meanwhile are only queued, and sent by the leader.
+ * </p>
+ * <p>
+ * The leader sends at most {@link #MAX_LEADER_ROUNDS} batches, then hands the leadership over to a queued
+ * request whose thread is waiting in {@link #submitAndWait(FlowRequestData)}, so that no business thread
+ * keeps sending the requests of others under continuous load. If no such request is found (e.g. all queued
+ * requests are asynchronous), the leader keeps sending, so the queued requests are never left without a leader.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class FlowRequestBatcher {
+
+    static final int MAX_LEADER_ROUNDS = 2;
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_WAITING = 1;
+    private static final int STATE_LEADING = 2;
+
+    private static final AtomicIntegerFieldUpdater<PendingFlowRequest> STATE
+        = AtomicIntegerFieldUpdater.newUpdater(PendingFlowRequest.class, "state");
+
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final BatchSender sender;
+
+    private final ConcurrentLinkedQueue<PendingFlowRequest> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * Amount of the submitted requests that are not sent yet. It may be transiently negative,
+     * as the leader may send the requests that are queued but not counted yet.
+     */
+    private final AtomicInteger pending = new AtomicInteger(0);
+
+    /**
+     * @param maxBatchSize max amount of requests in a batch
+     * @param windowNanos  time to wait for more requests before sending, 0 for no waiting
+     * @param sender       sender of the batches
+     */
+    FlowRequestBatcher(int maxBatchSize, long windowNanos, BatchSender sender) {
+        AssertUtil.isTrue(maxBatchSize > 0, "maxBatchSize should be positive");
+        AssertUtil.notNull(sender, "sender cannot be null");
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = Math.max(0, windowNanos);
+        this.sender = sender;
+    }
+
+    /**
+     * Submit the flow request to be sent in a batch, without waiting for the result.
+     *
+     * @param data the flow request
+     * @return future of the token result
+     */
+    SettableFuture<TokenResult> submit(FlowRequestData data) {
+        PendingFlowRequest request = new PendingFlowRequest(data, STATE_IDLE);
+        enqueue(request);
+        return request.future;
+    }
+
+    /**
+     * Submit the flow request to be sent in a batch, and wait until the result is available. The waiting
+     * thread may take over the leadership and send the pending requests meanwhile.
+     *
+     * @param data the flow request
+     * @return future of the token result, which is not completed only if the thread is interrupted
+     */
+    SettableFuture<TokenResult> submitAndWait(FlowRequestData data) {
+        PendingFlowRequest request = new PendingFlowRequest(data, STATE_WAITING);
+        request.future.addListener(request);
+        enqueue(request);
+        await(request);
+        return request.future;
+    }
+
+    int getPendingCount() {
+        return pending.get();
+    }
+
+    private void enqueue(PendingFlowRequest request) {
+        queue.offer(request);
+        if (pending.getAndIncrement() == 0) {
+            // No other leader exists, so the request cannot be handed the leadership concurrently.
+            request.state = STATE_IDLE;
+            if (windowNanos > 0) {
+                LockSupport.parkNanos(windowNanos);
+            }
+            sendPending();
+        }
+    }
+
+    private void await(PendingFlowRequest request) {
+        boolean interrupted = false;
+        while (true) {
+            int state = request.state;
+            if (state == STATE_LEADING) {
+                request.state = STATE_IDLE;
+                sendPending();
+            } else if (request.future.isDone() || interrupted) {
+                if (state == STATE_IDLE || STATE.compareAndSet(request, STATE_WAITING, STATE_IDLE)) {
+                    break;
+                }
+                // The leadership has been handed over meanwhile, so lead before leaving.
+            } else {
+                LockSupport.park(this);
+                interrupted = Thread.interrupted();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendPending() {
+        for (int round = 1; ; round++) {
+            List<PendingFlowRequest> batch = new ArrayList<>();
+            PendingFlowRequest request;
+            while (batch.size() < maxBatchSize && (request = queue.poll()) != null) {
+                batch.add(request);
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    sender.send(batch);
+                } catch (Throwable ex) {
+                    RecordLog.warn("[FlowRequestBatcher] Failed to send the batch of flow requests", ex);
+                    for (PendingFlowRequest r : batch) {
+                        r.future.set(new TokenResult(TokenResultStatus.FAIL));
+                    }
+                }
+            }
+            if (pending.addAndGet(-batch.size()) <= 0) {
+                return;
+            }
+            if (round >= MAX_LEADER_ROUNDS && handOver()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hand the leadership over to one of the first queued requests whose thread is waiting.
+     * The pending count stays positive, so no new request becomes the leader meanwhile.
+     *
+     * @return whether the leadership has been handed over
+     */
+    private boolean handOver() {
+        int scanned = 0;
+        for (PendingFlowRequest request : queue) {
+            if (STATE.compareAndSet(request, STATE_WAITING, STATE_LEADING)) {
+                LockSupport.unpark(request.owner);
+                return true;
+            }
+            if (++scanned >= maxBatchSize) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    interface BatchSender {
+
+        /**
+         * Send the batch of requests, and complete the futures of the requests once responded.
+         * It's invoked in the thread of the caller, so it should not block.
+         *
+         * @param batch the requests, not empty
+         */
+        void send(List<PendingFlowRequest> batch);
+    }
+
+    static final class PendingFlowRequest implements Consumer<SettableFuture<TokenResult>> {
+        final FlowRequestData data;
+        final SettableFuture<TokenResult> future = new SettableFuture<>();
+        final Thread owner = Thread.currentThread();
+        volatile int state;
+
+        PendingFlowRequest(FlowRequestData data, int state) {
+            this.data = data;
+            this.state = state;
+        }
+
+        /**
+         * Wake up the waiting owner thread once the future is completed.
+         */
+        @Override
+        public void accept(SettableFuture<TokenResult> completed) {
+            LockSupport.unpark(owner);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+
+/**
+ * <p>
+ * Token leases of the flows in the client. A lease is a batch of tokens prefetched from the token server,
+ * which are acquired locally (lock-free) until exhausted or expired.
+ * </p>
+ * <p>
+ * Renewing the lease of a flow is single-flight: only one renewal request of a flow is in flight, and the
+ * other threads that find the lease exhausted wait for the same renewal and share its result, so they are
+ * blocked for up to one request timeout. A failed (or blocked) renewal is remembered by the {@link LeaseSlot}
+ * for a while, so that the requests fail fast instead of sending another renewal each.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class FlowTokenLeases {
+
+    private final ConcurrentMap<Long, LeaseSlot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * Try to acquire tokens from the current lease of the flow.
+     *
+     * @param flowId the flow ID
+     * @param count  amount of tokens to acquire
+     * @param now    current time in ms
+     * @return remaining tokens of the lease after acquiring, or -1 if the lease is absent, expired or exhausted
+     */
+    int tryAcquire(long flowId, int count, long now) {
+        LeaseSlot slot = slots.get(flowId);
+        return slot == null ? -1 : slot.tryAcquire(count, now);
+    }
+
+    LeaseSlot slotOf(long flowId) {
+        LeaseSlot slot = slots.get(flowId);
+        if (slot == null) {
+            LeaseSlot newSlot = new LeaseSlot();
+            slot = slots.putIfAbsent(flowId, newSlot);
+            if (slot == null) {
+                slot = newSlot;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Remove all leases.
+     *
+     * @param now current time in ms
+     * @return the unused tokens of the unexpired leases, (flowId, count)
+     */
+    Map<Long, Integer> drainAll(long now) {
+        Map<Long, Integer> unused = new HashMap<>();
+        for (Map.Entry<Long, LeaseSlot> e : slots.entrySet()) {
+            int count = e.getValue().drain(now);
+            if (count > 0) {
+                unused.put(e.getKey(), count);
+            }
+        }
+        slots.clear();
+        return unused;
+    }
+
+    static final class LeaseSlot {
+
+        private volatile Lease lease;
+        private volatile RenewalFailure failure;
+        /**
+         * The in-flight renewal, completed with the response status. Guarded by the slot.
+         */
+        private SettableFuture<Integer> renewal;
+
+        int tryAcquire(int count, long now) {
+            Lease cur = lease;
+            return cur == null ? -1 : cur.tryAcquire(count, now);
+        }
+
+        /**
+         * @param now current time in ms
+         * @return status of the last failed renewal if it's still remembered, otherwise {@link TokenResultStatus#OK}
+         */
+        int failedStatus(long now) {
+            RenewalFailure cur = failure;
+            return cur != null && now < cur.until ? cur.status : TokenResultStatus.OK;
+        }
+
+        /**
+         * Join the in-flight renewal, or start the given one if no renewal is in flight.
+         * If the returned renewal is the given one, the caller should renew the lease and then
+         * {@link #completeRenewal(int)}.
+         *
+         * @param candidate the renewal to start
+         * @return the in-flight renewal
+         */
+        synchronized SettableFuture<Integer> joinRenewal(SettableFuture<Integer> candidate) {
+            if (renewal == null) {
+                renewal = candidate;
+            }
+            return renewal;
+        }
+
+        /**
+         * Complete the in-flight renewal, after the lease (or the failure) has been recorded.
+         *
+         * @param status response status of the renewal
+         */
+        void completeRenewal(int status) {
+            SettableFuture<Integer> cur;
+            synchronized (this) {
+                cur = renewal;
+                renewal = null;
+            }
+            if (cur != null) {
+                cur.set(status);
+            }
+        }
+
+        /**
+         * Take the unused tokens of the current lease and invalidate it.
+         *
+         * @param now current time in ms
+         * @return the unused tokens, 0 if expired
+         */
+        int drain(long now) {
+            Lease cur = lease;
+            if (cur == null) {
+                return 0;
+            }
+            int unused = cur.remaining.getAndSet(0);
+            return now < cur.expireAt ? unused : 0;
+        }
+
+        void renew(int count, long expireAt) {
+            this.failure = null;
+            this.lease = new Lease(count, expireAt);
+        }
+
+        /**
+         * Invalidate the lease, and remember the failed renewal.
+         *
+         * @param status status of the failed renewal
+         * @param until  time (in ms) until when the failure is remembered
+         */
+        void fail(int status, long until) {
+            this.lease = null;
+            this.failure = new RenewalFailure(status, until);
+        }
+    }
+
+    private static final class RenewalFailure {
+        final int status;
+        final long until;
+
+        RenewalFailure(int status, long until) {
+            this.status = status;
+            this.until = until;
+        }
+    }
+
+    private static final class Lease {
+        final AtomicInteger remaining;
+        final long expireAt;
+
+        Lease(int count, long expireAt) {
+            this.remaining = new AtomicInteger(count);
+            this.expireAt = expireAt;
+        }
+
+        int tryAcquire(int count, long now) {
+            if (now >= expireAt) {
+                return -1;
+            }
+            while (true) {
+                int cur = remaining.get();
+                if (cur < count) {
+                    return -1;
+                }
+                if (remaining.compareAndSet(cur, cur - count)) {
+                    return cur - count;
+                }
+            }
+        }
+    }
+}
@@ -15,25 +15,28 @@
  */
 package com.alibaba.csp.sentinel.cluster.client;
 
-import java.util.AbstractMap.SimpleEntry;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.alibaba.csp.sentinel.cluster.AsyncClusterTransportClient;
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
 import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
-import com.alibaba.csp.sentinel.cluster.ClusterTransportClient;
 import com.alibaba.csp.sentinel.cluster.client.codec.netty.NettyRequestEncoder;
 import com.alibaba.csp.sentinel.cluster.client.codec.netty.NettyResponseDecoder;
 import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.client.handler.InFlightRequestTable;
 import com.alibaba.csp.sentinel.cluster.client.handler.TokenClientHandler;
-import com.alibaba.csp.sentinel.cluster.client.handler.TokenClientPromiseHolder;
 import com.alibaba.csp.sentinel.cluster.exception.SentinelClusterException;
 import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
 import com.alibaba.csp.sentinel.cluster.request.Request;
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
 import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 
@@ -41,24 +44,29 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.ChannelPromise;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.util.concurrent.GenericFutureListener;
 
 /**
- * Netty transport client implementation for Sentinel cluster transport.
+ * <p>Netty transport client implementation for Sentinel cluster transport.</p>
+ * <p>
+ * Requests are pipelined: many requests could be outstanding in the same connection, whose responses are
+ * matched by the xid via the {@link InFlightRequestTable}. The flushes of concurrent requests are consolidated.
+ * </p>
  *
  * @author Eric Zhao
  * @since 1.4.0
  */
-public class NettyTransportClient implements ClusterTransportClient {
+public class NettyTransportClient implements AsyncClusterTransportClient {
 
     @SuppressWarnings("PMD.ThreadPoolCreationRule")
     private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(1,
@@ -73,7 +81,7 @@ public class NettyTransportClient implements ClusterTransportClient {
     private NioEventLoopGroup eventLoopGroup;
     private TokenClientHandler clientHandler;
 
-    private final AtomicInteger idGenerator = new AtomicInteger(0);
+    private final InFlightRequestTable requestTable = new InFlightRequestTable();
     private final AtomicInteger currentState = new AtomicInteger(ClientConstants.CLIENT_STATUS_OFF);
     private final AtomicInteger failConnectedTime = new AtomicInteger(0);
 
@@ -97,10 +105,11 @@ public class NettyTransportClient implements ClusterTransportClient {
             .handler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) throws Exception {
-                    clientHandler = new TokenClientHandler(currentState, disconnectCallback);
+                    clientHandler = new TokenClientHandler(currentState, disconnectCallback, requestTable);
 
                     ChannelPipeline pipeline = ch.pipeline();
-                    pipeline.addLast(new LengthFieldBasedFrameDecoder(1024, 0, 2, 0, 2));
+                    pipeline.addLast(new FlushConsolidationHandler(FLUSH_CONSOLIDATION_LIMIT, true));
+                    pipeline.addLast(new LengthFieldBasedFrameDecoder(ClusterConstants.MAX_FRAME_LENGTH, 0, 2, 0, 2));
                     pipeline.addLast(new NettyResponseDecoder());
                     pipeline.addLast(new LengthFieldPrepender(2));
                     pipeline.addLast(new NettyRequestEncoder());
@@ -207,64 +216,50 @@ public class NettyTransportClient implements ClusterTransportClient {
 
     @Override
     public ClusterResponse sendRequest(ClusterRequest request) throws Exception {
-        if (!isReady()) {
-            throw new SentinelClusterException(ClusterErrorMessages.CLIENT_NOT_READY);
-        }
-        if (!validRequest(request)) {
-            throw new SentinelClusterException(ClusterErrorMessages.BAD_REQUEST);
-        }
-        int xid = getCurrentId();
+        SettableFuture<ClusterResponse> future = sendRequestAsync(request);
         try {
-            request.setId(xid);
-
-            channel.writeAndFlush(request);
-
-            ChannelPromise promise = channel.newPromise();
-            TokenClientPromiseHolder.putPromise(xid, promise);
-
-            if (!promise.await(ClusterClientConfigManager.getRequestTimeout())) {
-                throw new SentinelClusterException(ClusterErrorMessages.REQUEST_TIME_OUT);
-            }
-
-            SimpleEntry<ChannelPromise, ClusterResponse> entry = TokenClientPromiseHolder.getEntry(xid);
-            if (entry == null || entry.getValue() == null) {
-                // Should not go through here.
-                throw new SentinelClusterException(ClusterErrorMessages.UNEXPECTED_STATUS);
-            }
-            return entry.getValue();
-        } finally {
-            TokenClientPromiseHolder.remove(xid);
+            return future.get(ClusterClientConfigManager.getRequestTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            requestTable.cancel(request.getId());
+            throw new SentinelClusterException(ClusterErrorMessages.REQUEST_TIME_OUT);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof Exception ? (Exception)cause : ex;
         }
     }
 
-    private int getCurrentId() {
-        if (idGenerator.get() > MAX_ID) {
-            idGenerator.set(0);
+    @Override
+    public SettableFuture<ClusterResponse> sendRequestAsync(ClusterRequest request) {
+        Channel channel = this.channel;
+        if (channel == null || !isReady()) {
+            return SettableFuture.failed(new SentinelClusterException(ClusterErrorMessages.CLIENT_NOT_READY));
         }
-        return idGenerator.incrementAndGet();
-    }
-
-    /*public CompletableFuture<ClusterResponse> sendRequestAsync(ClusterRequest request) {
-        // Uncomment this when min target JDK is 1.8.
         if (!validRequest(request)) {
-            return CompletableFuture.failedFuture(new IllegalArgumentException("Bad request"));
+            return SettableFuture.failed(new SentinelClusterException(ClusterErrorMessages.BAD_REQUEST));
+        }
+        final SettableFuture<ClusterResponse> future = new SettableFuture<>();
+        long deadline = System.nanoTime()
+            + TimeUnit.MILLISECONDS.toNanos(ClusterClientConfigManager.getRequestTimeout());
+        final int xid = requestTable.register(future, deadline);
+        if (xid < 0) {
+            return SettableFuture.failed(
+                new SentinelClusterException(ClusterErrorMessages.TOO_MANY_IN_FLIGHT_REQUESTS));
         }
-        int xid = getCurrentId();
         request.setId(xid);
-
-        CompletableFuture<ClusterResponse> future = new CompletableFuture<>();
-        channel.writeAndFlush(request)
-            .addListener(f -> {
-                if (f.isSuccess()) {
-                    future.complete(someResult);
-                } else if (f.cause() != null) {
-                    future.completeExceptionally(f.cause());
-                } else {
-                    future.cancel(false);
+        channel.writeAndFlush(request).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) {
+                if (!f.isSuccess() && requestTable.cancel(xid)) {
+                    future.setException(f.cause() != null ? f.cause()
+                        : new SentinelClusterException(ClusterErrorMessages.CONNECTION_CLOSED));
                 }
-            });
+            }
+        });
         return future;
-    }*/
+    }
 
-    private static final int MAX_ID = 999_999_999;
+    /**
+     * Max amount of flushes that could be consolidated into one.
+     */
+    private static final int FLUSH_CONSOLIDATION_LIMIT = 64;
 }
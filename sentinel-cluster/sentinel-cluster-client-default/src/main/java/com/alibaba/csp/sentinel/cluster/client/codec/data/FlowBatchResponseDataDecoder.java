@@ -0,0 +1,52 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.codec.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.codec.EntityDecoder;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowBatchResponseData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * @author agent
+ * @since 1.8.0
+ */
+public class FlowBatchResponseDataDecoder implements EntityDecoder<ByteBuf, FlowBatchResponseData> {
+
+    private static final int RESULT_LENGTH = 9;
+
+    @Override
+    public FlowBatchResponseData decode(ByteBuf source) {
+        if (source.readableBytes() < 2) {
+            return null;
+        }
+        int amount = source.readUnsignedShort();
+        if (source.readableBytes() < amount * RESULT_LENGTH) {
+            return null;
+        }
+        List<TokenResult> results = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            results.add(new TokenResult((int)source.readByte())
+                .setRemaining(source.readInt())
+                .setWaitInMs(source.readInt()));
+        }
+        return new FlowBatchResponseData().setResults(results);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.cluster.client.config;
 
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 
@@ -29,6 +30,9 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 public class ClusterClientStartUpConfig {
 
     private static final String MAX_PARAM_BYTE_SIZE = "csp.sentinel.cluster.max.param.byte.size";
+    private static final String TOKEN_LEASE_COUNT = "csp.sentinel.cluster.client.token.lease.count";
+    private static final String REQUEST_BATCH_SIZE = "csp.sentinel.cluster.client.request.batch.size";
+    private static final String REQUEST_BATCH_WINDOW_MICROS = "csp.sentinel.cluster.client.request.batch.window.us";
 
     /**
      * Get the max bytes params can be serialized
@@ -45,5 +49,47 @@ public class ClusterClientStartUpConfig {
         }
     }
 
+    /**
+     * Get the amount of tokens to prefetch in a token lease.
+     *
+     * @return the amount of tokens in a lease, 0 if token lease is disabled
+     * @since 1.8.0
+     */
+    public static int getTokenLeaseCount() {
+        return parseNonNegativeInt(TOKEN_LEASE_COUNT, "tokenLeaseCount");
+    }
+
+    /**
+     * Get the max amount of concurrent flow requests to coalesce into a batch request.
+     *
+     * @return the max batch size, 0 if request batching is disabled
+     * @since 1.8.0
+     */
+    public static int getRequestBatchSize() {
+        int batchSize = parseNonNegativeInt(REQUEST_BATCH_SIZE, "requestBatchSize");
+        return Math.min(batchSize, ClusterConstants.MAX_FLOW_BATCH_SIZE);
+    }
 
+    /**
+     * Get the time (in microseconds) to wait for more concurrent flow requests before sending a batch.
+     *
+     * @return the batch window in microseconds, 0 if only the requests arrived meanwhile are batched
+     * @since 1.8.0
+     */
+    public static int getRequestBatchWindowMicros() {
+        return parseNonNegativeInt(REQUEST_BATCH_WINDOW_MICROS, "requestBatchWindowMicros");
+    }
+
+    private static int parseNonNegativeInt(String key, String name) {
+        String value = SentinelConfig.getConfig(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (Exception ex) {
+            RecordLog.warn("[ClusterClientStartUpConfig] Failed to parse " + name + ": " + value);
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.handler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
+import com.alibaba.csp.sentinel.cluster.exception.SentinelClusterException;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>
+ * Lock-free table of the in-flight requests of one connection, indexed by {@code xid & (capacity - 1)}.
+ * </p>
+ * <p>
+ * The xid is allocated sequentially, so a slot is reused only after {@code capacity} later requests.
+ * If the slot of the xid is still occupied by a slow request, the next xids are tried, so at most
+ * {@code capacity} requests could be outstanding. The xid is kept in the slot to tell stale responses
+ * (e.g. of timed out requests) from the current ones.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class InFlightRequestTable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Max amount of xids to try when the slots are occupied by the outstanding requests.
+     */
+    private static final int MAX_PROBES = 16;
+
+    private final int mask;
+    private final AtomicReferenceArray<PendingRequest> slots;
+    private final AtomicInteger idGenerator = new AtomicInteger(0);
+
+    public InFlightRequestTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity max amount of outstanding requests, which should be a power of 2
+     */
+    public InFlightRequestTable(int capacity) {
+        AssertUtil.isTrue(capacity > 0 && Integer.bitCount(capacity) == 1, "capacity should be a power of 2");
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Allocate a new xid and register the future of its response.
+     *
+     * @param future       the future of the response
+     * @param deadlineNano deadline of the request, in {@link System#nanoTime()}
+     * @return the xid (positive), or -1 if no free slot is found (i.e. too many requests are outstanding)
+     */
+    public int register(SettableFuture<ClusterResponse> future, long deadlineNano) {
+        PendingRequest request = null;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            // 0 is reserved for the ping request.
+            int xid = idGenerator.incrementAndGet() & Integer.MAX_VALUE;
+            if (xid == 0) {
+                continue;
+            }
+            if (request == null) {
+                request = new PendingRequest(xid, future, deadlineNano);
+            } else {
+                request.xid = xid;
+            }
+            if (slots.compareAndSet(xid & mask, null, request)) {
+                return xid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Complete the request with the response.
+     *
+     * @param xid      the xid of the response
+     * @param response the response
+     * @return true if the request is in flight and completed, otherwise false
+     */
+    public boolean complete(int xid, ClusterResponse response) {
+        PendingRequest request = remove(xid);
+        return request != null && request.future.set(response);
+    }
+
+    /**
+     * Remove the request without completing it.
+     *
+     * @param xid the xid
+     * @return the removed request, or null if the request is not in flight
+     */
+    PendingRequest remove(int xid) {
+        int index = xid & mask;
+        PendingRequest request = slots.get(index);
+        if (request != null && request.xid == xid && slots.compareAndSet(index, request, null)) {
+            return request;
+        }
+        return null;
+    }
+
+    /**
+     * Remove the request of the xid.
+     *
+     * @param xid the xid
+     * @return true if the request is in flight and removed
+     */
+    public boolean cancel(int xid) {
+        return remove(xid) != null;
+    }
+
+    /**
+     * Fail the requests that have passed their deadline.
+     *
+     * @param nowNano current time in {@link System#nanoTime()}
+     * @return amount of the expired requests
+     */
+    public int expire(long nowNano) {
+        int expired = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            PendingRequest request = slots.get(i);
+            if (request != null && nowNano - request.deadlineNano >= 0 && slots.compareAndSet(i, request, null)) {
+                request.future.setException(new SentinelClusterException(ClusterErrorMessages.REQUEST_TIME_OUT));
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Fail all the in-flight requests, e.g. when the connection is closed.
+     *
+     * @param errorMessage the error message
+     */
+    public void failAll(String errorMessage) {
+        for (int i = 0; i < slots.length(); i++) {
+            PendingRequest request = slots.getAndSet(i, null);
+            if (request != null) {
+                request.future.setException(new SentinelClusterException(errorMessage));
+            }
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    static final class PendingRequest {
+        /**
+         * Only changed before the request is published into the table.
+         */
+        int xid;
+        final SettableFuture<ClusterResponse> future;
+        final long deadlineNano;
+
+        PendingRequest(int xid, SettableFuture<ClusterResponse> future, long deadlineNano) {
+            this.xid = xid;
+            this.future = future;
+            this.deadlineNano = deadlineNano;
+        }
+    }
+}
@@ -16,9 +16,11 @@
 package com.alibaba.csp.sentinel.cluster.client.handler;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
 import com.alibaba.csp.sentinel.cluster.client.ClientConstants;
 import com.alibaba.csp.sentinel.cluster.registry.ConfigSupplierRegistry;
 import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
@@ -27,6 +29,7 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.concurrent.ScheduledFuture;
 
 /**
  * Netty client handler for Sentinel token client.
@@ -36,17 +39,33 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
  */
 public class TokenClientHandler extends ChannelInboundHandlerAdapter {
 
+    /**
+     * Interval of checking the timed out requests, so that their futures are completed.
+     */
+    private static final long EXPIRE_CHECK_INTERVAL_MS = 10;
+
     private final AtomicInteger currentState;
     private final Runnable disconnectCallback;
+    private final InFlightRequestTable requestTable;
+
+    private ScheduledFuture<?> expireTask;
 
-    public TokenClientHandler(AtomicInteger currentState, Runnable disconnectCallback) {
+    public TokenClientHandler(AtomicInteger currentState, Runnable disconnectCallback,
+                              InFlightRequestTable requestTable) {
         this.currentState = currentState;
         this.disconnectCallback = disconnectCallback;
+        this.requestTable = requestTable;
     }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         currentState.set(ClientConstants.CLIENT_STATUS_STARTED);
+        expireTask = ctx.executor().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                requestTable.expire(System.nanoTime());
+            }
+        }, EXPIRE_CHECK_INTERVAL_MS, EXPIRE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
         fireClientPing(ctx);
         RecordLog.info("[TokenClientHandler] Client handler active, remote address: " + getRemoteAddress(ctx));
     }
@@ -61,7 +80,7 @@ public class TokenClientHandler extends ChannelInboundHandlerAdapter {
                 return;
             }
 
-            TokenClientPromiseHolder.completePromise(response.getId(), response);
+            requestTable.complete(response.getId(), response);
         }
     }
 
@@ -91,6 +110,10 @@ public class TokenClientHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         RecordLog.info("[TokenClientHandler] Client handler inactive, remote address: " + getRemoteAddress(ctx));
+        if (expireTask != null) {
+            expireTask.cancel(false);
+        }
+        requestTable.failAll(ClusterErrorMessages.CONNECTION_CLOSED);
     }
 
     @Override
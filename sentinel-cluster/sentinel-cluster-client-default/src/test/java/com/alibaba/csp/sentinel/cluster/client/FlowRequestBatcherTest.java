@@ -0,0 +1,193 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.FlowRequestBatcher.PendingFlowRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class FlowRequestBatcherTest {
+
+    @Test
+    public void testSubmitWithoutContention() throws Exception {
+        final List<Integer> batchSizes = new ArrayList<>();
+        FlowRequestBatcher batcher = new FlowRequestBatcher(8, 0, new FlowRequestBatcher.BatchSender() {
+            @Override
+            public void send(List<PendingFlowRequest> batch) {
+                batchSizes.add(batch.size());
+                for (PendingFlowRequest request : batch) {
+                    request.future.set(new TokenResult(TokenResultStatus.OK)
+                        .setRemaining((int)request.data.getFlowId()));
+                }
+            }
+        });
+        SettableFuture<TokenResult> future = batcher.submit(new FlowRequestData().setFlowId(3L).setCount(1));
+        assertTrue(future.isDone());
+        assertEquals(3, future.get().getRemaining());
+        assertEquals(1, batchSizes.size());
+        assertEquals(Integer.valueOf(1), batchSizes.get(0));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreAllSent() throws Exception {
+        final int maxBatchSize = 4;
+        final AtomicInteger sentCount = new AtomicInteger();
+        final AtomicInteger oversizedBatches = new AtomicInteger();
+        final FlowRequestBatcher batcher = new FlowRequestBatcher(maxBatchSize, TimeUnit.MICROSECONDS.toNanos(50),
+            new FlowRequestBatcher.BatchSender() {
+                @Override
+                public void send(List<PendingFlowRequest> batch) {
+                    if (batch.size() > maxBatchSize) {
+                        oversizedBatches.incrementAndGet();
+                    }
+                    sentCount.addAndGet(batch.size());
+                    for (PendingFlowRequest request : batch) {
+                        request.future.set(new TokenResult(TokenResultStatus.OK));
+                    }
+                }
+            });
+        int threads = 8;
+        final int requestsPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger failed = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            final boolean async = t % 2 == 0;
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < requestsPerThread; i++) {
+                            FlowRequestData data = new FlowRequestData().setFlowId(1L).setCount(1);
+                            TokenResult result = (async ? batcher.submit(data) : batcher.submitAndWait(data))
+                                .get(5, TimeUnit.SECONDS);
+                            if (result.getStatus() != TokenResultStatus.OK) {
+                                failed.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception ex) {
+                        failed.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdownNow();
+        assertEquals(0, failed.get());
+        assertEquals(0, oversizedBatches.get());
+        assertEquals(threads * requestsPerThread, sentCount.get());
+    }
+
+    @Test
+    public void testLeaderIsHandedOverAfterMaxRounds() throws Exception {
+        final CountDownLatch firstSending = new CountDownLatch(1);
+        final CountDownLatch releaseFirst = new CountDownLatch(1);
+        final Map<Thread, AtomicInteger> sentByThread = new ConcurrentHashMap<>();
+        final FlowRequestBatcher batcher = new FlowRequestBatcher(1, 0, new FlowRequestBatcher.BatchSender() {
+            @Override
+            public void send(List<PendingFlowRequest> batch) {
+                if (firstSending.getCount() > 0) {
+                    firstSending.countDown();
+                    try {
+                        releaseFirst.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                AtomicInteger sent = sentByThread.get(Thread.currentThread());
+                if (sent == null) {
+                    sent = new AtomicInteger();
+                    sentByThread.put(Thread.currentThread(), sent);
+                }
+                sent.addAndGet(batch.size());
+                for (PendingFlowRequest request : batch) {
+                    request.future.set(new TokenResult(TokenResultStatus.OK));
+                }
+            }
+        });
+        int requests = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(requests);
+        final CountDownLatch done = new CountDownLatch(requests);
+        final AtomicInteger succeeded = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    FlowRequestData data = new FlowRequestData().setFlowId(1L).setCount(1);
+                    if (batcher.submitAndWait(data).getNow().getStatus() == TokenResultStatus.OK) {
+                        succeeded.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        pool.submit(task);
+        assertTrue(firstSending.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < requests; i++) {
+            pool.submit(task);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batcher.getPendingCount() < requests && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(requests, batcher.getPendingCount());
+        releaseFirst.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pool.shutdownNow();
+        assertEquals(requests, succeeded.get());
+        assertEquals(0, batcher.getPendingCount());
+        // Every leader sends at most MAX_LEADER_ROUNDS batches of one request.
+        for (AtomicInteger sent : sentByThread.values()) {
+            assertTrue(sent.get() <= FlowRequestBatcher.MAX_LEADER_ROUNDS);
+        }
+        assertTrue(sentByThread.size() > 1);
+    }
+
+    @Test
+    public void testSenderFailure() throws Exception {
+        FlowRequestBatcher batcher = new FlowRequestBatcher(8, 0, new FlowRequestBatcher.BatchSender() {
+            @Override
+            public void send(List<PendingFlowRequest> batch) {
+                throw new IllegalStateException("mock failure");
+            }
+        });
+        TokenResult result = batcher.submit(new FlowRequestData().setFlowId(1L).setCount(1)).get();
+        assertEquals(TokenResultStatus.FAIL, (int)result.getStatus());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class FlowTokenLeasesTest {
+
+    @Test
+    public void testAcquireFromLease() {
+        FlowTokenLeases leases = new FlowTokenLeases();
+        long flowId = 1L;
+        assertEquals(-1, leases.tryAcquire(flowId, 1, 0));
+
+        leases.slotOf(flowId).renew(5, 1000);
+        assertEquals(3, leases.tryAcquire(flowId, 2, 10));
+        assertEquals(-1, leases.tryAcquire(flowId, 4, 10));
+        assertEquals(0, leases.tryAcquire(flowId, 3, 10));
+        assertEquals(-1, leases.tryAcquire(flowId, 1, 10));
+    }
+
+    @Test
+    public void testLeaseExpired() {
+        FlowTokenLeases leases = new FlowTokenLeases();
+        long flowId = 2L;
+        leases.slotOf(flowId).renew(5, 1000);
+        assertEquals(-1, leases.tryAcquire(flowId, 1, 1000));
+        // Unused tokens of expired leases have slid out of the window on the server.
+        assertEquals(0, leases.slotOf(flowId).drain(1000));
+    }
+
+    @Test
+    public void testDrainAll() {
+        FlowTokenLeases leases = new FlowTokenLeases();
+        leases.slotOf(1L).renew(5, 1000);
+        leases.slotOf(2L).renew(3, 1000);
+        leases.tryAcquire(1L, 2, 10);
+        leases.tryAcquire(2L, 3, 10);
+
+        Map<Long, Integer> unused = leases.drainAll(10);
+        assertEquals(1, unused.size());
+        assertEquals(Integer.valueOf(3), unused.get(1L));
+        assertEquals(-1, leases.tryAcquire(1L, 1, 10));
+    }
+
+    @Test
+    public void testSingleFlightRenewal() throws Exception {
+        FlowTokenLeases.LeaseSlot slot = new FlowTokenLeases().slotOf(1L);
+        SettableFuture<Integer> first = new SettableFuture<>();
+        SettableFuture<Integer> second = new SettableFuture<>();
+        assertSame(first, slot.joinRenewal(first));
+        // Joins the in-flight renewal.
+        assertSame(first, slot.joinRenewal(second));
+
+        slot.renew(5, 1000);
+        slot.completeRenewal(TokenResultStatus.OK);
+        assertTrue(first.isDone());
+        assertEquals(Integer.valueOf(TokenResultStatus.OK), first.get());
+        assertEquals(4, slot.tryAcquire(1, 10));
+        // A new renewal can be started once completed.
+        assertSame(second, slot.joinRenewal(second));
+    }
+
+    @Test
+    public void testRememberFailedRenewal() {
+        FlowTokenLeases.LeaseSlot slot = new FlowTokenLeases().slotOf(1L);
+        slot.renew(5, 1000);
+        slot.fail(TokenResultStatus.BLOCKED, 100);
+        assertEquals(-1, slot.tryAcquire(1, 10));
+        assertEquals(TokenResultStatus.BLOCKED, slot.failedStatus(10));
+        assertEquals(TokenResultStatus.OK, slot.failedStatus(100));
+
+        slot.fail(TokenResultStatus.FAIL, 200);
+        slot.renew(5, 1000);
+        assertEquals(TokenResultStatus.OK, slot.failedStatus(10));
+    }
+}
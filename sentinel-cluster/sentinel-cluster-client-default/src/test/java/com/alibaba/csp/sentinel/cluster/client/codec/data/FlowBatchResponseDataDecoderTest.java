@@ -0,0 +1,62 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.codec.data;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowBatchResponseData;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class FlowBatchResponseDataDecoderTest {
+
+    @Test
+    public void testDecode() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(2);
+        buf.writeByte(TokenResultStatus.OK);
+        buf.writeInt(12);
+        buf.writeInt(0);
+        buf.writeByte(TokenResultStatus.BLOCKED);
+        buf.writeInt(0);
+        buf.writeInt(13);
+
+        FlowBatchResponseData data = new FlowBatchResponseDataDecoder().decode(buf);
+        List<TokenResult> results = data.getResults();
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(TokenResultStatus.OK, (int)results.get(0).getStatus());
+        Assert.assertEquals(12, results.get(0).getRemaining());
+        Assert.assertEquals(TokenResultStatus.BLOCKED, (int)results.get(1).getStatus());
+        Assert.assertEquals(13, results.get(1).getWaitInMs());
+    }
+
+    @Test
+    public void testDecodeTruncated() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(2);
+        buf.writeByte(TokenResultStatus.OK);
+        buf.writeInt(12);
+        buf.writeInt(0);
+        Assert.assertNull(new FlowBatchResponseDataDecoder().decode(buf));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client.handler;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.ClusterErrorMessages;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author agent
+ */
+public class InFlightRequestTableTest {
+
+    private static final long FAR_DEADLINE = System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    public void testCompletePipelinedRequests() {
+        InFlightRequestTable table = new InFlightRequestTable(8);
+        SettableFuture<ClusterResponse> f1 = new SettableFuture<>();
+        SettableFuture<ClusterResponse> f2 = new SettableFuture<>();
+        int xid1 = table.register(f1, FAR_DEADLINE);
+        int xid2 = table.register(f2, FAR_DEADLINE);
+        assertThat(xid1).isPositive();
+        assertThat(xid2).isNotEqualTo(xid1);
+
+        // Responses could arrive out of order.
+        ClusterResponse r2 = new ClusterResponse(xid2, 1, 0, null);
+        assertThat(table.complete(xid2, r2)).isTrue();
+        assertThat(f2.getNow()).isSameAs(r2);
+        assertThat(f1.isDone()).isFalse();
+
+        assertThat(table.complete(xid1, new ClusterResponse(xid1, 1, 0, null))).isTrue();
+        assertThat(f1.isSuccess()).isTrue();
+        // Duplicate response is ignored.
+        assertThat(table.complete(xid1, new ClusterResponse(xid1, 1, 0, null))).isFalse();
+    }
+
+    @Test
+    public void testRejectWhenFull() {
+        InFlightRequestTable table = new InFlightRequestTable(2);
+        int xid1 = table.register(new SettableFuture<ClusterResponse>(), FAR_DEADLINE);
+        assertThat(table.register(new SettableFuture<ClusterResponse>(), FAR_DEADLINE)).isPositive();
+        assertThat(table.register(new SettableFuture<ClusterResponse>(), FAR_DEADLINE)).isEqualTo(-1);
+
+        assertThat(table.cancel(xid1)).isTrue();
+        // The slot of xid1 is reused by the next xid.
+        assertThat(table.register(new SettableFuture<ClusterResponse>(), FAR_DEADLINE)).isPositive();
+    }
+
+    @Test
+    public void testIgnoreStaleResponse() {
+        InFlightRequestTable table = new InFlightRequestTable(2);
+        int staleXid = table.register(new SettableFuture<ClusterResponse>(), FAR_DEADLINE);
+        table.cancel(staleXid);
+        table.register(new SettableFuture<ClusterResponse>(), FAR_DEADLINE);
+        SettableFuture<ClusterResponse> future = new SettableFuture<>();
+        int xid = table.register(future, FAR_DEADLINE);
+        assertThat(xid & 1).isEqualTo(staleXid & 1);
+
+        assertThat(table.complete(staleXid, new ClusterResponse(staleXid, 1, 0, null))).isFalse();
+        assertThat(future.isDone()).isFalse();
+    }
+
+    @Test
+    public void testExpireAndFailAll() {
+        InFlightRequestTable table = new InFlightRequestTable(4);
+        long now = System.nanoTime();
+        SettableFuture<ClusterResponse> expired = new SettableFuture<>();
+        SettableFuture<ClusterResponse> pending = new SettableFuture<>();
+        table.register(expired, now - 1);
+        table.register(pending, FAR_DEADLINE);
+
+        assertThat(table.expire(now)).isEqualTo(1);
+        assertThat(expired.getCause()).hasMessage(ClusterErrorMessages.REQUEST_TIME_OUT);
+        assertThat(pending.isDone()).isFalse();
+
+        table.failAll(ClusterErrorMessages.CONNECTION_CLOSED);
+        assertThat(pending.getCause()).hasMessage(ClusterErrorMessages.CONNECTION_CLOSED);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster;
+
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+
+/**
+ * Transport client for distributed flow control, which could pipeline many outstanding requests
+ * without blocking the caller.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public interface AsyncClusterTransportClient extends ClusterTransportClient {
+
+    /**
+     * Send request to remote server without waiting for the response.
+     *
+     * @param request Sentinel cluster request
+     * @return future of the response from remote server, which fails with
+     * {@link com.alibaba.csp.sentinel.cluster.exception.SentinelClusterException} if the client is not ready,
+     * the request is bad or timed out
+     */
+    SettableFuture<ClusterResponse> sendRequestAsync(ClusterRequest request);
+}
@@ -24,6 +24,8 @@ public final class ClusterConstants {
     public static final int MSG_TYPE_PING = 0;
     public static final int MSG_TYPE_FLOW = 1;
     public static final int MSG_TYPE_PARAM_FLOW = 2;
+    public static final int MSG_TYPE_FLOW_LEASE = 3;
+    public static final int MSG_TYPE_FLOW_BATCH = 4;
 
     public static final int RESPONSE_STATUS_BAD = -1;
     public static final int RESPONSE_STATUS_OK = 0;
@@ -41,5 +43,14 @@ public final class ClusterConstants {
     public static final int DEFAULT_REQUEST_TIMEOUT = 20;
     public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10 * 1000;
 
+    /**
+     * Max length of a frame, which is limited by the 2-byte length field.
+     */
+    public static final int MAX_FRAME_LENGTH = 0xFFFF;
+    /**
+     * Max amount of flow requests in a batch request, so that the batch always fits in a frame.
+     */
+    public static final int MAX_FLOW_BATCH_SIZE = 1024;
+
     private ClusterConstants() {}
 }
@@ -27,6 +27,8 @@ public final class ClusterErrorMessages {
     public static final String REQUEST_TIME_OUT = "request time out";
     public static final String CLIENT_NOT_READY = "client not ready";
     public static final String NO_RULES_IN_SERVER = "no rules in token server";
+    public static final String TOO_MANY_IN_FLIGHT_REQUESTS = "too many in-flight requests (client side)";
+    public static final String CONNECTION_CLOSED = "connection closed";
 
     private ClusterErrorMessages() {}
 }
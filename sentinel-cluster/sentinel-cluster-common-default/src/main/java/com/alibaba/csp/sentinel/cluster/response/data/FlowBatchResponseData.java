@@ -0,0 +1,47 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.response.data;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+
+/**
+ * Token results of a batch request, in the same order as the requests in the batch.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class FlowBatchResponseData {
+
+    private List<TokenResult> results;
+
+    public List<TokenResult> getResults() {
+        return results;
+    }
+
+    public FlowBatchResponseData setResults(List<TokenResult> results) {
+        this.results = results;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowBatchResponseData{" +
+            "results=" + results +
+            '}';
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.response.data;
+
+/**
+ * @author agent
+ * @since 1.8.0
+ */
+public class FlowLeaseResponseData {
+
+    /**
+     * Amount of leased tokens, which may be less than the requested amount.
+     */
+    private int grantedCount;
+    /**
+     * Time to live of the lease, after which the unused tokens are discarded.
+     */
+    private int leaseTtlMs;
+
+    public int getGrantedCount() {
+        return grantedCount;
+    }
+
+    public FlowLeaseResponseData setGrantedCount(int grantedCount) {
+        this.grantedCount = grantedCount;
+        return this;
+    }
+
+    public int getLeaseTtlMs() {
+        return leaseTtlMs;
+    }
+
+    public FlowLeaseResponseData setLeaseTtlMs(int leaseTtlMs) {
+        this.leaseTtlMs = leaseTtlMs;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FlowLeaseResponseData)) {
+            return false;
+        }
+        FlowLeaseResponseData that = (FlowLeaseResponseData)o;
+        return grantedCount == that.grantedCount && leaseTtlMs == that.leaseTtlMs;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = grantedCount;
+        result = 31 * result + leaseTtlMs;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowLeaseResponseData{" +
+            "grantedCount=" + grantedCount +
+            ", leaseTtlMs=" + leaseTtlMs +
+            '}';
+    }
+}
@@ -26,6 +26,7 @@ import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
 import com.alibaba.csp.sentinel.cluster.server.log.ClusterServerStatLogUtil;
 import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * Flow checker for cluster flow rules.
@@ -64,21 +65,17 @@ final class ClusterFlowChecker {
             return new TokenResult(TokenResultStatus.FAIL);
         }
 
-        double latestQps = metric.getAvg(ClusterFlowEvent.PASS);
         double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
-        double nextRemaining = globalThreshold - latestQps - acquireCount;
+        // Check and acquire atomically, so concurrent requests never exceed the threshold.
+        int nextRemaining = metric.tryAcquirePass(acquireCount, globalThreshold);
 
         if (nextRemaining >= 0) {
-            // TODO: checking logic and metric operation should be separated.
-            metric.add(ClusterFlowEvent.PASS, acquireCount);
-            metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
             if (prioritized) {
                 // Add prioritized pass.
                 metric.add(ClusterFlowEvent.OCCUPIED_PASS, acquireCount);
             }
-            // Remaining count is cut down to a smaller integer.
             return new TokenResult(TokenResultStatus.OK)
-                .setRemaining((int) nextRemaining)
+                .setRemaining(nextRemaining)
                 .setWaitInMs(0);
         } else {
             if (prioritized) {
@@ -111,6 +108,58 @@ final class ClusterFlowChecker {
         }
     }
 
+    /**
+     * <p>Lease a batch of tokens, which are counted as passed at once, so the leases never exceed
+     * the global threshold. A single lease takes at most {@code maxLeaseRatio} of the global threshold,
+     * and expires before its tokens slide out of the statistic window.</p>
+     * <p>The unused tokens of the previous lease are given back first.</p>
+     *
+     * @param rule        the flow rule
+     * @param leaseCount  amount of tokens to lease, 0 for returning tokens only
+     * @param returnCount amount of unused tokens of the previous lease
+     * @return the result, whose {@code remaining} is the granted amount and {@code waitInMs} is the lease TTL
+     *         (or the time until the next bucket if blocked)
+     */
+    static TokenResult acquireClusterLease(/*@Valid*/ FlowRule rule, int leaseCount, int returnCount) {
+        Long id = rule.getClusterConfig().getFlowId();
+
+        if (!allowProceed(id)) {
+            return new TokenResult(TokenResultStatus.TOO_MANY_REQUEST);
+        }
+
+        ClusterMetric metric = ClusterMetricStatistics.getMetric(id);
+        if (metric == null) {
+            return new TokenResult(TokenResultStatus.FAIL);
+        }
+
+        if (returnCount > 0) {
+            // The returned tokens are still in the window as the lease expires before they slide out.
+            metric.releasePass(returnCount);
+        }
+        if (leaseCount <= 0) {
+            return new TokenResult(TokenResultStatus.OK).setRemaining(0).setWaitInMs(0);
+        }
+
+        double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
+        int maxLeaseCount = Math.max(1, (int)(globalThreshold * ClusterServerConfigManager.getMaxLeaseRatio()));
+        int granted = metric.tryAcquirePassUpTo(Math.min(leaseCount, maxLeaseCount), globalThreshold);
+
+        int intervalMs = rule.getClusterConfig().getWindowIntervalMs();
+        int bucketMs = Math.max(1, intervalMs / rule.getClusterConfig().getSampleCount());
+        if (granted <= 0) {
+            metric.add(ClusterFlowEvent.BLOCK_REQUEST, 1);
+            ClusterServerStatLogUtil.log("flow|block_request|" + id, 1);
+            // Advise the client not to renew again until the next bucket, when the oldest bucket slides out.
+            long now = TimeUtil.currentTimeMillis();
+            return blockedResult().setWaitInMs((int)(bucketMs - now % bucketMs));
+        }
+
+        int ttl = Math.max(1, Math.min(ClusterServerConfigManager.getLeaseTtlMs(), intervalMs - bucketMs));
+        return new TokenResult(TokenResultStatus.OK)
+            .setRemaining(granted)
+            .setWaitInMs(ttl);
+    }
+
     private static TokenResult blockedResult() {
         return new TokenResult(TokenResultStatus.BLOCKED)
             .setRemaining(0)
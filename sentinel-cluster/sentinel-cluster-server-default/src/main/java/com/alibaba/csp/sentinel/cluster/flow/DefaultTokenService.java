@@ -61,6 +61,28 @@ public class DefaultTokenService implements TokenService {
         return ClusterParamFlowChecker.acquireClusterToken(rule, acquireCount, params);
     }
 
+    /**
+     * Lease a batch of tokens of the flow, and give back the unused tokens of the previous lease.
+     *
+     * @param ruleId      the unique rule ID
+     * @param leaseCount  amount of tokens to lease, 0 for returning tokens only
+     * @param returnCount amount of unused tokens of the previous lease
+     * @return result of the lease, whose {@code remaining} is the granted amount and {@code waitInMs}
+     * is the lease TTL
+     * @since 1.8.0
+     */
+    public TokenResult requestLease(Long ruleId, int leaseCount, int returnCount) {
+        if (ruleId == null || ruleId <= 0 || leaseCount < 0 || returnCount < 0) {
+            return badRequest();
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(ruleId);
+        if (rule == null) {
+            return new TokenResult(TokenResultStatus.NO_RULE_EXISTS);
+        }
+
+        return ClusterFlowChecker.acquireClusterLease(rule, leaseCount, returnCount);
+    }
+
     private boolean notValidRequest(Long id, int count) {
         return id == null || id <= 0 || count <= 0;
     }
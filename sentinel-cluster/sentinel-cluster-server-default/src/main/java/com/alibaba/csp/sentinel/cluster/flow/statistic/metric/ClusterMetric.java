@@ -22,18 +22,26 @@ import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterMetricBucket;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 
 /**
+ * <p>Metric of a cluster flow.</p>
+ * <p>
+ * Besides the statistics of all events, the passed tokens are also counted by a {@link SlidingWindowCounter},
+ * which checks and acquires the tokens atomically in O(1) (see {@link #tryAcquirePass(int, double)}).
+ * </p>
+ *
  * @author Eric Zhao
  * @since 1.4.0
  */
 public class ClusterMetric {
 
     private final ClusterMetricLeapArray metric;
+    private final SlidingWindowCounter passCounter;
 
     public ClusterMetric(int sampleCount, int intervalInMs) {
         AssertUtil.isTrue(sampleCount > 0, "sampleCount should be positive");
         AssertUtil.isTrue(intervalInMs > 0, "interval should be positive");
         AssertUtil.isTrue(intervalInMs % sampleCount == 0, "time span needs to be evenly divided");
         this.metric = new ClusterMetricLeapArray(sampleCount, intervalInMs);
+        this.passCounter = new SlidingWindowCounter(sampleCount, intervalInMs);
     }
 
     public void add(ClusterFlowEvent event, long count) {
@@ -71,6 +79,71 @@ public class ClusterMetric {
         return getSum(event) / metric.getIntervalInSecond();
     }
 
+    /**
+     * Check and acquire the tokens atomically, so the passed tokens never exceed the threshold.
+     *
+     * @param acquireCount tokens to acquire
+     * @param threshold    threshold of the flow (per second)
+     * @return remaining tokens (per second) after acquiring, or -1 if the threshold would be exceeded
+     * @since 1.8.0
+     */
+    public int tryAcquirePass(int acquireCount, double threshold) {
+        long total = passCounter.tryAdd(acquireCount, maxPassOf(threshold));
+        if (total < 0) {
+            return -1;
+        }
+        add(ClusterFlowEvent.PASS, acquireCount);
+        add(ClusterFlowEvent.PASS_REQUEST, 1);
+        // Remaining count is cut down to a smaller integer.
+        return (int)(threshold - total / metric.getIntervalInSecond());
+    }
+
+    /**
+     * Acquire as many tokens as possible (no more than the given count) without exceeding the threshold.
+     *
+     * @param maxCount  max tokens to acquire
+     * @param threshold threshold of the flow (per second)
+     * @return the acquired tokens, 0 if the threshold has been reached
+     * @since 1.8.0
+     */
+    public int tryAcquirePassUpTo(int maxCount, double threshold) {
+        int acquired = (int)passCounter.tryAddUpTo(maxCount, maxPassOf(threshold));
+        if (acquired > 0) {
+            add(ClusterFlowEvent.PASS, acquired);
+            add(ClusterFlowEvent.PASS_REQUEST, 1);
+        }
+        return acquired;
+    }
+
+    /**
+     * Give back the passed tokens that are not used (e.g. of token leases).
+     *
+     * @param count tokens to give back
+     * @return the tokens actually given back
+     * @since 1.8.0
+     */
+    public long releasePass(long count) {
+        long released = passCounter.remove(count);
+        if (released > 0) {
+            // Remove from the buckets that have counted the tokens rather than the current bucket,
+            // otherwise the negative count would stay in the window after the granting bucket slides out.
+            metric.remove(ClusterFlowEvent.PASS, released);
+        }
+        return released;
+    }
+
+    /**
+     * @return passed tokens in the whole window, in O(1)
+     * @since 1.8.0
+     */
+    public long getPassCount() {
+        return passCounter.getTotal();
+    }
+
+    private long maxPassOf(double threshold) {
+        return (long)(threshold * metric.getIntervalInSecond());
+    }
+
     /**
      * Try to pre-occupy upcoming buckets.
      *
@@ -82,6 +155,8 @@ public class ClusterMetric {
             return 0;
         }
         metric.addOccupyPass(acquireCount);
+        // The occupied tokens are counted at once, so they won't be taken by the normal requests.
+        passCounter.addNext(acquireCount);
         add(ClusterFlowEvent.WAITING, acquireCount);
         return 1000 / metric.getSampleCount();
     }
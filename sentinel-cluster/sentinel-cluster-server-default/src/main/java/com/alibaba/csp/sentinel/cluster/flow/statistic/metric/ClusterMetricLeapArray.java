@@ -15,6 +15,10 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
 
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterMetricBucket;
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
@@ -79,6 +83,36 @@ public class ClusterMetricLeapArray extends LeapArray<ClusterMetricBucket> {
         return occupyCounter[event.ordinal()].sum();
     }
 
+    /**
+     * Remove the count of the event from the buckets in the window, the oldest bucket first.
+     * No bucket falls below zero, so the count is never removed from a bucket that has not counted it,
+     * and nothing is left behind when the buckets slide out.
+     *
+     * @param event event to remove
+     * @param count count to remove, positive
+     * @return the count actually removed
+     * @since 1.8.0
+     */
+    public synchronized long remove(ClusterFlowEvent event, long count) {
+        List<WindowWrap<ClusterMetricBucket>> windows = list(currentWindow().windowStart());
+        Collections.sort(windows, new Comparator<WindowWrap<ClusterMetricBucket>>() {
+            @Override
+            public int compare(WindowWrap<ClusterMetricBucket> o1, WindowWrap<ClusterMetricBucket> o2) {
+                return Long.compare(o1.windowStart(), o2.windowStart());
+            }
+        });
+        long remaining = count;
+        for (int i = 0; i < windows.size() && remaining > 0; i++) {
+            ClusterMetricBucket bucket = windows.get(i).value();
+            long removed = Math.min(bucket.get(event), remaining);
+            if (removed > 0) {
+                bucket.add(event, -removed);
+                remaining -= removed;
+            }
+        }
+        return count - remaining;
+    }
+
     public long getFirstCountOfWindow(ClusterFlowEvent event) {
         if (event == null) {
             return 0;
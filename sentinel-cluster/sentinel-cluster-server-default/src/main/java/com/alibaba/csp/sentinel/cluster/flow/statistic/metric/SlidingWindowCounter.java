@@ -0,0 +1,213 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * Sliding window counter that keeps the running total of all the buckets in the window, so the total
+ * is read in O(1) and tokens can be reserved atomically (compare-and-set on the total) against a limit.
+ * The total is updated incrementally when the buckets slide out of the window.
+ * </p>
+ * <p>
+ * The total is always added before the bucket, and only the counts moved out of the buckets are
+ * subtracted from it, so the total never falls below the real count of the window. Thus the reservations
+ * never exceed the limit, even under heavy concurrency.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class SlidingWindowCounter {
+
+    private final int sampleCount;
+    private final int windowLengthInMs;
+    private final int intervalInMs;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong total = new AtomicLong(0);
+    /**
+     * Count reserved for the next bucket (already included in the total), which is moved into
+     * the next bucket on rotation.
+     */
+    private final AtomicLong nextBucketCount = new AtomicLong(0);
+
+    private final Object rotateLock = new Object();
+    private volatile long currentWindowStart;
+
+    public SlidingWindowCounter(int sampleCount, int intervalInMs) {
+        AssertUtil.isTrue(sampleCount > 0, "bucket count is invalid: " + sampleCount);
+        AssertUtil.isTrue(intervalInMs > 0, "total time interval of the sliding window should be positive");
+        AssertUtil.isTrue(intervalInMs % sampleCount == 0, "time span needs to be evenly divided");
+        this.sampleCount = sampleCount;
+        this.intervalInMs = intervalInMs;
+        this.windowLengthInMs = intervalInMs / sampleCount;
+        this.buckets = new AtomicLongArray(sampleCount);
+        this.currentWindowStart = calculateWindowStart(TimeUtil.currentTimeMillis());
+    }
+
+    /**
+     * Add the count if the total after adding does not exceed the max total.
+     *
+     * @param count    count to add, positive
+     * @param maxTotal max total of the window
+     * @return the total after adding, or -1 if the total would exceed the max total
+     */
+    public long tryAdd(long count, long maxTotal) {
+        int idx = indexOf(rotate(TimeUtil.currentTimeMillis()));
+        while (true) {
+            long cur = total.get();
+            long next = cur + count;
+            if (next > maxTotal) {
+                return -1;
+            }
+            if (total.compareAndSet(cur, next)) {
+                buckets.addAndGet(idx, count);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Add as much as possible of the count without exceeding the max total.
+     *
+     * @param count    max count to add, positive
+     * @param maxTotal max total of the window
+     * @return the count added, 0 if the max total has been reached
+     */
+    public long tryAddUpTo(long count, long maxTotal) {
+        int idx = indexOf(rotate(TimeUtil.currentTimeMillis()));
+        while (true) {
+            long cur = total.get();
+            long added = Math.min(count, maxTotal - cur);
+            if (added <= 0) {
+                return 0;
+            }
+            if (total.compareAndSet(cur, cur + added)) {
+                buckets.addAndGet(idx, added);
+                return added;
+            }
+        }
+    }
+
+    /**
+     * Add the count to the current bucket regardless of any limit.
+     *
+     * @param count count to add, positive
+     */
+    public void add(long count) {
+        int idx = indexOf(rotate(TimeUtil.currentTimeMillis()));
+        total.addAndGet(count);
+        buckets.addAndGet(idx, count);
+    }
+
+    /**
+     * Add the count to the next bucket, which is counted in the total at once.
+     *
+     * @param count count to add, positive
+     */
+    public void addNext(long count) {
+        rotate(TimeUtil.currentTimeMillis());
+        total.addAndGet(count);
+        nextBucketCount.addAndGet(count);
+    }
+
+    /**
+     * <p>Remove the count (e.g. the unused tokens) from the window.</p>
+     * <p>
+     * The count is removed from the oldest buckets first, and no bucket falls below zero, so the count
+     * that has been added within the window is never removed twice when its bucket slides out.
+     * </p>
+     *
+     * @param count count to remove, positive
+     * @return the count actually removed
+     */
+    public long remove(long count) {
+        long windowStart = rotate(TimeUtil.currentTimeMillis());
+        long remaining = count;
+        for (int i = sampleCount - 1; i >= 0 && remaining > 0; i--) {
+            int idx = indexOf(windowStart - (long)i * windowLengthInMs);
+            while (remaining > 0) {
+                long cur = buckets.get(idx);
+                if (cur <= 0) {
+                    break;
+                }
+                long removed = Math.min(cur, remaining);
+                if (buckets.compareAndSet(idx, cur, cur - removed)) {
+                    total.addAndGet(-removed);
+                    remaining -= removed;
+                }
+            }
+        }
+        return count - remaining;
+    }
+
+    /**
+     * @return the total count of the window
+     */
+    public long getTotal() {
+        rotate(TimeUtil.currentTimeMillis());
+        return total.get();
+    }
+
+    public int getIntervalInMs() {
+        return intervalInMs;
+    }
+
+    private long calculateWindowStart(long timeMillis) {
+        return timeMillis - timeMillis % windowLengthInMs;
+    }
+
+    private int indexOf(long windowStart) {
+        return (int)((windowStart / windowLengthInMs) % sampleCount);
+    }
+
+    /**
+     * Slide the window to the time, and clear the buckets that slide out.
+     *
+     * @param timeMillis current time
+     * @return start time of the current bucket
+     */
+    private long rotate(long timeMillis) {
+        long windowStart = calculateWindowStart(timeMillis);
+        long cur = currentWindowStart;
+        if (windowStart <= cur) {
+            // Time goes back (rarely): keep adding to the latest bucket.
+            return cur;
+        }
+        synchronized (rotateLock) {
+            cur = currentWindowStart;
+            if (windowStart > cur) {
+                long steps = Math.min(sampleCount, (windowStart - cur) / windowLengthInMs);
+                for (long i = 0; i < steps; i++) {
+                    int idx = indexOf(windowStart - i * windowLengthInMs);
+                    total.addAndGet(-buckets.getAndSet(idx, 0));
+                }
+                long reserved = nextBucketCount.getAndSet(0);
+                if (reserved != 0) {
+                    buckets.addAndGet(indexOf(windowStart), reserved);
+                }
+                currentWindowStart = windowStart;
+            }
+            return currentWindowStart;
+        }
+    }
+}
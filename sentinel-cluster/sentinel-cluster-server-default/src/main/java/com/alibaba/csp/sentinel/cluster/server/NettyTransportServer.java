@@ -19,11 +19,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerStartUpConfig;
 import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyRequestDecoder;
 import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyResponseEncoder;
 import com.alibaba.csp.sentinel.cluster.server.connection.Connection;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
 import com.alibaba.csp.sentinel.cluster.server.handler.TokenServerHandler;
+import com.alibaba.csp.sentinel.cluster.server.shard.RequestShardGroup;
+import com.alibaba.csp.sentinel.cluster.server.shard.ShardedRequestDispatcher;
 import com.alibaba.csp.sentinel.log.RecordLog;
 
 import io.netty.bootstrap.ServerBootstrap;
@@ -32,6 +36,8 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -45,6 +51,14 @@ import io.netty.util.internal.SystemPropertyUtil;
 import static com.alibaba.csp.sentinel.cluster.server.ServerConstants.*;
 
 /**
+ * <p>Netty token server.</p>
+ * <p>
+ * If the request sharding is enabled ({@code csp.sentinel.cluster.server.shard.count} &gt; 0), the flow requests
+ * are processed by the shard that owns the flow rather than the IO threads (see {@link RequestShardGroup}).
+ * The native epoll transport is used if {@code csp.sentinel.cluster.server.epoll.enabled} is true
+ * and {@code netty-transport-native-epoll} is available.
+ * </p>
+ *
  * @author Eric Zhao
  * @since 1.4.0
  */
@@ -57,8 +71,13 @@ public class NettyTransportServer implements ClusterTokenServer {
 
     private final int port;
 
-    private NioEventLoopGroup bossGroup;
-    private NioEventLoopGroup workerGroup;
+    private static final String EPOLL_CLASS = "io.netty.channel.epoll.Epoll";
+    private static final String EPOLL_EVENT_LOOP_GROUP_CLASS = "io.netty.channel.epoll.EpollEventLoopGroup";
+    private static final String EPOLL_SERVER_CHANNEL_CLASS = "io.netty.channel.epoll.EpollServerSocketChannel";
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private RequestShardGroup shardGroup;
 
     private final ConnectionPool connectionPool = new ConnectionPool();
 
@@ -76,21 +95,24 @@ public class NettyTransportServer implements ClusterTokenServer {
         }
 
         ServerBootstrap b = new ServerBootstrap();
-        this.bossGroup = new NioEventLoopGroup(1);
-        this.workerGroup = new NioEventLoopGroup(DEFAULT_EVENT_LOOP_THREADS);
+        Class<? extends ServerChannel> channelClass = initEventLoopGroups();
+        int shardCount = ClusterServerStartUpConfig.getShardCount();
+        this.shardGroup = shardCount > 0 ? new RequestShardGroup(shardCount) : null;
+        final ShardedRequestDispatcher dispatcher = shardGroup == null ? null
+            : new ShardedRequestDispatcher(shardGroup);
         b.group(bossGroup, workerGroup)
-            .channel(NioServerSocketChannel.class)
+            .channel(channelClass)
             .option(ChannelOption.SO_BACKLOG, 128)
             .handler(new LoggingHandler(LogLevel.INFO))
             .childHandler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) throws Exception {
                     ChannelPipeline p = ch.pipeline();
-                    p.addLast(new LengthFieldBasedFrameDecoder(1024, 0, 2, 0, 2));
+                    p.addLast(new LengthFieldBasedFrameDecoder(ClusterConstants.MAX_FRAME_LENGTH, 0, 2, 0, 2));
                     p.addLast(new NettyRequestDecoder());
                     p.addLast(new LengthFieldPrepender(2));
                     p.addLast(new NettyResponseEncoder());
-                    p.addLast(new TokenServerHandler(connectionPool));
+                    p.addLast(new TokenServerHandler(connectionPool, dispatcher));
                 }
             })
             .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
@@ -106,6 +128,7 @@ public class NettyTransportServer implements ClusterTokenServer {
                     RecordLog.info("[NettyTransportServer] Token server start failed (port=" + port + "), failedTimes: " + failedTimes.get(),
                         future.cause());
                     currentState.compareAndSet(SERVER_STATUS_STARTING, SERVER_STATUS_OFF);
+                    shutdownShards();
                     int failCount = failedTimes.incrementAndGet();
                     if (failCount > MAX_RETRY_TIMES) {
                         return;
@@ -118,7 +141,8 @@ public class NettyTransportServer implements ClusterTokenServer {
                         RecordLog.info("[NettyTransportServer] Failed to start token server when retrying", e);
                     }
                 } else {
-                    RecordLog.info("[NettyTransportServer] Token server started success at port " + port);
+                    RecordLog.info("[NettyTransportServer] Token server started success at port " + port
+                        + (shardGroup == null ? "" : " with " + shardGroup.shardCount() + " request shards"));
                     currentState.compareAndSet(SERVER_STATUS_STARTING, SERVER_STATUS_STARTED);
                 }
             }
@@ -140,6 +164,7 @@ public class NettyTransportServer implements ClusterTokenServer {
             try {
                 bossGroup.shutdownGracefully();
                 workerGroup.shutdownGracefully();
+                shutdownShards();
                 connectionPool.shutdownAll();
 
                 failedTimes.set(0);
@@ -151,6 +176,51 @@ public class NettyTransportServer implements ClusterTokenServer {
         }
     }
 
+    /**
+     * Create the event loop groups, using the native epoll transport if enabled and available.
+     *
+     * @return class of the server channel
+     */
+    @SuppressWarnings("unchecked")
+    private Class<? extends ServerChannel> initEventLoopGroups() {
+        if (ClusterServerStartUpConfig.isEpollEnabled()) {
+            EventLoopGroup epollBossGroup = null;
+            try {
+                Class<?> epoll = Class.forName(EPOLL_CLASS);
+                if ((Boolean)epoll.getMethod("isAvailable").invoke(null)) {
+                    Class<?> groupClass = Class.forName(EPOLL_EVENT_LOOP_GROUP_CLASS);
+                    Class<? extends ServerChannel> channelClass =
+                        (Class<? extends ServerChannel>)Class.forName(EPOLL_SERVER_CHANNEL_CLASS);
+                    epollBossGroup = (EventLoopGroup)groupClass.getConstructor(int.class).newInstance(1);
+                    this.workerGroup = (EventLoopGroup)groupClass.getConstructor(int.class)
+                        .newInstance(DEFAULT_EVENT_LOOP_THREADS);
+                    this.bossGroup = epollBossGroup;
+                    RecordLog.info("[NettyTransportServer] Using native epoll transport");
+                    return channelClass;
+                }
+                RecordLog.warn("[NettyTransportServer] Native epoll transport is unavailable, using NIO transport",
+                    (Throwable)epoll.getMethod("unavailabilityCause").invoke(null));
+            } catch (Throwable ex) {
+                RecordLog.warn("[NettyTransportServer] Failed to initialize native epoll transport, "
+                    + "using NIO transport", ex);
+            }
+            if (epollBossGroup != null) {
+                epollBossGroup.shutdownGracefully();
+            }
+        }
+        this.bossGroup = new NioEventLoopGroup(1);
+        this.workerGroup = new NioEventLoopGroup(DEFAULT_EVENT_LOOP_THREADS);
+        return NioServerSocketChannel.class;
+    }
+
+    private void shutdownShards() {
+        RequestShardGroup shardGroup = this.shardGroup;
+        if (shardGroup != null) {
+            shardGroup.shutdown();
+            this.shardGroup = null;
+        }
+    }
+
     public void refreshRunningServer() {
         connectionPool.refreshIdleTask();
     }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.codec.EntityWriter;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowBatchResponseData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>The layout:</p>
+ * <pre>
+ * | amount (2) | status (1) | remaining (4) | wait in ms (4) | status (1) | ... |
+ * </pre>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class FlowBatchResponseDataWriter implements EntityWriter<FlowBatchResponseData, ByteBuf> {
+
+    @Override
+    public void writeTo(FlowBatchResponseData entity, ByteBuf out) {
+        out.writeShort(entity.getResults().size());
+        for (TokenResult result : entity.getResults()) {
+            out.writeByte(result.getStatus());
+            out.writeInt(result.getRemaining());
+            out.writeInt(result.getWaitInMs());
+        }
+    }
+}
@@ -61,6 +61,8 @@ public final class ClusterServerConfigManager {
     private static volatile int intervalMs = ServerFlowConfig.DEFAULT_INTERVAL_MS;
     private static volatile int sampleCount = ServerFlowConfig.DEFAULT_SAMPLE_COUNT;
     private static volatile double maxAllowedQps = ServerFlowConfig.DEFAULT_MAX_ALLOWED_QPS;
+    private static volatile double maxLeaseRatio = ServerFlowConfig.DEFAULT_MAX_LEASE_RATIO;
+    private static volatile int leaseTtlMs = ServerFlowConfig.DEFAULT_LEASE_TTL_MS;
 
     /**
      * Namespace-specific flow config for token server.
@@ -329,6 +331,8 @@ public final class ClusterServerConfigManager {
                 maxAllowedQps = config.getMaxAllowedQps();
                 GlobalRequestLimiter.applyMaxQpsChange(maxAllowedQps);
             }
+            maxLeaseRatio = config.getMaxLeaseRatio();
+            leaseTtlMs = config.getLeaseTtlMs();
             int newIntervalMs = config.getIntervalMs();
             int newSampleCount = config.getSampleCount();
             if (newIntervalMs != intervalMs || newSampleCount != sampleCount) {
@@ -352,6 +356,7 @@ public final class ClusterServerConfigManager {
     public static boolean isValidFlowConfig(ServerFlowConfig config) {
         return config != null && config.getMaxOccupyRatio() >= 0 && config.getExceedCount() >= 0
             && config.getMaxAllowedQps() >= 0
+            && config.getMaxLeaseRatio() >= 0 && config.getMaxLeaseRatio() <= 1 && config.getLeaseTtlMs() > 0
             && FlowRuleUtil.isWindowConfigValid(config.getSampleCount(), config.getIntervalMs());
     }
 
@@ -418,6 +423,14 @@ public final class ClusterServerConfigManager {
         return maxOccupyRatio;
     }
 
+    public static double getMaxLeaseRatio() {
+        return maxLeaseRatio;
+    }
+
+    public static int getLeaseTtlMs() {
+        return leaseTtlMs;
+    }
+
     public static Set<String> getNamespaceSet() {
         return namespaceSet;
     }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.config;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * Startup configurations of the token server.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class ClusterServerStartUpConfig {
+
+    private static final String SHARD_COUNT = "csp.sentinel.cluster.server.shard.count";
+    private static final String EPOLL_ENABLED = "csp.sentinel.cluster.server.epoll.enabled";
+
+    /**
+     * Get the amount of request shards. Each shard is a dedicated thread that processes the requests
+     * of its own flows, which is typically set to the amount of cores on a dedicated token server.
+     *
+     * @return the amount of request shards, 0 if the requests are processed in the IO threads
+     */
+    public static int getShardCount() {
+        String shardCount = SentinelConfig.getConfig(SHARD_COUNT);
+        if (shardCount == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(shardCount));
+        } catch (Exception ex) {
+            RecordLog.warn("[ClusterServerStartUpConfig] Failed to parse shardCount: " + shardCount);
+            return 0;
+        }
+    }
+
+    /**
+     * @return whether to use the native epoll transport (if available on the classpath and the platform)
+     */
+    public static boolean isEpollEnabled() {
+        return Boolean.parseBoolean(SentinelConfig.getConfig(EPOLL_ENABLED));
+    }
+
+    private ClusterServerStartUpConfig() {}
+}
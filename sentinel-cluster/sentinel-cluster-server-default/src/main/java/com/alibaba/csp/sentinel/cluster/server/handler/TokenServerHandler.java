@@ -24,6 +24,7 @@ import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
 import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessor;
 import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessorProvider;
+import com.alibaba.csp.sentinel.cluster.server.shard.ShardedRequestDispatcher;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
@@ -39,9 +40,18 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 public class TokenServerHandler extends ChannelInboundHandlerAdapter {
 
     private final ConnectionPool globalConnectionPool;
+    /**
+     * Dispatcher of the flow requests to the shards, or null if the requests are processed in the IO threads.
+     */
+    private final ShardedRequestDispatcher dispatcher;
 
     public TokenServerHandler(ConnectionPool globalConnectionPool) {
+        this(globalConnectionPool, null);
+    }
+
+    public TokenServerHandler(ConnectionPool globalConnectionPool, ShardedRequestDispatcher dispatcher) {
         this.globalConnectionPool = globalConnectionPool;
+        this.dispatcher = dispatcher;
     }
 
     @Override
@@ -75,7 +85,7 @@ public class TokenServerHandler extends ChannelInboundHandlerAdapter {
             if (processor == null) {
                 RecordLog.warn("[TokenServerHandler] No processor for request type: " + request.getType());
                 writeBadResponse(ctx, request);
-            } else {
+            } else if (dispatcher == null || !dispatcher.dispatch(ctx, processor, request)) {
                 ClusterResponse<?> response = processor.processRequest(request);
                 writeResponse(ctx, response);
             }
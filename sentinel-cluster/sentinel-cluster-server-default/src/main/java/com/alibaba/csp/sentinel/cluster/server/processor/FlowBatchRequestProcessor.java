@@ -0,0 +1,60 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.TokenService;
+import com.alibaba.csp.sentinel.cluster.annotation.RequestType;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowBatchRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowBatchResponseData;
+import com.alibaba.csp.sentinel.cluster.server.TokenServiceProvider;
+
+/**
+ * Processor of the batch flow requests, which requests the tokens of each flow in order
+ * and responds all the results in a single response.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+@RequestType(ClusterConstants.MSG_TYPE_FLOW_BATCH)
+public class FlowBatchRequestProcessor implements RequestProcessor<FlowBatchRequestData, FlowBatchResponseData> {
+
+    @Override
+    public ClusterResponse<FlowBatchResponseData> processRequest(ClusterRequest<FlowBatchRequestData> request) {
+        FlowBatchRequestData data = request.getData();
+        if (data == null || data.getRequests() == null || data.getRequests().isEmpty()) {
+            return new ClusterResponse<>(request.getId(), request.getType(), TokenResultStatus.BAD_REQUEST,
+                new FlowBatchResponseData().setResults(new ArrayList<TokenResult>(0)));
+        }
+        TokenService tokenService = TokenServiceProvider.getService();
+
+        List<TokenResult> results = new ArrayList<>(data.getRequests().size());
+        for (FlowRequestData flowRequest : data.getRequests()) {
+            results.add(tokenService.requestToken(flowRequest.getFlowId(), flowRequest.getCount(),
+                flowRequest.isPriority()));
+        }
+        return new ClusterResponse<>(request.getId(), request.getType(), TokenResultStatus.OK,
+            new FlowBatchResponseData().setResults(results));
+    }
+}
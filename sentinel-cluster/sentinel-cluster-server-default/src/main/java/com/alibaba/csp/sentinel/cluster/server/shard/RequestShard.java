@@ -0,0 +1,106 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.shard;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>
+ * A single-threaded executor with a lock-free task queue. The producers never block:
+ * the worker thread is only unparked when it's idle.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class RequestShard implements Runnable {
+
+    /**
+     * Max time to park when idle, in case of any missed wake-up.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean idle = new AtomicBoolean(false);
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    RequestShard(ThreadFactory threadFactory) {
+        this.thread = threadFactory.newThread(this);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void execute(Runnable task) {
+        if (!running) {
+            throw new RejectedExecutionException("Request shard has been shut down");
+        }
+        queue.offer(task);
+        // The worker may have drained the queue and quit after the check above. Take the task back
+        // if it's still in the queue, otherwise the worker has taken it and will run it.
+        if (!running && queue.remove(task)) {
+            throw new RejectedExecutionException("Request shard has been shut down");
+        }
+        if (idle.get() && idle.compareAndSet(true, false)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Runnable task = queue.poll();
+            if (task != null) {
+                runSafely(task);
+                continue;
+            }
+            idle.set(true);
+            // Re-check after announcing idle, as the producer may have missed it.
+            if (queue.isEmpty()) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+            idle.set(false);
+        }
+        // Complete the accepted tasks.
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            runSafely(task);
+        }
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable ex) {
+            RecordLog.warn("[RequestShard] Unexpected error when processing request", ex);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.shard;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>
+ * A group of single-threaded shards. The requests of the same flow are always processed by the same shard,
+ * so the statistics of a flow are only updated by one thread, and the flows scale across the cores
+ * without contending on the same counters.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class RequestShardGroup {
+
+    private final RequestShard[] shards;
+
+    public RequestShardGroup(int shardCount) {
+        AssertUtil.isTrue(shardCount > 0, "shardCount should be positive");
+        NamedThreadFactory threadFactory = new NamedThreadFactory("sentinel-token-server-shard", true);
+        this.shards = new RequestShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new RequestShard(threadFactory);
+        }
+        for (RequestShard shard : shards) {
+            shard.start();
+        }
+    }
+
+    /**
+     * @param flowId the flow ID
+     * @return index of the shard that owns the flow
+     */
+    public int shardOf(long flowId) {
+        // Spread the sequential IDs.
+        long h = flowId * 0x9E3779B97F4A7C15L;
+        int hash = (int)(h ^ (h >>> 32));
+        return (hash & Integer.MAX_VALUE) % shards.length;
+    }
+
+    /**
+     * Execute the task in the shard that owns the flow.
+     *
+     * @param flowId the flow ID
+     * @param task   the task, which should not block
+     * @throws java.util.concurrent.RejectedExecutionException if the group has been shut down
+     */
+    public void execute(long flowId, Runnable task) {
+        shards[shardOf(flowId)].execute(task);
+    }
+
+    /**
+     * Execute the task in the given shard.
+     *
+     * @param shardIndex index of the shard
+     * @param task       the task, which should not block
+     * @throws java.util.concurrent.RejectedExecutionException if the group has been shut down
+     */
+    public void executeInShard(int shardIndex, Runnable task) {
+        shards[shardIndex].execute(task);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Stop all shards after the accepted tasks are done.
+     */
+    public void shutdown() {
+        for (RequestShard shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
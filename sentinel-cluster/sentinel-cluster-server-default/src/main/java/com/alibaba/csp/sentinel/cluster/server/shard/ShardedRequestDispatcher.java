@@ -0,0 +1,180 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.shard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowBatchRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowLeaseRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowBatchResponseData;
+import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessor;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * <p>
+ * Dispatches the flow requests from the IO threads to the shards that own the flows.
+ * The responses are written from the shard threads.
+ * </p>
+ * <p>
+ * A batch request is split by the owner shards of its flows, and responded once all shards are done.
+ * </p>
+ * <p>
+ * Every dispatched request is responded: if the processor fails, a {@link TokenResultStatus#FAIL} response
+ * (or result in the batch) is written, and if a shard has been shut down, the task is run in the caller thread.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class ShardedRequestDispatcher {
+
+    private final RequestShardGroup shardGroup;
+
+    public ShardedRequestDispatcher(RequestShardGroup shardGroup) {
+        AssertUtil.notNull(shardGroup, "shardGroup cannot be null");
+        this.shardGroup = shardGroup;
+    }
+
+    /**
+     * Dispatch the request to its owner shard.
+     *
+     * @param ctx       the channel context to write the response
+     * @param processor processor of the request
+     * @param request   the request
+     * @return true if dispatched, false if the request is not bound to a flow (should be processed in place)
+     */
+    @SuppressWarnings("unchecked")
+    public boolean dispatch(final ChannelHandlerContext ctx, final RequestProcessor processor,
+                            final ClusterRequest request) {
+        Object data = request.getData();
+        if (data instanceof FlowBatchRequestData) {
+            return dispatchBatch(ctx, processor, request);
+        }
+        Long flowId = flowIdOf(data);
+        if (flowId == null) {
+            return false;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                ClusterResponse<?> response;
+                try {
+                    response = processor.processRequest(request);
+                } catch (Throwable ex) {
+                    RecordLog.warn("[ShardedRequestDispatcher] Failed to process request: " + request, ex);
+                    response = new ClusterResponse<>(request.getId(), request.getType(), TokenResultStatus.FAIL,
+                        null);
+                }
+                ctx.writeAndFlush(response);
+            }
+        };
+        try {
+            shardGroup.execute(flowId, task);
+        } catch (RejectedExecutionException ex) {
+            // The shards have been shut down, so process it in place.
+            task.run();
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean dispatchBatch(final ChannelHandlerContext ctx, final RequestProcessor processor,
+                                  final ClusterRequest<FlowBatchRequestData> request) {
+        List<FlowRequestData> requests = request.getData().getRequests();
+        if (requests == null || requests.isEmpty()) {
+            return false;
+        }
+        int shardCount = shardGroup.shardCount();
+        List<Integer>[] indicesOfShard = new List[shardCount];
+        int usedShards = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            int shard = shardGroup.shardOf(requests.get(i).getFlowId());
+            if (indicesOfShard[shard] == null) {
+                indicesOfShard[shard] = new ArrayList<>();
+                usedShards++;
+            }
+            indicesOfShard[shard].add(i);
+        }
+
+        final TokenResult[] results = new TokenResult[requests.size()];
+        final AtomicInteger pendingShards = new AtomicInteger(usedShards);
+        for (int shard = 0; shard < shardCount; shard++) {
+            final List<Integer> indices = indicesOfShard[shard];
+            if (indices == null) {
+                continue;
+            }
+            List<FlowRequestData> subRequests = new ArrayList<>(indices.size());
+            for (int index : indices) {
+                subRequests.add(requests.get(index));
+            }
+            final ClusterRequest<FlowBatchRequestData> subRequest = new ClusterRequest<>(request.getId(),
+                request.getType(), new FlowBatchRequestData().setRequests(subRequests));
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    List<TokenResult> subResults = null;
+                    try {
+                        ClusterResponse<FlowBatchResponseData> response = processor.processRequest(subRequest);
+                        subResults = response.getData() == null ? null : response.getData().getResults();
+                    } catch (Throwable ex) {
+                        RecordLog.warn("[ShardedRequestDispatcher] Failed to process batch request: " + subRequest,
+                            ex);
+                    }
+                    for (int i = 0; i < indices.size(); i++) {
+                        results[indices.get(i)] = subResults != null && i < subResults.size()
+                            ? subResults.get(i) : new TokenResult(TokenResultStatus.FAIL);
+                    }
+                    if (pendingShards.decrementAndGet() == 0) {
+                        ctx.writeAndFlush(new ClusterResponse<>(request.getId(), request.getType(),
+                            TokenResultStatus.OK, new FlowBatchResponseData().setResults(Arrays.asList(results))));
+                    }
+                }
+            };
+            try {
+                shardGroup.executeInShard(shard, task);
+            } catch (RejectedExecutionException ex) {
+                task.run();
+            }
+        }
+        return true;
+    }
+
+    static Long flowIdOf(Object data) {
+        if (data instanceof FlowRequestData) {
+            return ((FlowRequestData)data).getFlowId();
+        }
+        if (data instanceof ParamFlowRequestData) {
+            return ((ParamFlowRequestData)data).getFlowId();
+        }
+        if (data instanceof FlowLeaseRequestData) {
+            return ((FlowLeaseRequestData)data).getFlowId();
+        }
+        return null;
+    }
+}
@@ -15,9 +15,14 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow;
 
+import java.util.Collections;
+
 import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
 import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
@@ -72,6 +77,52 @@ public class ClusterFlowCheckerTest {
         ClusterMetricStatistics.removeMetric(flowId);
     }
 
+    @Test
+    public void testAcquireClusterLease() {
+        String namespace = ServerConstants.DEFAULT_NAMESPACE;
+        long flowId = 98766L;
+        FlowRule clusterRule = new FlowRule("lease-resource")
+            .setCount(100)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(flowId)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ClusterFlowRuleManager.loadRules(namespace, Collections.singletonList(clusterRule));
+        try {
+            ClusterMetric metric = ClusterMetricStatistics.getMetric(flowId);
+            assertNotNull(metric);
+
+            // A single lease takes at most 10% (by default) of the global threshold.
+            TokenResult result = ClusterFlowChecker.acquireClusterLease(clusterRule, 50, 0);
+            assertResultPass(result);
+            assertEquals(10, result.getRemaining());
+            assertTrue(result.getWaitInMs() > 0);
+            assertEquals(10, metric.getSum(ClusterFlowEvent.PASS));
+
+            // Return unused tokens of the previous lease.
+            result = ClusterFlowChecker.acquireClusterLease(clusterRule, 0, 4);
+            assertResultPass(result);
+            assertEquals(0, result.getRemaining());
+            assertEquals(6, metric.getSum(ClusterFlowEvent.PASS));
+
+            // Leases never exceed the global threshold.
+            int total = 6;
+            for (int i = 0; i < 20; i++) {
+                result = ClusterFlowChecker.acquireClusterLease(clusterRule, 10, 0);
+                if (result.getStatus() == 0) {
+                    total += result.getRemaining();
+                }
+            }
+            assertEquals(100, total);
+            result = ClusterFlowChecker.acquireClusterLease(clusterRule, 1, 0);
+            assertResultBlock(result);
+            // The client is advised not to renew before the next bucket.
+            assertTrue(result.getWaitInMs() > 0 && result.getWaitInMs() <= 500);
+        } finally {
+            ClusterFlowRuleManager.loadRules(namespace, Collections.<FlowRule>emptyList());
+        }
+    }
+
     private TokenResult tryAcquire(FlowRule clusterRule, boolean occupy) {
         return ClusterFlowChecker.acquireClusterToken(clusterRule, 1, occupy);
     }
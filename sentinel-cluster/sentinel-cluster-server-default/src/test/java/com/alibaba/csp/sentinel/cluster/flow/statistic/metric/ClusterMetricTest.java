@@ -0,0 +1,48 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class ClusterMetricTest {
+
+    @Test
+    public void testReleasePassFromGrantingBucket() throws Exception {
+        ClusterMetric metric = new ClusterMetric(10, 1000);
+        assertEquals(10, metric.tryAcquirePassUpTo(10, 100));
+
+        // Give back the tokens in a later bucket.
+        Thread.sleep(150);
+        assertEquals(4, metric.releasePass(4));
+        assertEquals(6, metric.getSum(ClusterFlowEvent.PASS));
+        assertEquals(0, metric.getCurrentCount(ClusterFlowEvent.PASS));
+        // Never releases more than passed.
+        assertEquals(6, metric.releasePass(10));
+        assertEquals(0, metric.getSum(ClusterFlowEvent.PASS));
+
+        // Nothing negative is left after the granting bucket slides out.
+        Thread.sleep(1000);
+        assertEquals(0, metric.getSum(ClusterFlowEvent.PASS));
+        assertEquals(0, metric.getPassCount());
+    }
+}
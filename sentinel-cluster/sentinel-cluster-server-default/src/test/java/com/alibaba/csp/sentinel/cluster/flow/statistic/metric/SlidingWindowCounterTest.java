@@ -0,0 +1,127 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author agent
+ */
+public class SlidingWindowCounterTest {
+
+    private static final int INTERVAL_MS = 60 * 1000;
+
+    @Test
+    public void testTryAddWithinLimit() {
+        long start = windowOf(TimeUtil.currentTimeMillis());
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, INTERVAL_MS);
+        assertEquals(3, counter.tryAdd(3, 10));
+        assertEquals(10, counter.tryAdd(7, 10));
+        assertEquals(-1, counter.tryAdd(1, 10));
+        assertEquals(0, counter.tryAddUpTo(5, 10));
+        assumeTrue(start == windowOf(TimeUtil.currentTimeMillis()));
+        assertEquals(10, counter.getTotal());
+    }
+
+    @Test
+    public void testTryAddUpTo() {
+        long start = windowOf(TimeUtil.currentTimeMillis());
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, INTERVAL_MS);
+        assertEquals(4, counter.tryAddUpTo(4, 10));
+        assertEquals(6, counter.tryAddUpTo(8, 10));
+        assertEquals(0, counter.tryAddUpTo(1, 10));
+        assumeTrue(start == windowOf(TimeUtil.currentTimeMillis()));
+        assertEquals(10, counter.getTotal());
+    }
+
+    @Test
+    public void testRemove() {
+        long start = windowOf(TimeUtil.currentTimeMillis());
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, INTERVAL_MS);
+        counter.add(5);
+        assertEquals(3, counter.remove(3));
+        // Never removes more than counted.
+        assertEquals(2, counter.remove(10));
+        assumeTrue(start == windowOf(TimeUtil.currentTimeMillis()));
+        assertEquals(0, counter.getTotal());
+        assertEquals(4, counter.tryAdd(4, 4));
+    }
+
+    @Test
+    public void testAddNext() {
+        long start = windowOf(TimeUtil.currentTimeMillis());
+        SlidingWindowCounter counter = new SlidingWindowCounter(1, INTERVAL_MS);
+        counter.addNext(6);
+        // Counted at once.
+        assertEquals(-1, counter.tryAdd(5, 10));
+        assertEquals(10, counter.tryAdd(4, 10));
+        assumeTrue(start == windowOf(TimeUtil.currentTimeMillis()));
+        assertEquals(10, counter.getTotal());
+    }
+
+    @Test
+    public void testSlideOut() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(2, 100);
+        counter.add(5);
+        Thread.sleep(120);
+        assertEquals(0, counter.getTotal());
+        assertEquals(10, counter.tryAdd(10, 10));
+    }
+
+    @Test
+    public void testConcurrentTryAddNeverExceeds() throws Exception {
+        final long limit = 1000;
+        long start = windowOf(TimeUtil.currentTimeMillis());
+        final SlidingWindowCounter counter = new SlidingWindowCounter(1, INTERVAL_MS);
+        final AtomicLong acquired = new AtomicLong();
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        if (counter.tryAdd(1, limit) > 0) {
+                            acquired.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdownNow();
+        assumeTrue(start == windowOf(TimeUtil.currentTimeMillis()));
+        assertEquals(limit, acquired.get());
+        assertEquals(limit, counter.getTotal());
+    }
+
+    private static long windowOf(long timeMillis) {
+        return timeMillis - timeMillis % INTERVAL_MS;
+    }
+}
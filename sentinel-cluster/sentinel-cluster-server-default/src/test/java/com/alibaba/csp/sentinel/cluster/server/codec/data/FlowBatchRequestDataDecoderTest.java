@@ -0,0 +1,62 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.codec.data;
+
+import com.alibaba.csp.sentinel.cluster.request.data.FlowBatchRequestData;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class FlowBatchRequestDataDecoderTest {
+
+    @Test
+    public void testDecode() {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeShort(2);
+        buf.writeLong(101L);
+        buf.writeInt(1);
+        buf.writeBoolean(false);
+        buf.writeLong(102L);
+        buf.writeInt(3);
+        buf.writeBoolean(true);
+
+        FlowBatchRequestData data = new FlowBatchRequestDataDecoder().decode(buf);
+        Assert.assertEquals(2, data.getRequests().size());
+        Assert.assertEquals(101L, data.getRequests().get(0).getFlowId());
+        Assert.assertFalse(data.getRequests().get(0).isPriority());
+        Assert.assertEquals(102L, data.getRequests().get(1).getFlowId());
+        Assert.assertEquals(3, data.getRequests().get(1).getCount());
+        Assert.assertTrue(data.getRequests().get(1).isPriority());
+    }
+
+    @Test
+    public void testDecodeBadBatch() {
+        ByteBuf empty = Unpooled.buffer();
+        empty.writeShort(0);
+        Assert.assertNull(new FlowBatchRequestDataDecoder().decode(empty));
+
+        ByteBuf truncated = Unpooled.buffer();
+        truncated.writeShort(2);
+        truncated.writeLong(101L);
+        truncated.writeInt(1);
+        truncated.writeBoolean(false);
+        Assert.assertNull(new FlowBatchRequestDataDecoder().decode(truncated));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.shard;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class RequestShardGroupTest {
+
+    @Test
+    public void testFlowAffinity() throws Exception {
+        RequestShardGroup group = new RequestShardGroup(4);
+        try {
+            final int flows = 16;
+            final int tasksPerFlow = 200;
+            final Map<Long, Thread> ownerThreads = new ConcurrentHashMap<>();
+            final AtomicInteger misrouted = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(flows * tasksPerFlow);
+            for (int i = 0; i < tasksPerFlow; i++) {
+                for (long flowId = 1; flowId <= flows; flowId++) {
+                    final long id = flowId;
+                    group.execute(flowId, new Runnable() {
+                        @Override
+                        public void run() {
+                            Thread owner = ownerThreads.get(id);
+                            if (owner == null) {
+                                ownerThreads.put(id, Thread.currentThread());
+                            } else if (owner != Thread.currentThread()) {
+                                misrouted.incrementAndGet();
+                            }
+                            done.countDown();
+                        }
+                    });
+                }
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(0, misrouted.get());
+            assertEquals(flows, ownerThreads.size());
+        } finally {
+            group.shutdown();
+        }
+    }
+
+    @Test
+    public void testShardOfInRange() {
+        RequestShardGroup group = new RequestShardGroup(3);
+        try {
+            for (long flowId = -100; flowId < 100; flowId++) {
+                int shard = group.shardOf(flowId);
+                assertTrue(shard >= 0 && shard < 3);
+                assertEquals(shard, group.shardOf(flowId));
+            }
+        } finally {
+            group.shutdown();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectAfterShutdown() {
+        RequestShardGroup group = new RequestShardGroup(1);
+        group.shutdown();
+        group.execute(1L, new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @Test
+    public void testNoTaskLostOnShutdown() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final RequestShardGroup group = new RequestShardGroup(1);
+            final AtomicInteger executed = new AtomicInteger();
+            final AtomicInteger rejected = new AtomicInteger();
+            final int producers = 4;
+            final int tasksPerProducer = 500;
+            final CountDownLatch producersDone = new CountDownLatch(producers);
+            for (int i = 0; i < producers; i++) {
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < tasksPerProducer; j++) {
+                            try {
+                                group.execute(1L, new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        executed.incrementAndGet();
+                                    }
+                                });
+                            } catch (RejectedExecutionException ex) {
+                                rejected.incrementAndGet();
+                            }
+                        }
+                        producersDone.countDown();
+                    }
+                }).start();
+            }
+            group.shutdown();
+            assertTrue(producersDone.await(10, TimeUnit.SECONDS));
+
+            // Every task is either run by the shard or rejected to the caller.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executed.get() + rejected.get() < producers * tasksPerProducer
+                && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(producers * tasksPerProducer, executed.get() + rejected.get());
+        }
+    }
+}
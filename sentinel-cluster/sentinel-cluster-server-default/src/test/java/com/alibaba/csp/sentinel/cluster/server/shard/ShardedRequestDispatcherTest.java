@@ -0,0 +1,174 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.shard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowBatchRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowBatchResponseData;
+import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessor;
+
+import io.netty.channel.ChannelHandlerContext;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author agent
+ */
+public class ShardedRequestDispatcherTest {
+
+    @Test
+    public void testNotFlowRequest() {
+        RequestShardGroup group = new RequestShardGroup(2);
+        try {
+            ShardedRequestDispatcher dispatcher = new ShardedRequestDispatcher(group);
+            ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+            RequestProcessor<?, ?> processor = mock(RequestProcessor.class);
+            assertFalse(dispatcher.dispatch(ctx, processor,
+                new ClusterRequest<>(1, ClusterConstants.MSG_TYPE_PING, "namespace")));
+            verifyZeroInteractions(ctx, processor);
+        } finally {
+            group.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDispatchBatchInOrder() {
+        RequestShardGroup group = new RequestShardGroup(4);
+        try {
+            ShardedRequestDispatcher dispatcher = new ShardedRequestDispatcher(group);
+            ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+            // Echo the flow ID as the remaining count.
+            RequestProcessor<FlowBatchRequestData, FlowBatchResponseData> processor =
+                new RequestProcessor<FlowBatchRequestData, FlowBatchResponseData>() {
+                    @Override
+                    public ClusterResponse<FlowBatchResponseData> processRequest(
+                        ClusterRequest<FlowBatchRequestData> request) {
+                        List<TokenResult> results = new ArrayList<>();
+                        for (FlowRequestData data : request.getData().getRequests()) {
+                            results.add(new TokenResult(TokenResultStatus.OK).setRemaining((int)data.getFlowId()));
+                        }
+                        return new ClusterResponse<>(request.getId(), request.getType(), TokenResultStatus.OK,
+                            new FlowBatchResponseData().setResults(results));
+                    }
+                };
+            List<FlowRequestData> requests = new ArrayList<>();
+            for (long flowId = 1; flowId <= 20; flowId++) {
+                requests.add(new FlowRequestData().setFlowId(flowId).setCount(1));
+            }
+            assertTrue(dispatcher.dispatch(ctx, processor, new ClusterRequest<>(7,
+                ClusterConstants.MSG_TYPE_FLOW_BATCH, new FlowBatchRequestData().setRequests(requests))));
+
+            ArgumentCaptor<ClusterResponse> captor = ArgumentCaptor.forClass(ClusterResponse.class);
+            verify(ctx, timeout(5000).times(1)).writeAndFlush(captor.capture());
+            ClusterResponse<FlowBatchResponseData> response = captor.getValue();
+            assertEquals(7, response.getId());
+            List<TokenResult> results = response.getData().getResults();
+            assertEquals(20, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i + 1, results.get(i).getRemaining());
+            }
+        } finally {
+            group.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailResponseOnProcessorError() {
+        RequestShardGroup group = new RequestShardGroup(2);
+        try {
+            ShardedRequestDispatcher dispatcher = new ShardedRequestDispatcher(group);
+            ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+            RequestProcessor<FlowRequestData, ?> processor = mock(RequestProcessor.class);
+            when(processor.processRequest(any(ClusterRequest.class))).thenThrow(new IllegalStateException("mock"));
+            assertTrue(dispatcher.dispatch(ctx, processor, new ClusterRequest<>(3, ClusterConstants.MSG_TYPE_FLOW,
+                new FlowRequestData().setFlowId(1L).setCount(1))));
+
+            ArgumentCaptor<ClusterResponse> captor = ArgumentCaptor.forClass(ClusterResponse.class);
+            verify(ctx, timeout(5000).times(1)).writeAndFlush(captor.capture());
+            assertEquals(3, captor.getValue().getId());
+            assertEquals(TokenResultStatus.FAIL, captor.getValue().getStatus());
+        } finally {
+            group.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailResultsOnBatchProcessorError() {
+        RequestShardGroup group = new RequestShardGroup(2);
+        try {
+            ShardedRequestDispatcher dispatcher = new ShardedRequestDispatcher(group);
+            ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+            RequestProcessor<FlowBatchRequestData, ?> processor = mock(RequestProcessor.class);
+            when(processor.processRequest(any(ClusterRequest.class))).thenThrow(new IllegalStateException("mock"));
+            List<FlowRequestData> requests = new ArrayList<>();
+            for (long flowId = 1; flowId <= 4; flowId++) {
+                requests.add(new FlowRequestData().setFlowId(flowId).setCount(1));
+            }
+            assertTrue(dispatcher.dispatch(ctx, processor, new ClusterRequest<>(5,
+                ClusterConstants.MSG_TYPE_FLOW_BATCH, new FlowBatchRequestData().setRequests(requests))));
+
+            ArgumentCaptor<ClusterResponse> captor = ArgumentCaptor.forClass(ClusterResponse.class);
+            verify(ctx, timeout(5000).times(1)).writeAndFlush(captor.capture());
+            ClusterResponse<FlowBatchResponseData> response = captor.getValue();
+            assertEquals(4, response.getData().getResults().size());
+            for (TokenResult result : response.getData().getResults()) {
+                assertEquals(TokenResultStatus.FAIL, (int)result.getStatus());
+            }
+        } finally {
+            group.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProcessInPlaceAfterShutdown() {
+        RequestShardGroup group = new RequestShardGroup(2);
+        group.shutdown();
+        ShardedRequestDispatcher dispatcher = new ShardedRequestDispatcher(group);
+        ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+        RequestProcessor<FlowRequestData, ?> processor = mock(RequestProcessor.class);
+        ClusterResponse response = new ClusterResponse<>(9, ClusterConstants.MSG_TYPE_FLOW, TokenResultStatus.OK,
+            null);
+        when(processor.processRequest(any(ClusterRequest.class))).thenReturn(response);
+
+        assertTrue(dispatcher.dispatch(ctx, processor, new ClusterRequest<>(9, ClusterConstants.MSG_TYPE_FLOW,
+            new FlowRequestData().setFlowId(1L).setCount(1))));
+        // Written in the caller thread.
+        verify(ctx, times(1)).writeAndFlush(response);
+    }
+
+    @Test
+    public void testFlowIdOf() {
+        assertEquals(Long.valueOf(3L), ShardedRequestDispatcher.flowIdOf(new FlowRequestData().setFlowId(3L)));
+        assertNull(ShardedRequestDispatcher.flowIdOf("namespace"));
+        assertNull(ShardedRequestDispatcher.flowIdOf(Arrays.asList(1L)));
+    }
+}
@@ -38,20 +38,15 @@ public final class SimpleClusterFlowChecker {
             return new TokenResult(TokenResultStatus.FAIL);
         }
 
-        double latestQps = metric.getAvg(ClusterFlowEvent.PASS);
         double globalThreshold = rule.getCount() * ClusterServerConfigManager.getExceedCount();
-        double nextRemaining = globalThreshold - latestQps - acquireCount;
+        int nextRemaining = metric.tryAcquirePass(acquireCount, globalThreshold);
 
         if (nextRemaining >= 0) {
-            metric.add(ClusterFlowEvent.PASS, acquireCount);
-            metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
-
             ClusterServerStatLogUtil.log("flow|pass|" + id, acquireCount);
             ClusterServerStatLogUtil.log("flow|pass_request|" + id, 1);
 
-            // Remaining count is cut down to a smaller integer.
             return new TokenResult(TokenResultStatus.OK)
-                .setRemaining((int) nextRemaining)
+                .setRemaining(nextRemaining)
                 .setWaitInMs(0);
         } else {
             // Blocked.
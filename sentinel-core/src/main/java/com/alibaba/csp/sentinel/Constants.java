@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.node.EntranceNode;
@@ -70,5 +71,11 @@ public final class Constants {
      */
     public static volatile boolean ON = true;
 
+    /**
+     * The switch for recycling {@link Entry} and {@link com.alibaba.csp.sentinel.context.Context} objects
+     * through thread-local pools (since 1.8.0). Entries must not be used after exit when it is turned on.
+     */
+    public static volatile boolean ENTRY_POOL_ON = SentinelConfig.entryPoolEnabled();
+
     private Constants() {}
 }
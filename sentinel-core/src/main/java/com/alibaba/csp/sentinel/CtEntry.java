@@ -36,6 +36,11 @@ class CtEntry extends Entry {
     protected ProcessorSlot<Object> chain;
     protected Context context;
 
+    /**
+     * Whether the entry is owned by {@link CtEntryPool} (so it will be recycled after exit).
+     */
+    boolean pooled = false;
+
     CtEntry(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
         super(resourceWrapper);
         this.chain = chain;
@@ -44,6 +49,16 @@ class CtEntry extends Entry {
         setUpEntryFor(context);
     }
 
+    void resetTo(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+        resetTo(resourceWrapper);
+        this.parent = null;
+        this.child = null;
+        this.chain = chain;
+        this.context = context;
+
+        setUpEntryFor(context);
+    }
+
     private void setUpEntryFor(Context context) {
         // The entry should not be associated to NullContext.
         if (context instanceof NullContext) {
@@ -105,8 +120,14 @@ class CtEntry extends Entry {
 
     @Override
     protected Entry trueExit(int count, Object... args) throws ErrorEntryFreeException {
-        exitForContext(context, count, args);
+        Context exitContext = this.context;
+        exitForContext(exitContext, count, args);
 
+        Entry parent = this.parent;
+        if (pooled && exitContext != null && this.context == null) {
+            // The entry has just exited normally (not a duplicate exit), so it could be recycled.
+            CtEntryPool.release(this);
+        }
         return parent;
     }
 
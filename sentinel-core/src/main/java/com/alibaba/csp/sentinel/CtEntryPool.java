@@ -0,0 +1,74 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+
+/**
+ * <p>
+ * Thread-local pool of {@link CtEntry}, used when {@link Constants#ENTRY_POOL_ON} is turned on.
+ * </p>
+ * <p>
+ * Entries are acquired in {@link CtSph} and released right after they have exited successfully,
+ * so each thread only keeps as many entries as its deepest nested invocation
+ * (at most {@link #MAX_POOLED_ENTRIES_PER_THREAD}).
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class CtEntryPool {
+
+    static final int MAX_POOLED_ENTRIES_PER_THREAD = 16;
+
+    private static final ThreadLocal<CtEntryPool> POOLS = new ThreadLocal<CtEntryPool>() {
+        @Override
+        protected CtEntryPool initialValue() {
+            return new CtEntryPool();
+        }
+    };
+
+    private final CtEntry[] entries = new CtEntry[MAX_POOLED_ENTRIES_PER_THREAD];
+    private int size = 0;
+
+    static CtEntry acquire(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
+        CtEntryPool pool = POOLS.get();
+        if (pool.size == 0) {
+            CtEntry entry = new CtEntry(resourceWrapper, chain, context);
+            entry.pooled = true;
+            return entry;
+        }
+        CtEntry entry = pool.entries[--pool.size];
+        pool.entries[pool.size] = null;
+        entry.resetTo(resourceWrapper, chain, context);
+        return entry;
+    }
+
+    static void release(CtEntry entry) {
+        CtEntryPool pool = POOLS.get();
+        if (pool.size < MAX_POOLED_ENTRIES_PER_THREAD) {
+            pool.entries[pool.size++] = entry;
+        }
+    }
+
+    static int pooledSize() {
+        return POOLS.get().size;
+    }
+
+    private CtEntryPool() {}
+}
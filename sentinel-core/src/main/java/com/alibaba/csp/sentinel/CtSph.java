@@ -16,9 +16,9 @@
 package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
 
+import com.alibaba.csp.sentinel.concurrent.ConcurrentRegistry;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.context.ContextUtil;
@@ -26,11 +26,13 @@ import com.alibaba.csp.sentinel.context.NullContext;
 import com.alibaba.csp.sentinel.slotchain.MethodResourceWrapper;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.ResourceIdRegistry;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slotchain.SlotChainProvider;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.Rule;
+import com.alibaba.csp.sentinel.util.function.Function;
 
 /**
  * {@inheritDoc}
@@ -48,10 +50,19 @@ public class CtSph implements Sph {
      * Same resource({@link ResourceWrapper#equals(Object)}) will share the same
      * {@link ProcessorSlotChain}, no matter in which {@link Context}.
      */
-    private static volatile Map<ResourceWrapper, ProcessorSlotChain> chainMap
-        = new HashMap<ResourceWrapper, ProcessorSlotChain>();
-
-    private static final Object LOCK = new Object();
+    private static final ConcurrentRegistry<ResourceWrapper, ProcessorSlotChain> chainMap
+        = new ConcurrentRegistry<ResourceWrapper, ProcessorSlotChain>(Constants.MAX_SLOT_CHAIN_SIZE);
+
+    private static final Function<ResourceWrapper, ProcessorSlotChain> CHAIN_FACTORY
+        = new Function<ResourceWrapper, ProcessorSlotChain>() {
+            @Override
+            public ProcessorSlotChain apply(ResourceWrapper resourceWrapper) {
+                // Resource IDs are assigned with the slot chains, so names that never get a chain
+                // (e.g. the chain amount exceeds the threshold) do not use up IDs.
+                ResourceIdRegistry.getOrCreateId(resourceWrapper.getName());
+                return SlotChainProvider.newSlotChain();
+            }
+        };
 
     private AsyncEntry asyncEntryWithNoChain(ResourceWrapper resourceWrapper, Context context) {
         AsyncEntry entry = new AsyncEntry(resourceWrapper, null, context);
@@ -63,6 +74,11 @@ public class CtSph implements Sph {
 
     private AsyncEntry asyncEntryWithPriorityInternal(ResourceWrapper resourceWrapper, int count, boolean prioritized,
                                                       Object... args) throws BlockException {
+        return asyncEntryWithPriorityInternal(resourceWrapper, null, count, prioritized, args);
+    }
+
+    private AsyncEntry asyncEntryWithPriorityInternal(ResourceWrapper resourceWrapper, ResourceHandle handle, int count,
+                                                      boolean prioritized, Object... args) throws BlockException {
         Context context = ContextUtil.getContext();
         if (context instanceof NullContext) {
             // The {@link NullContext} indicates that the amount of context has exceeded the threshold,
@@ -79,7 +95,7 @@ public class CtSph implements Sph {
             return asyncEntryWithNoChain(resourceWrapper, context);
         }
 
-        ProcessorSlot<Object> chain = lookProcessChain(resourceWrapper);
+        ProcessorSlot<Object> chain = handle == null ? lookProcessChain(resourceWrapper) : lookProcessChain(handle);
 
         // Means processor cache size exceeds {@link Constants.MAX_SLOT_CHAIN_SIZE}, so no rule checking will be done.
         if (chain == null) {
@@ -116,6 +132,11 @@ public class CtSph implements Sph {
 
     private Entry entryWithPriority(ResourceWrapper resourceWrapper, int count, boolean prioritized, Object... args)
         throws BlockException {
+        return entryWithPriority(resourceWrapper, null, count, prioritized, args);
+    }
+
+    private Entry entryWithPriority(ResourceWrapper resourceWrapper, ResourceHandle handle, int count,
+                                    boolean prioritized, Object... args) throws BlockException {
         Context context = ContextUtil.getContext();
         if (context instanceof NullContext) {
             // The {@link NullContext} indicates that the amount of context has exceeded the threshold,
@@ -133,7 +154,7 @@ public class CtSph implements Sph {
             return new CtEntry(resourceWrapper, null, context);
         }
 
-        ProcessorSlot<Object> chain = lookProcessChain(resourceWrapper);
+        ProcessorSlot<Object> chain = handle == null ? lookProcessChain(resourceWrapper) : lookProcessChain(handle);
 
         /*
          * Means amount of resources (slot chain) exceeds {@link Constants.MAX_SLOT_CHAIN_SIZE},
@@ -143,7 +164,8 @@ public class CtSph implements Sph {
             return new CtEntry(resourceWrapper, null, context);
         }
 
-        Entry e = new CtEntry(resourceWrapper, chain, context);
+        Entry e = Constants.ENTRY_POOL_ON ? CtEntryPool.acquire(resourceWrapper, chain, context)
+            : new CtEntry(resourceWrapper, chain, context);
         try {
             chain.entry(context, resourceWrapper, null, count, prioritized, args);
         } catch (BlockException e1) {
@@ -176,6 +198,45 @@ public class CtSph implements Sph {
         return entryWithPriority(resourceWrapper, count, false, args);
     }
 
+    /**
+     * Do all {@link Rule}s checking about the resource of the pre-resolved handle.
+     *
+     * @param handle      pre-resolved resource handle
+     * @param count       tokens needed
+     * @param prioritized whether the entry is prioritized
+     * @param args        arguments of user method call
+     * @return {@link Entry} represents this call
+     * @throws BlockException if any rule's threshold is exceeded
+     * @since 1.8.0
+     */
+    @Override
+    public Entry entry(ResourceHandle handle, int count, boolean prioritized, Object... args) throws BlockException {
+        return entryWithPriority(handle.getResource(), handle, count, prioritized, args);
+    }
+
+    @Override
+    public AsyncEntry asyncEntry(ResourceHandle handle, int count, boolean prioritized, Object... args)
+        throws BlockException {
+        return asyncEntryWithPriorityInternal(handle.getResource(), handle, count, prioritized, args);
+    }
+
+    /**
+     * Get {@link ProcessorSlotChain} of the resource handle. The slot chain will be cached in the handle
+     * once resolved.
+     *
+     * @param handle target resource handle
+     * @return {@link ProcessorSlotChain} of the resource
+     * @since 1.8.0
+     */
+    ProcessorSlot<Object> lookProcessChain(ResourceHandle handle) {
+        ProcessorSlot<Object> chain = handle.getChain();
+        if (chain == null) {
+            chain = lookProcessChain(handle.getResource());
+            handle.setChain(chain);
+        }
+        return chain;
+    }
+
     /**
      * Get {@link ProcessorSlotChain} of the resource. new {@link ProcessorSlotChain} will
      * be created if the resource doesn't relate one.
@@ -192,26 +253,8 @@ public class CtSph implements Sph {
      * @return {@link ProcessorSlotChain} of the resource
      */
     ProcessorSlot<Object> lookProcessChain(ResourceWrapper resourceWrapper) {
-        ProcessorSlotChain chain = chainMap.get(resourceWrapper);
-        if (chain == null) {
-            synchronized (LOCK) {
-                chain = chainMap.get(resourceWrapper);
-                if (chain == null) {
-                    // Entry size limit.
-                    if (chainMap.size() >= Constants.MAX_SLOT_CHAIN_SIZE) {
-                        return null;
-                    }
-
-                    chain = SlotChainProvider.newSlotChain();
-                    Map<ResourceWrapper, ProcessorSlotChain> newMap = new HashMap<ResourceWrapper, ProcessorSlotChain>(
-                        chainMap.size() + 1);
-                    newMap.putAll(chainMap);
-                    newMap.put(resourceWrapper, chain);
-                    chainMap = newMap;
-                }
-            }
-        }
-        return chain;
+        // The registry returns null if the entry size limit is exceeded.
+        return chainMap.getOrCreate(resourceWrapper, CHAIN_FACTORY);
     }
 
     /**
@@ -239,7 +282,7 @@ public class CtSph implements Sph {
      * @since 0.2.0
      */
     static Map<ResourceWrapper, ProcessorSlotChain> getChainMap() {
-        return chainMap;
+        return chainMap.asMap();
     }
 
     /**
@@ -54,7 +54,7 @@ public abstract class Entry implements AutoCloseable {
 
     private static final Object[] OBJECTS0 = new Object[0];
 
-    private final long createTimestamp;
+    private long createTimestamp;
     private long completeTimestamp;
 
     private Node curNode;
@@ -66,13 +66,29 @@ public abstract class Entry implements AutoCloseable {
     private Throwable error;
     private BlockException blockError;
 
-    protected final ResourceWrapper resourceWrapper;
+    protected ResourceWrapper resourceWrapper;
 
     public Entry(ResourceWrapper resourceWrapper) {
         this.resourceWrapper = resourceWrapper;
         this.createTimestamp = TimeUtil.currentTimeMillis();
     }
 
+    /**
+     * Reset the entry to the initial state for the given resource, so that it could be reused.
+     *
+     * @param resourceWrapper the resource of the new invocation
+     * @since 1.8.0
+     */
+    void resetTo(ResourceWrapper resourceWrapper) {
+        this.resourceWrapper = resourceWrapper;
+        this.createTimestamp = TimeUtil.currentTimeMillis();
+        this.completeTimestamp = 0;
+        this.curNode = null;
+        this.originNode = null;
+        this.error = null;
+        this.blockError = null;
+    }
+
     public ResourceWrapper getResourceWrapper() {
         return resourceWrapper;
     }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>
+ * A reusable, pre-resolved handle of a protected resource. The resource ID and the slot chain
+ * are resolved only once, so entering the resource via the handle (e.g. {@link SphU#entry(ResourceHandle)})
+ * does not need to hash the resource name any more.
+ * </p>
+ * <p>
+ * The handle is thread-safe and is meant to be cached (e.g. per route or per RPC method) and reused
+ * for all invocations of the resource.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class ResourceHandle {
+
+    private final ResourceWrapper resource;
+
+    /**
+     * Lazily resolved slot chain of the resource.
+     */
+    private volatile ProcessorSlot<Object> chain;
+
+    public ResourceHandle(ResourceWrapper resource) {
+        AssertUtil.notNull(resource, "resource cannot be null");
+        this.resource = resource;
+    }
+
+    public ResourceWrapper getResource() {
+        return resource;
+    }
+
+    public String getName() {
+        return resource.getName();
+    }
+
+    public int getResourceId() {
+        return resource.getResourceId();
+    }
+
+    ProcessorSlot<Object> getChain() {
+        return chain;
+    }
+
+    void setChain(ProcessorSlot<Object> chain) {
+        this.chain = chain;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceHandle{" +
+            "resource=" + resource.getName() +
+            ", id=" + resource.getResourceId() +
+            '}';
+    }
+}
@@ -193,4 +193,31 @@ public interface Sph extends SphResourceTypeSupport {
      */
     Entry entryWithPriority(String name, EntryType trafficType, int batchCount, boolean prioritized, Object... args)
         throws BlockException;
+
+    /**
+     * Create a protected resource via a pre-resolved resource handle.
+     *
+     * @param handle      the pre-resolved handle of the protected resource
+     * @param batchCount  the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param prioritized whether the entry is prioritized
+     * @param args        args for parameter flow control or customized slots
+     * @return the {@link Entry} of this invocation (used for mark the invocation complete and get context data)
+     * @throws BlockException if the block criteria is met
+     * @since 1.8.0
+     */
+    Entry entry(ResourceHandle handle, int batchCount, boolean prioritized, Object... args) throws BlockException;
+
+    /**
+     * Create a protected asynchronous resource via a pre-resolved resource handle.
+     *
+     * @param handle      the pre-resolved handle of the protected resource
+     * @param batchCount  the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param prioritized whether the entry is prioritized
+     * @param args        args for parameter flow control or customized slots
+     * @return created asynchronous entry
+     * @throws BlockException if the block criteria is met
+     * @since 1.8.0
+     */
+    AsyncEntry asyncEntry(ResourceHandle handle, int batchCount, boolean prioritized, Object... args)
+        throws BlockException;
 }
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
 
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.Rule;
 import com.alibaba.csp.sentinel.slots.system.SystemRule;
@@ -365,4 +366,85 @@ public class SphU {
                                         Object[] args) throws BlockException {
         return Env.sph.asyncEntryWithType(name, resourceType, trafficType, batchCount, false, args);
     }
+
+    /**
+     * Get a reusable, pre-resolved handle of the given resource (with {@link EntryType#OUT} traffic type).
+     * The handle could be cached and passed to {@link #entry(ResourceHandle)} to avoid resolving
+     * the resource by name on every invocation.
+     *
+     * @param name the unique name of the protected resource
+     * @return the handle of the resource
+     * @since 1.8.0
+     */
+    public static ResourceHandle resource(String name) {
+        return resource(name, ResourceTypeConstants.COMMON, EntryType.OUT);
+    }
+
+    /**
+     * Get a reusable, pre-resolved handle of the given resource.
+     *
+     * @param name        the unique name of the protected resource
+     * @param trafficType the traffic type (inbound, outbound or internal). This is used
+     *                    to mark whether it can be blocked when the system is unstable,
+     *                    only inbound traffic could be blocked by {@link SystemRule}
+     * @return the handle of the resource
+     * @since 1.8.0
+     */
+    public static ResourceHandle resource(String name, EntryType trafficType) {
+        return resource(name, ResourceTypeConstants.COMMON, trafficType);
+    }
+
+    /**
+     * Get a reusable, pre-resolved handle of the given resource.
+     *
+     * @param name         the unique name of the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal). This is used
+     *                     to mark whether it can be blocked when the system is unstable,
+     *                     only inbound traffic could be blocked by {@link SystemRule}
+     * @return the handle of the resource
+     * @since 1.8.0
+     */
+    public static ResourceHandle resource(String name, int resourceType, EntryType trafficType) {
+        return new ResourceHandle(new StringResourceWrapper(name, trafficType, resourceType));
+    }
+
+    /**
+     * Record statistics and perform rule checking for the resource of the given handle.
+     *
+     * @param handle the pre-resolved handle of the protected resource
+     * @return the {@link Entry} of this invocation (used for mark the invocation complete and get context data)
+     * @throws BlockException if the block criteria is met (e.g. metric exceeded the threshold of any rules)
+     * @since 1.8.0
+     */
+    public static Entry entry(ResourceHandle handle) throws BlockException {
+        return Env.sph.entry(handle, 1, false, OBJECTS0);
+    }
+
+    /**
+     * Record statistics and perform rule checking for the resource of the given handle.
+     *
+     * @param handle     the pre-resolved handle of the protected resource
+     * @param batchCount the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args       args for parameter flow control or customized slots
+     * @return the {@link Entry} of this invocation (used for mark the invocation complete and get context data)
+     * @throws BlockException if the block criteria is met (e.g. metric exceeded the threshold of any rules)
+     * @since 1.8.0
+     */
+    public static Entry entry(ResourceHandle handle, int batchCount, Object... args) throws BlockException {
+        return Env.sph.entry(handle, batchCount, false, args);
+    }
+
+    /**
+     * Record statistics and check all rules of the resource of the given handle
+     * that indicates an async invocation.
+     *
+     * @param handle the pre-resolved handle of the protected resource
+     * @return the {@link AsyncEntry} of this invocation
+     * @throws BlockException if the block criteria is met (e.g. metric exceeded the threshold of any rules)
+     * @since 1.8.0
+     */
+    public static AsyncEntry asyncEntry(ResourceHandle handle) throws BlockException {
+        return Env.sph.asyncEntry(handle, 1, false, OBJECTS0);
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.util.Collection;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.concurrent.SettableFuture;
+
+/**
+ * <p>Token client that requests tokens without blocking the caller, e.g. for reactive adapters.</p>
+ * <p>
+ * The returned future is always completed with a {@link TokenResult}: errors (e.g. timeout, client not ready)
+ * are reported as {@link com.alibaba.csp.sentinel.cluster.TokenResultStatus#FAIL}, the same as the
+ * synchronous methods. The future is completed in the IO thread of the client, so the listeners
+ * should not block.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public interface AsyncClusterTokenClient extends ClusterTokenClient {
+
+    /**
+     * Request tokens from remote token server asynchronously.
+     *
+     * @param ruleId the unique rule ID
+     * @param acquireCount token count to acquire
+     * @param prioritized whether the request is prioritized
+     * @return future of the token result
+     */
+    SettableFuture<TokenResult> requestTokenAsync(Long ruleId, int acquireCount, boolean prioritized);
+
+    /**
+     * Request tokens for a specific parameter from remote token server asynchronously.
+     *
+     * @param ruleId the unique rule ID
+     * @param acquireCount token count to acquire
+     * @param params parameter list
+     * @return future of the token result
+     */
+    SettableFuture<TokenResult> requestParamTokenAsync(Long ruleId, int acquireCount, Collection<Object> params);
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.function.Function;
+
+/**
+ * <p>
+ * A registry for per-resource state (e.g. slot chains, cluster nodes), which are created once
+ * and then read on every request.
+ * </p>
+ * <p>
+ * Reading is lock-free. Creating a value takes one of the striped locks of the registry
+ * that the key belongs to, so the value factory of the same key is invoked only once, while
+ * creation of different keys rarely contends and does not copy the whole map.
+ * </p>
+ * <p>
+ * The max size is strict: a slot is reserved before the factory is invoked, so concurrent creation
+ * of different keys never makes the registry exceed the limit. Values put directly into
+ * {@link #asMap()} (only for tests) are also counted.
+ * </p>
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ * @author agent
+ * @since 1.8.0
+ */
+public class ConcurrentRegistry<K, V> {
+
+    private static final int LOCK_STRIPES = 8;
+
+    private final ConcurrentHashMap<K, V> map;
+    private final int maxSize;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * Amount of values being created, which are reserved against the max size.
+     */
+    private final AtomicInteger creating = new AtomicInteger();
+
+    public ConcurrentRegistry() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSize max amount of values in the registry
+     */
+    public ConcurrentRegistry(int maxSize) {
+        AssertUtil.isTrue(maxSize > 0, "maxSize should be positive");
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<>(Math.min(maxSize, 16));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Get the value of the key.
+     *
+     * @param key the key
+     * @return the value if present, otherwise null
+     */
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * Get the value of the key, or create one via the factory if absent.
+     *
+     * @param key     the key
+     * @param factory the value factory, which will be invoked only once for the same key
+     * @return the present or created value; null if the registry is full or the factory returns null
+     */
+    public V getOrCreate(K key, Function<K, V> factory) {
+        V value = map.get(key);
+        if (value != null) {
+            return value;
+        }
+        synchronized (lockFor(key)) {
+            value = map.get(key);
+            if (value == null) {
+                if (!reserve()) {
+                    return null;
+                }
+                try {
+                    value = factory.apply(key);
+                    if (value != null) {
+                        map.put(key, value);
+                    }
+                } finally {
+                    // Released after the value is put, so the slot is always counted
+                    // either as reserved or in the map (or transiently both).
+                    creating.decrementAndGet();
+                }
+            }
+        }
+        return value;
+    }
+
+    private boolean reserve() {
+        if (creating.incrementAndGet() + map.size() > maxSize) {
+            creating.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private Object lockFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & (LOCK_STRIPES - 1)];
+    }
+
+    public V remove(K key) {
+        return map.remove(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Get the underlying map of the registry. Iteration over the map is weakly consistent.
+     *
+     * @return the underlying map
+     */
+    public Map<K, V> asMap() {
+        return map;
+    }
+}
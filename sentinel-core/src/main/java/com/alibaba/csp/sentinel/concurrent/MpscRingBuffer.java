@@ -0,0 +1,133 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * A bounded lock-free multi-producer single-consumer ring buffer.
+ * </p>
+ * <p>
+ * Every slot carries a sequence number: a producer claims the slot of the tail sequence via CAS
+ * when the sequence of the slot equals the tail, and publishes the element by advancing the sequence
+ * of the slot, so producers never block each other and a full buffer is detected without locks.
+ * {@link #poll()} must be called from a single consumer thread.
+ * </p>
+ *
+ * @param <E> type of the elements
+ * @author agent
+ * @since 1.8.0
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong(0);
+    /**
+     * Only updated by the consumer.
+     */
+    private volatile long head = 0;
+
+    /**
+     * @param capacity min capacity of the buffer, which will be rounded up to a power of 2
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int c = Integer.highestOneBit(capacity);
+        if (c < capacity) {
+            c <<= 1;
+        }
+        this.capacity = c;
+        this.mask = c - 1;
+        this.elements = new AtomicReferenceArray<E>(c);
+        this.sequences = new AtomicLongArray(c);
+        for (int i = 0; i < c; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add the element to the tail of the buffer.
+     *
+     * @param e the element, must not be null
+     * @return true if added, or false if the buffer is full
+     */
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long t = tail.get();
+            int idx = (int)(t & mask);
+            long diff = sequences.get(idx) - t;
+            if (diff == 0) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    elements.lazySet(idx, e);
+                    // Publish the element to the consumer.
+                    sequences.set(idx, t + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // The slot has not been consumed since the last round.
+                return false;
+            }
+            // Otherwise the slot has been claimed by another producer, retry.
+        }
+    }
+
+    /**
+     * Remove the element at the head of the buffer. Only the single consumer could call this method.
+     *
+     * @return the element, or null if the buffer is empty (or the head element is not published yet)
+     */
+    public E poll() {
+        long h = head;
+        int idx = (int)(h & mask);
+        if (sequences.get(idx) != h + 1) {
+            return null;
+        }
+        E e = elements.get(idx);
+        elements.lazySet(idx, null);
+        // Release the slot to the producers of the next round.
+        sequences.set(idx, h + capacity);
+        head = h + 1;
+        return e;
+    }
+
+    /**
+     * @return approximate amount of the elements in the buffer
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int)Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
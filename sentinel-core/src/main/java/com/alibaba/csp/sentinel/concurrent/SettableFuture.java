@@ -0,0 +1,214 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+/**
+ * <p>
+ * A {@link Future} that is completed explicitly via {@link #set(Object)} or {@link #setException(Throwable)},
+ * and notifies the listeners on completion (like {@code CompletableFuture} of JDK 8, which is not available
+ * in the JDK 7 target of Sentinel).
+ * </p>
+ * <p>
+ * The listeners are invoked in the thread that completes the future, or in the thread that adds the listener
+ * if the future has been completed, so they should not block.
+ * </p>
+ *
+ * @param <V> type of the result
+ * @author agent
+ * @since 1.8.0
+ */
+public class SettableFuture<V> implements Future<V> {
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private final Object lock = new Object();
+
+    private volatile int state = PENDING;
+    private V value;
+    private Throwable cause;
+    /**
+     * Listeners that wait for the completion, guarded by {@link #lock}; null when completed.
+     */
+    private List<Consumer<SettableFuture<V>>> listeners;
+
+    public static <V> SettableFuture<V> succeeded(V value) {
+        SettableFuture<V> future = new SettableFuture<>();
+        future.set(value);
+        return future;
+    }
+
+    public static <V> SettableFuture<V> failed(Throwable cause) {
+        SettableFuture<V> future = new SettableFuture<>();
+        future.setException(cause);
+        return future;
+    }
+
+    /**
+     * Complete the future with the value.
+     *
+     * @param value the result
+     * @return true if completed by this call, false if the future has been completed
+     */
+    public boolean set(V value) {
+        return complete(SUCCEEDED, value, null);
+    }
+
+    /**
+     * Complete the future with the failure.
+     *
+     * @param cause the failure
+     * @return true if completed by this call, false if the future has been completed
+     */
+    public boolean setException(Throwable cause) {
+        AssertUtil.notNull(cause, "cause cannot be null");
+        return complete(FAILED, null, cause);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return complete(CANCELLED, null, new CancellationException());
+    }
+
+    private boolean complete(int newState, V value, Throwable cause) {
+        List<Consumer<SettableFuture<V>>> toNotify;
+        synchronized (lock) {
+            if (state != PENDING) {
+                return false;
+            }
+            this.value = value;
+            this.cause = cause;
+            this.state = newState;
+            toNotify = listeners;
+            listeners = null;
+            lock.notifyAll();
+        }
+        if (toNotify != null) {
+            for (Consumer<SettableFuture<V>> listener : toNotify) {
+                notifyListener(listener);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a listener which will be invoked once the future is completed.
+     *
+     * @param listener the listener
+     * @return this future
+     */
+    public SettableFuture<V> addListener(Consumer<SettableFuture<V>> listener) {
+        AssertUtil.notNull(listener, "listener cannot be null");
+        synchronized (lock) {
+            if (state == PENDING) {
+                if (listeners == null) {
+                    listeners = new ArrayList<>(1);
+                }
+                listeners.add(listener);
+                return this;
+            }
+        }
+        notifyListener(listener);
+        return this;
+    }
+
+    private void notifyListener(Consumer<SettableFuture<V>> listener) {
+        try {
+            listener.accept(this);
+        } catch (Throwable e) {
+            RecordLog.warn("[SettableFuture] Error when notifying listener", e);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state != PENDING;
+    }
+
+    public boolean isSuccess() {
+        return state == SUCCEEDED;
+    }
+
+    /**
+     * @return the result if succeeded, otherwise null
+     */
+    public V getNow() {
+        return state == SUCCEEDED ? value : null;
+    }
+
+    /**
+     * @return the failure if failed or cancelled, otherwise null
+     */
+    public Throwable getCause() {
+        int s = state;
+        return s == FAILED || s == CANCELLED ? cause : null;
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        synchronized (lock) {
+            while (state == PENDING) {
+                lock.wait();
+            }
+        }
+        return report();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (state == PENDING) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+        return report();
+    }
+
+    private V report() throws ExecutionException {
+        switch (state) {
+            case SUCCEEDED:
+                return value;
+            case CANCELLED:
+                throw (CancellationException)cause;
+            default:
+                throw new ExecutionException(cause);
+        }
+    }
+}
@@ -52,15 +52,45 @@ public final class SentinelConfig {
     public static final String CHARSET = "csp.sentinel.charset";
     public static final String SINGLE_METRIC_FILE_SIZE = "csp.sentinel.metric.file.single.size";
     public static final String TOTAL_METRIC_FILE_COUNT = "csp.sentinel.metric.file.total.count";
+    public static final String METRIC_FILE_BINARY = "csp.sentinel.metric.file.binary";
+    public static final String METRIC_FILE_RESOURCE_INDEX = "csp.sentinel.metric.file.resource.index";
+    public static final String METRIC_STREAMING_AGGREGATION = "csp.sentinel.metric.aggregation.streaming";
+    public static final String METRIC_ASYNC_WRITE = "csp.sentinel.metric.write.async";
+    public static final String METRIC_ASYNC_WRITE_BUFFER_SECONDS = "csp.sentinel.metric.write.async.buffer.seconds";
+    public static final String METRIC_FLUSH_INTERVAL_MS = "csp.sentinel.metric.write.flush.interval.ms";
+    public static final String METRIC_FSYNC_INTERVAL_MS = "csp.sentinel.metric.write.fsync.interval.ms";
+    public static final String METRIC_EXPORTER_OPEN_METRICS = "csp.sentinel.metric.exporter.openmetrics";
     public static final String COLD_FACTOR = "csp.sentinel.flow.cold.factor";
     public static final String STATISTIC_MAX_RT = "csp.sentinel.statistic.max.rt";
     public static final String SPI_CLASSLOADER = "csp.sentinel.spi.classloader";
+    public static final String STATISTIC_LOCK_FREE_WINDOW = "csp.sentinel.statistic.window.lockfree";
+    public static final String STATISTIC_STRIPED_BUCKET = "csp.sentinel.statistic.bucket.striped";
+    public static final String ENTRY_POOL_ENABLED = "csp.sentinel.entry.pool.enabled";
+    public static final String STATISTIC_RT_HISTOGRAM_RESOURCES = "csp.sentinel.statistic.rt.histogram.resources";
+    public static final String STATISTIC_RT_HISTOGRAM_MAX_RESOURCES
+        = "csp.sentinel.statistic.rt.histogram.max.resources";
+    public static final String STATISTIC_MAX_ORIGINS = "csp.sentinel.statistic.origin.max.count";
+    public static final String STATISTIC_ORIGIN_SKETCH_WIDTH = "csp.sentinel.statistic.origin.sketch.width";
 
     public static final String DEFAULT_CHARSET = "UTF-8";
     public static final long DEFAULT_SINGLE_METRIC_FILE_SIZE = 1024 * 1024 * 50;
     public static final int DEFAULT_TOTAL_METRIC_FILE_COUNT = 6;
+    public static final boolean DEFAULT_METRIC_FILE_BINARY = false;
+    public static final boolean DEFAULT_METRIC_FILE_RESOURCE_INDEX = false;
+    public static final boolean DEFAULT_METRIC_STREAMING_AGGREGATION = false;
+    public static final boolean DEFAULT_METRIC_ASYNC_WRITE = false;
+    public static final int DEFAULT_METRIC_ASYNC_WRITE_BUFFER_SECONDS = 64;
+    public static final int DEFAULT_METRIC_FLUSH_INTERVAL_MS = 1000;
+    public static final int DEFAULT_METRIC_FSYNC_INTERVAL_MS = 0;
+    public static final boolean DEFAULT_METRIC_EXPORTER_OPEN_METRICS = false;
     public static final int DEFAULT_COLD_FACTOR = 3;
     public static final int DEFAULT_STATISTIC_MAX_RT = 5000;
+    public static final boolean DEFAULT_STATISTIC_LOCK_FREE_WINDOW = false;
+    public static final boolean DEFAULT_STATISTIC_STRIPED_BUCKET = false;
+    public static final boolean DEFAULT_ENTRY_POOL_ENABLED = false;
+    public static final int DEFAULT_STATISTIC_RT_HISTOGRAM_MAX_RESOURCES = 100;
+    public static final int DEFAULT_STATISTIC_MAX_ORIGINS = 0;
+    public static final int DEFAULT_STATISTIC_ORIGIN_SKETCH_WIDTH = 0;
 
     static {
         try {
@@ -176,6 +206,121 @@ public final class SentinelConfig {
         }
     }
 
+    /**
+     * <p>Whether to write metrics in the binary segment format instead of the text lines.</p>
+     *
+     * @return true if the binary metric file format is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean binaryMetricFile() {
+        String v = props.get(METRIC_FILE_BINARY);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_METRIC_FILE_BINARY;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * <p>Whether to write a resource index alongside the text metric files, so that the metrics of a few
+     * resources could be queried without scanning the lines of other resources.</p>
+     *
+     * @return true if the metric resource index is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean metricResourceIndex() {
+        String v = props.get(METRIC_FILE_RESOURCE_INDEX);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_METRIC_FILE_RESOURCE_INDEX;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * <p>Whether to aggregate the metrics of all resources in streaming mode, which reuses the metric nodes
+     * and skips the resources without traffic, instead of building the metric maps every second.</p>
+     *
+     * @return true if the streaming metric aggregation is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean streamingMetricAggregation() {
+        String v = props.get(METRIC_STREAMING_AGGREGATION);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_METRIC_STREAMING_AGGREGATION;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * <p>Whether to write the metric files asynchronously in a dedicated thread.</p>
+     *
+     * @return true if the asynchronous metric writer is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean asyncMetricWrite() {
+        String v = props.get(METRIC_ASYNC_WRITE);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_METRIC_ASYNC_WRITE;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * @return max amount of seconds buffered in the asynchronous metric writer
+     * @since 1.8.0
+     */
+    public static int asyncMetricWriteBufferSeconds() {
+        int seconds = getNonNegativeIntConfig(METRIC_ASYNC_WRITE_BUFFER_SECONDS,
+            DEFAULT_METRIC_ASYNC_WRITE_BUFFER_SECONDS);
+        return seconds > 0 ? seconds : DEFAULT_METRIC_ASYNC_WRITE_BUFFER_SECONDS;
+    }
+
+    /**
+     * @return interval in milliseconds that the asynchronous metric writer flushes the buffered metrics
+     * @since 1.8.0
+     */
+    public static int metricFlushIntervalMs() {
+        return getNonNegativeIntConfig(METRIC_FLUSH_INTERVAL_MS, DEFAULT_METRIC_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * @return min interval in milliseconds that the asynchronous metric writer forces the metric files to
+     * the storage device, 0 for never
+     * @since 1.8.0
+     */
+    public static int metricFsyncIntervalMs() {
+        return getNonNegativeIntConfig(METRIC_FSYNC_INTERVAL_MS, DEFAULT_METRIC_FSYNC_INTERVAL_MS);
+    }
+
+    /**
+     * <p>Whether to enable the built-in OpenMetrics exporter, which keeps the latest metrics of all resources
+     * in memory for the OpenMetrics text exposition.</p>
+     *
+     * @return true if the OpenMetrics exporter is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean openMetricsExporterEnabled() {
+        String v = props.get(METRIC_EXPORTER_OPEN_METRICS);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_METRIC_EXPORTER_OPEN_METRICS;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    private static int getNonNegativeIntConfig(String key, int defaultValue) {
+        String v = props.get(key);
+        if (StringUtil.isBlank(v)) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(v.trim());
+            return value >= 0 ? value : defaultValue;
+        } catch (NumberFormatException ex) {
+            RecordLog.warn("[SentinelConfig] Invalid value of <{}>: {}, using the default value instead: "
+                + defaultValue, key, v);
+            return defaultValue;
+        }
+    }
+
     public static int coldFactor() {
         try {
             int coldFactor = Integer.parseInt(props.get(COLD_FACTOR));
@@ -214,6 +359,103 @@ public final class SentinelConfig {
         }
     }
 
+    /**
+     * <p>Whether to use the lock-free sliding window (which rotates buckets via CAS) for metric statistics.</p>
+     *
+     * @return true if the lock-free sliding window is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean lockFreeStatisticWindow() {
+        String v = props.get(STATISTIC_LOCK_FREE_WINDOW);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_STATISTIC_LOCK_FREE_WINDOW;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * <p>Whether to use the striped, cache-line-padded counter layout for metric buckets.</p>
+     *
+     * @return true if the striped bucket layout is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean stripedStatisticBucket() {
+        String v = props.get(STATISTIC_STRIPED_BUCKET);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_STATISTIC_STRIPED_BUCKET;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * <p>Whether to recycle the entry and context objects through thread-local pools.</p>
+     * <p>Note that in this mode, an entry (and its default context) must not be used after it has exited.</p>
+     *
+     * @return true if the entry pool is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean entryPoolEnabled() {
+        String v = props.get(ENTRY_POOL_ENABLED);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_ENTRY_POOL_ENABLED;
+        }
+        return Boolean.parseBoolean(v.trim());
+    }
+
+    /**
+     * <p>Get the resources that record the response time histogram (for percentiles) on startup.
+     * The resource names are separated by comma.</p>
+     *
+     * @return the resource names, or null if absent
+     * @since 1.8.0
+     */
+    public static String rtHistogramResources() {
+        return props.get(STATISTIC_RT_HISTOGRAM_RESOURCES);
+    }
+
+    /**
+     * <p>Get the max amount of resources that could record the response time histogram.</p>
+     *
+     * @return the max amount of resources
+     * @since 1.8.0
+     */
+    public static int rtHistogramMaxResources() {
+        String v = props.get(STATISTIC_RT_HISTOGRAM_MAX_RESOURCES);
+        if (StringUtil.isBlank(v)) {
+            return DEFAULT_STATISTIC_RT_HISTOGRAM_MAX_RESOURCES;
+        }
+        try {
+            int max = Integer.parseInt(v.trim());
+            return max >= 0 ? max : DEFAULT_STATISTIC_RT_HISTOGRAM_MAX_RESOURCES;
+        } catch (NumberFormatException ex) {
+            RecordLog.warn("[SentinelConfig] Invalid rtHistogramMaxResources value: {}, using the default value instead: "
+                + DEFAULT_STATISTIC_RT_HISTOGRAM_MAX_RESOURCES, v);
+            return DEFAULT_STATISTIC_RT_HISTOGRAM_MAX_RESOURCES;
+        }
+    }
+
+    /**
+     * <p>Get the max amount of origins that have the full statistics in a resource, not including the origins
+     * named in the flow rules. The other origins share the same statistic node.</p>
+     *
+     * @return the max amount of origins in a resource, 0 for unlimited
+     * @since 1.8.0
+     */
+    public static int statisticMaxOrigins() {
+        return getNonNegativeIntConfig(STATISTIC_MAX_ORIGINS, DEFAULT_STATISTIC_MAX_ORIGINS);
+    }
+
+    /**
+     * <p>Get the width (counters per row) of the sketch that counts the origins beyond
+     * {@link #statisticMaxOrigins()} in a resource.</p>
+     *
+     * @return the width of the origin sketch, 0 for deriving it from the max amount of origins
+     * @since 1.8.0
+     */
+    public static int statisticOriginSketchWidth() {
+        return getNonNegativeIntConfig(STATISTIC_ORIGIN_SKETCH_WIDTH, DEFAULT_STATISTIC_ORIGIN_SKETCH_WIDTH);
+    }
+
     /**
      * Function for resolving project name. The order is elaborated below:
      *
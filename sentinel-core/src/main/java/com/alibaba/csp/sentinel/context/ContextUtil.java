@@ -49,6 +49,12 @@ public class ContextUtil {
      */
     private static ThreadLocal<Context> contextHolder = new ThreadLocal<>();
 
+    /**
+     * The last exited context of current thread, which could be reused when {@link Constants#ENTRY_POOL_ON}
+     * is turned on.
+     */
+    private static final ThreadLocal<Context> recycledContextHolder = new ThreadLocal<>();
+
     /**
      * Holds all {@link EntranceNode}. Each {@link EntranceNode} is associated with a distinct context name.
      */
@@ -150,7 +156,7 @@ public class ContextUtil {
                     }
                 }
             }
-            context = new Context(node, name);
+            context = newContext(node, name);
             context.setOrigin(origin);
             contextHolder.set(context);
         }
@@ -158,6 +164,18 @@ public class ContextUtil {
         return context;
     }
 
+    private static Context newContext(DefaultNode node, String name) {
+        if (Constants.ENTRY_POOL_ON) {
+            Context context = recycledContextHolder.get();
+            // Same entrance node indicates the same context name.
+            if (context != null && context.getEntranceNode() == node) {
+                recycledContextHolder.set(null);
+                return context;
+            }
+        }
+        return new Context(node, name);
+    }
+
     private static boolean shouldWarn = true;
 
     private static void setNullContext() {
@@ -201,6 +219,9 @@ public class ContextUtil {
         Context context = contextHolder.get();
         if (context != null && context.getCurEntry() == null) {
             contextHolder.set(null);
+            if (Constants.ENTRY_POOL_ON && !context.isAsync() && !(context instanceof NullContext)) {
+                recycledContextHolder.set(context);
+            }
         }
     }
 
@@ -0,0 +1,173 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.eagleeye;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.alibaba.csp.sentinel.concurrent.MpscRingBuffer;
+
+/**
+ * An appender that hands the logs over to a dedicated writer thread via a lock-free ring buffer,
+ * so the caller never writes the file. When the buffer is full, the new logs are either dropped
+ * (and counted) or the caller is blocked until the buffer has room.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class AsyncAppender extends EagleEyeAppender {
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * The delegate is also accessed by {@link EagleEyeLogDaemon}, so it's wrapped with {@link SyncAppender}.
+     */
+    private final EagleEyeAppender delegate;
+    private final MpscRingBuffer<String> buffer;
+    private final boolean blockWhenFull;
+
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private long reportedDroppedCount = 0;
+
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AsyncAppender(EagleEyeAppender delegate, int bufferSize, boolean blockWhenFull) {
+        this.delegate = new SyncAppender(delegate);
+        this.buffer = new MpscRingBuffer<String>(bufferSize);
+        this.blockWhenFull = blockWhenFull;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        });
+        worker.setDaemon(true);
+        worker.setName("EagleEye-AsyncAppender-Thread-" + delegate.getOutputLocation());
+        worker.start();
+    }
+
+    @Override
+    public void append(String log) {
+        if (log == null || buffer.offer(log)) {
+            return;
+        }
+        if (blockWhenFull) {
+            while (running) {
+                LockSupport.unpark(worker);
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                if (buffer.offer(log)) {
+                    return;
+                }
+            }
+        }
+        droppedCount.incrementAndGet();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+            }
+        }
+        // Write the remaining logs before exiting.
+        drain();
+    }
+
+    private int drain() {
+        int count = 0;
+        String log;
+        while ((log = buffer.poll()) != null) {
+            try {
+                delegate.append(log);
+            } catch (Throwable e) {
+                EagleEye.selfLog("[ERROR] fail to append log: " + delegate, e);
+            }
+            count++;
+        }
+        long dropped = droppedCount.get();
+        if (dropped != reportedDroppedCount) {
+            EagleEye.selfLog("[WARN] " + (dropped - reportedDroppedCount) + " logs dropped as the buffer is full: "
+                + delegate);
+            reportedDroppedCount = dropped;
+        }
+        if (count > 0) {
+            delegate.flush();
+        }
+        return count;
+    }
+
+    @Override
+    public void flush() {
+        LockSupport.unpark(worker);
+    }
+
+    @Override
+    public void rollOver() {
+        delegate.rollOver();
+    }
+
+    @Override
+    public void reload() {
+        delegate.reload();
+    }
+
+    /**
+     * Stop the writer thread after writing all the buffered logs, then close the delegate appender.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(3));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    @Override
+    public void cleanup() {
+        delegate.cleanup();
+    }
+
+    @Override
+    public String getOutputLocation() {
+        return delegate.getOutputLocation();
+    }
+
+    /**
+     * @return amount of the logs dropped as the buffer is full
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return approximate amount of the buffered logs
+     */
+    int getPendingCount() {
+        return buffer.size();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncAppender [appender=" + delegate + "]";
+    }
+}
@@ -149,8 +149,61 @@ public final class StatEntry {
         return true;
     }
 
+    /**
+     * Create an entry with the first {@code keyCount} keys.
+     */
+    static StatEntry of(StatLogger statLogger, int keyCount, String key1, String key2, String key3, String key4) {
+        switch (keyCount) {
+            case 1:
+                return new StatEntry(statLogger, key1);
+            case 2:
+                return new StatEntry(statLogger, key1, key2);
+            case 3:
+                return new StatEntry(statLogger, key1, key2, key3);
+            case 4:
+                return new StatEntry(statLogger, key1, key2, key3, key4);
+            default:
+                throw new IllegalArgumentException("Invalid key count: " + keyCount);
+        }
+    }
+
+    /**
+     * The same as {@link #hashCode()} of the entry with the first {@code keyCount} keys.
+     */
+    static int hashOf(int keyCount, String key1, String key2, String key3, String key4) {
+        int h = 1;
+        h = 31 * h + (key1 == null ? 0 : key1.hashCode());
+        if (keyCount > 1) {
+            h = 31 * h + (key2 == null ? 0 : key2.hashCode());
+        }
+        if (keyCount > 2) {
+            h = 31 * h + (key3 == null ? 0 : key3.hashCode());
+        }
+        if (keyCount > 3) {
+            h = 31 * h + (key4 == null ? 0 : key4.hashCode());
+        }
+        return 31 + h;
+    }
+
+    boolean matches(String[] otherKeys) {
+        return keys == otherKeys || Arrays.equals(keys, otherKeys);
+    }
+
+    boolean matches(int keyCount, String key1, String key2, String key3, String key4) {
+        final String[] keys = this.keys;
+        return keys.length == keyCount
+            && eq(keys[0], key1)
+            && (keyCount < 2 || eq(keys[1], key2))
+            && (keyCount < 3 || eq(keys[2], key3))
+            && (keyCount < 4 || eq(keys[3], key4));
+    }
+
+    private static boolean eq(String a, String b) {
+        return a == b || (a != null && a.equals(b));
+    }
+
     StatEntryFunc getFunc(final StatEntryFuncFactory factory) {
-        return this.statLogger.getRollingData().getStatEntryFunc(this, factory);
+        return this.statLogger.getStatEntryFunc(this, factory);
     }
 
     public void count() {
@@ -16,9 +16,8 @@
 package com.alibaba.csp.sentinel.eagleeye;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -132,18 +131,18 @@ class StatLogController {
                 final String timeStr = fmt.formatWithoutMs(data.getTimeSlot());
 
                 final EagleEyeAppender appender = logger.getAppender();
-                final Set<Entry<StatEntry, StatEntryFunc>> entrySet = data.getStatEntrySet();
+                final List<StatRollingData.Slot> slots = data.getStatSlots();
                 final char entryDelimiter = logger.getEntryDelimiter();
                 final char keyDelimiter = logger.getKeyDelimiter();
                 final char valueDelimiter = logger.getValueDelimiter();
 
-                for (Entry<StatEntry, StatEntryFunc> entry : entrySet) {
+                for (StatRollingData.Slot slot : slots) {
                     buffer.delete(0, buffer.length());
-                    StatEntryFunc func = entry.getValue();
+                    StatEntryFunc func = slot.func;
                     // time|statType|keys|values
                     buffer.append(timeStr).append(entryDelimiter);
                     buffer.append(func.getStatType()).append(entryDelimiter);
-                    entry.getKey().appendTo(buffer, keyDelimiter);
+                    slot.entry.appendTo(buffer, keyDelimiter);
                     buffer.append(entryDelimiter);
                     func.appendTo(buffer, valueDelimiter);
                     buffer.append(EagleEyeCoreUtils.NEWLINE);
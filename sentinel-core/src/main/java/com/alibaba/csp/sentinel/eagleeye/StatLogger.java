@@ -82,6 +82,11 @@ public final class StatLogger {
         return valueDelimiter;
     }
 
+    /**
+     * Swap in the data of the next time slot atomically.
+     *
+     * @return the previous data to write
+     */
     StatRollingData rolling() {
         do {
             long now = System.currentTimeMillis();
@@ -89,15 +94,87 @@ public final class StatLogger {
 
             StatRollingData prevData = ref.get();
             long rollingTimeMillis = timeSlot + intervalMillis;
-            int initialCapacity = prevData != null ? prevData.getStatCount() : 16;
-            StatRollingData nextData = new StatRollingData(
-                this, initialCapacity, timeSlot, rollingTimeMillis);
+            // Size the table for the entries of the previous time slot.
+            int expectedEntryCount = prevData == null ? 0 : prevData.getStatCount();
+            StatRollingData nextData = new StatRollingData(this, timeSlot, rollingTimeMillis, expectedEntryCount);
             if (ref.compareAndSet(prevData, nextData)) {
                 return prevData;
             }
         } while (true);
     }
 
+    StatEntryFunc getStatEntryFunc(StatEntry statEntry, StatEntryFuncFactory factory) {
+        while (true) {
+            StatRollingData data = ref.get();
+            StatEntryFunc func = data.getStatEntryFunc(statEntry, factory);
+            if (func != null) {
+                return func;
+            }
+            swapFullData(data);
+        }
+    }
+
+    private StatEntryFunc getStatEntryFunc(StatEntryFuncFactory factory, int keyCount,
+                                           String key1, String key2, String key3, String key4) {
+        while (true) {
+            StatRollingData data = ref.get();
+            StatEntryFunc func = data.getStatEntryFunc(factory, keyCount, key1, key2, key3, key4);
+            if (func != null) {
+                return func;
+            }
+            swapFullData(data);
+        }
+    }
+
+    /**
+     * Write the full data in advance and continue with new data of the same time slot.
+     */
+    private void swapFullData(StatRollingData data) {
+        StatRollingData nextData = new StatRollingData(this, data.getTimeSlot(), data.getRollingTimeMillis(),
+            data.getStatCount());
+        if (ref.compareAndSet(data, nextData)) {
+            StatLogController.scheduleWriteTask(data);
+        }
+    }
+
+    /**
+     * The same as {@code stat(key).count(count)}, but no {@link StatEntry} is created for an existing entry.
+     *
+     * @since 1.8.0
+     */
+    public void count(String key, long count) {
+        getStatEntryFunc(StatEntryFuncFactory.COUNT_SUM, 1, key, null, null, null).count(count);
+    }
+
+    /**
+     * The same as {@code stat(key1, key2).count(count)}, but no {@link StatEntry} is created for an existing entry.
+     *
+     * @since 1.8.0
+     */
+    public void count(String key1, String key2, long count) {
+        getStatEntryFunc(StatEntryFuncFactory.COUNT_SUM, 2, key1, key2, null, null).count(count);
+    }
+
+    /**
+     * The same as {@code stat(key1, key2, key3).count(count)}, but no {@link StatEntry} is created
+     * for an existing entry.
+     *
+     * @since 1.8.0
+     */
+    public void count(String key1, String key2, String key3, long count) {
+        getStatEntryFunc(StatEntryFuncFactory.COUNT_SUM, 3, key1, key2, key3, null).count(count);
+    }
+
+    /**
+     * The same as {@code stat(key1, key2, key3, key4).count(count)}, but no {@link StatEntry} is created
+     * for an existing entry.
+     *
+     * @since 1.8.0
+     */
+    public void count(String key1, String key2, String key3, String key4, long count) {
+        getStatEntryFunc(StatEntryFuncFactory.COUNT_SUM, 4, key1, key2, key3, key4).count(count);
+    }
+
     public StatEntry stat(String key) {
         return new StatEntry(this, key);
     }
@@ -32,6 +32,10 @@ public final class StatLoggerBuilder extends BaseLoggerBuilder<StatLoggerBuilder
 
     private EagleEyeAppender appender = null;
 
+    private int asyncBufferSize = 0;
+
+    private boolean asyncBlockWhenFull = false;
+
     StatLoggerBuilder(String loggerName) {
         super(loggerName);
     }
@@ -60,6 +64,23 @@ public final class StatLoggerBuilder extends BaseLoggerBuilder<StatLoggerBuilder
         return this;
     }
 
+    /**
+     * Write the stat log in a dedicated thread via a bounded ring buffer.
+     *
+     * @param bufferSize    max amount of the buffered logs
+     * @param blockWhenFull whether to block the caller rather than to drop the new logs when the buffer is full
+     * @return this builder
+     * @since 1.8.0
+     */
+    public StatLoggerBuilder asyncAppender(int bufferSize, boolean blockWhenFull) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Async buffer size should be at least 1: " + bufferSize);
+        }
+        this.asyncBufferSize = bufferSize;
+        this.asyncBlockWhenFull = blockWhenFull;
+        return this;
+    }
+
     StatLoggerBuilder appender(EagleEyeAppender appender) {
         this.appender = appender;
         return this;
@@ -80,7 +101,11 @@ public final class StatLoggerBuilder extends BaseLoggerBuilder<StatLoggerBuilder
         EagleEyeAppender appender = this.appender;
         if (appender == null) {
             EagleEyeRollingFileAppender rfAppender = new EagleEyeRollingFileAppender(filePath, maxFileSize);
-            appender = new SyncAppender(rfAppender);
+            if (asyncBufferSize > 0) {
+                appender = new AsyncAppender(rfAppender, asyncBufferSize, asyncBlockWhenFull);
+            } else {
+                appender = new SyncAppender(rfAppender);
+            }
         }
 
         EagleEyeLogDaemon.watch(appender);
@@ -15,75 +15,164 @@
  */
 package com.alibaba.csp.sentinel.eagleeye;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
+ * <p>
+ * Stat entries of a time slot, kept in an open-addressing hash table. An existing entry is located by
+ * the pre-computed hash of its keys and linear probing, so counting an existing entry neither locks
+ * nor allocates. A new entry is installed under the lock of the data.
+ * </p>
+ * <p>
+ * The table is sized from the entry count of the previous time slot (so an idle logger only holds
+ * a small table), and doubled on demand when the load factor exceeds 0.75, up to the capacity
+ * for {@link StatLogger#getMaxEntryCount()}. When the max entry count has been reached, no more entries
+ * could be added and the {@link StatLogger} swaps in a new table of the same time slot.
+ * </p>
+ *
  * @author jifeng
+ * @author agent
  */
 final class StatRollingData {
 
+    private static final int MIN_CAPACITY = 16;
+
     private final StatLogger statLogger;
 
     private final long timeSlot;
 
     private final long rollingTimeMillis;
 
-    private final ReentrantLock writeLock;
+    private volatile AtomicReferenceArray<Slot> table;
 
-    private final Map<StatEntry, StatEntryFunc> statMap;
+    private final int maxCapacity;
 
-    StatRollingData(StatLogger statLogger, int initialCapacity, long timeSlot, long rollingTimeMillis) {
-        this(statLogger, timeSlot, rollingTimeMillis,
-            new ConcurrentHashMap<StatEntry, StatEntryFunc>(
-                Math.min(initialCapacity, statLogger.getMaxEntryCount())));
-    }
+    private final int maxEntryCount;
 
-    private StatRollingData(StatLogger statLogger, long timeSlot, long rollingTimeMillis,
-                            Map<StatEntry, StatEntryFunc> statMap) {
+    private volatile int statCount = 0;
+
+    /**
+     * @param expectedEntryCount expected amount of entries, e.g. the entry count of the previous time slot
+     */
+    StatRollingData(StatLogger statLogger, long timeSlot, long rollingTimeMillis, int expectedEntryCount) {
         this.statLogger = statLogger;
         this.timeSlot = timeSlot;
         this.rollingTimeMillis = rollingTimeMillis;
-        this.writeLock = new ReentrantLock();
-        this.statMap = statMap;
+        this.maxEntryCount = statLogger.getMaxEntryCount();
+        this.maxCapacity = capacityFor(maxEntryCount);
+        this.table = new AtomicReferenceArray<Slot>(
+            Math.min(capacityFor(Math.min(expectedEntryCount, maxEntryCount)), maxCapacity));
     }
 
-    StatEntryFunc getStatEntryFunc(
-        final StatEntry statEntry, final StatEntryFuncFactory factory) {
-        StatEntryFunc func = statMap.get(statEntry);
-        if (func == null) {
-            StatRollingData clone = null;
-            writeLock.lock();
-            try {
-                int entryCount = statMap.size();
-                if (entryCount < statLogger.getMaxEntryCount()) {
-                    func = statMap.get(statEntry);
-                    if (func == null) {
-                        func = factory.create();
-                        statMap.put(statEntry, func);
-                    }
-                } else {
-                    Map<StatEntry, StatEntryFunc> cloneStatMap =
-                        new HashMap<StatEntry, StatEntryFunc>(statMap);
-                    statMap.clear();
-
-                    func = factory.create();
-                    statMap.put(statEntry, func);
-                    clone = new StatRollingData(statLogger, timeSlot, rollingTimeMillis, cloneStatMap);
-                }
-            } finally {
-                writeLock.unlock();
+    /**
+     * @return the power-of-two capacity that keeps the load factor under 0.75 for the entry count
+     */
+    private static int capacityFor(int entryCount) {
+        int size = Math.max(entryCount + (entryCount >>> 1), MIN_CAPACITY);
+        int capacity = Integer.highestOneBit(size);
+        return capacity < size ? capacity << 1 : capacity;
+    }
+
+    /**
+     * Get the function of the stat entry, creating it if absent.
+     *
+     * @return the function, or null if the max entry count has been reached
+     */
+    StatEntryFunc getStatEntryFunc(final StatEntry statEntry, final StatEntryFuncFactory factory) {
+        AtomicReferenceArray<Slot> tab = table;
+        String[] keys = statEntry.getKeys();
+        int hash = statEntry.hashCode();
+        int mask = tab.length() - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            Slot slot = tab.get(i);
+            if (slot == null) {
+                return install(statEntry, factory);
+            }
+            if (slot.hash == hash && slot.entry.matches(keys)) {
+                return slot.func;
             }
+        }
+    }
 
-            if (clone != null) {
-                StatLogController.scheduleWriteTask(clone);
+    /**
+     * Get the function of the stat entry with up to 4 keys without creating a {@link StatEntry}
+     * for an existing entry.
+     *
+     * @return the function, or null if the max entry count has been reached
+     */
+    StatEntryFunc getStatEntryFunc(final StatEntryFuncFactory factory, int keyCount,
+                                   String key1, String key2, String key3, String key4) {
+        AtomicReferenceArray<Slot> tab = table;
+        int hash = StatEntry.hashOf(keyCount, key1, key2, key3, key4);
+        int mask = tab.length() - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            Slot slot = tab.get(i);
+            if (slot == null) {
+                return install(StatEntry.of(statLogger, keyCount, key1, key2, key3, key4), factory);
             }
+            if (slot.hash == hash && slot.entry.matches(keyCount, key1, key2, key3, key4)) {
+                return slot.func;
+            }
+        }
+    }
+
+    /**
+     * Install the entry into the current table, growing the table if necessary. The probing always ends
+     * at an empty slot, as the load factor is kept under 0.75.
+     *
+     * @return the function of the entry (which may be installed by another thread),
+     * or null if the max entry count has been reached
+     */
+    private synchronized StatEntryFunc install(StatEntry statEntry, StatEntryFuncFactory factory) {
+        AtomicReferenceArray<Slot> tab = table;
+        String[] keys = statEntry.getKeys();
+        int hash = statEntry.hashCode();
+        int mask = tab.length() - 1;
+        int i = spread(hash) & mask;
+        for (Slot slot; (slot = tab.get(i)) != null; i = (i + 1) & mask) {
+            if (slot.hash == hash && slot.entry.matches(keys)) {
+                return slot.func;
+            }
+        }
+        if (statCount >= maxEntryCount) {
+            return null;
         }
-        return func;
+        Slot slot = new Slot(statEntry, factory.create());
+        if (statCount + 1 > (tab.length() >>> 2) * 3 && tab.length() < maxCapacity) {
+            tab = grow(tab);
+            insert(tab, slot);
+            table = tab;
+        } else {
+            tab.set(i, slot);
+        }
+        statCount++;
+        return slot.func;
+    }
+
+    private static AtomicReferenceArray<Slot> grow(AtomicReferenceArray<Slot> tab) {
+        AtomicReferenceArray<Slot> newTab = new AtomicReferenceArray<Slot>(tab.length() << 1);
+        for (int i = 0; i < tab.length(); i++) {
+            Slot slot = tab.get(i);
+            if (slot != null) {
+                insert(newTab, slot);
+            }
+        }
+        return newTab;
+    }
+
+    private static void insert(AtomicReferenceArray<Slot> tab, Slot slot) {
+        int mask = tab.length() - 1;
+        int i = spread(slot.hash) & mask;
+        while (tab.get(i) != null) {
+            i = (i + 1) & mask;
+        }
+        tab.set(i, slot);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
     }
 
     StatLogger getStatLogger() {
@@ -99,10 +188,34 @@ final class StatRollingData {
     }
 
     int getStatCount() {
-        return statMap.size();
+        return statCount;
     }
 
-    Set<Entry<StatEntry, StatEntryFunc>> getStatEntrySet() {
-        return statMap.entrySet();
+    int getCapacity() {
+        return table.length();
+    }
+
+    List<Slot> getStatSlots() {
+        AtomicReferenceArray<Slot> table = this.table;
+        List<Slot> slots = new ArrayList<Slot>(statCount);
+        for (int i = 0; i < table.length(); i++) {
+            Slot slot = table.get(i);
+            if (slot != null) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    static final class Slot {
+        final StatEntry entry;
+        final int hash;
+        final StatEntryFunc func;
+
+        Slot(StatEntry entry, StatEntryFunc func) {
+            this.entry = entry;
+            this.hash = entry.hashCode();
+            this.func = func;
+        }
     }
 }
@@ -31,6 +31,14 @@ import static com.alibaba.csp.sentinel.util.ConfigUtil.addSeparator;
  * In this case, {@link #LOG_NAME_USE_PID} property could be configured as "true" to turn on this switch.
  * </p>
  *
+ * <p>
+ * The log files are written in the caller thread by default. {@link #LOG_ASYNC} could be configured as "true"
+ * to write the biz log and the block log via a bounded ring buffer in a dedicated thread instead,
+ * and {@link #LOG_ASYNC_FULL_POLICY} decides whether to drop the new logs or to block the caller
+ * when the buffer is full. {@link #LOG_FILE_MMAP} could be configured as "true" to write the biz log files
+ * via memory-mapped segments rather than file streams.
+ * </p>
+ *
  * @author Carpenter Lee
  * @author Eric Zhao
  */
@@ -40,6 +48,22 @@ public class LogBase {
     public static final String LOG_NAME_USE_PID = "csp.sentinel.log.use.pid";
     public static final String LOG_OUTPUT_TYPE = "csp.sentinel.log.output.type";
     public static final String LOG_CHARSET = "csp.sentinel.log.charset";
+    /**
+     * @since 1.8.0
+     */
+    public static final String LOG_ASYNC = "csp.sentinel.log.async";
+    /**
+     * @since 1.8.0
+     */
+    public static final String LOG_ASYNC_BUFFER_SIZE = "csp.sentinel.log.async.buffer.size";
+    /**
+     * @since 1.8.0
+     */
+    public static final String LOG_ASYNC_FULL_POLICY = "csp.sentinel.log.async.full.policy";
+    /**
+     * @since 1.8.0
+     */
+    public static final String LOG_FILE_MMAP = "csp.sentinel.log.file.mmap";
 
     /**
      * Output biz log (e.g. RecordLog and CommandCenterLog) to file.
@@ -50,6 +74,15 @@ public class LogBase {
      */
     public static final String LOG_OUTPUT_TYPE_CONSOLE = "console";
     public static final String LOG_CHARSET_UTF8 = "utf-8";
+    /**
+     * Drop the new logs when the async log buffer is full.
+     */
+    public static final String LOG_ASYNC_FULL_POLICY_DROP = "drop";
+    /**
+     * Block the caller until the async log buffer has room.
+     */
+    public static final String LOG_ASYNC_FULL_POLICY_BLOCK = "block";
+    public static final int DEFAULT_LOG_ASYNC_BUFFER_SIZE = 8192;
 
     private static final String DIR_NAME = "logs" + File.separator + "csp";
     private static final String USER_HOME = "user.home";
@@ -59,6 +92,10 @@ public class LogBase {
     private static String logOutputType;
     private static String logBaseDir;
     private static String logCharSet;
+    private static boolean logAsync;
+    private static int logAsyncBufferSize;
+    private static String logAsyncFullPolicy;
+    private static boolean logFileMmap;
 
     static {
         try {
@@ -75,6 +112,10 @@ public class LogBase {
         logOutputType = LOG_OUTPUT_TYPE_FILE;
         logBaseDir = addSeparator(System.getProperty(USER_HOME)) + DIR_NAME + File.separator;
         logCharSet = LOG_CHARSET_UTF8;
+        logAsync = false;
+        logAsyncBufferSize = DEFAULT_LOG_ASYNC_BUFFER_SIZE;
+        logAsyncFullPolicy = LOG_ASYNC_FULL_POLICY_DROP;
+        logFileMmap = false;
     }
 
     private static void loadProperties() {
@@ -103,6 +144,30 @@ public class LogBase {
         String usePid = properties.getProperty(LOG_NAME_USE_PID);
         logNameUsePid = "true".equalsIgnoreCase(usePid);
         System.out.println("INFO: Sentinel log name use pid is: " + logNameUsePid);
+
+        logAsync = "true".equalsIgnoreCase(properties.getProperty(LOG_ASYNC));
+        String bufferSize = properties.getProperty(LOG_ASYNC_BUFFER_SIZE);
+        if (bufferSize != null) {
+            try {
+                int size = Integer.parseInt(bufferSize.trim());
+                if (size > 0) {
+                    logAsyncBufferSize = size;
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("ERROR: invalid Sentinel async log buffer size: " + bufferSize);
+            }
+        }
+        if (LOG_ASYNC_FULL_POLICY_BLOCK.equalsIgnoreCase(properties.getProperty(LOG_ASYNC_FULL_POLICY))) {
+            logAsyncFullPolicy = LOG_ASYNC_FULL_POLICY_BLOCK;
+        }
+        logFileMmap = "true".equalsIgnoreCase(properties.getProperty(LOG_FILE_MMAP));
+        if (logFileMmap) {
+            System.out.println("INFO: Sentinel log file mmap is enabled");
+        }
+        if (logAsync) {
+            System.out.println("INFO: Sentinel async log is enabled, bufferSize=" + logAsyncBufferSize
+                + ", fullPolicy=" + logAsyncFullPolicy);
+        }
     }
 
 
@@ -142,4 +207,45 @@ public class LogBase {
         return logCharSet;
     }
 
+    /**
+     * Whether to write the log files in a dedicated thread. This switch is configured by {@link #LOG_ASYNC} property.
+     *
+     * @return true if async log is enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean isLogAsync() {
+        return logAsync;
+    }
+
+    /**
+     * Get the max amount of the log entries buffered for the async log.
+     *
+     * @return the async log buffer size, {@link #DEFAULT_LOG_ASYNC_BUFFER_SIZE} by default
+     * @since 1.8.0
+     */
+    public static int getLogAsyncBufferSize() {
+        return logAsyncBufferSize;
+    }
+
+    /**
+     * Whether to block the caller rather than to drop the new logs when the async log buffer is full.
+     *
+     * @return true if the full policy is {@link #LOG_ASYNC_FULL_POLICY_BLOCK}, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean isLogAsyncBlockWhenFull() {
+        return LOG_ASYNC_FULL_POLICY_BLOCK.equals(logAsyncFullPolicy);
+    }
+
+    /**
+     * Whether to write the log files via memory-mapped segments. This switch is configured by
+     * {@link #LOG_FILE_MMAP} property.
+     *
+     * @return true if memory-mapped log files are enabled, otherwise false
+     * @since 1.8.0
+     */
+    public static boolean isLogFileMmap() {
+        return logFileMmap;
+    }
+
 }
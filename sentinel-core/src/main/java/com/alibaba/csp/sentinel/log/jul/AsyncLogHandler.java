@@ -0,0 +1,174 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.log.jul;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import com.alibaba.csp.sentinel.concurrent.MpscRingBuffer;
+
+/**
+ * <p>
+ * A log handler that hands the log records over to a dedicated flusher thread via a lock-free
+ * ring buffer, so the caller thread never does the I/O or contends on the file handler.
+ * The flusher thread publishes the records to the delegate handler in batches.
+ * </p>
+ * <p>
+ * When the buffer is full, the new records are either dropped (and counted) or the caller is blocked
+ * until the buffer has room, according to {@code blockWhenFull}.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+class AsyncLogHandler extends Handler {
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Handler delegate;
+    private final MpscRingBuffer<LogRecord> buffer;
+    private final boolean blockWhenFull;
+
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private long reportedDroppedCount = 0;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    AsyncLogHandler(Handler delegate, int bufferSize, boolean blockWhenFull, String name) {
+        this.delegate = delegate;
+        this.buffer = new MpscRingBuffer<LogRecord>(bufferSize);
+        this.blockWhenFull = blockWhenFull;
+        this.flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        }, "sentinel-log-flusher-" + name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (record == null || buffer.offer(record)) {
+            return;
+        }
+        if (blockWhenFull) {
+            while (running) {
+                LockSupport.unpark(flusher);
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                if (buffer.offer(record)) {
+                    return;
+                }
+            }
+        }
+        droppedCount.incrementAndGet();
+    }
+
+    private void flushLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+            }
+        }
+        // Publish the remaining records before exiting.
+        drain();
+    }
+
+    private int drain() {
+        int count = 0;
+        LogRecord record;
+        while ((record = buffer.poll()) != null) {
+            try {
+                delegate.publish(record);
+            } catch (Throwable ex) {
+                reportError(null, ex instanceof Exception ? (Exception)ex : new Exception(ex), 0);
+            }
+            count++;
+        }
+        long dropped = droppedCount.get();
+        if (dropped != reportedDroppedCount) {
+            delegate.publish(new LogRecord(Level.WARNING, "[AsyncLogHandler] "
+                + (dropped - reportedDroppedCount) + " log records dropped as the buffer is full"));
+            reportedDroppedCount = dropped;
+            count++;
+        }
+        if (count > 0) {
+            delegate.flush();
+        }
+        return count;
+    }
+
+    @Override
+    public void flush() {
+        LockSupport.unpark(flusher);
+    }
+
+    /**
+     * Stop the flusher thread after publishing all the buffered records, then close the delegate handler.
+     */
+    @Override
+    public void close() throws SecurityException {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(3));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    @Override
+    public synchronized void setFormatter(Formatter newFormatter) throws SecurityException {
+        super.setFormatter(newFormatter);
+        delegate.setFormatter(newFormatter);
+    }
+
+    @Override
+    public synchronized void setEncoding(String encoding) throws SecurityException, UnsupportedEncodingException {
+        super.setEncoding(encoding);
+        delegate.setEncoding(encoding);
+    }
+
+    @Override
+    public synchronized void setLevel(Level newLevel) throws SecurityException {
+        super.setLevel(newLevel);
+        delegate.setLevel(newLevel);
+    }
+
+    /**
+     * @return amount of the log records dropped as the buffer is full
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return approximate amount of the buffered log records
+     */
+    int getPendingCount() {
+        return buffer.size();
+    }
+}
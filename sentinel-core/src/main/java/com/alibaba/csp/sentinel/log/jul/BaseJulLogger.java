@@ -67,7 +67,12 @@ public class BaseJulLogger {
                     fileName += ".pid" + PidUtil.getPid();
                 }
                 try {
-                    handler = new DateFileLogHandler(fileName + ".%d", 1024 * 1024 * 200, 4, true);
+                    // Fall back to the plain file handler if the mapped buffers could not be unmapped.
+                    if (LogBase.isLogFileMmap() && MappedDateFileLogHandler.isSupported()) {
+                        handler = new MappedDateFileLogHandler(fileName + ".%d", 1024 * 1024 * 200, 4, true);
+                    } else {
+                        handler = new DateFileLogHandler(fileName + ".%d", 1024 * 1024 * 200, 4, true);
+                    }
                     handler.setFormatter(formatter);
                     handler.setEncoding(logCharSet);
                 } catch (IOException e) {
@@ -87,6 +92,11 @@ public class BaseJulLogger {
                 break;
         }
 
+        if (handler != null && LogBase.isLogAsync()) {
+            handler = new AsyncLogHandler(handler, LogBase.getLogAsyncBufferSize(),
+                LogBase.isLogAsyncBlockWhenFull(), logName);
+        }
+
         if (handler != null) {
             disableOtherHandlers(heliumRecordLog, handler);
         }
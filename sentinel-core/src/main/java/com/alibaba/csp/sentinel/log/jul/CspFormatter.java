@@ -34,8 +34,20 @@ class CspFormatter extends Formatter {
 
     @Override
     public String format(LogRecord record) {
-        final DateFormat df = dateFormatThreadLocal.get();
         StringBuilder builder = new StringBuilder(1000);
+        formatTo(record, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Format the record into the given builder, so that the builder could be reused.
+     *
+     * @param record  the log record
+     * @param builder the builder to append to
+     * @since 1.8.0
+     */
+    void formatTo(LogRecord record, StringBuilder builder) {
+        final DateFormat df = dateFormatThreadLocal.get();
         builder.append(df.format(new Date(record.getMillis()))).append(" ");
         builder.append(record.getLevel().getName()).append(" ");
         builder.append(formatMessage(record));
@@ -53,6 +65,5 @@ class CspFormatter extends Formatter {
         if ("".equals(throwable)) {
             builder.append("\n");
         }
-        return builder.toString();
     }
 }
@@ -0,0 +1,459 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.log.jul;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * <p>
+ * A log handler that rotates files by date like {@link DateFileLogHandler}, but appends the formatted bytes
+ * directly into a memory-mapped log segment instead of writing through the streams of
+ * {@link java.util.logging.FileHandler}.
+ * </p>
+ * <p>
+ * A segment is not preallocated with the size {@code limit}. Instead, the file grows by small windows of
+ * {@link #WINDOW_SIZE}: only the current window is mapped, and the next window is mapped (after the previous
+ * one is unmapped) when the current one is full. So the zero-filled tail of the current segment is at most
+ * one window, even if the process crashes. A record is formatted with a per-thread reusable
+ * {@link StringBuilder} and {@link CharsetEncoder} outside the lock, and only the copy of the bytes into
+ * the mapped buffer is done under the lock. When the segment is full, the segments are rotated as
+ * {@code ${file}.0} (the newest) to {@code ${file}.${count - 1}}, like {@link java.util.logging.FileHandler}.
+ * A segment is trimmed to its content size when rolled or closed.
+ * </p>
+ * <p>
+ * A mapping has to be released before the file is trimmed, so the handler is only available when
+ * the mapped buffers could be unmapped eagerly (see {@link #isSupported()}).
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+class MappedDateFileLogHandler extends Handler {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final long FILE_CHECK_INTERVAL_MS = 1000;
+
+    /**
+     * Size of the mapped window, by which the segment file grows.
+     */
+    static final int WINDOW_SIZE = 1024 * 1024;
+
+    private static final Unmapper UNMAPPER = Unmapper.resolve();
+
+    private final ThreadLocal<SimpleDateFormat> dateFormatThreadLocal = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        public SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd");
+        }
+    };
+
+    private final ThreadLocal<RecordEncoder> encoderThreadLocal = new ThreadLocal<RecordEncoder>() {
+        @Override
+        protected RecordEncoder initialValue() {
+            return new RecordEncoder();
+        }
+    };
+
+    private final String pattern;
+    private final int limit;
+    private final int count;
+    private final boolean append;
+
+    private volatile Charset charset = Charset.defaultCharset();
+
+    private final Object monitor = new Object();
+
+    private String currentFileName;
+    private RandomAccessFile currentFile;
+    /**
+     * The mapped window of the current segment file, starting from {@link #windowStart}.
+     */
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long endDate;
+    private long nextFileCheckTime;
+
+    MappedDateFileLogHandler(String pattern, int limit, int count, boolean append) throws IOException {
+        if (limit <= 0 || count <= 0) {
+            throw new IllegalArgumentException("Invalid limit or count: " + limit + ", " + count);
+        }
+        if (!isSupported()) {
+            throw new IllegalStateException("Unmapping the mapped buffers is not supported");
+        }
+        this.pattern = pattern;
+        this.limit = limit;
+        this.count = count;
+        this.append = append;
+        synchronized (monitor) {
+            rotateDate();
+        }
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        RecordEncoder encoder = encoderThreadLocal.get();
+        ByteBuffer bytes;
+        try {
+            bytes = encoder.encode(record, getFormatter(), charset);
+        } catch (Exception ex) {
+            reportError(null, ex, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        synchronized (monitor) {
+            try {
+                if (endDate <= record.getMillis() || !logFileExists(record.getMillis())) {
+                    rotateDate();
+                }
+                if (window == null) {
+                    return;
+                }
+                if (bytes.remaining() > window.remaining()) {
+                    if (bytes.remaining() > limit - position()) {
+                        rotateSegment();
+                        if (bytes.remaining() > limit) {
+                            // A record larger than a whole segment is truncated.
+                            bytes.limit(bytes.position() + limit);
+                        }
+                    }
+                    if (bytes.remaining() > window.remaining()) {
+                        mapWindow(position(), bytes.remaining());
+                    }
+                }
+                window.put(bytes);
+            } catch (Exception ex) {
+                reportError(null, ex, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * The mapped content is visible to the readers of the file once written, so there's nothing to flush.
+     * The dirty pages are written back by the OS (even after the window is unmapped), and only forced to
+     * the disk when the handler is closed, so that no disk flush is done in the logging threads.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws SecurityException {
+        synchronized (monitor) {
+            try {
+                closeSegment(true);
+            } catch (IOException ex) {
+                reportError(null, ex, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setEncoding(String encoding) throws SecurityException, UnsupportedEncodingException {
+        super.setEncoding(encoding);
+        this.charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+    }
+
+    /**
+     * Check whether the log file has been removed outside, at most once per {@link #FILE_CHECK_INTERVAL_MS}.
+     */
+    private boolean logFileExists(long now) {
+        if (now < nextFileCheckTime) {
+            return true;
+        }
+        nextFileCheckTime = now + FILE_CHECK_INTERVAL_MS;
+        return new File(currentFileName).exists();
+    }
+
+    private String baseFileNameOfToday() {
+        return pattern.replace("%d", dateFormatThreadLocal.get().format(new Date()));
+    }
+
+    private String segmentFileName(String baseFileName, int index) {
+        // Compatible with FileHandler: when file count is not 1, the log file names end with the index.
+        return count == 1 ? baseFileName : baseFileName + "." + index;
+    }
+
+    private void rotateDate() throws IOException {
+        closeSegment(false);
+        Calendar next = Calendar.getInstance();
+        next.set(Calendar.HOUR_OF_DAY, 0);
+        next.set(Calendar.MINUTE, 0);
+        next.set(Calendar.SECOND, 0);
+        next.set(Calendar.MILLISECOND, 0);
+        next.add(Calendar.DATE, 1);
+        this.endDate = next.getTimeInMillis();
+        openSegment(segmentFileName(baseFileNameOfToday(), 0), append);
+    }
+
+    private void rotateSegment() throws IOException {
+        closeSegment(false);
+        String baseFileName = baseFileNameOfToday();
+        if (count > 1) {
+            new File(segmentFileName(baseFileName, count - 1)).delete();
+            for (int i = count - 2; i >= 0; i--) {
+                File file = new File(segmentFileName(baseFileName, i));
+                if (file.exists()) {
+                    file.renameTo(new File(segmentFileName(baseFileName, i + 1)));
+                }
+            }
+        }
+        openSegment(segmentFileName(baseFileName, 0), false);
+    }
+
+    private void openSegment(String fileName, boolean append) throws IOException {
+        File file = new File(fileName);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            long size = append ? contentSize(raf) : 0;
+            if (size >= limit) {
+                raf.close();
+                raf = null;
+                // The existing file is full, continue with a new segment.
+                this.currentFileName = fileName;
+                rotateSegment();
+                return;
+            }
+            this.currentFile = raf;
+            this.currentFileName = fileName;
+            raf = null;
+            mapWindow(size, 0);
+            raf = null;
+        } finally {
+            if (raf != null) {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Get the size of the existing content, excluding the zero-filled tail left by the previous segment
+     * that was not closed normally.
+     */
+    private static long contentSize(RandomAccessFile raf) throws IOException {
+        long size = raf.length();
+        if (size == 0) {
+            return 0;
+        }
+        byte[] buf = new byte[8192];
+        long end = size;
+        while (end > 0) {
+            int len = (int)Math.min(buf.length, end);
+            raf.seek(end - len);
+            raf.readFully(buf, 0, len);
+            for (int i = len - 1; i >= 0; i--) {
+                if (buf[i] != 0) {
+                    return end - len + i + 1;
+                }
+            }
+            end -= len;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the position of the current segment file to write
+     */
+    private long position() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * Map a new window of the current segment file starting from the position, growing the file if needed.
+     *
+     * @param position the start position of the window
+     * @param minSize  the minimum size of the window
+     */
+    private void mapWindow(long position, int minSize) throws IOException {
+        if (window != null) {
+            releaseWindow(false);
+        }
+        int size = (int)Math.min(Math.max(WINDOW_SIZE, minSize), limit - position);
+        if (currentFile.length() < position + size) {
+            currentFile.setLength(position + size);
+        }
+        this.window = currentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, position, size);
+        this.windowStart = position;
+    }
+
+    /**
+     * @param force whether to force the content to the disk before unmapping
+     */
+    private void releaseWindow(boolean force) {
+        MappedByteBuffer buffer = this.window;
+        this.window = null;
+        if (force) {
+            buffer.force();
+        }
+        UNMAPPER.unmap(buffer);
+    }
+
+    /**
+     * @param force whether to force the content to the disk, which is only done on closing the handler
+     */
+    private void closeSegment(boolean force) throws IOException {
+        if (currentFile == null) {
+            return;
+        }
+        RandomAccessFile raf = this.currentFile;
+        this.currentFile = null;
+        try {
+            if (window != null) {
+                long size = position();
+                // Trim the zero-filled tail after the mapping is released.
+                releaseWindow(force);
+                raf.setLength(size);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return whether the mapped buffers could be unmapped eagerly in the current JVM
+     */
+    static boolean isSupported() {
+        return UNMAPPER != null;
+    }
+
+    String getCurrentFileName() {
+        return currentFileName;
+    }
+
+    /**
+     * Release the mapping of a buffer eagerly: via {@code sun.misc.Unsafe#invokeCleaner} on JDK 9+,
+     * or via the cleaner of the {@code sun.nio.ch.DirectBuffer} on JDK 8 and earlier.
+     */
+    private static final class Unmapper {
+        private final Object unsafe;
+        private final Method invokeCleaner;
+        private final Method cleaner;
+        private final Method clean;
+
+        private Unmapper(Object unsafe, Method invokeCleaner, Method cleaner, Method clean) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+            this.cleaner = cleaner;
+            this.clean = clean;
+        }
+
+        /**
+         * @return the unmapper, or null if unmapping is not supported
+         */
+        static Unmapper resolve() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return new Unmapper(field.get(null), invokeCleaner, null, null);
+            } catch (Throwable ignore) {
+                // Not JDK 9+, try the cleaner of the direct buffer.
+            }
+            try {
+                Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return new Unmapper(null, null, cleaner, clean);
+            } catch (Throwable ignore) {
+                return null;
+            }
+        }
+
+        void unmap(MappedByteBuffer buffer) {
+            try {
+                if (invokeCleaner != null) {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } else {
+                    Object bufferCleaner = cleaner.invoke(buffer);
+                    if (bufferCleaner != null) {
+                        clean.invoke(bufferCleaner);
+                    }
+                }
+            } catch (Exception ex) {
+                throw new IllegalStateException("Failed to unmap the buffer", ex);
+            }
+        }
+    }
+
+    /**
+     * Per-thread formatting and encoding buffers, which are reused across records.
+     */
+    private static final class RecordEncoder {
+        private final StringBuilder builder = new StringBuilder(INITIAL_BUFFER_SIZE);
+        private ByteBuffer bytes = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private CharsetEncoder encoder;
+
+        ByteBuffer encode(LogRecord record, Formatter formatter, Charset charset) {
+            builder.setLength(0);
+            if (formatter instanceof CspFormatter) {
+                ((CspFormatter)formatter).formatTo(record, builder);
+            } else if (formatter != null) {
+                builder.append(formatter.format(record));
+            } else {
+                builder.append(record.getMessage()).append('\n');
+            }
+            if (encoder == null || !encoder.charset().equals(charset)) {
+                encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            CharBuffer chars = CharBuffer.wrap(builder);
+            encoder.reset();
+            bytes.clear();
+            while (true) {
+                CoderResult result = chars.hasRemaining() ? encoder.encode(chars, bytes, true) : CoderResult.UNDERFLOW;
+                if (result.isUnderflow()) {
+                    result = encoder.flush(bytes);
+                }
+                if (result.isUnderflow()) {
+                    break;
+                }
+                // Overflow: grow the buffer and continue.
+                ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() << 1);
+                bytes.flip();
+                larger.put(bytes);
+                bytes = larger;
+            }
+            bytes.flip();
+            return bytes;
+        }
+    }
+}
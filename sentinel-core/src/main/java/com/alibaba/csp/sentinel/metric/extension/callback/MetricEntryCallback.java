@@ -1,5 +1,7 @@
 package com.alibaba.csp.sentinel.metric.extension.callback;
 
+import java.util.List;
+
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.metric.extension.MetricExtensionProvider;
 import com.alibaba.csp.sentinel.metric.extension.MetricExtension;
@@ -18,7 +20,9 @@ public class MetricEntryCallback implements ProcessorSlotEntryCallback<DefaultNo
     @Override
     public void onPass(Context context, ResourceWrapper resourceWrapper, DefaultNode param,
                        int count, Object... args) throws Exception {
-        for (MetricExtension m : MetricExtensionProvider.getMetricExtensions()) {
+        List<MetricExtension> extensions = MetricExtensionProvider.getMetricExtensions();
+        for (int i = 0; i < extensions.size(); i++) {
+            MetricExtension m = extensions.get(i);
             m.increaseThreadNum(resourceWrapper.getName(), args);
             m.addPass(resourceWrapper.getName(), count, args);
         }
@@ -27,7 +31,9 @@ public class MetricEntryCallback implements ProcessorSlotEntryCallback<DefaultNo
     @Override
     public void onBlocked(BlockException ex, Context context, ResourceWrapper resourceWrapper,
                           DefaultNode param, int count, Object... args) {
-        for (MetricExtension m : MetricExtensionProvider.getMetricExtensions()) {
+        List<MetricExtension> extensions = MetricExtensionProvider.getMetricExtensions();
+        for (int i = 0; i < extensions.size(); i++) {
+            MetricExtension m = extensions.get(i);
             m.addBlock(resourceWrapper.getName(), count, context.getOrigin(), ex, args);
         }
     }
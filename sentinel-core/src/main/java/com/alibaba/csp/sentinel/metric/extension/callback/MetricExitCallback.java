@@ -1,5 +1,7 @@
 package com.alibaba.csp.sentinel.metric.extension.callback;
 
+import java.util.List;
+
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.metric.extension.MetricExtensionProvider;
 import com.alibaba.csp.sentinel.metric.extension.MetricExtension;
@@ -17,7 +19,9 @@ public class MetricExitCallback implements ProcessorSlotExitCallback {
 
     @Override
     public void onExit(Context context, ResourceWrapper resourceWrapper, int count, Object... args) {
-        for (MetricExtension m : MetricExtensionProvider.getMetricExtensions()) {
+        List<MetricExtension> extensions = MetricExtensionProvider.getMetricExtensions();
+        for (int i = 0; i < extensions.size(); i++) {
+            MetricExtension m = extensions.get(i);
             if (context.getCurEntry().getBlockError() != null) {
                 continue;
             }
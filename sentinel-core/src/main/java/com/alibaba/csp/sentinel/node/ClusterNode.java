@@ -16,13 +16,20 @@
 package com.alibaba.csp.sentinel.node;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.ResourceTypeConstants;
+import com.alibaba.csp.sentinel.concurrent.ConcurrentRegistry;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.context.ContextUtil;
-import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.statistic.base.CountMinSketch;
 import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.Function;
+import com.alibaba.csp.sentinel.util.function.Predicate;
 
 /**
  * <p>
@@ -38,14 +45,64 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
  * origin.<br/>
  * Note that 'origin' usually is Service Consumer's app name.
  * </p>
+ * <p>
+ * The amount of origins with full statistics could be limited by {@link SentinelConfig#STATISTIC_MAX_ORIGINS},
+ * not including the named origins, i.e. the origins named by the flow rules ({@code limitApp}) of the resource,
+ * which are resolved by the caller (see {@link #getOrCreateOriginNode(String, Predicate)}). The named origins
+ * always get their own nodes, so that the rules of them stay exact. Once the limit is reached, the other new
+ * origins share one node ({@link #getOtherOriginNode()}), i.e. the {@code limitApp=other} rules count them
+ * together. The requests of the shared origins are counted in a {@link CountMinSketch} per minute, and
+ * a shared origin that gets twice as hot as the coldest tracked origin takes its place. A promoted origin
+ * is not replaced within a minute after the promotion, so that the origins do not replace each other
+ * back and forth. The width of the sketch is derived from the limit of origins, unless configured by
+ * {@link SentinelConfig#STATISTIC_ORIGIN_SKETCH_WIDTH}.
+ * </p>
  *
  * @author qinan.qn
  * @author jialiang.linjl
  */
 public class ClusterNode extends StatisticNode {
 
+    private static final int TAIL_SKETCH_DEPTH = 4;
+    /**
+     * The derived width of the sketch is this many times the limit of origins, so that the estimate error
+     * ({@code 2 * total / width}) stays well below the average share of a tracked origin.
+     */
+    private static final int TAIL_SKETCH_WIDTH_PER_ORIGIN = 16;
+    private static final int MIN_TAIL_SKETCH_WIDTH = 256;
+    private static final int MAX_TAIL_SKETCH_WIDTH = 1 << 14;
+    private static final int MAX_CONFIGURED_SKETCH_WIDTH = 1 << 24;
+    private static final long TAIL_WINDOW_MS = 60 * 1000;
+    /**
+     * Shared origins are considered for promotion only when their estimated count reaches a power of 2
+     * no less than this, so the promotion is tried at most a few times per origin and window.
+     */
+    private static final long MIN_PROMOTE_COUNT = 16;
+    /**
+     * A shared origin replaces a tracked origin only if it's this many times as hot.
+     */
+    private static final int PROMOTE_FACTOR = 2;
+
     private final String name;
     private final int resourceType;
+    private final int maxOrigins;
+    private final int tailSketchWidth;
+
+    /**
+     * Statistics of the origins that are not tracked in {@link #originCountMap}, created when the limit
+     * of origins is reached.
+     */
+    private volatile OriginTail originTail;
+    /**
+     * The tracked origins that are counted in the limit of origins (i.e. not named when they got the node),
+     * guarded by {@link #originLock}.
+     */
+    private final Set<String> otherOrigins = new HashSet<>();
+    /**
+     * Amount of {@link #otherOrigins}, updated under {@link #originLock}.
+     */
+    private volatile int otherOriginCount = 0;
+    private final Object originLock = new Object();
 
     public ClusterNode(String name) {
         this(name, ResourceTypeConstants.COMMON);
@@ -55,19 +112,34 @@ public class ClusterNode extends StatisticNode {
         AssertUtil.notEmpty(name, "name cannot be empty");
         this.name = name;
         this.resourceType = resourceType;
+        this.maxOrigins = SentinelConfig.statisticMaxOrigins();
+        this.tailSketchWidth = tailSketchWidth(maxOrigins, SentinelConfig.statisticOriginSketchWidth());
+    }
+
+    static int tailSketchWidth(int maxOrigins, int configuredWidth) {
+        if (configuredWidth > 0) {
+            return Math.min(configuredWidth, MAX_CONFIGURED_SKETCH_WIDTH);
+        }
+        long width = (long)maxOrigins * TAIL_SKETCH_WIDTH_PER_ORIGIN;
+        return (int)Math.max(MIN_TAIL_SKETCH_WIDTH, Math.min(MAX_TAIL_SKETCH_WIDTH, width));
     }
 
     /**
      * <p>The origin map holds the pair: (origin, originNode) for one specific resource.</p>
      * <p>
      * The longer the application runs, the more stable this mapping will become.
-     * So we didn't use concurrent map here, but a lock, as this lock only happens
-     * at the very beginning while concurrent map will hold the lock all the time.
+     * Reading the registry is lock-free, and the lock only happens when creating
+     * the node of a new origin.
      * </p>
      */
-    private Map<String, StatisticNode> originCountMap = new HashMap<>();
+    private final ConcurrentRegistry<String, StatisticNode> originCountMap = new ConcurrentRegistry<>();
 
-    private final ReentrantLock lock = new ReentrantLock();
+    private static final Function<String, StatisticNode> ORIGIN_NODE_FACTORY = new Function<String, StatisticNode>() {
+        @Override
+        public StatisticNode apply(String origin) {
+            return new StatisticNode();
+        }
+    };
 
     /**
      * Get resource name of the resource node.
@@ -96,31 +168,191 @@ public class ClusterNode extends StatisticNode {
      *
      * @param origin The caller's name, which is designated in the {@code parameter} parameter
      *               {@link ContextUtil#enter(String name, String origin)}.
-     * @return the {@link Node} of the specific origin
+     * @return the {@link Node} of the specific origin, or the shared node of other origins if the limit
+     * of origins is reached
      */
     public Node getOrCreateOriginNode(String origin) {
-        StatisticNode statisticNode = originCountMap.get(origin);
-        if (statisticNode == null) {
-            lock.lock();
-            try {
-                statisticNode = originCountMap.get(origin);
-                if (statisticNode == null) {
-                    // The node is absent, create a new node for the origin.
-                    statisticNode = new StatisticNode();
-                    HashMap<String, StatisticNode> newMap = new HashMap<>(originCountMap.size() + 1);
-                    newMap.putAll(originCountMap);
-                    newMap.put(origin, statisticNode);
-                    originCountMap = newMap;
+        return getOrCreateOriginNode(origin, null);
+    }
+
+    /**
+     * <p>Get {@link Node} of the specific origin, creating it if absent.</p>
+     * <p>The named origins always get their own nodes and are not counted in the limit of origins.
+     * The predicate is only tested when the node of the origin is absent.</p>
+     *
+     * @param origin      the caller's name
+     * @param namedOrigin tests whether an origin is named by the rules of the resource, null if none is named
+     * @return the {@link Node} of the specific origin, or the shared node of other origins if the limit
+     * of origins is reached
+     * @since 1.8.0
+     */
+    public Node getOrCreateOriginNode(String origin, Predicate<String> namedOrigin) {
+        StatisticNode node = originCountMap.get(origin);
+        if (node != null) {
+            return node;
+        }
+        if (maxOrigins <= 0 || isNamed(namedOrigin, origin)) {
+            // The node will be created if absent.
+            return originCountMap.getOrCreate(origin, ORIGIN_NODE_FACTORY);
+        }
+        if (otherOriginCount < maxOrigins) {
+            synchronized (originLock) {
+                node = originCountMap.get(origin);
+                if (node != null) {
+                    return node;
+                }
+                if (otherOriginCount < maxOrigins) {
+                    otherOrigins.add(origin);
+                    otherOriginCount = otherOrigins.size();
+                    return originCountMap.getOrCreate(origin, ORIGIN_NODE_FACTORY);
+                }
+            }
+        }
+        return getOrCreateTailNode(origin, namedOrigin);
+    }
+
+    private static boolean isNamed(Predicate<String> namedOrigin, String origin) {
+        return namedOrigin != null && namedOrigin.test(origin);
+    }
+
+    private Node getOrCreateTailNode(String origin, Predicate<String> namedOrigin) {
+        OriginTail tail = originTail;
+        if (tail == null) {
+            synchronized (this) {
+                tail = originTail;
+                if (tail == null) {
+                    tail = new OriginTail(tailSketchWidth);
+                    originTail = tail;
+                }
+            }
+        }
+        long estimate = tail.add(origin);
+        if (estimate >= MIN_PROMOTE_COUNT && Long.bitCount(estimate) == 1) {
+            StatisticNode node = tryPromote(tail, origin, estimate, namedOrigin);
+            if (node != null) {
+                return node;
+            }
+        }
+        return tail.otherNode;
+    }
+
+    /**
+     * Replace the coldest tracked origin (which is not named, and not promoted within the last window)
+     * with the given shared origin, if the shared origin is {@link #PROMOTE_FACTOR} times as hot.
+     */
+    private StatisticNode tryPromote(OriginTail tail, String origin, long estimate, Predicate<String> namedOrigin) {
+        synchronized (originLock) {
+            StatisticNode node = originCountMap.get(origin);
+            if (node != null) {
+                return node;
+            }
+            long now = TimeUtil.currentTimeMillis();
+            String coldest = null;
+            long coldestCount = 0;
+            for (Map.Entry<String, StatisticNode> e : originCountMap.asMap().entrySet()) {
+                if (isNamed(namedOrigin, e.getKey())) {
+                    // The origin has been named by the rules since it got the node.
+                    otherOrigins.remove(e.getKey());
+                    continue;
+                }
+                long count = e.getValue().totalRequest();
+                if ((coldest == null || count < coldestCount) && count * PROMOTE_FACTOR <= estimate
+                    && !tail.isRecentlyPromoted(e.getKey(), now)) {
+                    coldest = e.getKey();
+                    coldestCount = count;
                 }
-            } finally {
-                lock.unlock();
             }
+            if (coldest != null) {
+                originCountMap.remove(coldest);
+                tail.promoted(coldest, origin, now);
+                // The demoted origin may have been a named one, whose node is taken over by
+                // the promoted origin, so the amount of tracked origins never grows here.
+                otherOrigins.remove(coldest);
+                otherOrigins.add(origin);
+            }
+            otherOriginCount = otherOrigins.size();
+            return coldest == null ? null : originCountMap.getOrCreate(origin, ORIGIN_NODE_FACTORY);
         }
-        return statisticNode;
     }
 
+    /**
+     * Get the tracked origins and their nodes. The shared node of other origins is not included.
+     *
+     * @return the map of tracked origins
+     */
     public Map<String, StatisticNode> getOriginCountMap() {
-        return originCountMap;
+        return originCountMap.asMap();
+    }
+
+    /**
+     * Get the node shared by the origins that are not tracked in {@link #getOriginCountMap()}.
+     *
+     * @return the shared node, or null if the limit of origins has never been reached
+     * @since 1.8.0
+     */
+    public StatisticNode getOtherOriginNode() {
+        OriginTail tail = originTail;
+        return tail == null ? null : tail.otherNode;
+    }
+
+    /**
+     * Get the estimated count of requests of a shared origin in the current minute.
+     *
+     * @param origin the origin
+     * @return the estimated count, which is never less than the real count; 0 if no origin is shared
+     * @since 1.8.0
+     */
+    public long estimateOtherOriginCount(String origin) {
+        OriginTail tail = originTail;
+        return tail == null ? 0 : tail.sketch.estimate(origin);
+    }
+
+    /**
+     * @return amount of the tracked origins that are counted in the limit of origins
+     */
+    int getOtherOriginCount() {
+        return otherOriginCount;
+    }
+
+    private static final class OriginTail {
+        final StatisticNode otherNode = new StatisticNode();
+        final CountMinSketch sketch;
+        final AtomicLong windowStart = new AtomicLong(TimeUtil.currentTimeMillis());
+
+        /**
+         * Promotion time of the promoted origins, guarded by {@link #originLock}.
+         */
+        final Map<String, Long> promotedTime = new HashMap<>();
+
+        OriginTail(int sketchWidth) {
+            this.sketch = new CountMinSketch(TAIL_SKETCH_DEPTH, sketchWidth);
+        }
+
+        boolean isRecentlyPromoted(String origin, long now) {
+            Long time = promotedTime.get(origin);
+            if (time == null) {
+                return false;
+            }
+            if (now - time < TAIL_WINDOW_MS) {
+                return true;
+            }
+            promotedTime.remove(origin);
+            return false;
+        }
+
+        void promoted(String evicted, String origin, long now) {
+            promotedTime.remove(evicted);
+            promotedTime.put(origin, now);
+        }
+
+        long add(String origin) {
+            long now = TimeUtil.currentTimeMillis();
+            long start = windowStart.get();
+            if (now - start >= TAIL_WINDOW_MS && windowStart.compareAndSet(start, now)) {
+                sketch.reset();
+            }
+            return sketch.add(origin, 1);
+        }
     }
 
 }
@@ -16,9 +16,12 @@
 package com.alibaba.csp.sentinel.node;
 
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricNodeBuffer;
 import com.alibaba.csp.sentinel.slots.statistic.base.LongAdder;
+import com.alibaba.csp.sentinel.slots.statistic.data.RtHistogram;
 import com.alibaba.csp.sentinel.slots.statistic.metric.ArrayMetric;
 import com.alibaba.csp.sentinel.slots.statistic.metric.Metric;
+import com.alibaba.csp.sentinel.slots.statistic.metric.RtHistogramLeapArray;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.util.function.Predicate;
 
@@ -102,6 +105,12 @@ public class StatisticNode implements Node {
      */
     private transient Metric rollingCounterInMinute = new ArrayMetric(60, 60 * 1000, false);
 
+    /**
+     * Histograms of response time in the recent 3 seconds, with 500 ms for each bucket.
+     * It's absent (null) unless enabled via {@link #enableRtHistogram()}.
+     */
+    private transient volatile RtHistogramLeapArray rtHistogram = null;
+
     /**
      * The counter for thread count.
      */
@@ -121,8 +130,12 @@ public class StatisticNode implements Node {
         List<MetricNode> nodesOfEverySecond = rollingCounterInMinute.details();
         long newLastFetchTime = lastFetchTime;
         // Iterate metrics of all resources, filter valid metrics (not-empty and up-to-date).
+        RtHistogramLeapArray histogram = rtHistogram;
         for (MetricNode node : nodesOfEverySecond) {
             if (isNodeInTime(node, currentTime) && isValidMetricNode(node)) {
+                if (histogram != null) {
+                    fillRtPercentiles(node, histogram);
+                }
                 metrics.put(node.getTimestamp(), node);
                 newLastFetchTime = Math.max(newLastFetchTime, node.getTimestamp());
             }
@@ -132,6 +145,79 @@ public class StatisticNode implements Node {
         return metrics;
     }
 
+    /**
+     * <p>Streaming variant of {@link #metrics()}: report the metrics of completed seconds that have not been
+     * fetched to the buffer, reusing the nodes of the buffer instead of creating new ones.</p>
+     * <p>Only the buckets of the seconds since the last fetch are visited, and a bucket that has not been
+     * updated in that second (i.e. no traffic) is skipped, so idle resources cost nothing more than
+     * a few bucket lookups. The fetch operation is thread-safe under a single-thread scheduler pool.</p>
+     *
+     * @param currentTime current time in milliseconds
+     * @param buffer      the buffer to fill
+     * @return count of the reported seconds
+     * @since 1.8.0
+     */
+    public int fetchMetrics(long currentTime, MetricNodeBuffer buffer) {
+        currentTime = currentTime - currentTime % 1000;
+        long startTime = Math.max(lastFetchTime + 1000, currentTime - 60 * 1000 + 1000);
+        RtHistogramLeapArray histogram = rtHistogram;
+        Metric counter = rollingCounterInMinute;
+        if (!(counter instanceof ArrayMetric)) {
+            return fetchMetricsFromDetails(counter, startTime, currentTime, buffer);
+        }
+        ArrayMetric arrayCounter = (ArrayMetric)counter;
+        int count = 0;
+        for (long time = startTime; time < currentTime; time += 1000) {
+            MetricNode node = buffer.spare();
+            if (arrayCounter.fillWindowDetail(time, node) && isValidMetricNode(node)) {
+                if (histogram != null) {
+                    fillRtPercentiles(node, histogram);
+                }
+                buffer.commit(time);
+                count++;
+            }
+        }
+        // All the completed seconds have been visited.
+        lastFetchTime = Math.max(lastFetchTime, currentTime - 1000);
+        return count;
+    }
+
+    /**
+     * Fallback of {@link #fetchMetrics(long, MetricNodeBuffer)} for other {@link Metric} implementations.
+     */
+    private int fetchMetricsFromDetails(Metric counter, long startTime, long currentTime, MetricNodeBuffer buffer) {
+        RtHistogramLeapArray histogram = rtHistogram;
+        int count = 0;
+        for (MetricNode detail : counter.details()) {
+            long time = detail.getTimestamp();
+            if (time < startTime || time >= currentTime || !isValidMetricNode(detail)) {
+                continue;
+            }
+            MetricNode node = buffer.spare();
+            node.setPassQps(detail.getPassQps());
+            node.setBlockQps(detail.getBlockQps());
+            node.setSuccessQps(detail.getSuccessQps());
+            node.setExceptionQps(detail.getExceptionQps());
+            node.setRt(detail.getRt());
+            node.setOccupiedPassQps(detail.getOccupiedPassQps());
+            node.setTimestamp(time);
+            if (histogram != null) {
+                fillRtPercentiles(node, histogram);
+            }
+            buffer.commit(time);
+            count++;
+        }
+        lastFetchTime = Math.max(lastFetchTime, currentTime - 1000);
+        return count;
+    }
+
+    private void fillRtPercentiles(MetricNode node, RtHistogramLeapArray histogram) {
+        long[] snapshot = histogram.snapshot(node.getTimestamp(), node.getTimestamp() + 1000);
+        node.setRtP50(Math.max(RtHistogram.percentile(snapshot, 0.5), 0));
+        node.setRtP99(Math.max(RtHistogram.percentile(snapshot, 0.99), 0));
+        node.setRtP999(Math.max(RtHistogram.percentile(snapshot, 0.999), 0));
+    }
+
     @Override
     public List<MetricNode> rawMetricsInMin(Predicate<Long> timePredicate) {
         return rollingCounterInMinute.detailsOnCondition(timePredicate);
@@ -237,6 +323,50 @@ public class StatisticNode implements Node {
         return rollingCounterInSecond.minRt();
     }
 
+    /**
+     * Start recording the response time histogram, so that the RT percentiles are available.
+     *
+     * @since 1.8.0
+     */
+    public void enableRtHistogram() {
+        if (rtHistogram == null) {
+            rtHistogram = new RtHistogramLeapArray(6, 3000);
+        }
+    }
+
+    /**
+     * Stop recording the response time histogram and release it.
+     *
+     * @since 1.8.0
+     */
+    public void disableRtHistogram() {
+        rtHistogram = null;
+    }
+
+    /**
+     * @return whether the response time histogram is recorded
+     * @since 1.8.0
+     */
+    public boolean isRtHistogramEnabled() {
+        return rtHistogram != null;
+    }
+
+    /**
+     * Get the response time at given quantile of succeeded requests in the recent second.
+     *
+     * @param quantile quantile in (0, 1], e.g. 0.99 for P99
+     * @return the response time at the quantile in milliseconds, or -1 if the histogram is
+     * disabled or there is no succeeded request in the recent second
+     * @since 1.8.0
+     */
+    public long rtPercentile(double quantile) {
+        RtHistogramLeapArray histogram = rtHistogram;
+        if (histogram == null) {
+            return -1;
+        }
+        return histogram.recentPercentile(1000, quantile);
+    }
+
     @Override
     public int curThreadNum() {
         return (int)curThreadNum.sum();
@@ -255,6 +385,11 @@ public class StatisticNode implements Node {
 
         rollingCounterInMinute.addSuccess(successCount);
         rollingCounterInMinute.addRT(rt);
+
+        RtHistogramLeapArray histogram = rtHistogram;
+        if (histogram != null) {
+            histogram.addRt(rt, successCount);
+        }
     }
 
     @Override
@@ -0,0 +1,262 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>
+ * A {@link MetricWriter} that writes the metric files in a dedicated I/O thread, so that the slow disk
+ * never delays the aggregation of the next second.
+ * </p>
+ * <p>
+ * {@link #write(long, List)} copies the nodes of the second into a pre-allocated slot of a bounded
+ * single-producer ring buffer and returns immediately. The I/O thread wakes up every
+ * {@code flushIntervalMs}, appends the nodes of all pending seconds and flushes them in one go
+ * (group commit), so the metric file is written with a few large writes. File rolling and
+ * cleanup also happen in the I/O thread. The file content is forced to the storage device
+ * at most once every {@code fsyncIntervalMs} ({@code 0} for never, leaving it to the OS).
+ * </p>
+ * <p>
+ * When the ring buffer is full (i.e. the disk cannot keep up), the new seconds are dropped and
+ * counted in {@link #getDroppedSeconds()}, rather than blocking the producer. A second that fails to
+ * be written is skipped and counted in {@link #getFailedSeconds()}, without affecting the other seconds
+ * of the batch. The counters are exposed by the {@code metricWriterStatus} command.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class AsyncMetricWriter extends MetricWriter {
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final long flushIntervalMs;
+    private final long fsyncIntervalMs;
+
+    /**
+     * Sequence of the next slot to consume (by the I/O thread).
+     */
+    private final AtomicLong head = new AtomicLong(0);
+    /**
+     * Sequence of the next slot to produce.
+     */
+    private final AtomicLong tail = new AtomicLong(0);
+
+    private final AtomicLong droppedSeconds = new AtomicLong(0);
+    private final AtomicLong writtenSeconds = new AtomicLong(0);
+    private final AtomicLong flushCount = new AtomicLong(0);
+    private final AtomicLong failedSeconds = new AtomicLong(0);
+    private final AtomicLong failureCount = new AtomicLong(0);
+    private volatile int maxPendingSeconds = 0;
+
+    private final Thread ioThread;
+    private volatile boolean running = true;
+    private long lastFsyncTime;
+
+    public AsyncMetricWriter(long singleFileSize, int totalFileCount, boolean binary, int bufferSeconds,
+                             long flushIntervalMs, long fsyncIntervalMs) {
+        super(singleFileSize, totalFileCount, binary, IO_BUFFER_SIZE);
+        if (bufferSeconds <= 0 || flushIntervalMs < 0 || fsyncIntervalMs < 0) {
+            throw new IllegalArgumentException();
+        }
+        int capacity = Integer.highestOneBit(bufferSeconds);
+        if (capacity < bufferSeconds) {
+            capacity <<= 1;
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.flushIntervalMs = flushIntervalMs;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.lastFsyncTime = System.currentTimeMillis();
+
+        this.ioThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ioLoop();
+            }
+        }, "sentinel-metrics-writer-thread");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        RecordLog.info("[AsyncMetricWriter] Async metric writer started, bufferSeconds=" + capacity
+            + ", flushIntervalMs=" + flushIntervalMs + ", fsyncIntervalMs=" + fsyncIntervalMs);
+    }
+
+    /**
+     * Copy the nodes into the ring buffer. The nodes will be written by the I/O thread later.
+     *
+     * @param time  timestamp of the nodes
+     * @param nodes the nodes to write, which could be reused by the caller after returning
+     */
+    @Override
+    public synchronized void write(long time, List<MetricNode> nodes) {
+        if (nodes == null || !running) {
+            return;
+        }
+        long t = tail.get();
+        int pending = (int)(t - head.get());
+        if (pending >= slots.length) {
+            if (droppedSeconds.getAndIncrement() == 0) {
+                RecordLog.warn("[AsyncMetricWriter] Metric buffer is full, dropping metrics of new seconds");
+            }
+            return;
+        }
+        slots[(int)(t & mask)].fill(time, nodes);
+        tail.set(t + 1);
+        if (pending + 1 > maxPendingSeconds) {
+            maxPendingSeconds = pending + 1;
+        }
+        if (pending + 1 >= (slots.length >> 1)) {
+            // Relieve the buffer as soon as possible.
+            LockSupport.unpark(ioThread);
+        }
+    }
+
+    private void ioLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.max(flushIntervalMs, 1)));
+            drain();
+        }
+        // Write the remaining seconds before exiting.
+        drain();
+    }
+
+    private void drain() {
+        long h = head.get();
+        long t = tail.get();
+        if (h == t) {
+            return;
+        }
+        for (; h < t; h++) {
+            Slot slot = slots[(int)(h & mask)];
+            try {
+                append(slot.time, slot.nodes);
+                writtenSeconds.incrementAndGet();
+            } catch (Throwable e) {
+                // Skip the failed second and go on with the rest of the batch.
+                if (failedSeconds.getAndIncrement() == 0) {
+                    RecordLog.warn("[AsyncMetricWriter] Write metric error, time=" + slot.time, e);
+                }
+            } finally {
+                // Release the slot to the producer.
+                head.set(h + 1);
+            }
+        }
+        try {
+            long now = System.currentTimeMillis();
+            boolean sync = fsyncIntervalMs > 0 && now - lastFsyncTime >= fsyncIntervalMs;
+            flush(sync);
+            if (sync) {
+                lastFsyncTime = now;
+            }
+            flushCount.incrementAndGet();
+        } catch (Throwable e) {
+            failureCount.incrementAndGet();
+            RecordLog.warn("[AsyncMetricWriter] Flush metric error", e);
+        }
+    }
+
+    /**
+     * Stop the I/O thread after writing all the buffered metrics, then close the files.
+     */
+    @Override
+    public void close() throws Exception {
+        running = false;
+        LockSupport.unpark(ioThread);
+        ioThread.join(TimeUnit.SECONDS.toMillis(5));
+        super.close();
+    }
+
+    /**
+     * @return amount of seconds that are buffered but not written yet
+     */
+    public int getPendingSeconds() {
+        return (int)(tail.get() - head.get());
+    }
+
+    /**
+     * @return max amount of pending seconds ever reached
+     */
+    public int getMaxPendingSeconds() {
+        return maxPendingSeconds;
+    }
+
+    /**
+     * @return amount of seconds dropped as the buffer is full
+     */
+    public long getDroppedSeconds() {
+        return droppedSeconds.get();
+    }
+
+    public long getWrittenSeconds() {
+        return writtenSeconds.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * @return amount of seconds that are skipped as failed to write
+     */
+    public long getFailedSeconds() {
+        return failedSeconds.get();
+    }
+
+    /**
+     * @return amount of failed flushes
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public int getBufferCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * A pre-allocated slot of the ring buffer, whose nodes are reused across rounds.
+     */
+    private static final class Slot {
+        long time;
+        final List<MetricNode> nodes = new ArrayList<MetricNode>();
+        private final List<MetricNode> pool = new ArrayList<MetricNode>();
+
+        void fill(long time, List<MetricNode> source) {
+            this.time = time;
+            nodes.clear();
+            int size = source.size();
+            for (int i = 0; i < size; i++) {
+                if (i == pool.size()) {
+                    pool.add(new MetricNode());
+                }
+                MetricNode node = pool.get(i).copyFrom(source.get(i));
+                nodes.add(node);
+            }
+        }
+    }
+}
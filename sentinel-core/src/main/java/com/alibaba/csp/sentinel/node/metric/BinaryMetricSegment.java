@@ -0,0 +1,388 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>
+ * The binary segment format of metric files. A segment is made up of two files:
+ * </p>
+ * <ul>
+ * <li>the segment file: a fixed header followed by blocks in ascending order of timestamp;</li>
+ * <li>the dictionary file ({@code ${segmentFileName}.dict}): resource names of the segment,
+ * encoded via {@link java.io.DataOutput#writeUTF(String)}, where the resource ID is the position
+ * of the name in the file.</li>
+ * </ul>
+ * <p>
+ * Each block holds the metrics of a single write (i.e. the nodes of the same second), stored column by column:
+ * </p>
+ * <pre>
+ * length(4)|timestamp(8)|count(varint)|resourceId * count|classification * count|passQps * count|...
+ * </pre>
+ * <p>
+ * where {@code length} is the amount of bytes after the length field, and the columns (resourceId,
+ * classification, passQps, blockQps, successQps, exceptionQps, rt, occupiedPassQps, concurrency,
+ * rtP50, rtP99, rtP999) are varints (zig-zag encoded except the resource ID). The timestamp is shared
+ * by all records of the block, so a typical record takes about 12 ~ 20 bytes instead of a text line
+ * of about 100 bytes.
+ * </p>
+ * <p>
+ * The blocks are variable-length, so the reader keeps the (timestamp, offset) of the scanned blocks in
+ * a {@link BinaryMetricSegment} across queries, and only scans the block headers appended since the last
+ * query. The first block of a given second is located by binary search on the block index, and only the
+ * blocks in the time range are read and decoded. The writer always flushes the new dictionary entries
+ * before the blocks that refer to them, so a reader never sees a record with an unknown resource ID.
+ * A partially written block at the end of the segment is invisible to the reader.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class BinaryMetricSegment {
+
+    static final int MAGIC = 0x534D4246;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    static final int BLOCK_HEADER_SIZE = 4 + 8;
+
+    static final String DICT_FILE_SUFFIX = ".dict";
+
+    private static final int COLUMN_COUNT = 12;
+    /**
+     * Max bytes of a varint, see {@link #putVarLong(ByteBuffer, long)}.
+     */
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final String fileName;
+
+    private long[] blockTimestamps = new long[16];
+    private long[] blockOffsets = new long[16];
+    private int blockCount;
+    /**
+     * Offset of the next block to scan.
+     */
+    private long scannedOffset = HEADER_SIZE;
+
+    private String[] resources = new String[0];
+    private long dictLength = -1;
+
+    BinaryMetricSegment(String fileName) {
+        this.fileName = fileName;
+    }
+
+    static String formDictFileName(String segmentFileName) {
+        return segmentFileName + DICT_FILE_SUFFIX;
+    }
+
+    static void writeHeader(ByteBuffer buf) {
+        buf.clear();
+        buf.putInt(MAGIC);
+        buf.putInt(VERSION);
+        buf.putInt(0);
+        buf.putInt(0);
+        buf.flip();
+    }
+
+    /**
+     * Encode the nodes of the same timestamp as a block.
+     *
+     * @param timestamp   timestamp of the nodes
+     * @param nodes       nodes to encode
+     * @param resourceIds resource IDs of the nodes
+     * @param buf         the buffer to reuse
+     * @return the buffer (or a larger one if the given buffer is not enough) ready for reading
+     */
+    static ByteBuffer encodeBlock(long timestamp, List<MetricNode> nodes, int[] resourceIds, ByteBuffer buf) {
+        int count = nodes.size();
+        int maxSize = BLOCK_HEADER_SIZE + MAX_VARINT_SIZE + count * COLUMN_COUNT * MAX_VARINT_SIZE;
+        if (buf == null || buf.capacity() < maxSize) {
+            buf = ByteBuffer.allocate(maxSize);
+        }
+        buf.clear();
+        buf.position(4);
+        buf.putLong(timestamp);
+        putVarLong(buf, count);
+        for (int i = 0; i < count; i++) {
+            putVarLong(buf, resourceIds[i]);
+        }
+        for (int c = 1; c < COLUMN_COUNT; c++) {
+            for (int i = 0; i < count; i++) {
+                putVarLong(buf, zigZag(columnOf(nodes.get(i), c)));
+            }
+        }
+        buf.putInt(0, buf.position() - 4);
+        buf.flip();
+        return buf;
+    }
+
+    private static long columnOf(MetricNode node, int column) {
+        switch (column) {
+            case 1: return node.getClassification();
+            case 2: return node.getPassQps();
+            case 3: return node.getBlockQps();
+            case 4: return node.getSuccessQps();
+            case 5: return node.getExceptionQps();
+            case 6: return node.getRt();
+            case 7: return node.getOccupiedPassQps();
+            case 8: return node.getConcurrency();
+            case 9: return node.getRtP50();
+            case 10: return node.getRtP99();
+            default: return node.getRtP999();
+        }
+    }
+
+    private static void setColumn(MetricNode node, int column, long value) {
+        switch (column) {
+            case 1: node.setClassification((int)value); break;
+            case 2: node.setPassQps(value); break;
+            case 3: node.setBlockQps(value); break;
+            case 4: node.setSuccessQps(value); break;
+            case 5: node.setExceptionQps(value); break;
+            case 6: node.setRt(value); break;
+            case 7: node.setOccupiedPassQps(value); break;
+            case 8: node.setConcurrency((int)value); break;
+            case 9: node.setRtP50(value); break;
+            case 10: node.setRtP99(value); break;
+            default: node.setRtP999(value); break;
+        }
+    }
+
+    static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static void putVarLong(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte)v);
+    }
+
+    static long getVarLong(ByteBuffer buf) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            v |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Scan the blocks appended since the last call, and reload the dictionary if it has grown.
+     * Only the complete blocks at the moment are visible.
+     *
+     * @param channel channel of the segment file
+     * @return false if the segment is absent or invalid
+     * @throws IOException if any I/O error occurs
+     */
+    boolean refresh(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (blockCount == 0 && scannedOffset == HEADER_SIZE) {
+            if (size < HEADER_SIZE || readFully(channel, header, 0) < HEADER_SIZE
+                || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                return false;
+            }
+        }
+        long offset = scannedOffset;
+        while (offset + BLOCK_HEADER_SIZE <= size) {
+            header.clear();
+            header.limit(BLOCK_HEADER_SIZE);
+            if (readFully(channel, header, offset) < BLOCK_HEADER_SIZE) {
+                break;
+            }
+            int length = header.getInt(0);
+            if (length < 8 || offset + 4 + length > size) {
+                // Partially written block.
+                break;
+            }
+            addBlock(header.getLong(4), offset);
+            offset += 4 + length;
+        }
+        scannedOffset = offset;
+        // The dictionary is read after the blocks, so that it covers all the scanned blocks.
+        File dictFile = new File(formDictFileName(fileName));
+        if (!dictFile.exists()) {
+            return false;
+        }
+        if (dictFile.length() != dictLength) {
+            dictLength = dictFile.length();
+            resources = readDictionary(dictFile);
+        }
+        return true;
+    }
+
+    private void addBlock(long timestamp, long offset) {
+        if (blockCount == blockTimestamps.length) {
+            blockTimestamps = Arrays.copyOf(blockTimestamps, blockCount * 2);
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+        }
+        blockTimestamps[blockCount] = timestamp;
+        blockOffsets[blockCount] = offset;
+        blockCount++;
+    }
+
+    static int readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    static String[] readDictionary(File dictFile) throws IOException {
+        List<String> names = new ArrayList<String>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(dictFile)));
+        try {
+            while (true) {
+                names.add(in.readUTF());
+            }
+        } catch (EOFException ignore) {
+            // End of the dictionary, a partially written entry is ignored.
+        } finally {
+            in.close();
+        }
+        return names.toArray(new String[0]);
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    long blockTimestampAt(int idx) {
+        return blockTimestamps[idx];
+    }
+
+    /**
+     * @param resources resource names
+     * @return flags indexed by resource ID, which are true for the given resources,
+     * or null if none of the resources is present in this segment
+     */
+    boolean[] resourceIdsOf(Set<String> resources) {
+        boolean[] matched = new boolean[this.resources.length];
+        boolean any = false;
+        for (int i = 0; i < this.resources.length; i++) {
+            if (resources.contains(this.resources[i])) {
+                matched[i] = true;
+                any = true;
+            }
+        }
+        return any ? matched : null;
+    }
+
+    /**
+     * Find the first block whose second is no less than the given second.
+     *
+     * @param second timestamp in second
+     * @return index of the block, or {@link #getBlockCount()} if all blocks are earlier
+     */
+    int lowerBound(long second) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockTimestamps[mid] / 1000 < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Read and decode the block at given index.
+     *
+     * @param channel channel of the segment file
+     * @param idx     index of the block
+     * @param matched flags of the resources to decode indexed by resource ID, or null for all resources
+     * @param buf     the buffer to reuse
+     * @param out     decoded nodes of the block
+     * @return the buffer (or a larger one if the given buffer is not enough)
+     * @throws IOException if any I/O error occurs
+     */
+    ByteBuffer readBlock(FileChannel channel, int idx, boolean[] matched, ByteBuffer buf, List<MetricNode> out)
+        throws IOException {
+        long offset = blockOffsets[idx];
+        long end = idx + 1 < blockCount ? blockOffsets[idx + 1] : scannedOffset;
+        int length = (int)(end - offset);
+        if (buf == null || buf.capacity() < length) {
+            buf = ByteBuffer.allocate(length);
+        }
+        buf.clear();
+        buf.limit(length);
+        if (readFully(channel, buf, offset) < length) {
+            return buf;
+        }
+        buf.flip();
+        buf.position(4);
+        long timestamp = buf.getLong();
+        int count = (int)getVarLong(buf);
+        MetricNode[] nodes = new MetricNode[count];
+        for (int i = 0; i < count; i++) {
+            long resourceId = getVarLong(buf);
+            if (resourceId >= resources.length || (matched != null && !matched[(int)resourceId])) {
+                continue;
+            }
+            MetricNode node = new MetricNode();
+            node.setTimestamp(timestamp);
+            node.setResource(resources[(int)resourceId]);
+            nodes[i] = node;
+        }
+        for (int c = 1; c < COLUMN_COUNT; c++) {
+            for (int i = 0; i < count; i++) {
+                long value = unZigZag(getVarLong(buf));
+                if (nodes[i] != null) {
+                    setColumn(nodes[i], c, value);
+                }
+            }
+        }
+        for (MetricNode node : nodes) {
+            if (node != null) {
+                out.add(node);
+            }
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads metrics data from binary metric segments, see {@link BinaryMetricSegment}.
+ * The block index of each segment is kept across queries, and the segment files are
+ * only opened during a query (so that the writer is free to delete them).
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+class BinaryMetricsReader {
+
+    /**
+     * Avoid OOM in any cases.
+     */
+    private static final int MAX_LINES_RETURN = 100000;
+
+    private final Map<String, BinaryMetricSegment> segments = new HashMap<String, BinaryMetricSegment>();
+
+    private ByteBuffer blockBuf;
+
+    /**
+     * When identities is null, all metric between the time intervalMs will be read, otherwise, only the
+     * specific identities will be read in one pass.
+     */
+    synchronized List<MetricNode> readMetricsByEndTime(List<String> fileNames, long beginTimeMs, long endTimeMs,
+                                                       Set<String> identities) throws Exception {
+        retainSegments(fileNames);
+        List<MetricNode> list = new ArrayList<MetricNode>(1024);
+        long beginSecond = beginTimeMs / 1000;
+        long endSecond = endTimeMs / 1000;
+        for (String fileName : fileNames) {
+            RandomAccessFile raf = openFile(fileName);
+            if (raf == null) {
+                continue;
+            }
+            try {
+                FileChannel channel = raf.getChannel();
+                BinaryMetricSegment segment = refreshSegment(fileName, channel);
+                if (segment == null) {
+                    continue;
+                }
+                boolean[] matched = null;
+                if (identities != null) {
+                    matched = segment.resourceIdsOf(identities);
+                    if (matched == null) {
+                        continue;
+                    }
+                }
+                int count = segment.getBlockCount();
+                for (int i = segment.lowerBound(beginSecond); i < count; i++) {
+                    if (segment.blockTimestampAt(i) / 1000 > endSecond) {
+                        return list;
+                    }
+                    blockBuf = segment.readBlock(channel, i, matched, blockBuf, list);
+                    if (list.size() >= MAX_LINES_RETURN) {
+                        return list;
+                    }
+                }
+            } finally {
+                raf.close();
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Read about {@code recommendLines} records from {@code beginTimeMs}. Records of the same second
+     * are never split.
+     */
+    synchronized List<MetricNode> readMetrics(List<String> fileNames, long beginTimeMs, int recommendLines)
+        throws Exception {
+        retainSegments(fileNames);
+        List<MetricNode> list = new ArrayList<MetricNode>(recommendLines);
+        long beginSecond = beginTimeMs / 1000;
+        long lastSecond = -1;
+        for (String fileName : fileNames) {
+            RandomAccessFile raf = openFile(fileName);
+            if (raf == null) {
+                continue;
+            }
+            try {
+                FileChannel channel = raf.getChannel();
+                BinaryMetricSegment segment = refreshSegment(fileName, channel);
+                if (segment == null) {
+                    continue;
+                }
+                int count = segment.getBlockCount();
+                for (int i = segment.lowerBound(beginSecond); i < count; i++) {
+                    long currentSecond = segment.blockTimestampAt(i) / 1000;
+                    if (list.size() >= recommendLines && currentSecond != lastSecond) {
+                        return list;
+                    }
+                    blockBuf = segment.readBlock(channel, i, null, blockBuf, list);
+                    lastSecond = currentSecond;
+                }
+            } finally {
+                raf.close();
+            }
+        }
+        return list;
+    }
+
+    private static RandomAccessFile openFile(String fileName) throws IOException {
+        File file = new File(fileName);
+        if (!file.exists()) {
+            return null;
+        }
+        return new RandomAccessFile(file, "r");
+    }
+
+    private BinaryMetricSegment refreshSegment(String fileName, FileChannel channel) throws IOException {
+        BinaryMetricSegment segment = segments.get(fileName);
+        if (segment == null) {
+            segment = new BinaryMetricSegment(fileName);
+            segments.put(fileName, segment);
+        }
+        if (!segment.refresh(channel)) {
+            // Absent or invalid, which will be checked again next time.
+            segments.remove(fileName);
+            return null;
+        }
+        return segment;
+    }
+
+    /**
+     * Drop the block index of segments that have been removed.
+     */
+    private void retainSegments(List<String> fileNames) {
+        segments.keySet().retainAll(new HashSet<String>(fileNames));
+    }
+}
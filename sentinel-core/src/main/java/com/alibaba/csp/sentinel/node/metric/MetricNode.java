@@ -50,6 +50,15 @@ public class MetricNode {
      */
     private int concurrency;
 
+    /**
+     * Percentiles of the response time, only present when the RT histogram of the resource is enabled.
+     *
+     * @since 1.8.0
+     */
+    private long rtP50;
+    private long rtP99;
+    private long rtP999;
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -132,6 +141,99 @@ public class MetricNode {
         return this;
     }
 
+    public long getRtP50() {
+        return rtP50;
+    }
+
+    public MetricNode setRtP50(long rtP50) {
+        this.rtP50 = rtP50;
+        return this;
+    }
+
+    public long getRtP99() {
+        return rtP99;
+    }
+
+    public MetricNode setRtP99(long rtP99) {
+        this.rtP99 = rtP99;
+        return this;
+    }
+
+    public long getRtP999() {
+        return rtP999;
+    }
+
+    public MetricNode setRtP999(long rtP999) {
+        this.rtP999 = rtP999;
+        return this;
+    }
+
+    /**
+     * Reset all fields, so that the node could be reused.
+     *
+     * @return this node in initial state
+     */
+    MetricNode reset() {
+        resource = null;
+        classification = 0;
+        timestamp = 0;
+        passQps = 0;
+        blockQps = 0;
+        successQps = 0;
+        exceptionQps = 0;
+        rt = 0;
+        occupiedPassQps = 0;
+        concurrency = 0;
+        rtP50 = 0;
+        rtP99 = 0;
+        rtP999 = 0;
+        return this;
+    }
+
+    /**
+     * Copy all fields from the given node, so that the node could be reused.
+     *
+     * @param node the source node
+     * @return this node
+     * @since 1.8.0
+     */
+    public MetricNode copyFrom(MetricNode node) {
+        resource = node.resource;
+        classification = node.classification;
+        timestamp = node.timestamp;
+        passQps = node.passQps;
+        blockQps = node.blockQps;
+        successQps = node.successQps;
+        exceptionQps = node.exceptionQps;
+        rt = node.rt;
+        occupiedPassQps = node.occupiedPassQps;
+        concurrency = node.concurrency;
+        rtP50 = node.rtP50;
+        rtP99 = node.rtP99;
+        rtP999 = node.rtP999;
+        return this;
+    }
+
+    private boolean hasRtPercentiles() {
+        return rtP50 > 0 || rtP99 > 0 || rtP999 > 0;
+    }
+
+    private void appendRtPercentiles(StringBuilder sb) {
+        if (hasRtPercentiles()) {
+            sb.append("|").append(rtP50);
+            sb.append("|").append(rtP99);
+            sb.append("|").append(rtP999);
+        }
+    }
+
+    private void parseRtPercentiles(String[] strs, int offset) {
+        if (strs.length >= offset + 3) {
+            setRtP50(Long.parseLong(strs[offset]));
+            setRtP99(Long.parseLong(strs[offset + 1]));
+            setRtP999(Long.parseLong(strs[offset + 2]));
+        }
+    }
+
     @Override
     public String toString() {
         return "MetricNode{" +
@@ -145,6 +247,9 @@ public class MetricNode {
             ", rt=" + rt +
             ", concurrency=" + concurrency +
             ", occupiedPassQps=" + occupiedPassQps +
+            ", rtP50=" + rtP50 +
+            ", rtP99=" + rtP99 +
+            ", rtP999=" + rtP999 +
             '}';
     }
 
@@ -152,8 +257,9 @@ public class MetricNode {
      * To formatting string. All "|" in {@link #resource} will be replaced with
      * "_", format is: <br/>
      * <code>
-     * timestamp|resource|passQps|blockQps|successQps|exceptionQps|rt|occupiedPassQps
-     * </code>
+     * timestamp|resource|passQps|blockQps|successQps|exceptionQps|rt|occupiedPassQps|concurrency|classification
+     * </code><br/>
+     * The RT percentiles {@code |rtP50|rtP99|rtP999} are appended only when present.
      *
      * @return string format of this.
      */
@@ -170,6 +276,7 @@ public class MetricNode {
         sb.append(occupiedPassQps).append("|");
         sb.append(concurrency).append("|");
         sb.append(classification);
+        appendRtPercentiles(sb);
         return sb.toString();
     }
 
@@ -195,9 +302,10 @@ public class MetricNode {
         if (strs.length >= 9) {
             node.setConcurrency(Integer.parseInt(strs[8]));
         }
-        if (strs.length == 10) {
+        if (strs.length >= 10) {
             node.setClassification(Integer.parseInt(strs[9]));
         }
+        node.parseRtPercentiles(strs, 10);
         return node;
     }
 
@@ -205,8 +313,9 @@ public class MetricNode {
      * To formatting string. All "|" in {@link MetricNode#resource} will be
      * replaced with "_", format is: <br/>
      * <code>
-     * timestamp|yyyy-MM-dd HH:mm:ss|resource|passQps|blockQps|successQps|exceptionQps|rt|occupiedPassQps\n
-     * </code>
+     * timestamp|yyyy-MM-dd HH:mm:ss|resource|passQps|blockQps|successQps|exceptionQps|rt|occupiedPassQps|concurrency|classification\n
+     * </code><br/>
+     * The RT percentiles {@code |rtP50|rtP99|rtP999} are appended (before the line separator) only when present.
      *
      * @return string format of this.
      */
@@ -226,6 +335,7 @@ public class MetricNode {
         sb.append(getOccupiedPassQps()).append("|");
         sb.append(concurrency).append("|");
         sb.append(classification);
+        appendRtPercentiles(sb);
         sb.append('\n');
         return sb.toString();
     }
@@ -253,9 +363,10 @@ public class MetricNode {
         if (strs.length >= 10) {
             node.setConcurrency(Integer.parseInt(strs[9]));
         }
-        if (strs.length == 11) {
+        if (strs.length >= 11) {
             node.setClassification(Integer.parseInt(strs[10]));
         }
+        node.parseRtPercentiles(strs, 11);
         return node;
     }
 
@@ -0,0 +1,172 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.node.metric.exporter.MetricExporterProvider;
+
+/**
+ * <p>
+ * A reusable buffer that groups the {@link MetricNode}s of all resources by second, which is used
+ * by the streaming aggregation of {@link MetricTimerListener}.
+ * </p>
+ * <p>
+ * The metric nodes and the lists of every second are pooled and reused across rounds, so a round
+ * of aggregation allocates nothing once the buffer has warmed up. As a result, the nodes must not be
+ * retained after {@link #drainTo(MetricWriter, boolean)}.
+ * </p>
+ * <p>
+ * Usage: {@link #setResource(String, int)} before filling the metrics of a resource, then fill the
+ * {@link #spare()} node and {@link #commit(long)} it. This class is not thread-safe.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class MetricNodeBuffer {
+
+    private final List<MetricNode> nodePool = new ArrayList<MetricNode>();
+    private int usedNodes = 0;
+
+    /**
+     * Batches of every second, where only the first {@code usedBatches} ones are in use.
+     */
+    private final List<SecondBatch> batches = new ArrayList<SecondBatch>();
+    private int usedBatches = 0;
+
+    private String resource;
+    private int classification;
+
+    /**
+     * Set the resource of the nodes to commit.
+     *
+     * @param resource       resource name
+     * @param classification resource classification
+     */
+    public void setResource(String resource, int classification) {
+        this.resource = resource;
+        this.classification = classification;
+    }
+
+    /**
+     * Get a clean node to fill. The same node is returned until it's committed.
+     *
+     * @return a clean node
+     */
+    public MetricNode spare() {
+        if (usedNodes == nodePool.size()) {
+            nodePool.add(new MetricNode());
+        }
+        return nodePool.get(usedNodes).reset();
+    }
+
+    /**
+     * Commit the filled {@link #spare()} node to the given second.
+     *
+     * @param timestamp timestamp of the second in milliseconds
+     */
+    public void commit(long timestamp) {
+        MetricNode node = nodePool.get(usedNodes++);
+        node.setTimestamp(timestamp);
+        node.setResource(resource);
+        node.setClassification(classification);
+        batchOf(timestamp).nodes.add(node);
+    }
+
+    /**
+     * @return amount of the committed nodes
+     */
+    public int size() {
+        return usedNodes;
+    }
+
+    private SecondBatch batchOf(long timestamp) {
+        // There are only a few seconds in a round, so a linear search is enough.
+        for (int i = 0; i < usedBatches; i++) {
+            SecondBatch batch = batches.get(i);
+            if (batch.timestamp == timestamp) {
+                return batch;
+            }
+        }
+        if (usedBatches == batches.size()) {
+            batches.add(new SecondBatch());
+        }
+        SecondBatch batch = batches.get(usedBatches++);
+        batch.timestamp = timestamp;
+        return batch;
+    }
+
+    /**
+     * Write the committed nodes to the writer in ascending order of second, then clear the buffer.
+     *
+     * @param writer the metric writer
+     * @throws Exception if failed to write
+     */
+    public void drainTo(MetricWriter writer) throws Exception {
+        drainTo(writer, false);
+    }
+
+    /**
+     * Write the committed nodes to the writer in ascending order of second, then clear the buffer.
+     *
+     * @param writer the metric writer
+     * @param export whether to export the nodes via the {@link MetricExporterProvider#getMetricExporters()}
+     *               before writing
+     * @throws Exception if failed to write
+     */
+    public void drainTo(MetricWriter writer, boolean export) throws Exception {
+        try {
+            sortBatches();
+            for (int i = 0; i < usedBatches; i++) {
+                SecondBatch batch = batches.get(i);
+                if (export) {
+                    MetricExporterProvider.exportAll(batch.timestamp, batch.nodes);
+                }
+                writer.write(batch.timestamp, batch.nodes);
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < usedBatches; i++) {
+            batches.get(i).nodes.clear();
+        }
+        usedBatches = 0;
+        usedNodes = 0;
+    }
+
+    private void sortBatches() {
+        // Insertion sort without allocation, as the batches are almost in order.
+        for (int i = 1; i < usedBatches; i++) {
+            SecondBatch batch = batches.get(i);
+            int j = i - 1;
+            while (j >= 0 && batches.get(j).timestamp > batch.timestamp) {
+                batches.set(j + 1, batches.get(j));
+                j--;
+            }
+            batches.set(j + 1, batch);
+        }
+    }
+
+    private static final class SecondBatch {
+        long timestamp;
+        final List<MetricNode> nodes = new ArrayList<MetricNode>();
+    }
+}
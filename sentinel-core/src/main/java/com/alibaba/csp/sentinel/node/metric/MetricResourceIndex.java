@@ -0,0 +1,179 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Set;
+
+import static com.alibaba.csp.sentinel.node.metric.MetricResourceIndexWriter.BLOCK_HEADER_SIZE;
+import static com.alibaba.csp.sentinel.node.metric.MetricResourceIndexWriter.ENTRY_SIZE;
+
+/**
+ * <p>
+ * The reader side of the resource index of a text metric file, see {@link MetricResourceIndexWriter}.
+ * </p>
+ * <p>
+ * Like {@link BinaryMetricSegment}, the (second, offset) of the scanned blocks and the dictionary are kept
+ * across queries, and only the block headers appended since the last query are scanned via positional reads.
+ * The first block of a given second is located by binary search, and only the entries of the blocks in the
+ * time range are read.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class MetricResourceIndex {
+
+    private final String metricFileName;
+
+    private long[] blockSeconds = new long[16];
+    private long[] blockOffsets = new long[16];
+    private int[] blockEntryCounts = new int[16];
+    private int blockCount;
+    /**
+     * Offset of the next block to scan.
+     */
+    private long scannedOffset = 0;
+
+    private String[] resources = new String[0];
+    private long dictLength = -1;
+
+    MetricResourceIndex(String metricFileName) {
+        this.metricFileName = metricFileName;
+    }
+
+    /**
+     * Scan the blocks appended since the last call, and reload the dictionary if it has grown.
+     * Only the complete blocks at the moment are visible.
+     *
+     * @param channel channel of the resource index file
+     * @return false if the dictionary is absent
+     * @throws IOException if any I/O error occurs
+     */
+    boolean refresh(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        long offset = scannedOffset;
+        while (offset + BLOCK_HEADER_SIZE <= size) {
+            header.clear();
+            if (BinaryMetricSegment.readFully(channel, header, offset) < BLOCK_HEADER_SIZE) {
+                break;
+            }
+            int count = header.getInt(8);
+            long end = offset + BLOCK_HEADER_SIZE + (long)count * ENTRY_SIZE;
+            if (count < 0 || end > size) {
+                // Partially written block.
+                break;
+            }
+            addBlock(header.getLong(0), offset, count);
+            offset = end;
+        }
+        scannedOffset = offset;
+        // The dictionary is read after the blocks, so that it covers all the scanned entries.
+        File dictFile = new File(BinaryMetricSegment.formDictFileName(metricFileName));
+        if (!dictFile.exists()) {
+            return false;
+        }
+        if (dictFile.length() != dictLength) {
+            dictLength = dictFile.length();
+            resources = BinaryMetricSegment.readDictionary(dictFile);
+        }
+        return true;
+    }
+
+    private void addBlock(long second, long offset, int entryCount) {
+        if (blockCount == blockSeconds.length) {
+            blockSeconds = Arrays.copyOf(blockSeconds, blockCount * 2);
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+            blockEntryCounts = Arrays.copyOf(blockEntryCounts, blockCount * 2);
+        }
+        blockSeconds[blockCount] = second;
+        blockOffsets[blockCount] = offset;
+        blockEntryCounts[blockCount] = entryCount;
+        blockCount++;
+    }
+
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    long blockSecondAt(int idx) {
+        return blockSeconds[idx];
+    }
+
+    int blockEntryCountAt(int idx) {
+        return blockEntryCounts[idx];
+    }
+
+    /**
+     * @param identities resource names
+     * @return IDs of the given resources in ascending order
+     */
+    int[] resourceIdsOf(Set<String> identities) {
+        int[] ids = new int[identities.size()];
+        int n = 0;
+        for (int i = 0; i < resources.length && n < ids.length; i++) {
+            if (identities.contains(resources[i])) {
+                ids[n++] = i;
+            }
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * Find the first block whose second is no less than the given second.
+     *
+     * @param second timestamp in second
+     * @return index of the block, or {@link #getBlockCount()} if all blocks are earlier
+     */
+    int lowerBound(long second) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockSeconds[mid] < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Read the entries of the block at given index.
+     *
+     * @param channel channel of the resource index file
+     * @param idx     index of the block
+     * @param buf     the buffer to reuse
+     * @return the buffer (or a larger one if the given buffer is not enough), holding the entries from position 0
+     * @throws IOException if any I/O error occurs
+     */
+    ByteBuffer readEntries(FileChannel channel, int idx, ByteBuffer buf) throws IOException {
+        int length = blockEntryCounts[idx] * ENTRY_SIZE;
+        if (buf == null || buf.capacity() < length) {
+            buf = ByteBuffer.allocate(length);
+        }
+        buf.clear();
+        buf.limit(length);
+        BinaryMetricSegment.readFully(channel, buf, blockOffsets[idx] + BLOCK_HEADER_SIZE);
+        return buf;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Writes the resource index of a text metric file, which maps (second, resource) to the offsets of
+ * the metric lines, so that the metrics of a few resources could be read without parsing the lines
+ * of other resources. The index is made up of two files:
+ * </p>
+ * <ul>
+ * <li>the dictionary file ({@code ${metricFileName}.dict}): resource names in the same format as the
+ * dictionary of {@link BinaryMetricSegment};</li>
+ * <li>the resource index file ({@code ${metricFileName}.ridx}): a block for every write of a second, in
+ * ascending order of second. The layout of a block (big-endian) is
+ * {@code second(8)|count(4)|[resourceId(4)|offset(8)|length(4)] * count}, where the entries are sorted by
+ * resource ID, so that a resource could be located via binary search in the block.</li>
+ * </ul>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class MetricResourceIndexWriter {
+
+    static final String RESOURCE_INDEX_FILE_SUFFIX = ".ridx";
+    static final int BLOCK_HEADER_SIZE = 12;
+    static final int ENTRY_SIZE = 16;
+
+    private final FileOutputStream indexFile;
+    private final FileOutputStream dictFile;
+    private final DataOutputStream indexOut;
+    private final DataOutputStream dictOut;
+
+    private final Map<String, Integer> resourceIds = new HashMap<String, Integer>();
+
+    private int count = 0;
+    private int[] ids = new int[64];
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+    private long[] sortKeys = new long[64];
+
+    MetricResourceIndexWriter(String metricFileName, boolean append) throws IOException {
+        this.indexFile = new FileOutputStream(formResourceIndexFileName(metricFileName), append);
+        this.dictFile = new FileOutputStream(BinaryMetricSegment.formDictFileName(metricFileName), append);
+        this.indexOut = new DataOutputStream(new BufferedOutputStream(indexFile));
+        this.dictOut = new DataOutputStream(new BufferedOutputStream(dictFile));
+    }
+
+    static String formResourceIndexFileName(String metricFileName) {
+        return metricFileName + RESOURCE_INDEX_FILE_SUFFIX;
+    }
+
+    /**
+     * Add a metric line of the current block.
+     *
+     * @param resource resource of the line
+     * @param offset   offset of the line in the metric file
+     * @param length   length of the line in bytes
+     */
+    void add(String resource, long offset, int length) throws IOException {
+        Integer id = resourceIds.get(resource);
+        if (id == null) {
+            id = resourceIds.size();
+            resourceIds.put(resource, id);
+            dictOut.writeUTF(resource);
+        }
+        if (count == ids.length) {
+            int newLength = count << 1;
+            ids = Arrays.copyOf(ids, newLength);
+            offsets = Arrays.copyOf(offsets, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            sortKeys = Arrays.copyOf(sortKeys, newLength);
+        }
+        ids[count] = id;
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+    }
+
+    /**
+     * Write the block of the second with the lines added since the last block.
+     *
+     * @param second timestamp in second of the block
+     */
+    void endBlock(long second) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        // Sort the entries by resource ID (the lower 32 bits keep the position of the entry).
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = ((long)ids[i] << 32) | i;
+        }
+        Arrays.sort(sortKeys, 0, count);
+        indexOut.writeLong(second);
+        indexOut.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            int idx = (int)sortKeys[i];
+            indexOut.writeInt(ids[idx]);
+            indexOut.writeLong(offsets[idx]);
+            indexOut.writeInt(lengths[idx]);
+        }
+        count = 0;
+    }
+
+    void flush(boolean sync) throws IOException {
+        // Flush the dictionary first, so that the index never refers to an absent resource.
+        dictOut.flush();
+        indexOut.flush();
+        if (sync) {
+            dictFile.getChannel().force(false);
+            indexFile.getChannel().force(false);
+        }
+    }
+
+    void close() throws IOException {
+        try {
+            dictOut.close();
+        } finally {
+            indexOut.close();
+        }
+    }
+}
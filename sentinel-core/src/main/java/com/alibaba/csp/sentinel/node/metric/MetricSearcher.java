@@ -20,7 +20,11 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 
@@ -35,6 +39,7 @@ public class MetricSearcher {
 
     private static final Charset defaultCharset = Charset.forName(SentinelConfig.charset());
     private final MetricsReader metricsReader;
+    private final BinaryMetricsReader binaryMetricsReader;
 
     private String baseDir;
     private String baseFileName;
@@ -55,6 +60,17 @@ public class MetricSearcher {
      * @param charset
      */
     public MetricSearcher(String baseDir, String baseFileName, Charset charset) {
+        this(baseDir, baseFileName, charset, SentinelConfig.binaryMetricFile());
+    }
+
+    /**
+     * @param baseDir      metric文件所在目录
+     * @param baseFileName metric文件名的关键字，比如 alihot-metrics.log
+     * @param charset
+     * @param binary       whether the metric files are binary segments, see {@link BinaryMetricSegment}
+     * @since 1.8.0
+     */
+    public MetricSearcher(String baseDir, String baseFileName, Charset charset, boolean binary) {
         if (baseDir == null) {
             throw new IllegalArgumentException("baseDir can't be null");
         }
@@ -70,6 +86,7 @@ public class MetricSearcher {
         }
         this.baseFileName = baseFileName;
         metricsReader = new MetricsReader(charset);
+        binaryMetricsReader = binary ? new BinaryMetricsReader() : null;
     }
 
     /**
@@ -83,6 +100,10 @@ public class MetricSearcher {
      */
     public synchronized List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
         List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
+        if (binaryMetricsReader != null) {
+            // The binary segments are located via binary search by timestamp, so the index files are not used.
+            return binaryMetricsReader.readMetrics(fileNames, beginTimeMs, recommendLines);
+        }
         int i = 0;
         long offsetInIndex = 0;
         if (validPosition(beginTimeMs)) {
@@ -111,10 +132,37 @@ public class MetricSearcher {
      * identity will be read.
      */
     public synchronized List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
+        throws Exception {
+        return findByTimeAndResources0(beginTimeMs, endTimeMs,
+            identity == null ? null : Collections.singleton(identity));
+    }
+
+    /**
+     * Find metric of the given resources between [beginTimeMs, endTimeMs], both side inclusive, in one pass.
+     * If the metric files are accompanied with the resource index (see {@link MetricResourceIndexWriter}),
+     * only the lines of the given resources will be read.
+     *
+     * @param beginTimeMs begin time in milliseconds
+     * @param endTimeMs   end time in milliseconds
+     * @param identities  resource names, must not be null
+     * @return metric of the given resources in ascending order of second
+     * @throws Exception if failed to read the metric files
+     * @since 1.8.0
+     */
+    public synchronized List<MetricNode> findByTimeAndResources(long beginTimeMs, long endTimeMs,
+                                                                Collection<String> identities) throws Exception {
+        if (identities == null) {
+            throw new IllegalArgumentException("identities can't be null");
+        }
+        return findByTimeAndResources0(beginTimeMs, endTimeMs, new HashSet<String>(identities));
+    }
+
+    private List<MetricNode> findByTimeAndResources0(long beginTimeMs, long endTimeMs, Set<String> identities)
         throws Exception {
         List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
-        //RecordLog.info("pid=" + pid + ", findByTimeAndResource([" + beginTimeMs + ", " + endTimeMs
-        //    + "], " + identity + ")");
+        if (binaryMetricsReader != null) {
+            return binaryMetricsReader.readMetricsByEndTime(fileNames, beginTimeMs, endTimeMs, identities);
+        }
         int i = 0;
         long offsetInIndex = 0;
         if (validPosition(beginTimeMs)) {
@@ -134,7 +182,8 @@ public class MetricSearcher {
                     MetricWriter.formIndexFileName(fileName), offsetInIndex);
             offsetInIndex = 0;
             if (offset != -1) {
-                return metricsReader.readMetricsByEndTime(fileNames, i, offset, beginTimeMs, endTimeMs, identity);
+                return metricsReader.readMetricsByEndTime(fileNames, i, offset, beginTimeMs, endTimeMs,
+                    identities);
             }
         }
         return null;
@@ -25,19 +25,39 @@ import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.metric.exporter.MetricExporterProvider;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * @author jialiang.linjl
  */
 public class MetricTimerListener implements Runnable {
 
-    private static final MetricWriter metricWriter = new MetricWriter(SentinelConfig.singleMetricFileSize(),
-        SentinelConfig.totalMetricFileCount());
+    private static final MetricWriter metricWriter = newMetricWriter();
+
+    private final boolean streaming;
+    private final MetricNodeBuffer buffer = new MetricNodeBuffer();
+
+    public MetricTimerListener() {
+        this(SentinelConfig.streamingMetricAggregation());
+    }
+
+    /**
+     * @param streaming whether to aggregate the metrics in streaming mode, see {@link MetricNodeBuffer}
+     * @since 1.8.0
+     */
+    public MetricTimerListener(boolean streaming) {
+        this.streaming = streaming;
+    }
 
     @Override
     public void run() {
+        if (streaming) {
+            runStreaming();
+            return;
+        }
         Map<Long, List<MetricNode>> maps = new TreeMap<>();
         for (Entry<ResourceWrapper, ClusterNode> e : ClusterBuilderSlot.getClusterNodeMap().entrySet()) {
             ClusterNode node = e.getValue();
@@ -47,6 +67,7 @@ public class MetricTimerListener implements Runnable {
         aggregate(maps, Constants.ENTRY_NODE.metrics(), Constants.ENTRY_NODE);
         if (!maps.isEmpty()) {
             for (Entry<Long, List<MetricNode>> entry : maps.entrySet()) {
+                MetricExporterProvider.exportAll(entry.getKey(), entry.getValue());
                 try {
                     metricWriter.write(entry.getKey(), entry.getValue());
                 } catch (Exception e) {
@@ -56,6 +77,38 @@ public class MetricTimerListener implements Runnable {
         }
     }
 
+    private static MetricWriter newMetricWriter() {
+        if (SentinelConfig.asyncMetricWrite()) {
+            return new AsyncMetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount(),
+                SentinelConfig.binaryMetricFile(), SentinelConfig.asyncMetricWriteBufferSeconds(),
+                SentinelConfig.metricFlushIntervalMs(), SentinelConfig.metricFsyncIntervalMs());
+        }
+        return new MetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount());
+    }
+
+    /**
+     * @return the metric writer that writes the metric files
+     * @since 1.8.0
+     */
+    public static MetricWriter getMetricWriter() {
+        return metricWriter;
+    }
+
+    private void runStreaming() {
+        long currentTime = TimeUtil.currentTimeMillis();
+        for (ClusterNode node : ClusterBuilderSlot.getClusterNodeMap().values()) {
+            buffer.setResource(node.getName(), node.getResourceType());
+            node.fetchMetrics(currentTime, buffer);
+        }
+        buffer.setResource(Constants.ENTRY_NODE.getName(), Constants.ENTRY_NODE.getResourceType());
+        Constants.ENTRY_NODE.fetchMetrics(currentTime, buffer);
+        try {
+            buffer.drainTo(metricWriter, true);
+        } catch (Exception e) {
+            RecordLog.warn("[MetricTimerListener] Write metric error", e);
+        }
+    }
+
     private void aggregate(Map<Long, List<MetricNode>> maps, Map<Long, MetricNode> metrics, ClusterNode node) {
         for (Entry<Long, MetricNode> entry : metrics.entrySet()) {
             long time = entry.getKey();
@@ -19,13 +19,16 @@ import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.alibaba.csp.sentinel.log.LogBase;
 import com.alibaba.csp.sentinel.util.PidUtil;
@@ -41,6 +44,16 @@ import com.alibaba.csp.sentinel.log.RecordLog;
  * <li>metric of different day should in different file;</li>
  * <li>every metric file is accompanied with an index file, which file name is {@code ${metricFileName}.idx}</li>
  * </ol>
+ * <p>
+ * When the binary format is enabled (see {@link SentinelConfig#binaryMetricFile()}), the metrics are written
+ * as {@link BinaryMetricSegment}s named like {@code ${appName}-metrics.bin.pid${pid}.yyyy-MM-dd.[number]},
+ * and every segment is accompanied with a resource dictionary file {@code ${metricFileName}.dict}
+ * instead of the index file.
+ * </p>
+ * <p>
+ * When the resource index is enabled for the text format (see {@link SentinelConfig#metricResourceIndex()}),
+ * every metric file is also accompanied with a resource index, see {@link MetricResourceIndexWriter}.
+ * </p>
  *
  * @author Carpenter Lee
  */
@@ -55,9 +68,15 @@ public class MetricWriter {
      * @see #formMetricFileName(String, int)
      */
     public static final String METRIC_FILE = "metrics.log";
+    /**
+     * @since 1.8.0
+     */
+    public static final String METRIC_BINARY_FILE = "metrics.bin";
     public static final String METRIC_FILE_INDEX_SUFFIX = ".idx";
     public static final Comparator<String> METRIC_FILE_NAME_CMP = new MetricFileNameComparator();
 
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
     private final DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     /**
      * 排除时差干扰
@@ -72,13 +91,29 @@ public class MetricWriter {
     private File curMetricIndexFile;
 
     private FileOutputStream outMetric;
+    private FileOutputStream outIndexFile;
     private DataOutputStream outIndex;
     private BufferedOutputStream outMetricBuf;
+    /**
+     * Logical size of the current metric file, including the bytes in the buffer.
+     */
+    private long curFileSize;
+    private final int bufferSize;
     private long singleFileSize;
     private int totalFileCount;
     private boolean append = false;
     private final int pid = PidUtil.getPid();
 
+    private final boolean binary;
+    /**
+     * Resource dictionary of the current binary segment.
+     */
+    private final Map<String, Integer> resourceIds = new HashMap<String, Integer>();
+    private ByteBuffer blockBuf = ByteBuffer.allocate(BinaryMetricSegment.HEADER_SIZE);
+
+    private final boolean resourceIndex;
+    private MetricResourceIndexWriter resourceIndexWriter;
+
     /**
      * 秒级统计，忽略毫秒数。
      */
@@ -89,12 +124,36 @@ public class MetricWriter {
     }
 
     public MetricWriter(long singleFileSize, int totalFileCount) {
-        if (singleFileSize <= 0 || totalFileCount <= 0) {
+        this(singleFileSize, totalFileCount, SentinelConfig.binaryMetricFile());
+    }
+
+    /**
+     * @param singleFileSize max size of a single metric file
+     * @param totalFileCount max count of metric files
+     * @param binary         whether to write metrics in the binary segment format
+     * @since 1.8.0
+     */
+    public MetricWriter(long singleFileSize, int totalFileCount, boolean binary) {
+        this(singleFileSize, totalFileCount, binary, DEFAULT_BUFFER_SIZE);
+    }
+
+    MetricWriter(long singleFileSize, int totalFileCount, boolean binary, int bufferSize) {
+        this(singleFileSize, totalFileCount, binary, bufferSize, !binary && SentinelConfig.metricResourceIndex());
+    }
+
+    MetricWriter(long singleFileSize, int totalFileCount, boolean binary, int bufferSize, boolean resourceIndex) {
+        if (singleFileSize <= 0 || totalFileCount <= 0 || bufferSize <= 0) {
             throw new IllegalArgumentException();
         }
         RecordLog.info(
             "[MetricWriter] Creating new MetricWriter, singleFileSize=" + singleFileSize + ", totalFileCount="
-                + totalFileCount);
+                + totalFileCount + ", binary=" + binary + ", resourceIndex=" + resourceIndex);
+        if (binary && resourceIndex) {
+            throw new IllegalArgumentException("Resource index is not available for binary metric files");
+        }
+        this.binary = binary;
+        this.resourceIndex = resourceIndex;
+        this.bufferSize = bufferSize;
         this.baseDir = METRIC_BASE_DIR;
         File dir = new File(baseDir);
         if (!dir.exists()) {
@@ -122,6 +181,20 @@ public class MetricWriter {
         if (nodes == null) {
             return;
         }
+        append(time, nodes);
+        flush(false);
+    }
+
+    /**
+     * Write the nodes of the second into the buffer without flushing, so that the nodes of several seconds
+     * could be flushed in one go. File rolling still happens here when the file size exceeds.
+     *
+     * @param time  timestamp of the nodes
+     * @param nodes the nodes to write
+     * @throws Exception if failed to write
+     * @since 1.8.0
+     */
+    synchronized void append(long time, List<MetricNode> nodes) throws Exception {
         for (MetricNode node : nodes) {
             node.setTimestamp(time);
         }
@@ -132,7 +205,7 @@ public class MetricWriter {
         }
         // first write, should create file
         if (curMetricFile == null) {
-            baseFileName = formMetricFileName(appName, pid);
+            baseFileName = formMetricFileName(appName, pid, binary);
             closeAndNewFile(nextFileNameOfDay(time));
         }
         if (!(curMetricFile.exists() && curMetricIndexFile.exists())) {
@@ -143,29 +216,22 @@ public class MetricWriter {
         if (second < lastSecond) {
             // 时间靠前的直接忽略，不应该发生。
         } else if (second == lastSecond) {
-            for (MetricNode node : nodes) {
-                outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-            }
-            outMetricBuf.flush();
+            writeNodes(second, nodes);
             if (!validSize()) {
                 closeAndNewFile(nextFileNameOfDay(time));
             }
         } else {
-            writeIndex(second, outMetric.getChannel().position());
+            if (!binary) {
+                writeIndex(second, curFileSize);
+            }
             if (isNewDay(lastSecond, second)) {
                 closeAndNewFile(nextFileNameOfDay(time));
-                for (MetricNode node : nodes) {
-                    outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-                }
-                outMetricBuf.flush();
+                writeNodes(second, nodes);
                 if (!validSize()) {
                     closeAndNewFile(nextFileNameOfDay(time));
                 }
             } else {
-                for (MetricNode node : nodes) {
-                    outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-                }
-                outMetricBuf.flush();
+                writeNodes(second, nodes);
                 if (!validSize()) {
                     closeAndNewFile(nextFileNameOfDay(time));
                 }
@@ -174,6 +240,69 @@ public class MetricWriter {
         }
     }
 
+    private void writeNodes(long second, List<MetricNode> nodes) throws Exception {
+        if (!binary) {
+            for (MetricNode node : nodes) {
+                byte[] bytes = node.toFatString().getBytes(CHARSET);
+                outMetricBuf.write(bytes);
+                if (resourceIndexWriter != null) {
+                    resourceIndexWriter.add(node.getResource(), curFileSize, bytes.length);
+                }
+                curFileSize += bytes.length;
+            }
+            if (resourceIndexWriter != null) {
+                resourceIndexWriter.endBlock(second);
+            }
+            return;
+        }
+        if (nodes.isEmpty()) {
+            return;
+        }
+        int[] ids = new int[nodes.size()];
+        boolean newResource = false;
+        for (int i = 0; i < ids.length; i++) {
+            String resource = nodes.get(i).getResource();
+            Integer id = resourceIds.get(resource);
+            if (id == null) {
+                id = resourceIds.size();
+                resourceIds.put(resource, id);
+                outIndex.writeUTF(resource);
+                newResource = true;
+            }
+            ids[i] = id;
+        }
+        if (newResource) {
+            // Flush the dictionary first, so that the records never refer to an absent resource.
+            outIndex.flush();
+        }
+        blockBuf = BinaryMetricSegment.encodeBlock(nodes.get(0).getTimestamp(), nodes, ids, blockBuf);
+        outMetricBuf.write(blockBuf.array(), 0, blockBuf.limit());
+        curFileSize += blockBuf.limit();
+    }
+
+    /**
+     * Flush the buffered metrics to the file.
+     *
+     * @param sync whether to force the file content to the storage device
+     * @throws Exception if failed to flush
+     * @since 1.8.0
+     */
+    synchronized void flush(boolean sync) throws Exception {
+        if (outMetricBuf == null) {
+            return;
+        }
+        outIndex.flush();
+        outMetricBuf.flush();
+        if (sync) {
+            outIndexFile.getChannel().force(false);
+            outMetric.getChannel().force(false);
+        }
+        if (resourceIndexWriter != null) {
+            // Flush the resource index after the metric lines it refers to.
+            resourceIndexWriter.flush(sync);
+        }
+    }
+
     public synchronized void close() throws Exception {
         if (outMetricBuf != null) {
             outMetricBuf.close();
@@ -181,12 +310,14 @@ public class MetricWriter {
         if (outIndex != null) {
             outIndex.close();
         }
+        if (resourceIndexWriter != null) {
+            resourceIndexWriter.close();
+        }
     }
 
     private void writeIndex(long time, long offset) throws Exception {
         outIndex.writeLong(time);
         outIndex.writeLong(offset);
-        outIndex.flush();
     }
 
     private String nextFileNameOfDay(long time) {
@@ -199,6 +330,8 @@ public class MetricWriter {
             String fileName = file.getName();
             if (fileName.contains(fileNameModel)
                 && !fileName.endsWith(METRIC_FILE_INDEX_SUFFIX)
+                && !fileName.endsWith(BinaryMetricSegment.DICT_FILE_SUFFIX)
+                && !fileName.endsWith(MetricResourceIndexWriter.RESOURCE_INDEX_FILE_SUFFIX)
                 && !fileName.endsWith(".lck")) {
                 list.add(file.getAbsolutePath());
             }
@@ -326,11 +459,19 @@ public class MetricWriter {
         }
         for (int i = 0; i < list.size() - totalFileCount + 1; i++) {
             String fileName = list.get(i);
-            String indexFile = formIndexFileName(fileName);
+            String indexFile = binary ? BinaryMetricSegment.formDictFileName(fileName) : formIndexFileName(fileName);
             new File(fileName).delete();
             RecordLog.info("[MetricWriter] Removing metric file: " + fileName);
             new File(indexFile).delete();
             RecordLog.info("[MetricWriter] Removing metric index file: " + indexFile);
+            if (!binary) {
+                // The resource index may be left by a previous run even if it's disabled now.
+                String resourceIndexFile = MetricResourceIndexWriter.formResourceIndexFileName(fileName);
+                if (new File(resourceIndexFile).delete()) {
+                    new File(BinaryMetricSegment.formDictFileName(fileName)).delete();
+                    RecordLog.info("[MetricWriter] Removing metric resource index file: " + resourceIndexFile);
+                }
+            }
         }
     }
 
@@ -342,19 +483,35 @@ public class MetricWriter {
         if (outIndex != null) {
             outIndex.close();
         }
+        if (resourceIndexWriter != null) {
+            resourceIndexWriter.close();
+        }
         outMetric = new FileOutputStream(fileName, append);
-        outMetricBuf = new BufferedOutputStream(outMetric);
+        outMetricBuf = new BufferedOutputStream(outMetric, bufferSize);
+        curFileSize = outMetric.getChannel().size();
         curMetricFile = new File(fileName);
-        String idxFile = formIndexFileName(fileName);
+        String idxFile = binary ? BinaryMetricSegment.formDictFileName(fileName) : formIndexFileName(fileName);
         curMetricIndexFile = new File(idxFile);
-        outIndex = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(idxFile, append)));
+        outIndexFile = new FileOutputStream(idxFile, append);
+        outIndex = new DataOutputStream(new BufferedOutputStream(outIndexFile));
+        if (binary) {
+            resourceIds.clear();
+            if (curFileSize == 0) {
+                BinaryMetricSegment.writeHeader(blockBuf);
+                outMetricBuf.write(blockBuf.array(), 0, blockBuf.limit());
+                outMetricBuf.flush();
+                curFileSize += blockBuf.limit();
+            }
+        }
+        if (resourceIndex) {
+            resourceIndexWriter = new MetricResourceIndexWriter(fileName, append);
+        }
         RecordLog.info("[MetricWriter] New metric file created: " + fileName);
         RecordLog.info("[MetricWriter] New metric index file created: " + idxFile);
     }
 
-    private boolean validSize() throws Exception {
-        long size = outMetric.getChannel().size();
-        return size < singleFileSize;
+    private boolean validSize() {
+        return curFileSize < singleFileSize;
     }
 
     private boolean isNewDay(long lastSecond, long second) {
@@ -375,6 +532,20 @@ public class MetricWriter {
      * @return metric file name.
      */
     public static String formMetricFileName(String appName, int pid) {
+        return formMetricFileName(appName, pid, SentinelConfig.binaryMetricFile());
+    }
+
+    /**
+     * Form metric file name use the specific appName and pid. Note that only
+     * form the file name, not include path.
+     *
+     * @param appName application name
+     * @param pid     process ID
+     * @param binary  whether the metric file is in binary format
+     * @return metric file name.
+     * @since 1.8.0
+     */
+    public static String formMetricFileName(String appName, int pid, boolean binary) {
         if (appName == null) {
             appName = "";
         }
@@ -384,7 +555,7 @@ public class MetricWriter {
         if (appName.contains(dot)) {
             appName = appName.replace(dot, separator);
         }
-        String name = appName + separator + METRIC_FILE;
+        String name = appName + separator + (binary ? METRIC_BINARY_FILE : METRIC_FILE);
         if (LogBase.isLogNameUsePid()) {
             name += ".pid" + pid;
         }
@@ -16,11 +16,19 @@
 package com.alibaba.csp.sentinel.node.metric;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Reads metrics data from log file.
@@ -34,6 +42,14 @@ class MetricsReader {
 
     private final Charset charset;
 
+    /**
+     * Resource indexes of the metric files, kept across queries.
+     */
+    private final Map<String, MetricResourceIndex> indexes = new HashMap<String, MetricResourceIndex>();
+
+    private ByteBuffer entryBuf;
+    private byte[] lineBuf = new byte[256];
+
     public MetricsReader(Charset charset) {
         this.charset = charset;
     }
@@ -42,7 +58,8 @@ class MetricsReader {
      * @return if should continue read, return true, else false.
      */
     boolean readMetricsInOneFileByEndTime(List<MetricNode> list, String fileName, long offset,
-                                          long beginTimeMs, long endTimeMs, String identity) throws Exception {
+                                          long beginTimeMs, long endTimeMs, Set<String> identities)
+        throws Exception {
         FileInputStream in = null;
         long beginSecond = beginTimeMs / 1000;
         long endSecond = endTimeMs / 1000;
@@ -60,9 +77,9 @@ class MetricsReader {
                 }
                 if (currentSecond <= endSecond) {
                     // read all
-                    if (identity == null) {
+                    if (identities == null) {
                         list.add(node);
-                    } else if (node.getResource().equals(identity)) {
+                    } else if (identities.contains(node.getResource())) {
                         list.add(node);
                     }
                 } else {
@@ -116,15 +133,131 @@ class MetricsReader {
     }
 
     /**
-     * When identity is null, all metric between the time intervalMs will be read, otherwise, only the specific
-     * identity will be read.
+     * Read the lines of the given resources via the resource index of the metric file,
+     * see {@link MetricResourceIndexWriter}. Lines of other resources are neither read nor parsed.
+     *
+     * @return if should continue read, return true, else false.
+     */
+    boolean readMetricsInOneFileByIndex(List<MetricNode> list, String fileName, long beginTimeMs, long endTimeMs,
+                                        Set<String> identities) throws Exception {
+        long beginSecond = beginTimeMs / 1000;
+        long endSecond = endTimeMs / 1000;
+        RandomAccessFile indexFile = new RandomAccessFile(
+            MetricResourceIndexWriter.formResourceIndexFileName(fileName), "r");
+        RandomAccessFile metricFile = null;
+        try {
+            FileChannel indexChannel = indexFile.getChannel();
+            MetricResourceIndex index = refreshIndex(fileName, indexChannel);
+            if (index == null) {
+                return true;
+            }
+            int[] ids = index.resourceIdsOf(identities);
+            if (ids.length == 0) {
+                return true;
+            }
+            metricFile = new RandomAccessFile(fileName, "r");
+            long metricSize = metricFile.length();
+            int blockCount = index.getBlockCount();
+            for (int b = index.lowerBound(beginSecond); b < blockCount; b++) {
+                if (index.blockSecondAt(b) > endSecond) {
+                    return false;
+                }
+                entryBuf = index.readEntries(indexChannel, b, entryBuf);
+                int count = index.blockEntryCountAt(b);
+                for (int id : ids) {
+                    for (int i = lowerBound(entryBuf, count, id); i < count; i++) {
+                        int entry = i * MetricResourceIndexWriter.ENTRY_SIZE;
+                        if (entryBuf.getInt(entry) != id) {
+                            break;
+                        }
+                        long offset = entryBuf.getLong(entry + 4);
+                        int length = entryBuf.getInt(entry + 12);
+                        if (offset + length > metricSize) {
+                            // The line has not been flushed yet.
+                            return false;
+                        }
+                        if (length > lineBuf.length) {
+                            lineBuf = new byte[length];
+                        }
+                        metricFile.seek(offset);
+                        metricFile.readFully(lineBuf, 0, length);
+                        // Exclude the line separator.
+                        int end = length;
+                        while (end > 0 && (lineBuf[end - 1] == '\n' || lineBuf[end - 1] == '\r')) {
+                            end--;
+                        }
+                        list.add(MetricNode.fromFatString(new String(lineBuf, 0, end, charset)));
+                        if (list.size() >= MAX_LINES_RETURN) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        } finally {
+            indexFile.close();
+            if (metricFile != null) {
+                metricFile.close();
+            }
+        }
+        return true;
+    }
+
+    private MetricResourceIndex refreshIndex(String fileName, FileChannel indexChannel) throws Exception {
+        MetricResourceIndex index = indexes.get(fileName);
+        if (index == null) {
+            index = new MetricResourceIndex(fileName);
+            indexes.put(fileName, index);
+        }
+        if (!index.refresh(indexChannel)) {
+            indexes.remove(fileName);
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * @return position of the first entry whose resource ID is not less than the given one in the block
+     */
+    private static int lowerBound(ByteBuffer entries, int count, int id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.getInt(mid * MetricResourceIndexWriter.ENTRY_SIZE) < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean hasResourceIndex(String fileName) {
+        return new File(MetricResourceIndexWriter.formResourceIndexFileName(fileName)).exists()
+            && new File(BinaryMetricSegment.formDictFileName(fileName)).exists();
+    }
+
+    /**
+     * When identities is null, all metric between the time intervalMs will be read, otherwise, only the
+     * specific identities will be read in one pass. Metric files with a resource index are read via the index,
+     * while others are scanned.
      */
-    List<MetricNode> readMetricsByEndTime(List<String> fileNames, int pos, long offset,
-                                          long beginTimeMs, long endTimeMs, String identity) throws Exception {
+    synchronized List<MetricNode> readMetricsByEndTime(List<String> fileNames, int pos, long offset,
+                                                       long beginTimeMs, long endTimeMs, Set<String> identities)
+        throws Exception {
+        // Drop the indexes of the files that have been removed.
+        indexes.keySet().retainAll(new HashSet<String>(fileNames));
         List<MetricNode> list = new ArrayList<MetricNode>(1024);
-        if (readMetricsInOneFileByEndTime(list, fileNames.get(pos++), offset, beginTimeMs, endTimeMs, identity)) {
-            while (pos < fileNames.size()
-                && readMetricsInOneFileByEndTime(list, fileNames.get(pos++), 0, beginTimeMs, endTimeMs, identity)) {
+        for (; pos < fileNames.size(); pos++, offset = 0) {
+            String fileName = fileNames.get(pos);
+            boolean goOn;
+            if (identities != null && hasResourceIndex(fileName)) {
+                goOn = readMetricsInOneFileByIndex(list, fileName, beginTimeMs, endTimeMs, identities);
+            } else {
+                goOn = readMetricsInOneFileByEndTime(list, fileName, offset, beginTimeMs, endTimeMs, identities);
+            }
+            if (!goOn) {
+                break;
             }
         }
         return list;
@@ -0,0 +1,51 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric.exporter;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricTimerListener;
+
+/**
+ * <p>
+ * Exports the per-second metrics of all resources to somewhere else than the metric files.
+ * The exporters are fed by {@link MetricTimerListener} with the same aggregated {@link MetricNode}s
+ * that are written to the metric files, so there's no need to read the metric files back.
+ * </p>
+ * <p>
+ * The exporters are resolved via SPI, see {@link MetricExporterProvider}. All methods are invoked
+ * in the metric export thread shared by all exporters (rather than the metric timer thread), so a slow
+ * exporter delays the other exporters, and the seconds are dropped if the exporters cannot keep up.
+ * Use {@link PushMetricExporter} for the exporters that talk to remote endpoints.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public interface MetricExporter {
+
+    /**
+     * Export the metrics of all resources in the given second. Seconds are exported in ascending order,
+     * and every second is exported only once.
+     *
+     * @param timestamp timestamp of the second in milliseconds
+     * @param nodes     metric nodes of the second, which could be reused after returning,
+     *                  so DO NOT retain them (copy them via {@link MetricNode#copyFrom(MetricNode)} if needed)
+     * @throws Exception if failed to export
+     */
+    void export(long timestamp, List<MetricNode> nodes) throws Exception;
+}
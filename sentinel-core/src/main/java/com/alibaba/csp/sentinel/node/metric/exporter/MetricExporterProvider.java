@@ -0,0 +1,208 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric.exporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.util.SpiLoader;
+
+/**
+ * <p>
+ * Get all {@link MetricExporter}s via SPI. The built-in {@link OpenMetricsExporter} is added
+ * if {@link SentinelConfig#METRIC_EXPORTER_OPEN_METRICS} is enabled.
+ * </p>
+ * <p>
+ * The metrics are exported in a dedicated export thread (started on the first export), so that a slow
+ * exporter never delays the metric timer thread and the metric files. At most {@link #MAX_PENDING_SECONDS}
+ * seconds are buffered for the export thread, and the new seconds are dropped when the buffer is full.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class MetricExporterProvider {
+
+    static final int MAX_PENDING_SECONDS = 16;
+
+    private static final List<MetricExporter> metricExporters = new CopyOnWriteArrayList<>();
+
+    private static volatile ExecutorService exportExecutor;
+    /**
+     * Recycled export tasks, so that the copied nodes are reused across seconds.
+     */
+    private static final Queue<ExportTask> taskPool = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong droppedSeconds = new AtomicLong();
+
+    static {
+        resolveInstance();
+    }
+
+    private static void resolveInstance() {
+        List<MetricExporter> exporters = SpiLoader.loadInstanceList(MetricExporter.class);
+        metricExporters.addAll(exporters);
+        if (SentinelConfig.openMetricsExporterEnabled()) {
+            metricExporters.add(new OpenMetricsExporter());
+        }
+        RecordLog.info("[MetricExporterProvider] MetricExporter resolved, size=" + metricExporters.size());
+    }
+
+    /**
+     * Get all metric exporters. DO NOT MODIFY the returned list, use {@link #addMetricExporter(MetricExporter)}.
+     *
+     * @return all metric exporters
+     */
+    public static List<MetricExporter> getMetricExporters() {
+        return metricExporters;
+    }
+
+    /**
+     * Get the first metric exporter of the given type.
+     *
+     * @param type type of the exporter
+     * @param <T>  type of the exporter
+     * @return the first metric exporter of the given type, or null if absent
+     */
+    public static <T extends MetricExporter> T getMetricExporter(Class<T> type) {
+        for (MetricExporter exporter : metricExporters) {
+            if (type.isInstance(exporter)) {
+                return type.cast(exporter);
+            }
+        }
+        return null;
+    }
+
+    public static void addMetricExporter(MetricExporter metricExporter) {
+        if (metricExporter != null) {
+            metricExporters.add(metricExporter);
+        }
+    }
+
+    public static boolean removeMetricExporter(MetricExporter metricExporter) {
+        return metricExporters.remove(metricExporter);
+    }
+
+    /**
+     * Export the metrics of a second to all exporters asynchronously. The nodes are copied,
+     * so they could be reused by the caller after returning.
+     *
+     * @param timestamp timestamp of the second in milliseconds
+     * @param nodes     metric nodes of the second
+     */
+    public static void exportAll(long timestamp, List<MetricNode> nodes) {
+        if (metricExporters.isEmpty() || nodes == null || nodes.isEmpty()) {
+            return;
+        }
+        ExportTask task = taskPool.poll();
+        if (task == null) {
+            task = new ExportTask();
+        }
+        task.fill(timestamp, nodes);
+        try {
+            getExportExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            taskPool.offer(task);
+            if (droppedSeconds.getAndIncrement() == 0) {
+                RecordLog.warn("[MetricExporterProvider] Export buffer is full, dropping metrics of new seconds");
+            }
+        }
+    }
+
+    /**
+     * Export the metrics of a second to all exporters in the current thread.
+     * The failure of an exporter won't affect the others.
+     *
+     * @param timestamp timestamp of the second in milliseconds
+     * @param nodes     metric nodes of the second
+     */
+    static void exportNow(long timestamp, List<MetricNode> nodes) {
+        for (MetricExporter exporter : metricExporters) {
+            try {
+                exporter.export(timestamp, nodes);
+            } catch (Throwable e) {
+                RecordLog.warn("[MetricExporterProvider] Failed to export metrics via "
+                    + exporter.getClass().getName(), e);
+            }
+        }
+    }
+
+    private static ExecutorService getExportExecutor() {
+        ExecutorService executor = exportExecutor;
+        if (executor == null) {
+            synchronized (MetricExporterProvider.class) {
+                executor = exportExecutor;
+                if (executor == null) {
+                    // Single thread, so that the seconds are exported in order.
+                    executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<Runnable>(MAX_PENDING_SECONDS),
+                        new NamedThreadFactory("sentinel-metrics-export-task", true),
+                        new ThreadPoolExecutor.AbortPolicy());
+                    exportExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return amount of seconds dropped as the export buffer is full
+     */
+    public static long getDroppedSeconds() {
+        return droppedSeconds.get();
+    }
+
+    private static final class ExportTask implements Runnable {
+        private long timestamp;
+        private final List<MetricNode> nodes = new ArrayList<>();
+        private final List<MetricNode> pool = new ArrayList<>();
+
+        void fill(long timestamp, List<MetricNode> source) {
+            this.timestamp = timestamp;
+            nodes.clear();
+            for (int i = 0; i < source.size(); i++) {
+                if (i == pool.size()) {
+                    pool.add(new MetricNode());
+                }
+                nodes.add(pool.get(i).copyFrom(source.get(i)));
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                exportNow(timestamp, nodes);
+            } finally {
+                nodes.clear();
+                taskPool.offer(this);
+            }
+        }
+    }
+
+    private MetricExporterProvider() {}
+}
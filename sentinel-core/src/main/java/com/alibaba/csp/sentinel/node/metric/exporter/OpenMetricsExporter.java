@@ -0,0 +1,267 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric.exporter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>
+ * A {@link MetricExporter} that keeps the cumulative counters and the latest gauges of all resources
+ * in memory, which could be rendered in the
+ * <a href="https://github.com/OpenObservability/OpenMetrics">OpenMetrics</a> text format
+ * (which is also accepted by the Prometheus text parser) for scraping.
+ * </p>
+ * <p>
+ * The cost of a scrape only depends on the amount of resources rather than the size of the metric files,
+ * as the metrics are accumulated once per second from the aggregated {@link MetricNode}s.
+ * A resource that has no metrics for {@code expireMs} is removed (its counters start from 0
+ * if it appears again), so that the exposition does not grow with the resources ever seen.
+ * </p>
+ * <p>Exposed metric families (labeled by {@code resource} and {@code classification}):</p>
+ * <ul>
+ * <li>{@code sentinel_pass_requests}, {@code sentinel_block_requests}, {@code sentinel_success_requests},
+ * {@code sentinel_exception_requests}, {@code sentinel_occupied_pass_requests}: counters</li>
+ * <li>{@code sentinel_rt_milliseconds}: average response time in the latest second (0 if idle)</li>
+ * <li>{@code sentinel_rt_quantile_milliseconds}: RT percentiles in the latest second (with a {@code quantile}
+ * label), only for resources with RT histogram enabled</li>
+ * <li>{@code sentinel_concurrency}: thread count in the latest second</li>
+ * </ul>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class OpenMetricsExporter implements MetricExporter {
+
+    private static final int PASS = 0;
+    private static final int BLOCK = 1;
+    private static final int SUCCESS = 2;
+    private static final int EXCEPTION = 3;
+    private static final int OCCUPIED_PASS = 4;
+    private static final int RT = 5;
+    private static final int CONCURRENCY = 6;
+    private static final int RT_P50 = 7;
+    private static final int FIELD_COUNT = 10;
+
+    private static final String[] QUANTILES = {"0.5", "0.99", "0.999"};
+
+    public static final long DEFAULT_EXPIRE_MS = 10 * 60 * 1000;
+
+    private final long expireMs;
+
+    private final Map<String, ResourceMetrics> resourceMetrics = new HashMap<>();
+    /**
+     * Resources in order of appearance, so that the exposition is stable between scrapes.
+     */
+    private final List<ResourceMetrics> resources = new ArrayList<>();
+    private long latestTimestamp;
+    private long nextExpireTimestamp;
+
+    public OpenMetricsExporter() {
+        this(DEFAULT_EXPIRE_MS);
+    }
+
+    /**
+     * @param expireMs the resources that have no metrics for the duration are removed
+     */
+    public OpenMetricsExporter(long expireMs) {
+        AssertUtil.isTrue(expireMs > 0, "expireMs should be positive");
+        this.expireMs = expireMs;
+    }
+
+    @Override
+    public synchronized void export(long timestamp, List<MetricNode> nodes) {
+        if (timestamp > latestTimestamp) {
+            latestTimestamp = timestamp;
+        }
+        if (latestTimestamp >= nextExpireTimestamp) {
+            // Check at most once per a tenth of the expiration, as the check walks all resources.
+            expireResources(latestTimestamp - expireMs);
+            nextExpireTimestamp = latestTimestamp + Math.max(expireMs / 10, 1);
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            MetricNode node = nodes.get(i);
+            ResourceMetrics metrics = resourceMetrics.get(node.getResource());
+            if (metrics == null) {
+                metrics = new ResourceMetrics(node.getResource(), node.getClassification());
+                resourceMetrics.put(node.getResource(), metrics);
+                resources.add(metrics);
+            }
+            metrics.add(timestamp, node);
+        }
+    }
+
+    private void expireResources(long expireTimestamp) {
+        int size = resources.size();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            ResourceMetrics metrics = resources.get(i);
+            if (metrics.lastTimestamp < expireTimestamp) {
+                resourceMetrics.remove(metrics.resource);
+            } else {
+                resources.set(j++, metrics);
+            }
+        }
+        for (int i = size - 1; i >= j; i--) {
+            resources.remove(i);
+        }
+    }
+
+    /**
+     * Render the metrics of all resources in the OpenMetrics text format, ending with {@code # EOF}.
+     *
+     * @param sb the builder to append to
+     */
+    public synchronized void writeTo(StringBuilder sb) {
+        writeCounter(sb, "sentinel_pass_requests", "Passed requests.", PASS);
+        writeCounter(sb, "sentinel_block_requests", "Blocked requests.", BLOCK);
+        writeCounter(sb, "sentinel_success_requests", "Completed requests.", SUCCESS);
+        writeCounter(sb, "sentinel_exception_requests", "Business exceptions.", EXCEPTION);
+        writeCounter(sb, "sentinel_occupied_pass_requests", "Requests passed by occupying future tokens.",
+            OCCUPIED_PASS);
+        writeGauge(sb, "sentinel_rt_milliseconds", "Average response time in the latest second.", RT);
+        writeRtQuantiles(sb);
+        writeGauge(sb, "sentinel_concurrency", "Concurrent threads in the latest second.", CONCURRENCY);
+        sb.append("# EOF\n");
+    }
+
+    /**
+     * @return the metrics of all resources in the OpenMetrics text format
+     */
+    public synchronized String toText() {
+        StringBuilder sb = new StringBuilder(256 + resources.size() * 512);
+        writeTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * @return amount of the exposed resources
+     */
+    public synchronized int size() {
+        return resources.size();
+    }
+
+    private void writeCounter(StringBuilder sb, String name, String help, int field) {
+        writeMetadata(sb, name, "counter", help);
+        for (int i = 0; i < resources.size(); i++) {
+            ResourceMetrics metrics = resources.get(i);
+            sb.append(name).append("_total");
+            metrics.appendLabels(sb).append("} ").append(metrics.values[field]).append('\n');
+        }
+    }
+
+    private void writeGauge(StringBuilder sb, String name, String help, int field) {
+        writeMetadata(sb, name, "gauge", help);
+        for (int i = 0; i < resources.size(); i++) {
+            ResourceMetrics metrics = resources.get(i);
+            sb.append(name);
+            metrics.appendLabels(sb).append("} ").append(metrics.gauge(field, latestTimestamp)).append('\n');
+        }
+    }
+
+    private void writeRtQuantiles(StringBuilder sb) {
+        String name = "sentinel_rt_quantile_milliseconds";
+        writeMetadata(sb, name, "gauge", "Response time percentiles in the latest second.");
+        for (int i = 0; i < resources.size(); i++) {
+            ResourceMetrics metrics = resources.get(i);
+            if (!metrics.hasRtPercentiles(latestTimestamp)) {
+                continue;
+            }
+            for (int q = 0; q < QUANTILES.length; q++) {
+                sb.append(name);
+                metrics.appendLabels(sb).append(",quantile=\"").append(QUANTILES[q]).append("\"} ")
+                    .append(metrics.gauge(RT_P50 + q, latestTimestamp)).append('\n');
+            }
+        }
+    }
+
+    private static void writeMetadata(StringBuilder sb, String name, String type, String help) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    }
+
+    static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    private static final class ResourceMetrics {
+        private final String resource;
+        private final int classification;
+        private final long[] values = new long[FIELD_COUNT];
+        private long lastTimestamp;
+
+        ResourceMetrics(String resource, int classification) {
+            this.resource = resource;
+            this.classification = classification;
+        }
+
+        void add(long timestamp, MetricNode node) {
+            values[PASS] += node.getPassQps();
+            values[BLOCK] += node.getBlockQps();
+            values[SUCCESS] += node.getSuccessQps();
+            values[EXCEPTION] += node.getExceptionQps();
+            values[OCCUPIED_PASS] += node.getOccupiedPassQps();
+            if (timestamp >= lastTimestamp) {
+                lastTimestamp = timestamp;
+                values[RT] = node.getRt();
+                values[CONCURRENCY] = node.getConcurrency();
+                values[RT_P50] = node.getRtP50();
+                values[RT_P50 + 1] = node.getRtP99();
+                values[RT_P50 + 2] = node.getRtP999();
+            }
+        }
+
+        /**
+         * The gauges are 0 if the resource has no metrics in the latest second.
+         */
+        long gauge(int field, long latestTimestamp) {
+            return lastTimestamp < latestTimestamp ? 0 : values[field];
+        }
+
+        boolean hasRtPercentiles(long latestTimestamp) {
+            return lastTimestamp >= latestTimestamp && (values[RT_P50] > 0 || values[RT_P50 + 1] > 0 || values[RT_P50 + 2] > 0);
+        }
+
+        /**
+         * Append the labels without the closing brace, so that more labels could be appended.
+         */
+        StringBuilder appendLabels(StringBuilder sb) {
+            sb.append("{resource=\"");
+            appendEscaped(sb, resource);
+            return sb.append("\",classification=\"").append(classification).append('"');
+        }
+    }
+}
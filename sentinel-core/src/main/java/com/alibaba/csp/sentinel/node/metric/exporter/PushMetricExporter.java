@@ -0,0 +1,197 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric.exporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>
+ * Base of the push-based {@link MetricExporter}s. The per-second {@link MetricNode}s are copied into a batch
+ * and pushed by {@link #push(List)} in a dedicated thread every {@code pushIntervalMs}, so the metric timer
+ * thread is never blocked by the remote endpoint.
+ * </p>
+ * <p>
+ * At most {@code maxPendingNodes} nodes are buffered; the nodes of new seconds are dropped when the buffer
+ * is full (e.g. the remote endpoint is unavailable). The copied nodes are pooled and reused across batches.
+ * </p>
+ * <p>
+ * The push thread is started on the first export, or explicitly via {@link #start()}, so that
+ * constructing an exporter (e.g. when resolving the SPI) does not start a thread.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public abstract class PushMetricExporter implements MetricExporter {
+
+    public static final long DEFAULT_PUSH_INTERVAL_MS = 10 * 1000;
+    public static final int DEFAULT_MAX_PENDING_NODES = 60 * 1000;
+
+    private final long pushIntervalMs;
+    private final int maxPendingNodes;
+    private volatile ScheduledExecutorService pushScheduler;
+    private volatile boolean closed = false;
+
+    private final Object lock = new Object();
+    /**
+     * Nodes that are waiting to be pushed, guarded by {@link #lock}.
+     */
+    private List<MetricNode> pending = new ArrayList<>();
+    /**
+     * Nodes that are being pushed, only accessed by the push thread.
+     */
+    private List<MetricNode> sending = new ArrayList<>();
+    /**
+     * Nodes that could be reused, guarded by {@link #lock}.
+     */
+    private final List<MetricNode> pool = new ArrayList<>();
+
+    private final AtomicLong droppedNodes = new AtomicLong();
+    private final AtomicLong pushedNodes = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    protected PushMetricExporter() {
+        this(DEFAULT_PUSH_INTERVAL_MS, DEFAULT_MAX_PENDING_NODES);
+    }
+
+    protected PushMetricExporter(long pushIntervalMs, int maxPendingNodes) {
+        AssertUtil.isTrue(pushIntervalMs > 0, "pushIntervalMs should be positive");
+        AssertUtil.isTrue(maxPendingNodes > 0, "maxPendingNodes should be positive");
+        this.pushIntervalMs = pushIntervalMs;
+        this.maxPendingNodes = maxPendingNodes;
+    }
+
+    /**
+     * Start the push thread if not started yet. It's invoked on the first export automatically.
+     */
+    public void start() {
+        if (pushScheduler != null) {
+            return;
+        }
+        synchronized (lock) {
+            if (pushScheduler != null || closed) {
+                return;
+            }
+            ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1,
+                new NamedThreadFactory("sentinel-metrics-push-task", true));
+            scheduler.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    pushPending();
+                }
+            }, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
+            this.pushScheduler = scheduler;
+        }
+    }
+
+    /**
+     * Push a batch of metric nodes of one or more seconds, in ascending order of second.
+     * This method is invoked in the push thread only.
+     *
+     * @param nodes the nodes to push, which will be reused after returning, so DO NOT retain them
+     * @throws Exception if failed to push, then the batch is discarded
+     */
+    protected abstract void push(List<MetricNode> nodes) throws Exception;
+
+    @Override
+    public void export(long timestamp, List<MetricNode> nodes) {
+        start();
+        synchronized (lock) {
+            int dropped = 0;
+            for (int i = 0; i < nodes.size(); i++) {
+                if (pending.size() >= maxPendingNodes) {
+                    dropped = nodes.size() - i;
+                    break;
+                }
+                MetricNode copy = pool.isEmpty() ? new MetricNode() : pool.remove(pool.size() - 1);
+                pending.add(copy.copyFrom(nodes.get(i)));
+            }
+            if (dropped > 0 && droppedNodes.getAndAdd(dropped) == 0) {
+                RecordLog.warn("[PushMetricExporter] Push buffer is full, dropping metrics of new seconds");
+            }
+        }
+    }
+
+    void pushPending() {
+        List<MetricNode> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = sending;
+            sending = batch;
+        }
+        try {
+            push(batch);
+            pushedNodes.addAndGet(batch.size());
+        } catch (Throwable e) {
+            failureCount.incrementAndGet();
+            RecordLog.warn("[PushMetricExporter] Failed to push metrics, batch size=" + batch.size(), e);
+        } finally {
+            synchronized (lock) {
+                pool.addAll(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Push the remaining nodes and stop the push thread.
+     */
+    public void close() {
+        ScheduledExecutorService scheduler;
+        synchronized (lock) {
+            closed = true;
+            scheduler = pushScheduler;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        pushPending();
+    }
+
+    boolean isStarted() {
+        return pushScheduler != null;
+    }
+
+    public long getDroppedNodes() {
+        return droppedNodes.get();
+    }
+
+    public long getPushedNodes() {
+        return pushedNodes.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+}
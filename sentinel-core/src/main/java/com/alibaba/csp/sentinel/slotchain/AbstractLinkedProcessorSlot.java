@@ -23,6 +23,8 @@ import com.alibaba.csp.sentinel.context.Context;
  */
 public abstract class AbstractLinkedProcessorSlot<T> implements ProcessorSlot<T> {
 
+    private static final Object[] OBJECTS0 = new Object[0];
+
     private AbstractLinkedProcessorSlot<?> next = null;
 
     @Override
@@ -47,6 +49,19 @@ public abstract class AbstractLinkedProcessorSlot<T> implements ProcessorSlot<T>
         }
     }
 
+    /**
+     * Exit the next slot without arguments. The shared empty array avoids allocating
+     * a new varargs array for each exit.
+     *
+     * @param context         current {@link Context}
+     * @param resourceWrapper current resource
+     * @param count           tokens needed
+     * @since 1.8.0
+     */
+    public void fireExit(Context context, ResourceWrapper resourceWrapper, int count) {
+        fireExit(context, resourceWrapper, count, OBJECTS0);
+    }
+
     public AbstractLinkedProcessorSlot<?> getNext() {
         return next;
     }
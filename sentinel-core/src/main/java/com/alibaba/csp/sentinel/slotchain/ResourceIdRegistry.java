@@ -0,0 +1,98 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slotchain;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.concurrent.ConcurrentRegistry;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.function.Function;
+
+/**
+ * Interns resource names into dense integer IDs (starting from 0), so that per-resource state
+ * (e.g. rules) could be looked up by array index rather than hashing the resource name.
+ * The ID of a resource name never changes once assigned.
+ * <p>
+ * IDs are assigned only when per-resource state is actually created, i.e. the slot chain of
+ * an entered resource (which is bounded by {@link Constants#MAX_SLOT_CHAIN_SIZE}) or the rules of
+ * a resource, rather than for every resource name passing through. IDs are never released
+ * (an ID may be cached by resource wrappers), so the registry has its own bound {@link #MAX_ID_COUNT}
+ * to hold the resources of rules beside the slot chains. Resources beyond the bound get no ID
+ * ({@link #NO_ID}), and their per-resource state should be looked up by name instead.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class ResourceIdRegistry {
+
+    /**
+     * The ID of resources that are not interned.
+     */
+    public static final int NO_ID = -1;
+
+    /**
+     * Max amount of interned resource names.
+     */
+    public static final int MAX_ID_COUNT = Constants.MAX_SLOT_CHAIN_SIZE * 8;
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+
+    private static final ConcurrentRegistry<String, Integer> ID_MAP = new ConcurrentRegistry<>(MAX_ID_COUNT);
+
+    private static final Function<String, Integer> ID_FACTORY = new Function<String, Integer>() {
+        @Override
+        public Integer apply(String name) {
+            return NEXT_ID.getAndIncrement();
+        }
+    };
+
+    /**
+     * Get the ID of the resource name, or assign a new ID if absent.
+     *
+     * @param resourceName valid resource name
+     * @return the dense ID of the resource, or {@link #NO_ID} if the registry is full
+     */
+    public static int getOrCreateId(String resourceName) {
+        AssertUtil.notNull(resourceName, "resourceName cannot be null");
+        Integer id = ID_MAP.getOrCreate(resourceName, ID_FACTORY);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Get the ID of the resource name.
+     *
+     * @param resourceName resource name
+     * @return the ID of the resource, or {@link #NO_ID} if absent
+     */
+    public static int getId(String resourceName) {
+        if (resourceName == null) {
+            return NO_ID;
+        }
+        Integer id = ID_MAP.get(resourceName);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * @return amount of interned resources, which is also the upper bound (exclusive) of the IDs
+     */
+    public static int size() {
+        return NEXT_ID.get();
+    }
+
+    private ResourceIdRegistry() {}
+}
@@ -32,6 +32,12 @@ public abstract class ResourceWrapper {
     protected final EntryType entryType;
     protected final int resourceType;
 
+    /**
+     * Dense ID of the resource (see {@link ResourceIdRegistry}), resolved lazily as the ID is
+     * assigned only when the slot chain or rules of the resource are created.
+     */
+    private volatile int resourceId = ResourceIdRegistry.NO_ID;
+
     public ResourceWrapper(String name, EntryType entryType, int resourceType) {
         AssertUtil.notEmpty(name, "resource name cannot be empty");
         AssertUtil.notNull(entryType, "entryType cannot be null");
@@ -68,6 +74,25 @@ public abstract class ResourceWrapper {
         return resourceType;
     }
 
+    /**
+     * Get the dense ID of the resource, which could be used as array index of per-resource state.
+     *
+     * @return the dense ID of the resource, or {@link ResourceIdRegistry#NO_ID} if the resource
+     * has not been assigned an ID yet (or the amount of resources exceeds the bound of the registry)
+     * @since 1.8.0
+     */
+    public int getResourceId() {
+        int id = resourceId;
+        if (id == ResourceIdRegistry.NO_ID) {
+            // Only an assigned ID is cached, as the ID of the resource may be assigned later.
+            id = ResourceIdRegistry.getId(name);
+            if (id != ResourceIdRegistry.NO_ID) {
+                resourceId = id;
+            }
+        }
+        return id;
+    }
+
     /**
      * Get the beautified resource name to be showed.
      *
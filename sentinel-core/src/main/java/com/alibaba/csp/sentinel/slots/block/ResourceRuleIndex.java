@@ -0,0 +1,113 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.slotchain.ResourceIdRegistry;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+
+/**
+ * <p>
+ * An immutable snapshot of per-resource rules, indexed by the dense resource ID
+ * (see {@link ResourceIdRegistry}), so that rules of a resource could be looked up
+ * by array index rather than hashing the resource name.
+ * </p>
+ * <p>
+ * All resource names of the rules are interned when building the index, so a resource
+ * that gets its ID later must have no rules in the snapshot. Rules of resources that could not
+ * get an ID (the registry is full) are looked up by name.
+ * </p>
+ *
+ * @param <T> type of the rule collection of a resource
+ * @author agent
+ * @since 1.8.0
+ */
+public final class ResourceRuleIndex<T> {
+
+    private static final ResourceRuleIndex<Object> EMPTY = new ResourceRuleIndex<>(new Object[0], null);
+
+    private final Object[] rules;
+
+    /**
+     * Rules of the resources without ID, which is null if all resources have IDs.
+     */
+    private final Map<String, T> unindexedRules;
+
+    private ResourceRuleIndex(Object[] rules, Map<String, T> unindexedRules) {
+        this.rules = rules;
+        this.unindexedRules = unindexedRules;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ResourceRuleIndex<T> empty() {
+        return (ResourceRuleIndex<T>)EMPTY;
+    }
+
+    /**
+     * Build the index from the rule map (resourceName, rules).
+     *
+     * @param ruleMap rule map of resources
+     * @param <T>     type of the rule collection of a resource
+     * @return the index of the rule map
+     */
+    public static <T> ResourceRuleIndex<T> build(Map<String, T> ruleMap) {
+        if (ruleMap == null || ruleMap.isEmpty()) {
+            return empty();
+        }
+        int maxId = -1;
+        Map<String, T> unindexedRules = null;
+        for (Map.Entry<String, T> e : ruleMap.entrySet()) {
+            int id = ResourceIdRegistry.getOrCreateId(e.getKey());
+            if (id == ResourceIdRegistry.NO_ID) {
+                if (unindexedRules == null) {
+                    unindexedRules = new HashMap<>();
+                }
+                unindexedRules.put(e.getKey(), e.getValue());
+            } else {
+                maxId = Math.max(maxId, id);
+            }
+        }
+        Object[] rules = new Object[maxId + 1];
+        for (Map.Entry<String, T> e : ruleMap.entrySet()) {
+            int id = ResourceIdRegistry.getId(e.getKey());
+            if (id != ResourceIdRegistry.NO_ID) {
+                rules[id] = e.getValue();
+            }
+        }
+        return new ResourceRuleIndex<>(rules, unindexedRules);
+    }
+
+    /**
+     * Get rules of the resource.
+     *
+     * @param resource valid resource
+     * @return rules of the resource, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public T get(ResourceWrapper resource) {
+        int id = resource.getResourceId();
+        if (id == ResourceIdRegistry.NO_ID) {
+            return unindexedRules == null ? null : unindexedRules.get(resource.getName());
+        }
+        Object[] rules = this.rules;
+        if (id >= rules.length) {
+            return null;
+        }
+        return (T)rules[id];
+    }
+}
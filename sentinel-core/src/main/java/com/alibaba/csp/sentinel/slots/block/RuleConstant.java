@@ -38,6 +38,19 @@ public final class RuleConstant {
 
     public static final int DEGRADE_DEFAULT_SLOW_REQUEST_AMOUNT = 5;
     public static final int DEGRADE_DEFAULT_MIN_REQUEST_AMOUNT = 5;
+    /**
+     * Default statistic interval (in milliseconds) of RT and exception ratio degrade rules.
+     *
+     * @since 1.8.0
+     */
+    public static final int DEGRADE_DEFAULT_STAT_INTERVAL_MS = 1000;
+    /**
+     * Default statistic interval (in milliseconds) of exception count degrade rules, which keeps
+     * the former "last 60 seconds" semantics.
+     *
+     * @since 1.8.0
+     */
+    public static final int DEGRADE_DEFAULT_EXCEPTION_COUNT_STAT_INTERVAL_MS = 60 * 1000;
 
     public static final int AUTHORITY_WHITE = 0;
     public static final int AUTHORITY_BLACK = 1;
@@ -32,6 +32,11 @@ public class AuthorityRule extends AbstractRule {
      */
     private int strategy = RuleConstant.AUTHORITY_WHITE;
 
+    /**
+     * The cached limitApp set, parsed when the rule is loaded (or first checked).
+     */
+    private AuthorityRulePlan.ParsedLimitApps parsedLimitApps;
+
     public int getStrategy() {
         return strategy;
     }
@@ -41,6 +46,14 @@ public class AuthorityRule extends AbstractRule {
         return this;
     }
 
+    AuthorityRulePlan.ParsedLimitApps getParsedLimitApps() {
+        return parsedLimitApps;
+    }
+
+    void setParsedLimitApps(AuthorityRulePlan.ParsedLimitApps parsedLimitApps) {
+        this.parsedLimitApps = parsedLimitApps;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) { return true; }
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slots.block.authority;
 
+import java.util.Set;
+
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.util.StringUtil;
@@ -28,31 +30,32 @@ import com.alibaba.csp.sentinel.util.StringUtil;
 final class AuthorityRuleChecker {
 
     static boolean passCheck(AuthorityRule rule, Context context) {
+        // Empty limitApp will pass.
+        if (StringUtil.isEmpty(rule.getLimitApp())) {
+            return true;
+        }
+        return passCheck(AuthorityRulePlan.limitAppsOf(rule), rule.getStrategy(), context);
+    }
+
+    /**
+     * Check the origin of the context against the pre-split limitApp set of a rule.
+     *
+     * @param limitApps pre-split limitApp set of the rule
+     * @param strategy  authority strategy of the rule
+     * @param context   current context
+     * @return whether the request could pass
+     */
+    static boolean passCheck(Set<String> limitApps, int strategy, Context context) {
         String requester = context.getOrigin();
 
         // Empty origin or empty limitApp will pass.
-        if (StringUtil.isEmpty(requester) || StringUtil.isEmpty(rule.getLimitApp())) {
+        if (StringUtil.isEmpty(requester) || limitApps.isEmpty()) {
             return true;
         }
 
         // Do exact match with origin name.
-        int pos = rule.getLimitApp().indexOf(requester);
-        boolean contain = pos > -1;
-
-        if (contain) {
-            boolean exactlyMatch = false;
-            String[] appArray = rule.getLimitApp().split(",");
-            for (String app : appArray) {
-                if (requester.equals(app)) {
-                    exactlyMatch = true;
-                    break;
-                }
-            }
-
-            contain = exactlyMatch;
-        }
+        boolean contain = limitApps.contains(requester);
 
-        int strategy = rule.getStrategy();
         if (strategy == RuleConstant.AUTHORITY_BLACK && contain) {
             return false;
         }
@@ -23,6 +23,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.slots.block.ResourceRuleIndex;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
@@ -40,6 +41,7 @@ import com.alibaba.csp.sentinel.property.SentinelProperty;
 public final class AuthorityRuleManager {
 
     private static Map<String, Set<AuthorityRule>> authorityRules = new ConcurrentHashMap<>();
+    private static volatile ResourceRuleIndex<AuthorityRulePlan> authorityRuleIndex = ResourceRuleIndex.empty();
 
     private static final RulePropertyListener LISTENER = new RulePropertyListener();
     private static SentinelProperty<List<AuthorityRule>> currentProperty = new DynamicSentinelProperty<>();
@@ -99,6 +101,7 @@ public final class AuthorityRuleManager {
             if (rules != null) {
                 authorityRules.putAll(rules);
             }
+            authorityRuleIndex = ResourceRuleIndex.build(AuthorityRulePlan.compile(rules));
             RecordLog.info("[AuthorityRuleManager] Authority rules received: " + authorityRules);
         }
 
@@ -143,6 +146,7 @@ public final class AuthorityRuleManager {
             if (rules != null) {
                 authorityRules.putAll(rules);
             }
+            authorityRuleIndex = ResourceRuleIndex.build(AuthorityRulePlan.compile(rules));
             RecordLog.info("[AuthorityRuleManager] Load authority rules: " + authorityRules);
         }
     }
@@ -151,6 +155,10 @@ public final class AuthorityRuleManager {
         return authorityRules;
     }
 
+    static ResourceRuleIndex<AuthorityRulePlan> getAuthorityRuleIndex() {
+        return authorityRuleIndex;
+    }
+
     public static boolean isValidRule(AuthorityRule rule) {
         return rule != null && !StringUtil.isBlank(rule.getResource())
             && rule.getStrategy() >= 0 && StringUtil.isNotBlank(rule.getLimitApp());
@@ -0,0 +1,121 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.authority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * The immutable evaluation plan of authority rules for a resource, compiled when the rules are loaded.
+ * The comma-separated limitApp of each rule is pre-split into a hash set, so that the origin could be
+ * matched without splitting the string on every entry.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class AuthorityRulePlan {
+
+    private final AuthorityRule[] rules;
+    private final Set<String>[] limitApps;
+
+    private AuthorityRulePlan(AuthorityRule[] rules, Set<String>[] limitApps) {
+        this.rules = rules;
+        this.limitApps = limitApps;
+    }
+
+    int size() {
+        return rules.length;
+    }
+
+    AuthorityRule getRule(int i) {
+        return rules[i];
+    }
+
+    Set<String> getLimitApps(int i) {
+        return limitApps[i];
+    }
+
+    static <T extends Collection<AuthorityRule>> Map<String, AuthorityRulePlan> compile(Map<String, T> ruleMap) {
+        Map<String, AuthorityRulePlan> planMap = new HashMap<>();
+        if (ruleMap == null) {
+            return planMap;
+        }
+        for (Map.Entry<String, T> e : ruleMap.entrySet()) {
+            planMap.put(e.getKey(), compile(e.getValue()));
+        }
+        return planMap;
+    }
+
+    @SuppressWarnings("unchecked")
+    static AuthorityRulePlan compile(Collection<AuthorityRule> resourceRules) {
+        List<AuthorityRule> list = new ArrayList<>(resourceRules);
+        AuthorityRule[] rules = list.toArray(new AuthorityRule[0]);
+        Set<String>[] limitApps = new Set[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            limitApps[i] = limitAppsOf(rules[i]);
+        }
+        return new AuthorityRulePlan(rules, limitApps);
+    }
+
+    /**
+     * Get the pre-split limitApp set of the rule, which is parsed once and cached on the rule.
+     *
+     * @param rule valid authority rule
+     * @return the limitApp set of the rule
+     */
+    static Set<String> limitAppsOf(AuthorityRule rule) {
+        String limitApp = rule.getLimitApp();
+        ParsedLimitApps parsed = rule.getParsedLimitApps();
+        if (parsed == null || !StringUtil.equals(parsed.limitApp, limitApp)) {
+            // The rule is checked for the first time (or its limitApp has been modified since).
+            parsed = new ParsedLimitApps(limitApp, parseLimitApps(limitApp));
+            rule.setParsedLimitApps(parsed);
+        }
+        return parsed.apps;
+    }
+
+    static Set<String> parseLimitApps(String limitApp) {
+        Set<String> apps = new HashSet<>();
+        if (StringUtil.isEmpty(limitApp)) {
+            return apps;
+        }
+        for (String app : limitApp.split(",")) {
+            apps.add(app);
+        }
+        return apps;
+    }
+
+    /**
+     * The limitApp set parsed from the limitApp string of a rule.
+     */
+    static final class ParsedLimitApps {
+
+        private final String limitApp;
+        private final Set<String> apps;
+
+        ParsedLimitApps(String limitApp, Set<String> apps) {
+            this.limitApp = limitApp;
+            this.apps = apps;
+        }
+    }
+}
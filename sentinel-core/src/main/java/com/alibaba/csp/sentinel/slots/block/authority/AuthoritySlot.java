@@ -15,9 +15,6 @@
  */
 package com.alibaba.csp.sentinel.slots.block.authority;
 
-import java.util.Map;
-import java.util.Set;
-
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
@@ -47,19 +44,14 @@ public class AuthoritySlot extends AbstractLinkedProcessorSlot<DefaultNode> {
     }
 
     void checkBlackWhiteAuthority(ResourceWrapper resource, Context context) throws AuthorityException {
-        Map<String, Set<AuthorityRule>> authorityRules = AuthorityRuleManager.getAuthorityRules();
-
-        if (authorityRules == null) {
-            return;
-        }
-
-        Set<AuthorityRule> rules = authorityRules.get(resource.getName());
-        if (rules == null) {
+        AuthorityRulePlan plan = AuthorityRuleManager.getAuthorityRuleIndex().get(resource);
+        if (plan == null) {
             return;
         }
 
-        for (AuthorityRule rule : rules) {
-            if (!AuthorityRuleChecker.passCheck(rule, context)) {
+        for (int i = 0; i < plan.size(); i++) {
+            AuthorityRule rule = plan.getRule(i);
+            if (!AuthorityRuleChecker.passCheck(plan.getLimitApps(i), rule.getStrategy(), context)) {
                 throw new AuthorityException(context.getOrigin(), rule);
             }
         }
@@ -15,19 +15,11 @@
  */
 package com.alibaba.csp.sentinel.slots.block.degrade;
 
-import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.context.Context;
-import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.slots.block.AbstractRule;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
-import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
-
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
 
 /**
  * <p>
@@ -37,28 +29,49 @@ import java.util.concurrent.atomic.AtomicLong;
  * </p>
  * <ul>
  * <li>
- * Average response time ({@code DEGRADE_GRADE_RT}): When
- * the average RT exceeds the threshold ('count' in 'DegradeRule', in milliseconds), the
- * resource enters a quasi-degraded state. If the RT of next coming 5
- * requests still exceed this threshold, this resource will be downgraded, which
- * means that in the next time window (defined in 'timeWindow', in seconds) all the
+ * Slow request ratio ({@code DEGRADE_GRADE_RT}): A request is regarded as slow if its response time
+ * exceeds the threshold ('count' in 'DegradeRule', in milliseconds). When the ratio of slow requests
+ * in the statistic interval ('statIntervalMs') exceeds 'slowRatioThreshold', this resource will be
+ * downgraded, which means that in the next time window (defined in 'timeWindow', in seconds) all the
  * access to this resource will be blocked.
  * </li>
  * <li>
- * Exception ratio: When the ratio of exception count per second and the
- * success qps exceeds the threshold, access to the resource will be blocked in
- * the coming window.
+ * Exception ratio: When the ratio of exceptions in the statistic interval exceeds the threshold,
+ * access to the resource will be blocked in the coming window.
+ * </li>
+ * <li>
+ * Exception count: When the amount of exceptions in the statistic interval exceeds the threshold,
+ * access to the resource will be blocked in the coming window.
  * </li>
  * </ul>
+ * <p>
+ * Each rule is backed by a {@link CircuitBreaker} with its own statistics. After the time window,
+ * the circuit breaker lets a probe request pass, and the result of the probe decides whether the
+ * resource has recovered. If the probe request does not complete within another time window
+ * (e.g. the entry never exits), a later request will be let through as the probe instead.
+ * </p>
+ * <p>
+ * Behavior changes since 1.8.0:
+ * </p>
+ * <ul>
+ * <li>RT mode trips on the slow request ratio rather than the average RT of the resource. The default
+ * 'slowRatioThreshold' (1.0) trips only when all requests (at least 'minRequestAmount') in the interval
+ * are slow, and 'rtSlowRequestAmount' is the minimum amount of slow requests in the interval.</li>
+ * <li>The statistics are kept per rule in 'statIntervalMs' (1 s by default, 60 s by default for
+ * exception count mode) instead of reading the second/minute metrics of the resource's cluster node.
+ * They slide in buckets like the former metrics (e.g. 1 s buckets for 60 s), but start from zero
+ * when the rule is loaded.</li>
+ * <li>Exception ratio and exception count modes still trip when the threshold is reached, but only if at
+ * least one exception has occurred in the interval (so a threshold of 0 no longer trips without
+ * exceptions). 'minRequestAmount' only applies to the exception ratio and RT modes.</li>
+ * <li>{@link #passCheck(Context, DefaultNode, int, Object...)} is deprecated and delegates to the circuit
+ * breaker of the loaded rule.</li>
+ * </ul>
  *
  * @author jialiang.linjl
  */
 public class DegradeRule extends AbstractRule {
 
-    @SuppressWarnings("PMD.ThreadPoolCreationRule")
-    private static ScheduledExecutorService pool = Executors.newScheduledThreadPool(
-        Runtime.getRuntime().availableProcessors(), new NamedThreadFactory("sentinel-degrade-reset-task", true));
-
     public DegradeRule() {}
 
     public DegradeRule(String resourceName) {
@@ -81,7 +94,7 @@ public class DegradeRule extends AbstractRule {
     private int grade = RuleConstant.DEGRADE_GRADE_RT;
 
     /**
-     * Minimum number of consecutive slow requests that can trigger RT circuit breaking.
+     * Minimum number of slow requests (in an active statistic time span) that can trigger RT circuit breaking.
      *
      * @since 1.7.0
      */
@@ -94,6 +107,21 @@ public class DegradeRule extends AbstractRule {
      */
     private int minRequestAmount = RuleConstant.DEGRADE_DEFAULT_MIN_REQUEST_AMOUNT;
 
+    /**
+     * The threshold of slow request ratio in RT mode.
+     *
+     * @since 1.8.0
+     */
+    private double slowRatioThreshold = 1.0d;
+
+    /**
+     * The statistic interval (in milliseconds) of the circuit breaker. 0 means the default interval
+     * of the grade (see {@link #getStatIntervalMs()}).
+     *
+     * @since 1.8.0
+     */
+    private int statIntervalMs = 0;
+
     public int getGrade() {
         return grade;
     }
@@ -139,6 +167,33 @@ public class DegradeRule extends AbstractRule {
         return this;
     }
 
+    public double getSlowRatioThreshold() {
+        return slowRatioThreshold;
+    }
+
+    public DegradeRule setSlowRatioThreshold(double slowRatioThreshold) {
+        this.slowRatioThreshold = slowRatioThreshold;
+        return this;
+    }
+
+    /**
+     * @return the statistic interval (in milliseconds); if absent, 60 s for exception count mode
+     * (same as the former minute metrics), otherwise 1 s
+     */
+    public int getStatIntervalMs() {
+        if (statIntervalMs != 0) {
+            return statIntervalMs;
+        }
+        return grade == RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT
+            ? RuleConstant.DEGRADE_DEFAULT_EXCEPTION_COUNT_STAT_INTERVAL_MS
+            : RuleConstant.DEGRADE_DEFAULT_STAT_INTERVAL_MS;
+    }
+
+    public DegradeRule setStatIntervalMs(int statIntervalMs) {
+        this.statIntervalMs = statIntervalMs;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) { return true; }
@@ -149,7 +204,9 @@ public class DegradeRule extends AbstractRule {
             timeWindow == that.timeWindow &&
             grade == that.grade &&
             rtSlowRequestAmount == that.rtSlowRequestAmount &&
-            minRequestAmount == that.minRequestAmount;
+            minRequestAmount == that.minRequestAmount &&
+            Double.compare(that.slowRatioThreshold, slowRatioThreshold) == 0 &&
+            getStatIntervalMs() == that.getStatIntervalMs();
     }
 
     @Override
@@ -160,6 +217,8 @@ public class DegradeRule extends AbstractRule {
         result = 31 * result + grade;
         result = 31 * result + rtSlowRequestAmount;
         result = 31 * result + minRequestAmount;
+        result = 31 * result + new Double(slowRatioThreshold).hashCode();
+        result = 31 * result + getStatIntervalMs();
         return result;
     }
 
@@ -173,82 +232,23 @@ public class DegradeRule extends AbstractRule {
             ", timeWindow=" + timeWindow +
             ", rtSlowRequestAmount=" + rtSlowRequestAmount +
             ", minRequestAmount=" + minRequestAmount +
+            ", slowRatioThreshold=" + slowRatioThreshold +
+            ", statIntervalMs=" + getStatIntervalMs() +
             "}";
     }
 
-    // Internal implementation (will be deprecated and moved outside).
-
-    private AtomicLong passCount = new AtomicLong(0);
-    private final AtomicBoolean cut = new AtomicBoolean(false);
-
+    /**
+     * Check the rule via its circuit breaker.
+     *
+     * @deprecated degrade rules are checked by their {@link CircuitBreaker}s in
+     * {@link DegradeRuleManager#checkDegrade}. This method delegates to
+     * {@link CircuitBreaker#tryPass(Context)} of the loaded rule, and always passes if the rule
+     * has not been loaded.
+     */
     @Override
+    @Deprecated
     public boolean passCheck(Context context, DefaultNode node, int acquireCount, Object... args) {
-        if (cut.get()) {
-            return false;
-        }
-
-        ClusterNode clusterNode = ClusterBuilderSlot.getClusterNode(this.getResource());
-        if (clusterNode == null) {
-            return true;
-        }
-
-        if (grade == RuleConstant.DEGRADE_GRADE_RT) {
-            double rt = clusterNode.avgRt();
-            if (rt < this.count) {
-                passCount.set(0);
-                return true;
-            }
-
-            // Sentinel will degrade the service only if count exceeds.
-            if (passCount.incrementAndGet() < rtSlowRequestAmount) {
-                return true;
-            }
-        } else if (grade == RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO) {
-            double exception = clusterNode.exceptionQps();
-            double success = clusterNode.successQps();
-            double total = clusterNode.totalQps();
-            // If total amount is less than minRequestAmount, the request will pass.
-            if (total < minRequestAmount) {
-                return true;
-            }
-
-            // In the same aligned statistic time window,
-            // "success" (aka. completed count) = exception count + non-exception count (realSuccess)
-            double realSuccess = success - exception;
-            if (realSuccess <= 0 && exception < minRequestAmount) {
-                return true;
-            }
-
-            if (exception / success < count) {
-                return true;
-            }
-        } else if (grade == RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT) {
-            double exception = clusterNode.totalException();
-            if (exception < count) {
-                return true;
-            }
-        }
-
-        if (cut.compareAndSet(false, true)) {
-            ResetTask resetTask = new ResetTask(this);
-            pool.schedule(resetTask, timeWindow, TimeUnit.SECONDS);
-        }
-
-        return false;
-    }
-
-    private static final class ResetTask implements Runnable {
-
-        private DegradeRule rule;
-
-        ResetTask(DegradeRule rule) {
-            this.rule = rule;
-        }
-
-        @Override
-        public void run() {
-            rule.passCount.set(0);
-            rule.cut.set(false);
-        }
+        CircuitBreaker cb = DegradeRuleManager.getCircuitBreaker(this);
+        return cb == null || cb.tryPass(context);
     }
 }
@@ -23,7 +23,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.node.DefaultNode;
@@ -32,11 +31,18 @@ import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.ResourceRuleIndex;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.ExceptionCircuitBreaker;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.ResponseTimeCircuitBreaker;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 /**
+ * The rule manager for circuit breaking rules ({@link DegradeRule}). Every loaded rule is backed by a
+ * {@link CircuitBreaker}, and the circuit breaker of an unchanged rule is kept when the rules are updated.
+ *
  * @author youji.zj
  * @author jialiang.linjl
  * @author Eric Zhao
@@ -44,6 +50,8 @@ import com.alibaba.csp.sentinel.util.StringUtil;
 public final class DegradeRuleManager {
 
     private static final Map<String, Set<DegradeRule>> degradeRules = new ConcurrentHashMap<>();
+    private static volatile Map<String, List<CircuitBreaker>> circuitBreakers = new HashMap<>();
+    private static volatile ResourceRuleIndex<DegradeRulePlan> degradeRuleIndex = ResourceRuleIndex.empty();
 
     private static final RulePropertyListener LISTENER = new RulePropertyListener();
     private static SentinelProperty<List<DegradeRule>> currentProperty
@@ -72,16 +80,42 @@ public final class DegradeRuleManager {
     public static void checkDegrade(ResourceWrapper resource, Context context, DefaultNode node, int count)
         throws BlockException {
 
-        Set<DegradeRule> rules = degradeRules.get(resource.getName());
-        if (rules == null) {
+        DegradeRulePlan plan = degradeRuleIndex.get(resource);
+        if (plan == null) {
             return;
         }
 
-        for (DegradeRule rule : rules) {
-            if (!rule.passCheck(context, node, count)) {
-                throw new DegradeException(rule.getLimitApp(), rule);
+        CircuitBreaker[] cbs = plan.getCircuitBreakers();
+        for (int i = 0; i < cbs.length; i++) {
+            if (!cbs[i].tryPass(context)) {
+                throw new DegradeException(cbs[i].getRule().getLimitApp(), cbs[i].getRule());
+            }
+        }
+    }
+
+    static DegradeRulePlan getDegradeRulePlan(ResourceWrapper resource) {
+        return degradeRuleIndex.get(resource);
+    }
+
+    static List<CircuitBreaker> getCircuitBreakers(String resourceName) {
+        return circuitBreakers.get(resourceName);
+    }
+
+    /**
+     * @param rule degrade rule
+     * @return the circuit breaker of the loaded rule, or null if the rule has not been loaded
+     */
+    static CircuitBreaker getCircuitBreaker(DegradeRule rule) {
+        List<CircuitBreaker> cbs = circuitBreakers.get(rule.getResource());
+        if (cbs == null) {
+            return null;
+        }
+        for (CircuitBreaker cb : cbs) {
+            if (rule.equals(cb.getRule())) {
+                return cb;
             }
         }
+        return null;
     }
 
     public static boolean hasConfig(String resource) {
@@ -154,33 +188,41 @@ public final class DegradeRuleManager {
 
     private static class RulePropertyListener implements PropertyListener<List<DegradeRule>> {
 
+        private synchronized void reloadFrom(List<DegradeRule> list) {
+            Map<String, List<CircuitBreaker>> cbs = buildCircuitBreakers(list);
+            Map<String, Set<DegradeRule>> rules = new HashMap<>();
+
+            for (Map.Entry<String, List<CircuitBreaker>> e : cbs.entrySet()) {
+                Set<DegradeRule> ruleSet = new HashSet<>();
+                for (CircuitBreaker cb : e.getValue()) {
+                    ruleSet.add(cb.getRule());
+                }
+                rules.put(e.getKey(), ruleSet);
+            }
+
+            degradeRules.clear();
+            degradeRules.putAll(rules);
+            DegradeRuleManager.circuitBreakers = cbs;
+            degradeRuleIndex = ResourceRuleIndex.build(DegradeRulePlan.compile(cbs));
+        }
+
         @Override
         public void configUpdate(List<DegradeRule> conf) {
-            Map<String, Set<DegradeRule>> rules = loadDegradeConf(conf);
-            if (rules != null) {
-                degradeRules.clear();
-                degradeRules.putAll(rules);
-            }
+            reloadFrom(conf);
             RecordLog.info("[DegradeRuleManager] Degrade rules received: " + degradeRules);
         }
 
         @Override
         public void configLoad(List<DegradeRule> conf) {
-            Map<String, Set<DegradeRule>> rules = loadDegradeConf(conf);
-            if (rules != null) {
-                degradeRules.clear();
-                degradeRules.putAll(rules);
-            }
+            reloadFrom(conf);
             RecordLog.info("[DegradeRuleManager] Degrade rules loaded: " + degradeRules);
         }
 
-        private Map<String, Set<DegradeRule>> loadDegradeConf(List<DegradeRule> list) {
-            Map<String, Set<DegradeRule>> newRuleMap = new ConcurrentHashMap<>();
-
+        private Map<String, List<CircuitBreaker>> buildCircuitBreakers(List<DegradeRule> list) {
+            Map<String, List<CircuitBreaker>> cbMap = new HashMap<>(8);
             if (list == null || list.isEmpty()) {
-                return newRuleMap;
+                return cbMap;
             }
-
             for (DegradeRule rule : list) {
                 if (!isValidRule(rule)) {
                     RecordLog.warn(
@@ -192,36 +234,70 @@ public final class DegradeRuleManager {
                     rule.setLimitApp(RuleConstant.LIMIT_APP_DEFAULT);
                 }
 
-                String identity = rule.getResource();
-                Set<DegradeRule> ruleSet = newRuleMap.get(identity);
-                if (ruleSet == null) {
-                    ruleSet = new HashSet<>();
-                    newRuleMap.put(identity, ruleSet);
+                String resourceName = rule.getResource();
+                List<CircuitBreaker> cbList = cbMap.get(resourceName);
+                if (cbList == null) {
+                    cbList = new ArrayList<>();
+                    cbMap.put(resourceName, cbList);
+                }
+                if (containsRule(cbList, rule)) {
+                    // Remove duplicate rules.
+                    continue;
+                }
+                CircuitBreaker cb = getExistingSameCbOrNew(rule);
+                if (cb == null) {
+                    RecordLog.warn("[DegradeRuleManager] Unknown circuit breaking strategy, ignoring: " + rule);
+                    continue;
+                }
+                cbList.add(cb);
+            }
+            return cbMap;
+        }
+
+        private boolean containsRule(List<CircuitBreaker> cbList, DegradeRule rule) {
+            for (CircuitBreaker cb : cbList) {
+                if (cb.getRule().equals(rule)) {
+                    return true;
                 }
-                ruleSet.add(rule);
             }
+            return false;
+        }
+    }
+
+    private static CircuitBreaker getExistingSameCbOrNew(/*@Valid*/ DegradeRule rule) {
+        // Reuse the circuit breaker (and its state) if the rule remains unchanged.
+        CircuitBreaker cb = getCircuitBreaker(rule);
+        return cb != null ? cb : newCircuitBreakerFrom(rule);
+    }
 
-            return newRuleMap;
+    /**
+     * Create a circuit breaker instance from provided circuit breaking rule.
+     *
+     * @param rule a valid circuit breaking rule
+     * @return the circuit breaker of the rule; null if the strategy is unknown
+     */
+    private static CircuitBreaker newCircuitBreakerFrom(/*@Valid*/ DegradeRule rule) {
+        switch (rule.getGrade()) {
+            case RuleConstant.DEGRADE_GRADE_RT:
+                return new ResponseTimeCircuitBreaker(rule);
+            case RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO:
+            case RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT:
+                return new ExceptionCircuitBreaker(rule);
+            default:
+                return null;
         }
     }
 
     public static boolean isValidRule(DegradeRule rule) {
         boolean baseValid = rule != null && !StringUtil.isBlank(rule.getResource())
-            && rule.getCount() >= 0 && rule.getTimeWindow() > 0;
+            && rule.getCount() >= 0 && rule.getTimeWindow() > 0 && rule.getStatIntervalMs() > 0;
         if (!baseValid) {
             return false;
         }
-        int maxAllowedRt = SentinelConfig.statisticMaxRt();
         if (rule.getGrade() == RuleConstant.DEGRADE_GRADE_RT) {
-            if (rule.getRtSlowRequestAmount() <= 0) {
-                return false;
-            }
-            // Warn for RT mode that exceeds the {@code TIME_DROP_VALVE}.
-            if (rule.getCount() > maxAllowedRt) {
-                RecordLog.warn(String.format("[DegradeRuleManager] WARN: setting large RT threshold (%.1f ms)"
-                        + " in RT mode will not take effect since it exceeds the max allowed value (%d ms)",
-                    rule.getCount(), maxAllowedRt));
-            }
+            double slowRatio = rule.getSlowRatioThreshold();
+            return rule.getRtSlowRequestAmount() > 0 && rule.getMinRequestAmount() > 0
+                && slowRatio >= 0 && slowRatio <= 1;
         }
 
         // Check exception ratio mode.
@@ -20,10 +20,12 @@ import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
 import com.alibaba.csp.sentinel.spi.SpiOrder;
 
 /**
- * A {@link ProcessorSlot} dedicates to {@link DegradeRule} checking.
+ * A {@link ProcessorSlot} dedicates to circuit breaking ({@link DegradeRule} checking). The circuit breakers are
+ * checked on entry, and the completed requests are recorded on exit.
  *
  * @author leyou
  */
@@ -39,6 +41,16 @@ public class DegradeSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
 
     @Override
     public void exit(Context context, ResourceWrapper resourceWrapper, int count, Object... args) {
+        if (context.getCurEntry() != null) {
+            DegradeRulePlan plan = DegradeRuleManager.getDegradeRulePlan(resourceWrapper);
+            if (plan != null) {
+                // Record the completed request, which drives the state transformation of the circuit breakers.
+                CircuitBreaker[] cbs = plan.getCircuitBreakers();
+                for (int i = 0; i < cbs.length; i++) {
+                    cbs[i].onRequestComplete(context);
+                }
+            }
+        }
         fireExit(context, resourceWrapper, count, args);
     }
 }
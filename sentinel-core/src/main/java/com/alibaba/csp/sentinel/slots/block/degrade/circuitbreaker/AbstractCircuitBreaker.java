@@ -0,0 +1,236 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * The base state machine of circuit breakers. All state transformations are driven by the request path:
+ * an {@code OPEN} circuit breaker lets a single probe request pass (and becomes {@code HALF_OPEN}) once
+ * the recovery timeout has elapsed, and the result of the probe request decides whether the circuit
+ * breaker is closed or re-opened. So there is no scheduled task for resetting the circuit breaker.
+ * </p>
+ * <p>
+ * If the probe request does not complete within the recovery timeout (e.g. the entry is never exited),
+ * the probe is regarded as lost, and the next request will be let through as the new probe, so that
+ * the circuit breaker never gets stuck in {@code HALF_OPEN} state.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public abstract class AbstractCircuitBreaker implements CircuitBreaker {
+
+    private static final int MAX_SAMPLE_COUNT = 60;
+    private static final int MIN_BUCKET_MS = 500;
+
+    protected final DegradeRule rule;
+    protected final int recoveryTimeoutMs;
+
+    private final EventObserverRegistry observerRegistry;
+
+    protected final AtomicReference<State> currentState = new AtomicReference<>(State.CLOSED);
+    protected volatile long nextRetryTimestamp;
+    /**
+     * The probe request that has transformed the circuit breaker from {@code OPEN} to {@code HALF_OPEN}.
+     */
+    private volatile Entry probeEntry;
+    /**
+     * The time when the current probe request passed.
+     */
+    private final AtomicLong probeTimestamp = new AtomicLong();
+
+    public AbstractCircuitBreaker(DegradeRule rule) {
+        this(rule, EventObserverRegistry.getInstance());
+    }
+
+    AbstractCircuitBreaker(DegradeRule rule, EventObserverRegistry observerRegistry) {
+        AssertUtil.notNull(observerRegistry, "observerRegistry cannot be null");
+        if (!DegradeRuleManager.isValidRule(rule)) {
+            throw new IllegalArgumentException("Invalid DegradeRule: " + rule);
+        }
+        this.observerRegistry = observerRegistry;
+        this.rule = rule;
+        this.recoveryTimeoutMs = rule.getTimeWindow() * 1000;
+    }
+
+    @Override
+    public DegradeRule getRule() {
+        return rule;
+    }
+
+    @Override
+    public State currentState() {
+        return currentState.get();
+    }
+
+    @Override
+    public boolean tryPass(Context context) {
+        State state = currentState.get();
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            // For half-open state we allow a request for probing.
+            return retryTimeoutArrived() && fromOpenToHalfOpen(context);
+        }
+        if (state == State.HALF_OPEN) {
+            return tryReplaceLostProbe(context);
+        }
+        return false;
+    }
+
+    private boolean tryReplaceLostProbe(Context context) {
+        long probeTime = probeTimestamp.get();
+        long now = TimeUtil.currentTimeMillis();
+        if (now - probeTime < recoveryTimeoutMs || !probeTimestamp.compareAndSet(probeTime, now)) {
+            return false;
+        }
+        // The probe request has not completed in time, so let the current request probe instead.
+        probeEntry = context.getCurEntry();
+        return currentState.get() == State.HALF_OPEN;
+    }
+
+    @Override
+    public void onRequestComplete(Context context) {
+        Entry entry = context.getCurEntry();
+        if (entry == null) {
+            return;
+        }
+        if (entry.getBlockError() != null) {
+            // The probe request has been blocked by other slots, so the circuit breaker should turn back
+            // to OPEN state and wait for the next probe.
+            if (entry == probeEntry && currentState.get() == State.HALF_OPEN) {
+                probeEntry = null;
+                fromHalfOpenToOpen(1.0d);
+            }
+            return;
+        }
+        boolean probe = entry == probeEntry;
+        if (probe) {
+            probeEntry = null;
+        }
+        onPassedRequestComplete(entry, probe);
+    }
+
+    /**
+     * Record a completed request that has passed all slots, and handle the state transformation.
+     * Only the result of the probe request decides the transformation from {@code HALF_OPEN} state.
+     *
+     * @param entry the completed entry
+     * @param probe whether the entry is the probe request of {@code HALF_OPEN} state
+     */
+    protected abstract void onPassedRequestComplete(Entry entry, boolean probe);
+
+    /**
+     * Reset the statistic data of the circuit breaker.
+     */
+    abstract void resetStat();
+
+    /**
+     * Get the bucket count of the sliding statistics for the interval. The buckets are at least 500 ms
+     * and at most 60 per interval (e.g. 2 buckets for 1 s, and 1 s buckets for 60 s), as the former
+     * second/minute metrics of the resource.
+     *
+     * @param statIntervalMs the statistic interval in ms
+     * @return the bucket count, which evenly divides the interval
+     */
+    static int sampleCountOf(int statIntervalMs) {
+        int sampleCount = Math.max(1, Math.min(MAX_SAMPLE_COUNT, statIntervalMs / MIN_BUCKET_MS));
+        while (statIntervalMs % sampleCount != 0) {
+            sampleCount--;
+        }
+        return sampleCount;
+    }
+
+    protected boolean retryTimeoutArrived() {
+        return TimeUtil.currentTimeMillis() >= nextRetryTimestamp;
+    }
+
+    protected void updateNextRetryTimestamp() {
+        this.nextRetryTimestamp = TimeUtil.currentTimeMillis() + recoveryTimeoutMs;
+    }
+
+    protected boolean fromCloseToOpen(double snapshotValue) {
+        State prev = State.CLOSED;
+        if (currentState.compareAndSet(prev, State.OPEN)) {
+            updateNextRetryTimestamp();
+            notifyObservers(prev, State.OPEN, snapshotValue);
+            return true;
+        }
+        return false;
+    }
+
+    protected boolean fromOpenToHalfOpen(Context context) {
+        // Set before the transformation, so that the probe will not be regarded as lost immediately.
+        probeTimestamp.set(TimeUtil.currentTimeMillis());
+        if (currentState.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            probeEntry = context.getCurEntry();
+            notifyObservers(State.OPEN, State.HALF_OPEN, null);
+            return true;
+        }
+        return false;
+    }
+
+    protected boolean fromHalfOpenToOpen(double snapshotValue) {
+        if (currentState.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+            updateNextRetryTimestamp();
+            notifyObservers(State.HALF_OPEN, State.OPEN, snapshotValue);
+            return true;
+        }
+        return false;
+    }
+
+    protected boolean fromHalfOpenToClose() {
+        if (currentState.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            resetStat();
+            notifyObservers(State.HALF_OPEN, State.CLOSED, null);
+            return true;
+        }
+        return false;
+    }
+
+    protected void transformToOpen(double triggerValue) {
+        State cs = currentState.get();
+        switch (cs) {
+            case CLOSED:
+                fromCloseToOpen(triggerValue);
+                break;
+            case HALF_OPEN:
+                fromHalfOpenToOpen(triggerValue);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void notifyObservers(State prevState, State newState, Double snapshotValue) {
+        List<CircuitBreakerStateChangeObserver> observers = observerRegistry.getStateChangeObservers();
+        for (int i = 0; i < observers.size(); i++) {
+            observers.get(i).onStateChange(prevState, newState, rule, snapshotValue);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * Registry for {@link CircuitBreakerStateChangeObserver}s.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class EventObserverRegistry {
+
+    private static final EventObserverRegistry INSTANCE = new EventObserverRegistry();
+
+    private final Map<String, CircuitBreakerStateChangeObserver> stateChangeObserverMap = new ConcurrentHashMap<>();
+    /**
+     * Snapshot of the observers, so that no iterator is created when notifying the observers.
+     */
+    private volatile List<CircuitBreakerStateChangeObserver> stateChangeObservers = Collections.emptyList();
+
+    public static EventObserverRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a circuit breaker state change observer. The former observer with the same name will be replaced.
+     *
+     * @param name     name of the observer
+     * @param observer a valid observer
+     */
+    public synchronized void addStateChangeObserver(String name, CircuitBreakerStateChangeObserver observer) {
+        AssertUtil.notNull(name, "name cannot be null");
+        AssertUtil.notNull(observer, "observer cannot be null");
+        stateChangeObserverMap.put(name, observer);
+        refreshSnapshot();
+    }
+
+    public synchronized boolean removeStateChangeObserver(String name) {
+        AssertUtil.notNull(name, "name cannot be null");
+        boolean removed = stateChangeObserverMap.remove(name) != null;
+        refreshSnapshot();
+        return removed;
+    }
+
+    /**
+     * Get all registered state change observers.
+     *
+     * @return all registered state change observers
+     */
+    public List<CircuitBreakerStateChangeObserver> getStateChangeObservers() {
+        return stateChangeObservers;
+    }
+
+    private void refreshSnapshot() {
+        stateChangeObservers = Collections.unmodifiableList(
+            new ArrayList<>(stateChangeObserverMap.values()));
+    }
+
+    private EventObserverRegistry() {}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.base.LongAdder;
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+import static com.alibaba.csp.sentinel.slots.block.RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT;
+import static com.alibaba.csp.sentinel.slots.block.RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO;
+
+/**
+ * <p>
+ * Circuit breaker that cuts off requests when the exception ratio ({@code DEGRADE_GRADE_EXCEPTION_RATIO})
+ * or the exception count ({@code DEGRADE_GRADE_EXCEPTION_COUNT}) within the sliding statistic interval
+ * reaches the threshold (the same as the former {@code DegradeRule#passCheck}). The exception ratio is only
+ * checked when the amount of requests is not less than {@code minRequestAmount} in the statistic interval.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class ExceptionCircuitBreaker extends AbstractCircuitBreaker {
+
+    private final int strategy;
+    private final int minRequestAmount;
+    private final double threshold;
+
+    private final LeapArray<SimpleErrorCounter> stat;
+
+    public ExceptionCircuitBreaker(DegradeRule rule) {
+        this(rule, new SimpleErrorCounterLeapArray(sampleCountOf(rule.getStatIntervalMs()),
+            rule.getStatIntervalMs()));
+    }
+
+    ExceptionCircuitBreaker(DegradeRule rule, LeapArray<SimpleErrorCounter> stat) {
+        super(rule);
+        this.strategy = rule.getGrade();
+        boolean modeOk = strategy == DEGRADE_GRADE_EXCEPTION_RATIO || strategy == DEGRADE_GRADE_EXCEPTION_COUNT;
+        AssertUtil.isTrue(modeOk, "rule strategy should be error-ratio or error-count");
+        AssertUtil.notNull(stat, "stat cannot be null");
+        this.minRequestAmount = rule.getMinRequestAmount();
+        this.threshold = rule.getCount();
+        this.stat = stat;
+    }
+
+    @Override
+    void resetStat() {
+        for (SimpleErrorCounter counter : stat.values()) {
+            counter.reset();
+        }
+    }
+
+    @Override
+    protected void onPassedRequestComplete(Entry entry, boolean probe) {
+        Throwable error = entry.getError();
+        SimpleErrorCounter counter = stat.currentWindow().value();
+        boolean isError = error != null && !(error instanceof BlockException);
+        if (isError) {
+            counter.getErrorCount().add(1);
+        }
+        counter.getTotalCount().add(1);
+
+        handleStateChangeWhenThresholdExceeded(isError, probe);
+    }
+
+    private void handleStateChangeWhenThresholdExceeded(boolean isError, boolean probe) {
+        if (currentState.get() == State.OPEN) {
+            return;
+        }
+
+        if (currentState.get() == State.HALF_OPEN) {
+            if (!probe) {
+                // Requests that passed before the circuit breaker was opened won't decide the probe result.
+                return;
+            }
+            if (isError) {
+                fromHalfOpenToOpen(1.0d);
+            } else {
+                fromHalfOpenToClose();
+            }
+            return;
+        }
+
+        long errCount = 0;
+        long totalCount = 0;
+        List<SimpleErrorCounter> counters = stat.values();
+        for (SimpleErrorCounter counter : counters) {
+            errCount += counter.errorCount.sum();
+            totalCount += counter.totalCount.sum();
+        }
+        if (errCount <= 0) {
+            return;
+        }
+        double curCount = errCount;
+        if (strategy == DEGRADE_GRADE_EXCEPTION_RATIO) {
+            if (totalCount < minRequestAmount) {
+                return;
+            }
+            // Use errorRatio
+            curCount = errCount * 1.0d / totalCount;
+        }
+        // Trips when the threshold is reached, so a ratio threshold of 1.0 trips when all requests failed.
+        if (curCount >= threshold) {
+            transformToOpen(curCount);
+        }
+    }
+
+    static class SimpleErrorCounter {
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder totalCount = new LongAdder();
+
+        LongAdder getErrorCount() {
+            return errorCount;
+        }
+
+        LongAdder getTotalCount() {
+            return totalCount;
+        }
+
+        SimpleErrorCounter reset() {
+            errorCount.reset();
+            totalCount.reset();
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "SimpleErrorCounter{" +
+                "errorCount=" + errorCount +
+                ", totalCount=" + totalCount +
+                '}';
+        }
+    }
+
+    static class SimpleErrorCounterLeapArray extends LeapArray<SimpleErrorCounter> {
+
+        SimpleErrorCounterLeapArray(int sampleCount, int intervalInMs) {
+            super(sampleCount, intervalInMs);
+        }
+
+        @Override
+        public SimpleErrorCounter newEmptyBucket(long timeMillis) {
+            return new SimpleErrorCounter();
+        }
+
+        @Override
+        protected WindowWrap<SimpleErrorCounter> resetWindowTo(WindowWrap<SimpleErrorCounter> w, long startTime) {
+            // Update the start time and reset value.
+            w.resetTo(startTime);
+            w.value().reset();
+            return w;
+        }
+    }
+}
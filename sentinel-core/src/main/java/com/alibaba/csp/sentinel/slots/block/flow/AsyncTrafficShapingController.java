@@ -0,0 +1,51 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import com.alibaba.csp.sentinel.node.Node;
+
+/**
+ * <p>
+ * A {@link TrafficShapingController} that could queue requests without blocking the caller thread.
+ * Instead of sleeping, the controller returns the time that the request should wait
+ * before going on, so that non-blocking callers (e.g. reactive adapters) could schedule the continuation.
+ * </p>
+ * <p>
+ * {@link #canPass(Node, int, boolean)} keeps the blocking semantics (sleeping for the returned delay).
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ * @see QueueingUtil
+ */
+public interface AsyncTrafficShapingController extends TrafficShapingController {
+
+    /**
+     * Indicates that the request should be blocked.
+     */
+    long BLOCKED = -1;
+
+    /**
+     * Acquire the tokens for the request without blocking the current thread.
+     *
+     * @param node         resource node
+     * @param acquireCount count to acquire
+     * @param prioritized  whether the request is prioritized
+     * @return the time (in milliseconds) to wait before the request passes (0 means passing immediately),
+     * or {@link #BLOCKED} if the request should be blocked
+     */
+    long tryAcquire(Node node, int acquireCount, boolean prioritized);
+}
@@ -96,6 +96,11 @@ public class FlowRule extends AbstractRule {
      */
     private TrafficShapingController controller;
 
+    /**
+     * The pre-compiled node selector, attached when the rule is loaded (or first checked).
+     */
+    private FlowRulePlan.NodeSelector nodeSelector;
+
     public int getControlBehavior() {
         return controlBehavior;
     }
@@ -123,6 +128,15 @@ public class FlowRule extends AbstractRule {
         return controller;
     }
 
+    FlowRule setNodeSelector(FlowRulePlan.NodeSelector nodeSelector) {
+        this.nodeSelector = nodeSelector;
+        return this;
+    }
+
+    FlowRulePlan.NodeSelector getNodeSelector() {
+        return nodeSelector;
+    }
+
     public int getWarmUpPeriodSec() {
         return warmUpPeriodSec;
     }
@@ -46,6 +46,19 @@ public class FlowRuleChecker {
         if (ruleProvider == null || resource == null) {
             return;
         }
+        if (ruleProvider instanceof IndexedFlowRuleProvider) {
+            FlowRulePlan plan = ((IndexedFlowRuleProvider)ruleProvider).getPlan(resource);
+            if (plan == null) {
+                return;
+            }
+            FlowRule[] rules = plan.getRules();
+            for (int i = 0; i < rules.length; i++) {
+                if (!canPassCheck(rules[i], context, node, count, prioritized)) {
+                    throw new FlowException(rules[i].getLimitApp(), rules[i]);
+                }
+            }
+            return;
+        }
         Collection<FlowRule> rules = ruleProvider.apply(resource.getName());
         if (rules != null) {
             for (FlowRule rule : rules) {
@@ -107,41 +120,15 @@ public class FlowRuleChecker {
         return null;
     }
 
-    private static boolean filterOrigin(String origin) {
-        // Origin cannot be `default` or `other`.
-        return !RuleConstant.LIMIT_APP_DEFAULT.equals(origin) && !RuleConstant.LIMIT_APP_OTHER.equals(origin);
-    }
-
     static Node selectNodeByRequesterAndStrategy(/*@NonNull*/ FlowRule rule, Context context, DefaultNode node) {
-        // The limit app should not be empty.
-        String limitApp = rule.getLimitApp();
-        int strategy = rule.getStrategy();
-        String origin = context.getOrigin();
-
-        if (limitApp.equals(origin) && filterOrigin(origin)) {
-            if (strategy == RuleConstant.STRATEGY_DIRECT) {
-                // Matches limit origin, return origin statistic node.
-                return context.getOriginNode();
-            }
-
-            return selectReferenceNode(rule, context, node);
-        } else if (RuleConstant.LIMIT_APP_DEFAULT.equals(limitApp)) {
-            if (strategy == RuleConstant.STRATEGY_DIRECT) {
-                // Return the cluster node.
-                return node.getClusterNode();
-            }
-
-            return selectReferenceNode(rule, context, node);
-        } else if (RuleConstant.LIMIT_APP_OTHER.equals(limitApp)
-            && FlowRuleManager.isOtherOrigin(origin, rule.getResource())) {
-            if (strategy == RuleConstant.STRATEGY_DIRECT) {
-                return context.getOriginNode();
-            }
-
-            return selectReferenceNode(rule, context, node);
+        FlowRulePlan.NodeSelector selector = rule.getNodeSelector();
+        if (selector == null || !selector.isCompiledFrom(rule)) {
+            // The rule has not been loaded via the rule manager (or has been modified since),
+            // so compile the selector and cache it on the rule.
+            selector = FlowRulePlan.compileSelector(rule, null);
+            rule.setNodeSelector(selector);
         }
-
-        return null;
+        return selector.select(context, node);
     }
 
     private static boolean passClusterCheck(FlowRule rule, Context context, DefaultNode node, int acquireCount,
@@ -190,9 +177,9 @@ public class FlowRuleChecker {
             case TokenResultStatus.OK:
                 return true;
             case TokenResultStatus.SHOULD_WAIT:
-                // Wait for next tick.
+                // Wait for next tick (or let the non-blocking caller delay by itself).
                 try {
-                    Thread.sleep(result.getWaitInMs());
+                    QueueingUtil.waitFor(result.getWaitInMs());
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
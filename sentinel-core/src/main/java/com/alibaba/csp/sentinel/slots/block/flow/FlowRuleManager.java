@@ -31,6 +31,8 @@ import com.alibaba.csp.sentinel.node.metric.MetricTimerListener;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.ResourceRuleIndex;
 
 /**
  * <p>
@@ -47,6 +49,10 @@ import com.alibaba.csp.sentinel.property.SentinelProperty;
 public class FlowRuleManager {
 
     private static final Map<String, List<FlowRule>> flowRules = new ConcurrentHashMap<String, List<FlowRule>>();
+    /**
+     * Compiled plans of {@link #flowRules} indexed by resource ID, rebuilt whenever the rules are updated.
+     */
+    private static volatile ResourceRuleIndex<FlowRulePlan> flowRuleIndex = ResourceRuleIndex.empty();
 
     private static final FlowPropertyListener LISTENER = new FlowPropertyListener();
     private static SentinelProperty<List<FlowRule>> currentProperty = new DynamicSentinelProperty<List<FlowRule>>();
@@ -102,10 +108,31 @@ public class FlowRuleManager {
         return flowRules;
     }
 
+    static ResourceRuleIndex<FlowRulePlan> getFlowRuleIndex() {
+        return flowRuleIndex;
+    }
+
     public static boolean hasConfig(String resource) {
         return flowRules.containsKey(resource);
     }
 
+    /**
+     * Check whether the origin is named by the limitApp of any flow rule of the resource,
+     * via the compiled rule index rather than the rule list.
+     *
+     * @param resource the resource
+     * @param origin   the origin
+     * @return whether the origin is named by the flow rules of the resource
+     * @since 1.8.0
+     */
+    public static boolean isNamedOrigin(ResourceWrapper resource, String origin) {
+        if (StringUtil.isEmpty(origin)) {
+            return false;
+        }
+        FlowRulePlan plan = flowRuleIndex.get(resource);
+        return plan != null && plan.isNamedOrigin(origin);
+    }
+
     public static boolean isOtherOrigin(String origin, String resourceName) {
         if (StringUtil.isEmpty(origin)) {
             return false;
@@ -132,6 +159,7 @@ public class FlowRuleManager {
             if (rules != null) {
                 flowRules.clear();
                 flowRules.putAll(rules);
+                flowRuleIndex = ResourceRuleIndex.build(FlowRulePlan.compile(rules));
             }
             RecordLog.info("[FlowRuleManager] Flow rules received: " + flowRules);
         }
@@ -142,6 +170,7 @@ public class FlowRuleManager {
             if (rules != null) {
                 flowRules.clear();
                 flowRules.putAll(rules);
+                flowRuleIndex = ResourceRuleIndex.build(FlowRulePlan.compile(rules));
             }
             RecordLog.info("[FlowRuleManager] Flow rules loaded: " + flowRules);
         }
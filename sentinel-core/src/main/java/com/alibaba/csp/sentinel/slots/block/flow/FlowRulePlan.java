@@ -0,0 +1,231 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>
+ * The immutable evaluation plan of flow rules for a resource, compiled when the rules are loaded.
+ * </p>
+ * <p>
+ * Every rule in the plan carries a pre-compiled {@link NodeSelector}, so that the limitApp matching
+ * and the node selection strategy do not need to be resolved from the rule on every entry. The rules keep
+ * the order of {@link FlowRuleComparator} (local rules before cluster rules), so the rule that blocks
+ * the request is the same as checking the rule list.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+final class FlowRulePlan {
+
+    static final int LIMIT_ORIGIN = 0;
+    static final int LIMIT_DEFAULT = 1;
+    static final int LIMIT_OTHER = 2;
+
+    static final int SELECT_NONE = 0;
+    static final int SELECT_ORIGIN_NODE = 1;
+    static final int SELECT_CLUSTER_NODE = 2;
+    static final int SELECT_RELATE_NODE = 3;
+    static final int SELECT_CHAIN_NODE = 4;
+
+    private final FlowRule[] rules;
+    /**
+     * All limitApps of the rules.
+     */
+    private final Set<String> origins;
+
+    private FlowRulePlan(FlowRule[] rules, Set<String> origins) {
+        this.rules = rules;
+        this.origins = origins;
+    }
+
+    FlowRule[] getRules() {
+        return rules;
+    }
+
+    /**
+     * @param origin the origin
+     * @return whether the origin is named by the limitApp of any rule
+     */
+    boolean isNamedOrigin(String origin) {
+        return origins.contains(origin);
+    }
+
+    /**
+     * Compile the plans of all resources, and attach the node selector to each rule.
+     *
+     * @param ruleMap flow rule map (resourceName, sorted rules)
+     * @return compiled plan map (resourceName, plan)
+     */
+    static Map<String, FlowRulePlan> compile(Map<String, List<FlowRule>> ruleMap) {
+        Map<String, FlowRulePlan> planMap = new HashMap<>();
+        if (ruleMap == null) {
+            return planMap;
+        }
+        for (Map.Entry<String, List<FlowRule>> e : ruleMap.entrySet()) {
+            planMap.put(e.getKey(), compile(e.getValue()));
+        }
+        return planMap;
+    }
+
+    static FlowRulePlan compile(List<FlowRule> resourceRules) {
+        Set<String> origins = new HashSet<>();
+        for (FlowRule rule : resourceRules) {
+            origins.add(rule.getLimitApp());
+        }
+        for (FlowRule rule : resourceRules) {
+            rule.setNodeSelector(compileSelector(rule, origins));
+        }
+        return new FlowRulePlan(resourceRules.toArray(new FlowRule[0]), origins);
+    }
+
+    /**
+     * Compile the node selector of the rule.
+     *
+     * @param rule            valid rule with non-null limitApp
+     * @param resourceOrigins all limitApps of rules for the same resource, or null if unknown
+     * @return node selector of the rule
+     */
+    static NodeSelector compileSelector(/*@Valid*/ FlowRule rule, Set<String> resourceOrigins) {
+        String limitApp = rule.getLimitApp();
+        int limitAppType;
+        if (RuleConstant.LIMIT_APP_DEFAULT.equals(limitApp)) {
+            limitAppType = LIMIT_DEFAULT;
+        } else if (RuleConstant.LIMIT_APP_OTHER.equals(limitApp)) {
+            limitAppType = LIMIT_OTHER;
+        } else {
+            limitAppType = LIMIT_ORIGIN;
+        }
+
+        int selectType;
+        String refResource = rule.getRefResource();
+        int strategy = rule.getStrategy();
+        if (strategy == RuleConstant.STRATEGY_DIRECT) {
+            selectType = limitAppType == LIMIT_DEFAULT ? SELECT_CLUSTER_NODE : SELECT_ORIGIN_NODE;
+        } else if (StringUtil.isEmpty(refResource)) {
+            selectType = SELECT_NONE;
+        } else if (strategy == RuleConstant.STRATEGY_RELATE) {
+            selectType = SELECT_RELATE_NODE;
+        } else if (strategy == RuleConstant.STRATEGY_CHAIN) {
+            selectType = SELECT_CHAIN_NODE;
+        } else {
+            selectType = SELECT_NONE;
+        }
+        return new NodeSelector(rule.getResource(), limitApp, limitAppType, strategy, selectType, refResource,
+            resourceOrigins);
+    }
+
+    /**
+     * Pre-compiled limitApp matching and node selection of a flow rule.
+     */
+    static final class NodeSelector {
+
+        private final String resource;
+        private final String limitApp;
+        private final int limitAppType;
+        private final int strategy;
+        private final int selectType;
+        private final String refResource;
+        private final Set<String> resourceOrigins;
+
+        NodeSelector(String resource, String limitApp, int limitAppType, int strategy, int selectType,
+                     String refResource, Set<String> resourceOrigins) {
+            this.resource = resource;
+            this.limitApp = limitApp;
+            this.limitAppType = limitAppType;
+            this.strategy = strategy;
+            this.selectType = selectType;
+            this.refResource = refResource;
+            this.resourceOrigins = resourceOrigins;
+        }
+
+        /**
+         * Select the statistic node to check for the request.
+         *
+         * @param context current context
+         * @param node    current default node
+         * @return the selected node, or null if the rule does not apply to the request
+         */
+        Node select(Context context, DefaultNode node) {
+            String origin = context.getOrigin();
+            switch (limitAppType) {
+                case LIMIT_ORIGIN:
+                    // The limitApp of this type is never `default` or `other`.
+                    if (!limitApp.equals(origin)) {
+                        return null;
+                    }
+                    break;
+                case LIMIT_OTHER:
+                    if (!isOtherOrigin(origin)) {
+                        return null;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            switch (selectType) {
+                case SELECT_ORIGIN_NODE:
+                    return context.getOriginNode();
+                case SELECT_CLUSTER_NODE:
+                    return node.getClusterNode();
+                case SELECT_RELATE_NODE:
+                    return ClusterBuilderSlot.getClusterNode(refResource);
+                case SELECT_CHAIN_NODE:
+                    return refResource.equals(context.getName()) ? node : null;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @param rule the rule that the selector is attached to
+         * @return whether the selector is still valid for the (mutable) rule
+         */
+        boolean isCompiledFrom(FlowRule rule) {
+            return strategy == rule.getStrategy() && StringUtil.equals(limitApp, rule.getLimitApp())
+                && StringUtil.equals(resource, rule.getResource())
+                && StringUtil.equals(refResource, rule.getRefResource());
+        }
+
+        private boolean isOtherOrigin(String origin) {
+            if (resourceOrigins == null) {
+                return FlowRuleManager.isOtherOrigin(origin, resource);
+            }
+            return StringUtil.isNotEmpty(origin) && !resourceOrigins.contains(origin);
+        }
+
+        int getLimitAppType() {
+            return limitAppType;
+        }
+
+        int getSelectType() {
+            return selectType;
+        }
+    }
+}
@@ -175,12 +175,17 @@ public class FlowSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
         fireExit(context, resourceWrapper, count, args);
     }
 
-    private final Function<String, Collection<FlowRule>> ruleProvider = new Function<String, Collection<FlowRule>>() {
+    private final Function<String, Collection<FlowRule>> ruleProvider = new IndexedFlowRuleProvider() {
         @Override
         public Collection<FlowRule> apply(String resource) {
             // Flow rule map should not be null.
             Map<String, List<FlowRule>> flowRules = FlowRuleManager.getFlowRuleMap();
             return flowRules.get(resource);
         }
+
+        @Override
+        FlowRulePlan getPlan(ResourceWrapper resource) {
+            return FlowRuleManager.getFlowRuleIndex().get(resource);
+        }
     };
 }
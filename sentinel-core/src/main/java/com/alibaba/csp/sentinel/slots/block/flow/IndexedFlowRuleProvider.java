@@ -0,0 +1,39 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.Collection;
+
+import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.util.function.Function;
+
+/**
+ * A flow rule provider that could also look up the compiled rule plan via the interned resource ID,
+ * so that {@link FlowRuleChecker} does not need to hash the resource name on every entry.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+abstract class IndexedFlowRuleProvider implements Function<String, Collection<FlowRule>> {
+
+    /**
+     * Get the compiled flow rule plan of the given resource.
+     *
+     * @param resource valid resource
+     * @return flow rule plan of the resource, or null if absent
+     */
+    abstract FlowRulePlan getPlan(ResourceWrapper resource);
+}
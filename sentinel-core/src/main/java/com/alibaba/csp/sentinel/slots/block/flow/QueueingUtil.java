@@ -0,0 +1,103 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+/**
+ * <p>
+ * Utility for non-blocking queueing of flow control (uniform rate limiting or cluster waiting).
+ * </p>
+ * <p>
+ * By default, the requests that need to queue will sleep on the caller thread. When the non-blocking mode
+ * is turned on for current thread, the wait time will be accumulated instead, and the caller should delay
+ * the continuation by itself after the entry has passed:
+ * </p>
+ * <pre>
+ * QueueingUtil.enterNonBlocking();
+ * long delayMs;
+ * try {
+ *     entry = SphU.asyncEntry(resourceName);
+ * } finally {
+ *     delayMs = QueueingUtil.exitNonBlocking();
+ * }
+ * // Schedule the continuation after delayMs.
+ * </pre>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class QueueingUtil {
+
+    private static final ThreadLocal<QueueingState> STATE_HOLDER = new ThreadLocal<QueueingState>() {
+        @Override
+        protected QueueingState initialValue() {
+            return new QueueingState();
+        }
+    };
+
+    /**
+     * Turn on the non-blocking mode for current thread.
+     */
+    public static void enterNonBlocking() {
+        QueueingState state = STATE_HOLDER.get();
+        state.nonBlocking = true;
+        state.delayMs = 0;
+    }
+
+    /**
+     * Turn off the non-blocking mode for current thread.
+     *
+     * @return the accumulated wait time in milliseconds since {@link #enterNonBlocking()}
+     */
+    public static long exitNonBlocking() {
+        QueueingState state = STATE_HOLDER.get();
+        long delayMs = state.delayMs;
+        state.nonBlocking = false;
+        state.delayMs = 0;
+        return delayMs;
+    }
+
+    /**
+     * @return whether the non-blocking mode is turned on for current thread
+     */
+    public static boolean isNonBlocking() {
+        return STATE_HOLDER.get().nonBlocking;
+    }
+
+    /**
+     * Wait for the given time: accumulate the time in non-blocking mode, otherwise sleep on current thread.
+     *
+     * @param waitInMs time to wait in milliseconds
+     * @throws InterruptedException if interrupted while sleeping
+     */
+    public static void waitFor(long waitInMs) throws InterruptedException {
+        if (waitInMs <= 0) {
+            return;
+        }
+        QueueingState state = STATE_HOLDER.get();
+        if (state.nonBlocking) {
+            state.delayMs += waitInMs;
+        } else {
+            Thread.sleep(waitInMs);
+        }
+    }
+
+    private static final class QueueingState {
+        boolean nonBlocking = false;
+        long delayMs = 0;
+    }
+
+    private QueueingUtil() {}
+}
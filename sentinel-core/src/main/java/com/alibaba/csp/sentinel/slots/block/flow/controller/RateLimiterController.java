@@ -17,7 +17,8 @@ package com.alibaba.csp.sentinel.slots.block.flow.controller;
 
 import java.util.concurrent.atomic.AtomicLong;
 
-import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
+import com.alibaba.csp.sentinel.slots.block.flow.AsyncTrafficShapingController;
+import com.alibaba.csp.sentinel.slots.block.flow.QueueingUtil;
 
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.node.Node;
@@ -25,7 +26,7 @@ import com.alibaba.csp.sentinel.node.Node;
 /**
  * @author jialiang.linjl
  */
-public class RateLimiterController implements TrafficShapingController {
+public class RateLimiterController implements AsyncTrafficShapingController {
 
     private final int maxQueueingTimeMs;
     private final double count;
@@ -44,14 +45,28 @@ public class RateLimiterController implements TrafficShapingController {
 
     @Override
     public boolean canPass(Node node, int acquireCount, boolean prioritized) {
+        long waitTime = tryAcquire(node, acquireCount, prioritized);
+        if (waitTime == BLOCKED) {
+            return false;
+        }
+        try {
+            QueueingUtil.waitFor(waitTime);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long tryAcquire(Node node, int acquireCount, boolean prioritized) {
         // Pass when acquire count is less or equal than 0.
         if (acquireCount <= 0) {
-            return true;
+            return 0;
         }
         // Reject when count is less or equal than 0.
         // Otherwise,the costTime will be max of long and waitTime will overflow in some cases.
         if (count <= 0) {
-            return false;
+            return BLOCKED;
         }
 
         long currentTime = TimeUtil.currentTimeMillis();
@@ -64,30 +79,22 @@ public class RateLimiterController implements TrafficShapingController {
         if (expectedTime <= currentTime) {
             // Contention may exist here, but it's okay.
             latestPassedTime.set(currentTime);
-            return true;
+            return 0;
         } else {
             // Calculate the time to wait.
             long waitTime = costTime + latestPassedTime.get() - TimeUtil.currentTimeMillis();
             if (waitTime > maxQueueingTimeMs) {
-                return false;
+                return BLOCKED;
             } else {
                 long oldTime = latestPassedTime.addAndGet(costTime);
-                try {
-                    waitTime = oldTime - TimeUtil.currentTimeMillis();
-                    if (waitTime > maxQueueingTimeMs) {
-                        latestPassedTime.addAndGet(-costTime);
-                        return false;
-                    }
-                    // in race condition waitTime may <= 0
-                    if (waitTime > 0) {
-                        Thread.sleep(waitTime);
-                    }
-                    return true;
-                } catch (InterruptedException e) {
+                waitTime = oldTime - TimeUtil.currentTimeMillis();
+                if (waitTime > maxQueueingTimeMs) {
+                    latestPassedTime.addAndGet(-costTime);
+                    return BLOCKED;
                 }
+                // in race condition waitTime may <= 0
+                return waitTime > 0 ? waitTime : 0;
             }
         }
-        return false;
     }
-
 }
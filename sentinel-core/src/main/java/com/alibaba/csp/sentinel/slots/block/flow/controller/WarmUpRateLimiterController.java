@@ -18,13 +18,15 @@ package com.alibaba.csp.sentinel.slots.block.flow.controller;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slots.block.flow.AsyncTrafficShapingController;
+import com.alibaba.csp.sentinel.slots.block.flow.QueueingUtil;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * @author jialiang.linjl
  * @since 1.4.0
  */
-public class WarmUpRateLimiterController extends WarmUpController {
+public class WarmUpRateLimiterController extends WarmUpController implements AsyncTrafficShapingController {
 
     private final int timeoutInMs;
     private final AtomicLong latestPassedTime = new AtomicLong(-1);
@@ -41,6 +43,20 @@ public class WarmUpRateLimiterController extends WarmUpController {
 
     @Override
     public boolean canPass(Node node, int acquireCount, boolean prioritized) {
+        long waitTime = tryAcquire(node, acquireCount, prioritized);
+        if (waitTime == BLOCKED) {
+            return false;
+        }
+        try {
+            QueueingUtil.waitFor(waitTime);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long tryAcquire(Node node, int acquireCount, boolean prioritized) {
         long previousQps = (long) node.previousPassQps();
         syncToken(previousQps);
 
@@ -62,27 +78,20 @@ public class WarmUpRateLimiterController extends WarmUpController {
 
         if (expectedTime <= currentTime) {
             latestPassedTime.set(currentTime);
-            return true;
+            return 0;
         } else {
             long waitTime = costTime + latestPassedTime.get() - currentTime;
             if (waitTime > timeoutInMs) {
-                return false;
+                return BLOCKED;
             } else {
                 long oldTime = latestPassedTime.addAndGet(costTime);
-                try {
-                    waitTime = oldTime - TimeUtil.currentTimeMillis();
-                    if (waitTime > timeoutInMs) {
-                        latestPassedTime.addAndGet(-costTime);
-                        return false;
-                    }
-                    if (waitTime > 0) {
-                        Thread.sleep(waitTime);
-                    }
-                    return true;
-                } catch (InterruptedException e) {
+                waitTime = oldTime - TimeUtil.currentTimeMillis();
+                if (waitTime > timeoutInMs) {
+                    latestPassedTime.addAndGet(-costTime);
+                    return BLOCKED;
                 }
+                return waitTime > 0 ? waitTime : 0;
             }
         }
-        return false;
     }
 }
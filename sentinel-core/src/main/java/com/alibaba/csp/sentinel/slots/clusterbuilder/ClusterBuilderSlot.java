@@ -15,10 +15,10 @@
  */
 package com.alibaba.csp.sentinel.slots.clusterbuilder;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.concurrent.ConcurrentRegistry;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.node.ClusterNode;
@@ -30,7 +30,11 @@ import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import com.alibaba.csp.sentinel.slots.statistic.RtHistogramManager;
 import com.alibaba.csp.sentinel.spi.SpiOrder;
+import com.alibaba.csp.sentinel.util.function.Function;
+import com.alibaba.csp.sentinel.util.function.Predicate;
 
 /**
  * <p>
@@ -62,32 +66,34 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
      * </p>
      * <p>
      * The longer the application runs, the more stable this mapping will
-     * become. so we don't concurrent map but a lock. as this lock only happens
-     * at the very beginning while concurrent map will hold the lock all the time.
+     * become. Reading the registry is lock-free, and the lock only happens
+     * when creating the cluster node of a new resource.
      * </p>
      */
-    private static volatile Map<ResourceWrapper, ClusterNode> clusterNodeMap = new HashMap<>();
-
-    private static final Object lock = new Object();
+    private static final ConcurrentRegistry<ResourceWrapper, ClusterNode> clusterNodeMap = new ConcurrentRegistry<>();
+
+    private static final Function<ResourceWrapper, ClusterNode> CLUSTER_NODE_FACTORY
+        = new Function<ResourceWrapper, ClusterNode>() {
+            @Override
+            public ClusterNode apply(ResourceWrapper resourceWrapper) {
+                ClusterNode node = new ClusterNode(resourceWrapper.getName(), resourceWrapper.getResourceType());
+                if (RtHistogramManager.isEnabled(resourceWrapper.getName())) {
+                    node.enableRtHistogram();
+                }
+                return node;
+            }
+        };
 
     private volatile ClusterNode clusterNode = null;
+    private volatile Predicate<String> namedOrigins = null;
 
     @Override
     public void entry(Context context, ResourceWrapper resourceWrapper, DefaultNode node, int count,
                       boolean prioritized, Object... args)
         throws Throwable {
         if (clusterNode == null) {
-            synchronized (lock) {
-                if (clusterNode == null) {
-                    // Create the cluster node.
-                    clusterNode = new ClusterNode(resourceWrapper.getName(), resourceWrapper.getResourceType());
-                    HashMap<ResourceWrapper, ClusterNode> newMap = new HashMap<>(Math.max(clusterNodeMap.size(), 16));
-                    newMap.putAll(clusterNodeMap);
-                    newMap.put(node.getId(), clusterNode);
-
-                    clusterNodeMap = newMap;
-                }
-            }
+            // Create the cluster node (or reuse the present one of the resource).
+            clusterNode = clusterNodeMap.getOrCreate(node.getId(), CLUSTER_NODE_FACTORY);
         }
         node.setClusterNode(clusterNode);
 
@@ -96,7 +102,10 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
          * the specific origin.
          */
         if (!"".equals(context.getOrigin())) {
-            Node originNode = node.getClusterNode().getOrCreateOriginNode(context.getOrigin());
+            if (namedOrigins == null) {
+                namedOrigins = new NamedOriginPredicate(resourceWrapper);
+            }
+            Node originNode = node.getClusterNode().getOrCreateOriginNode(context.getOrigin(), namedOrigins);
             context.getCurEntry().setOriginNode(originNode);
         }
 
@@ -149,7 +158,7 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
      * @return all {@link ClusterNode}s
      */
     public static Map<ResourceWrapper, ClusterNode> getClusterNodeMap() {
-        return clusterNodeMap;
+        return clusterNodeMap.asMap();
     }
 
     /**
@@ -157,8 +166,25 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
      * {@link SampleCountProperty#SAMPLE_COUNT} is changed.
      */
     public static void resetClusterNodes() {
-        for (ClusterNode node : clusterNodeMap.values()) {
+        for (ClusterNode node : clusterNodeMap.asMap().values()) {
             node.reset();
         }
     }
+
+    /**
+     * Tests whether an origin is named by the flow rules of the resource, which is only tested
+     * when the node of a new origin is created.
+     */
+    private static final class NamedOriginPredicate implements Predicate<String> {
+        private final ResourceWrapper resource;
+
+        NamedOriginPredicate(ResourceWrapper resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public boolean test(String origin) {
+            return FlowRuleManager.isNamedOrigin(resource, origin);
+        }
+    }
 }
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.slots.logger;
 
 import com.alibaba.csp.sentinel.eagleeye.EagleEye;
 import com.alibaba.csp.sentinel.eagleeye.StatLogger;
+import com.alibaba.csp.sentinel.eagleeye.StatLoggerBuilder;
 import com.alibaba.csp.sentinel.log.LogBase;
 
 public class EagleEyeLogUtil {
@@ -28,7 +29,11 @@ public class EagleEyeLogUtil {
     static {
         String path = LogBase.getLogBaseDir() + FILE_NAME;
 
-        statLogger = EagleEye.statLoggerBuilder("sentinel-block-log")
+        StatLoggerBuilder builder = EagleEye.statLoggerBuilder("sentinel-block-log");
+        if (LogBase.isLogAsync()) {
+            builder.asyncAppender(LogBase.getLogAsyncBufferSize(), LogBase.isLogAsyncBlockWhenFull());
+        }
+        statLogger = builder
             .intervalSeconds(1)
             .entryDelimiter('|')
             .keyDelimiter(',')
@@ -41,6 +46,6 @@ public class EagleEyeLogUtil {
     }
 
     public static void log(String resource, String exceptionName, String ruleLimitApp, String origin, int count) {
-        statLogger.stat(resource, exceptionName, ruleLimitApp, origin).count(count);
+        statLogger.count(resource, exceptionName, ruleLimitApp, origin, count);
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.slots.nodeselector;
 
+import com.alibaba.csp.sentinel.concurrent.ConcurrentRegistry;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.node.ClusterNode;
@@ -23,9 +24,7 @@ import com.alibaba.csp.sentinel.node.EntranceNode;
 import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.spi.SpiOrder;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.alibaba.csp.sentinel.util.function.Function;
 
 /**
  * </p>
@@ -129,10 +128,10 @@ public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
     /**
      * {@link DefaultNode}s of the same resource in different context.
      */
-    private volatile Map<String, DefaultNode> map = new HashMap<String, DefaultNode>(10);
+    private final ConcurrentRegistry<String, DefaultNode> map = new ConcurrentRegistry<String, DefaultNode>();
 
     @Override
-    public void entry(Context context, ResourceWrapper resourceWrapper, Object obj, int count, boolean prioritized, Object... args)
+    public void entry(final Context context, final ResourceWrapper resourceWrapper, Object obj, int count, boolean prioritized, Object... args)
         throws Throwable {
         /*
          * It's interesting that we use context name rather resource name as the map key.
@@ -154,19 +153,15 @@ public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
          */
         DefaultNode node = map.get(context.getName());
         if (node == null) {
-            synchronized (this) {
-                node = map.get(context.getName());
-                if (node == null) {
-                    node = new DefaultNode(resourceWrapper, null);
-                    HashMap<String, DefaultNode> cacheMap = new HashMap<String, DefaultNode>(map.size());
-                    cacheMap.putAll(map);
-                    cacheMap.put(context.getName(), node);
-                    map = cacheMap;
+            node = map.getOrCreate(context.getName(), new Function<String, DefaultNode>() {
+                @Override
+                public DefaultNode apply(String contextName) {
+                    DefaultNode newNode = new DefaultNode(resourceWrapper, null);
                     // Build invocation tree
-                    ((DefaultNode) context.getLastNode()).addChild(node);
+                    ((DefaultNode) context.getLastNode()).addChild(newNode);
+                    return newNode;
                 }
-
-            }
+            });
         }
 
         context.setCurNode(node);
@@ -0,0 +1,114 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>
+ * Manages the resources that record the response time histogram in their {@link ClusterNode},
+ * so that the RT percentiles (P50, P99 and P999) are available in the statistics and metric logs.
+ * </p>
+ * <p>
+ * The histogram takes a fixed amount of memory for each resource, so it's disabled by default and
+ * the amount of enabled resources is limited by {@link SentinelConfig#rtHistogramMaxResources()}.
+ * The initial resources could be configured via {@link SentinelConfig#STATISTIC_RT_HISTOGRAM_RESOURCES}.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class RtHistogramManager {
+
+    private static final Set<String> enabledResources
+        = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    static {
+        String resources = SentinelConfig.rtHistogramResources();
+        if (StringUtil.isNotBlank(resources)) {
+            for (String resource : resources.split(",")) {
+                if (StringUtil.isNotBlank(resource)) {
+                    enable(resource.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * Enable the response time histogram of the resource. It takes effect on the existing cluster node
+     * of the resource immediately.
+     *
+     * @param resourceName name of the resource
+     * @return true if enabled, or false if the amount of enabled resources has reached the limit
+     */
+    public static synchronized boolean enable(String resourceName) {
+        if (StringUtil.isBlank(resourceName)) {
+            return false;
+        }
+        if (!enabledResources.contains(resourceName)
+            && enabledResources.size() >= SentinelConfig.rtHistogramMaxResources()) {
+            RecordLog.warn("[RtHistogramManager] Failed to enable RT histogram of resource <{}>: "
+                + "the amount of enabled resources has reached the limit", resourceName);
+            return false;
+        }
+        enabledResources.add(resourceName);
+        for (EntryType type : EntryType.values()) {
+            ClusterNode node = ClusterBuilderSlot.getClusterNode(resourceName, type);
+            if (node != null) {
+                node.enableRtHistogram();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Disable the response time histogram of the resource, and release the histogram of
+     * the existing cluster node.
+     *
+     * @param resourceName name of the resource
+     */
+    public static synchronized void disable(String resourceName) {
+        if (resourceName == null || !enabledResources.remove(resourceName)) {
+            return;
+        }
+        for (EntryType type : EntryType.values()) {
+            ClusterNode node = ClusterBuilderSlot.getClusterNode(resourceName, type);
+            if (node != null) {
+                node.disableRtHistogram();
+            }
+        }
+    }
+
+    public static boolean isEnabled(String resourceName) {
+        return resourceName != null && enabledResources.contains(resourceName);
+    }
+
+    public static Set<String> getEnabledResources() {
+        return new HashSet<>(enabledResources);
+    }
+
+    private RtHistogramManager() {}
+}
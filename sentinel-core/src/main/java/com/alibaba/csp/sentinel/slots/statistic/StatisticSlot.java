@@ -15,7 +15,7 @@
  */
 package com.alibaba.csp.sentinel.slots.statistic;
 
-import java.util.Collection;
+import java.util.List;
 
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slotchain.ProcessorSlotEntryCallback;
@@ -75,8 +75,9 @@ public class StatisticSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
             }
 
             // Handle pass event with registered entry callback handlers.
-            for (ProcessorSlotEntryCallback<DefaultNode> handler : StatisticSlotCallbackRegistry.getEntryCallbacks()) {
-                handler.onPass(context, resourceWrapper, node, count, args);
+            List<ProcessorSlotEntryCallback<DefaultNode>> entryCallbacks = StatisticSlotCallbackRegistry.getEntryCallbackList();
+            for (int i = 0; i < entryCallbacks.size(); i++) {
+                entryCallbacks.get(i).onPass(context, resourceWrapper, node, count, args);
             }
         } catch (PriorityWaitException ex) {
             node.increaseThreadNum();
@@ -90,8 +91,9 @@ public class StatisticSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
                 Constants.ENTRY_NODE.increaseThreadNum();
             }
             // Handle pass event with registered entry callback handlers.
-            for (ProcessorSlotEntryCallback<DefaultNode> handler : StatisticSlotCallbackRegistry.getEntryCallbacks()) {
-                handler.onPass(context, resourceWrapper, node, count, args);
+            List<ProcessorSlotEntryCallback<DefaultNode>> entryCallbacks = StatisticSlotCallbackRegistry.getEntryCallbackList();
+            for (int i = 0; i < entryCallbacks.size(); i++) {
+                entryCallbacks.get(i).onPass(context, resourceWrapper, node, count, args);
             }
         } catch (BlockException e) {
             // Blocked, set block exception to current entry.
@@ -109,8 +111,9 @@ public class StatisticSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
             }
 
             // Handle block event with registered entry callback handlers.
-            for (ProcessorSlotEntryCallback<DefaultNode> handler : StatisticSlotCallbackRegistry.getEntryCallbacks()) {
-                handler.onBlocked(e, context, resourceWrapper, node, count, args);
+            List<ProcessorSlotEntryCallback<DefaultNode>> entryCallbacks = StatisticSlotCallbackRegistry.getEntryCallbackList();
+            for (int i = 0; i < entryCallbacks.size(); i++) {
+                entryCallbacks.get(i).onBlocked(e, context, resourceWrapper, node, count, args);
             }
 
             throw e;
@@ -143,9 +146,9 @@ public class StatisticSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
         }
 
         // Handle exit event with registered exit callback handlers.
-        Collection<ProcessorSlotExitCallback> exitCallbacks = StatisticSlotCallbackRegistry.getExitCallbacks();
-        for (ProcessorSlotExitCallback handler : exitCallbacks) {
-            handler.onExit(context, resourceWrapper, count, args);
+        List<ProcessorSlotExitCallback> exitCallbacks = StatisticSlotCallbackRegistry.getExitCallbackList();
+        for (int i = 0; i < exitCallbacks.size(); i++) {
+            exitCallbacks.get(i).onExit(context, resourceWrapper, count, args);
         }
 
         fireExit(context, resourceWrapper, count);
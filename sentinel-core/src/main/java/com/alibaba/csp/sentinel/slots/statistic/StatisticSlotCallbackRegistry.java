@@ -15,7 +15,9 @@
  */
 package com.alibaba.csp.sentinel.slots.statistic;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -43,34 +45,66 @@ public final class StatisticSlotCallbackRegistry {
     private static final Map<String, ProcessorSlotExitCallback> exitCallbackMap
         = new ConcurrentHashMap<String, ProcessorSlotExitCallback>();
 
-    public static void clearEntryCallback() {
+    /**
+     * Snapshots of the callbacks, which could be iterated by index without allocating iterators.
+     */
+    private static volatile List<ProcessorSlotEntryCallback<DefaultNode>> entryCallbackList
+        = new ArrayList<ProcessorSlotEntryCallback<DefaultNode>>();
+    private static volatile List<ProcessorSlotExitCallback> exitCallbackList
+        = new ArrayList<ProcessorSlotExitCallback>();
+
+    public static synchronized void clearEntryCallback() {
         entryCallbackMap.clear();
+        refreshEntryCallbackList();
     }
 
-    public static void clearExitCallback() {
+    public static synchronized void clearExitCallback() {
         exitCallbackMap.clear();
+        refreshExitCallbackList();
     }
 
-    public static void addEntryCallback(String key, ProcessorSlotEntryCallback<DefaultNode> callback) {
+    public static synchronized void addEntryCallback(String key, ProcessorSlotEntryCallback<DefaultNode> callback) {
         entryCallbackMap.put(key, callback);
+        refreshEntryCallbackList();
     }
 
-    public static void addExitCallback(String key, ProcessorSlotExitCallback callback) {
+    public static synchronized void addExitCallback(String key, ProcessorSlotExitCallback callback) {
         exitCallbackMap.put(key, callback);
+        refreshExitCallbackList();
     }
 
-    public static ProcessorSlotEntryCallback<DefaultNode> removeEntryCallback(String key) {
+    public static synchronized ProcessorSlotEntryCallback<DefaultNode> removeEntryCallback(String key) {
         if (key == null) {
             return null;
         }
-        return entryCallbackMap.remove(key);
+        ProcessorSlotEntryCallback<DefaultNode> callback = entryCallbackMap.remove(key);
+        refreshEntryCallbackList();
+        return callback;
     }
 
-    public static ProcessorSlotExitCallback removeExitCallback(String key) {
+    public static synchronized ProcessorSlotExitCallback removeExitCallback(String key) {
         if (key == null) {
             return null;
         }
-        return exitCallbackMap.remove(key);
+        ProcessorSlotExitCallback callback = exitCallbackMap.remove(key);
+        refreshExitCallbackList();
+        return callback;
+    }
+
+    private static void refreshEntryCallbackList() {
+        entryCallbackList = new ArrayList<ProcessorSlotEntryCallback<DefaultNode>>(entryCallbackMap.values());
+    }
+
+    private static void refreshExitCallbackList() {
+        exitCallbackList = new ArrayList<ProcessorSlotExitCallback>(exitCallbackMap.values());
+    }
+
+    static List<ProcessorSlotEntryCallback<DefaultNode>> getEntryCallbackList() {
+        return entryCallbackList;
+    }
+
+    static List<ProcessorSlotExitCallback> getExitCallbackList() {
+        return exitCallbackList;
     }
 
     public static Collection<ProcessorSlotEntryCallback<DefaultNode>> getEntryCallbacks() {
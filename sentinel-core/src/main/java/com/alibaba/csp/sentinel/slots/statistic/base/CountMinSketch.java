@@ -0,0 +1,109 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.base;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>
+ * A thread-safe <a href="https://en.wikipedia.org/wiki/Count%E2%80%93min_sketch">count-min sketch</a>,
+ * which estimates the counts of any amount of keys in fixed memory ({@code depth * width} counters).
+ * </p>
+ * <p>
+ * The estimate of a key is never less than its real count, and exceeds it by at most
+ * {@code 2 * total / width} with probability {@code 1 - 1 / 2^depth}.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class CountMinSketch {
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1,
+        0xD3A2646C, 0xFD7046C5, 0xB55A4F09};
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param depth amount of hash functions, no more than 8
+     * @param width amount of counters per hash function, which will be rounded up to a power of 2
+     */
+    public CountMinSketch(int depth, int width) {
+        AssertUtil.isTrue(depth > 0 && depth <= SEEDS.length, "depth should be in [1, " + SEEDS.length + "]");
+        AssertUtil.isTrue(width > 0 && width <= 1 << 24, "width should be in [1, 2^24]");
+        this.depth = depth;
+        int w = Integer.highestOneBit(width);
+        if (w < width) {
+            w <<= 1;
+        }
+        this.mask = w - 1;
+        this.counters = new AtomicLongArray(depth * w);
+    }
+
+    /**
+     * Add the count of the key.
+     *
+     * @param key   the key
+     * @param count count to add
+     * @return the estimated count of the key after adding
+     */
+    public long add(Object key, long count) {
+        int hash = key.hashCode();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            long value = counters.addAndGet(indexOf(hash, i), count);
+            if (value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @param key the key
+     * @return the estimated count of the key
+     */
+    public long estimate(Object key) {
+        int hash = key.hashCode();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            long value = counters.get(indexOf(hash, i));
+            if (value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Reset all counters. The concurrent adding may be partially lost.
+     */
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * (mask + 1) + (h & mask);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.base;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A {@link LeapArray} that rotates buckets without any lock, yield or allocation.
+ * </p>
+ * <p>
+ * Every slot of the circular array owns two pre-allocated buckets, which are used alternately
+ * (one for the current round of the slot, the other one for the next round). The state of each slot
+ * is packed into a single {@code long} word: {@code windowStart << 1 | parity}, where {@code parity}
+ * indicates which of the two buckets is active. A bucket rotation is a single CAS on the state word,
+ * so the threads that lose the race simply re-read the word and get the freshly activated bucket.
+ * </p>
+ * <p>
+ * The retired bucket is cleaned by the CAS winner right after the rotation, so it is already clean
+ * when the slot rotates back to it one {@code intervalInMs} later. As a result, the active bucket is
+ * never reset while other threads are updating it.
+ * </p>
+ * <p>
+ * Note that this implementation keeps twice the buckets of a normal {@link LeapArray}, and
+ * {@link #newEmptyBucket(long)} is invoked in the constructor, so it should not rely on
+ * any field of the subclass.
+ * </p>
+ *
+ * @param <T> type of statistic data
+ * @author agent
+ * @since 1.8.0
+ */
+public abstract class LockFreeLeapArray<T> extends LeapArray<T> {
+
+    private static final long EMPTY_STATE = -1L;
+
+    /**
+     * Two buckets for every slot: {@code buckets[idx * 2 + parity]}.
+     */
+    private final WindowWrap<T>[] buckets;
+    private final AtomicLongArray states;
+
+    @SuppressWarnings("unchecked")
+    public LockFreeLeapArray(int sampleCount, int intervalInMs) {
+        super(sampleCount, intervalInMs);
+        this.buckets = new WindowWrap[sampleCount * 2];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new WindowWrap<T>(windowLengthInMs, 0, newEmptyBucket(0));
+        }
+        this.states = new AtomicLongArray(sampleCount);
+        for (int i = 0; i < sampleCount; i++) {
+            states.set(i, EMPTY_STATE);
+        }
+    }
+
+    /**
+     * Clean the statistic value of a retired bucket, so that it could be reused in later rounds.
+     *
+     * @param bucket the retired bucket
+     */
+    protected abstract void resetBucket(T bucket);
+
+    /**
+     * Callback after a bucket has been activated for the given start time. Note that other threads
+     * may have been updating the bucket concurrently, so the value should never be reset here.
+     *
+     * @param windowWrap the activated bucket
+     * @param startTime  the start time of the bucket in milliseconds
+     */
+    protected void onWindowActivated(WindowWrap<T> windowWrap, long startTime) {
+        // Do nothing by default.
+    }
+
+    @Override
+    protected final WindowWrap<T> resetWindowTo(WindowWrap<T> windowWrap, long startTime) {
+        resetBucket(windowWrap.value());
+        return windowWrap.resetTo(startTime);
+    }
+
+    @Override
+    public WindowWrap<T> currentWindow(long timeMillis) {
+        if (timeMillis < 0) {
+            return null;
+        }
+
+        long timeId = timeMillis / windowLengthInMs;
+        int idx = (int)(timeId % sampleCount);
+        long windowStart = timeId * windowLengthInMs;
+
+        while (true) {
+            long state = states.get(idx);
+            long oldStart = state >> 1;
+            int parity = (int)(state & 1);
+            if (windowStart == oldStart) {
+                // The bucket is up-to-date, just return it.
+                return buckets[(idx << 1) + parity];
+            } else if (windowStart > oldStart) {
+                // The bucket is deprecated (or absent), flip to the other (already clean) bucket via CAS.
+                int newParity = parity ^ 1;
+                if (states.compareAndSet(idx, state, (windowStart << 1) | newParity)) {
+                    WindowWrap<T> window = buckets[(idx << 1) + newParity];
+                    window.resetTo(windowStart);
+                    onWindowActivated(window, windowStart);
+                    array.set(idx, window);
+                    if (state != EMPTY_STATE) {
+                        // Clean the retired bucket for the next round of the slot.
+                        resetBucket(buckets[(idx << 1) + parity].value());
+                    }
+                    return window;
+                }
+                // Contention failed, another thread has rotated the bucket. Just re-read the state.
+            } else {
+                // Should not go through here, as the provided time is already behind.
+                // Return a detached bucket so that the stale data is dropped rather than accumulated.
+                return new WindowWrap<T>(windowLengthInMs, windowStart, newEmptyBucket(timeMillis));
+            }
+        }
+    }
+}
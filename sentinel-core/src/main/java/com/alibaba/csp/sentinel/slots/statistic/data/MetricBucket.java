@@ -32,10 +32,24 @@ public class MetricBucket {
     private volatile long minRt;
 
     public MetricBucket() {
-        MetricEvent[] events = MetricEvent.values();
-        this.counters = new LongAdder[events.length];
-        for (MetricEvent event : events) {
-            counters[event.ordinal()] = new LongAdder();
+        this(true);
+    }
+
+    /**
+     * Constructor for subclasses that maintain the counters in their own layout.
+     *
+     * @param initAdders whether to create the {@link LongAdder} counters
+     * @since 1.8.0
+     */
+    protected MetricBucket(boolean initAdders) {
+        if (initAdders) {
+            MetricEvent[] events = MetricEvent.values();
+            this.counters = new LongAdder[events.length];
+            for (MetricEvent event : events) {
+                counters[event.ordinal()] = new LongAdder();
+            }
+        } else {
+            this.counters = null;
         }
         initMinRt();
     }
@@ -49,7 +63,7 @@ public class MetricBucket {
         return this;
     }
 
-    private void initMinRt() {
+    protected void initMinRt() {
         this.minRt = SentinelConfig.statisticMaxRt();
     }
 
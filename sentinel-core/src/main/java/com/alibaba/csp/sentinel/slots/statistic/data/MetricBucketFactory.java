@@ -0,0 +1,42 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+
+/**
+ * Creates {@link MetricBucket} with the layout specified in {@link SentinelConfig}.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class MetricBucketFactory {
+
+    /**
+     * Create a new metric bucket. The striped layout ({@link StripedMetricBucket}) will be used
+     * if {@link SentinelConfig#STATISTIC_STRIPED_BUCKET} is enabled.
+     *
+     * @return a new empty metric bucket
+     */
+    public static MetricBucket newBucket() {
+        if (SentinelConfig.stripedStatisticBucket()) {
+            return new StripedMetricBucket();
+        }
+        return new MetricBucket();
+    }
+
+    private MetricBucketFactory() {}
+}
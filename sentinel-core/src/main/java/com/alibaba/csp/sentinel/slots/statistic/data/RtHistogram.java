@@ -0,0 +1,171 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A fixed-memory, lock-free histogram of response time (in milliseconds) with log-linear buckets.
+ * </p>
+ * <p>
+ * Values in {@code [0, 16)} are recorded exactly. Each following power-of-two range {@code [2^k, 2^(k+1))}
+ * is divided into 16 sub-buckets of equal width, so the relative error of a percentile is at most 1/16.
+ * Values beyond {@link #MAX_TRACKABLE_RT} are recorded in the last bucket.
+ * </p>
+ * <p>
+ * Recording a value is a single atomic add on the bucket counter, so the histogram could be updated
+ * concurrently without any lock.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class RtHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 16;
+
+    /**
+     * The max response time (in milliseconds) that could be recorded in a distinct bucket.
+     */
+    public static final long MAX_TRACKABLE_RT = (1L << MAX_EXPONENT) - 1;
+
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Record the response time of given number of requests.
+     *
+     * @param rt    response time in milliseconds
+     * @param count request count
+     */
+    public void add(long rt, int count) {
+        counts.addAndGet(bucketIndex(rt), count);
+    }
+
+    /**
+     * Reset all the buckets.
+     *
+     * @return this histogram in initial state
+     */
+    public RtHistogram reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        return this;
+    }
+
+    /**
+     * Get the total count of recorded requests.
+     *
+     * @return total count
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Get the response time at given quantile of this histogram.
+     *
+     * @param quantile quantile in (0, 1]
+     * @return the response time at the quantile, or -1 if the histogram is empty
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = newSnapshot();
+        mergeTo(snapshot);
+        return percentile(snapshot, quantile);
+    }
+
+    /**
+     * Add the bucket counts of this histogram to given snapshot.
+     *
+     * @param snapshot snapshot created via {@link #newSnapshot()}
+     */
+    public void mergeTo(long[] snapshot) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] += counts.get(i);
+        }
+    }
+
+    /**
+     * Create an empty snapshot of bucket counts, which could be used to merge several histograms.
+     *
+     * @return an empty snapshot
+     */
+    public static long[] newSnapshot() {
+        return new long[BUCKET_COUNT];
+    }
+
+    /**
+     * Get the response time at given quantile from a snapshot of bucket counts.
+     * The response time is the highest value of the bucket where the quantile falls in.
+     *
+     * @param snapshot snapshot of bucket counts
+     * @param quantile quantile in (0, 1]
+     * @return the response time at the quantile, or -1 if the snapshot is empty
+     */
+    public static long percentile(long[] snapshot, double quantile) {
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total <= 0) {
+            return -1;
+        }
+        long rank = (long)Math.ceil(Math.min(Math.max(quantile, 0), 1) * total);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long acc = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            acc += snapshot[i];
+            if (acc >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(snapshot.length - 1);
+    }
+
+    static int bucketIndex(long rt) {
+        if (rt < SUB_BUCKET_COUNT) {
+            return rt <= 0 ? 0 : (int)rt;
+        }
+        if (rt > MAX_TRACKABLE_RT) {
+            return BUCKET_COUNT - 1;
+        }
+        // Position of the highest bit, which is no less than SUB_BUCKET_BITS here.
+        int exponent = 63 - Long.numberOfLeadingZeros(rt);
+        int subBucket = (int)(rt >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
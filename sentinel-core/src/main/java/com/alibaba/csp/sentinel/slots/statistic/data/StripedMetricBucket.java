@@ -0,0 +1,183 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+
+/**
+ * <p>
+ * A {@link MetricBucket} that keeps all counters in {@code long} arrays rather than one
+ * {@link com.alibaba.csp.sentinel.slots.statistic.base.LongAdder} per event.
+ * </p>
+ * <p>
+ * Like {@code LongAdder}, the counters are first updated in a compact base row (one {@code long} per event).
+ * Only when a CAS on the base row fails (i.e. the bucket is contended), a stripe table is allocated,
+ * where every thread updates the stripe selected by its thread ID. So uncontended buckets (the majority)
+ * take only a few dozen bytes, and only the hot buckets pay for the padded stripes.
+ * </p>
+ * <p>
+ * The offset of the array data to the cache line is unknown (it depends on the object header),
+ * so each stripe row is surrounded by 7 {@code long}s of padding: two rows never share a cache line
+ * whatever the alignment.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class StripedMetricBucket extends MetricBucket {
+
+    /**
+     * Padding between rows, so that the last counter of a row and the first counter of
+     * the next row are a cache line (64 bytes) apart.
+     */
+    private static final int PADDING = 7;
+
+    private static final int EVENT_COUNT = MetricEvent.values().length;
+
+    private static final int ROW_LENGTH = PADDING + EVENT_COUNT;
+
+    static final int MAX_STRIPES = 8;
+
+    static final int DEFAULT_STRIPES = stripesFor(Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicReferenceFieldUpdater<StripedMetricBucket, AtomicLongArray> CELLS_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(StripedMetricBucket.class, AtomicLongArray.class, "cells");
+
+    private final int stripeMask;
+
+    /**
+     * Counters of the uncontended updates.
+     */
+    private final AtomicLongArray base = new AtomicLongArray(EVENT_COUNT);
+
+    /**
+     * Stripe table, lazily created on the first contention.
+     */
+    private volatile AtomicLongArray cells;
+
+    public StripedMetricBucket() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes max amount of stripes, which will be rounded up to a power of two (no more than 8)
+     */
+    public StripedMetricBucket(int stripes) {
+        super(false);
+        this.stripeMask = stripesFor(stripes) - 1;
+    }
+
+    static int stripesFor(int n) {
+        int stripes = 1;
+        while (stripes < n && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static int cellIndex(int stripe, MetricEvent event) {
+        return stripe * ROW_LENGTH + PADDING + event.ordinal();
+    }
+
+    private int currentStripe() {
+        return (int)Thread.currentThread().getId() & stripeMask;
+    }
+
+    public int stripes() {
+        return stripeMask + 1;
+    }
+
+    /**
+     * @return whether the stripe table has been created due to contention
+     */
+    boolean isInflated() {
+        return cells != null;
+    }
+
+    private AtomicLongArray inflate() {
+        AtomicLongArray cs = cells;
+        if (cs == null) {
+            // The trailing padding separates the last row from the following objects.
+            cs = new AtomicLongArray(stripes() * ROW_LENGTH + PADDING);
+            if (!CELLS_UPDATER.compareAndSet(this, null, cs)) {
+                cs = cells;
+            }
+        }
+        return cs;
+    }
+
+    @Override
+    public MetricBucket reset(MetricBucket bucket) {
+        resetCells();
+        for (MetricEvent event : MetricEvent.values()) {
+            base.set(event.ordinal(), bucket.get(event));
+        }
+        initMinRt();
+        return this;
+    }
+
+    @Override
+    public MetricBucket reset() {
+        resetCells();
+        initMinRt();
+        return this;
+    }
+
+    private void resetCells() {
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            base.set(i, 0);
+        }
+        // Keep the stripe table once created, as the bucket is reused for the same (hot) resource.
+        AtomicLongArray cs = cells;
+        if (cs != null) {
+            for (int stripe = 0; stripe <= stripeMask; stripe++) {
+                for (MetricEvent event : MetricEvent.values()) {
+                    cs.set(cellIndex(stripe, event), 0);
+                }
+            }
+        }
+    }
+
+    @Override
+    public long get(MetricEvent event) {
+        long sum = base.get(event.ordinal());
+        AtomicLongArray cs = cells;
+        if (cs != null) {
+            for (int stripe = 0; stripe <= stripeMask; stripe++) {
+                sum += cs.get(cellIndex(stripe, event));
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public MetricBucket add(MetricEvent event, long n) {
+        AtomicLongArray cs = cells;
+        if (cs == null) {
+            int i = event.ordinal();
+            long v = base.get(i);
+            if (base.compareAndSet(i, v, v + n)) {
+                return this;
+            }
+            cs = inflate();
+        }
+        cs.getAndAdd(cellIndex(currentStripe(), event), n);
+        return this;
+    }
+}
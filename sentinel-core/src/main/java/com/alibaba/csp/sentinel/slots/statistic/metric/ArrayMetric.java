@@ -24,6 +24,7 @@ import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
 import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.slots.statistic.metric.occupy.LockFreeOccupiableBucketLeapArray;
 import com.alibaba.csp.sentinel.slots.statistic.metric.occupy.OccupiableBucketLeapArray;
 import com.alibaba.csp.sentinel.util.function.Predicate;
 
@@ -38,14 +39,17 @@ public class ArrayMetric implements Metric {
     private final LeapArray<MetricBucket> data;
 
     public ArrayMetric(int sampleCount, int intervalInMs) {
-        this.data = new OccupiableBucketLeapArray(sampleCount, intervalInMs);
+        this(sampleCount, intervalInMs, true);
     }
 
     public ArrayMetric(int sampleCount, int intervalInMs, boolean enableOccupy) {
+        boolean lockFree = SentinelConfig.lockFreeStatisticWindow();
         if (enableOccupy) {
-            this.data = new OccupiableBucketLeapArray(sampleCount, intervalInMs);
+            this.data = lockFree ? new LockFreeOccupiableBucketLeapArray(sampleCount, intervalInMs)
+                : new OccupiableBucketLeapArray(sampleCount, intervalInMs);
         } else {
-            this.data = new BucketLeapArray(sampleCount, intervalInMs);
+            this.data = lockFree ? new LockFreeBucketLeapArray(sampleCount, intervalInMs)
+                : new BucketLeapArray(sampleCount, intervalInMs);
         }
     }
 
@@ -189,19 +193,42 @@ public class ArrayMetric implements Metric {
 
     private MetricNode fromBucket(WindowWrap<MetricBucket> wrap) {
         MetricNode node = new MetricNode();
-        node.setBlockQps(wrap.value().block());
-        node.setExceptionQps(wrap.value().exception());
-        node.setPassQps(wrap.value().pass());
-        long successQps = wrap.value().success();
+        fillNode(node, wrap.windowStart(), wrap.value());
+        return node;
+    }
+
+    private void fillNode(MetricNode node, long windowStart, MetricBucket bucket) {
+        node.setBlockQps(bucket.block());
+        node.setExceptionQps(bucket.exception());
+        node.setPassQps(bucket.pass());
+        long successQps = bucket.success();
         node.setSuccessQps(successQps);
         if (successQps != 0) {
-            node.setRt(wrap.value().rt() / successQps);
+            node.setRt(bucket.rt() / successQps);
         } else {
-            node.setRt(wrap.value().rt());
+            node.setRt(bucket.rt());
         }
-        node.setTimestamp(wrap.windowStart());
-        node.setOccupiedPassQps(wrap.value().occupiedPass());
-        return node;
+        node.setTimestamp(windowStart);
+        node.setOccupiedPassQps(bucket.occupiedPass());
+    }
+
+    /**
+     * Fill the statistics of the bucket exactly associated to provided timestamp into the given node.
+     * Note: this operation will not perform refreshing, so will not generate new buckets.
+     *
+     * @param timeMillis valid time in ms
+     * @param node       the node to fill, which is untouched if the bucket is absent
+     * @return true if the bucket is present, otherwise false
+     * @since 1.8.0
+     */
+    public boolean fillWindowDetail(long timeMillis, MetricNode node) {
+        MetricBucket bucket = data.getWindowValue(timeMillis);
+        if (bucket == null) {
+            return false;
+        }
+        int windowLength = data.getIntervalInMs() / data.getSampleCount();
+        fillNode(node, timeMillis - timeMillis % windowLength, bucket);
+        return true;
     }
 
     @Override
@@ -0,0 +1,45 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.metric;
+
+import com.alibaba.csp.sentinel.slots.statistic.base.LockFreeLeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucketFactory;
+
+/**
+ * The lock-free variant of {@link BucketLeapArray}, which rotates buckets via a single CAS
+ * and does not allocate any bucket after construction.
+ *
+ * @author agent
+ * @see LockFreeLeapArray
+ * @since 1.8.0
+ */
+public class LockFreeBucketLeapArray extends LockFreeLeapArray<MetricBucket> {
+
+    public LockFreeBucketLeapArray(int sampleCount, int intervalInMs) {
+        super(sampleCount, intervalInMs);
+    }
+
+    @Override
+    public MetricBucket newEmptyBucket(long time) {
+        return MetricBucketFactory.newBucket();
+    }
+
+    @Override
+    protected void resetBucket(MetricBucket bucket) {
+        bucket.reset();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.metric;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.slots.statistic.base.LockFreeLeapArray;
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.slots.statistic.data.RtHistogram;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * Sliding window of {@link RtHistogram}, which supports percentile queries over a range of recent buckets.
+ * </p>
+ * <p>
+ * The buckets are rotated lock-free and never allocated after construction, so the memory of the array
+ * is fixed: {@code (sampleCount * 2 + 1)} histograms.
+ * </p>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class RtHistogramLeapArray extends LockFreeLeapArray<RtHistogram> {
+
+    public RtHistogramLeapArray(int sampleCount, int intervalInMs) {
+        super(sampleCount, intervalInMs);
+    }
+
+    @Override
+    public RtHistogram newEmptyBucket(long time) {
+        return new RtHistogram();
+    }
+
+    @Override
+    protected void resetBucket(RtHistogram bucket) {
+        bucket.reset();
+    }
+
+    /**
+     * Record the response time of given number of requests in the current bucket.
+     *
+     * @param rt    response time in milliseconds
+     * @param count request count
+     */
+    public void addRt(long rt, int count) {
+        currentWindow().value().add(rt, count);
+    }
+
+    /**
+     * Get the response time at given quantile of the buckets that start in {@code [startTime, endTime)}.
+     *
+     * @param startTime start time (inclusive) in milliseconds
+     * @param endTime   end time (exclusive) in milliseconds
+     * @param quantile  quantile in (0, 1]
+     * @return the response time at the quantile, or -1 if there is no request in the range
+     */
+    public long percentile(long startTime, long endTime, double quantile) {
+        return RtHistogram.percentile(snapshot(startTime, endTime), quantile);
+    }
+
+    /**
+     * Get the response time at given quantile of the recent buckets within {@code rangeInMs}
+     * (including the current bucket).
+     *
+     * @param rangeInMs time range in milliseconds, which should not be greater than the interval
+     * @param quantile  quantile in (0, 1]
+     * @return the response time at the quantile, or -1 if there is no request in the range
+     */
+    public long recentPercentile(int rangeInMs, double quantile) {
+        long currentTime = TimeUtil.currentTimeMillis();
+        long currentStart = currentTime - currentTime % windowLengthInMs;
+        return percentile(currentStart + windowLengthInMs - rangeInMs, currentStart + windowLengthInMs,
+            quantile);
+    }
+
+    /**
+     * Merge the buckets that start in {@code [startTime, endTime)} into a snapshot of bucket counts.
+     *
+     * @param startTime start time (inclusive) in milliseconds
+     * @param endTime   end time (exclusive) in milliseconds
+     * @return the merged snapshot, see {@link RtHistogram#percentile(long[], double)}
+     */
+    public long[] snapshot(long startTime, long endTime) {
+        long[] snapshot = RtHistogram.newSnapshot();
+        List<WindowWrap<RtHistogram>> windows = list();
+        for (WindowWrap<RtHistogram> window : windows) {
+            long windowStart = window.windowStart();
+            if (windowStart >= startTime && windowStart < endTime) {
+                window.value().mergeTo(snapshot);
+            }
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.metric.occupy;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.metric.LockFreeBucketLeapArray;
+
+/**
+ * The lock-free variant of {@link OccupiableBucketLeapArray}. The borrowed (occupied) pass count
+ * of the future bucket will be added to the bucket when it is activated.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public class LockFreeOccupiableBucketLeapArray extends LockFreeBucketLeapArray {
+
+    private final FutureBucketLeapArray borrowArray;
+
+    public LockFreeOccupiableBucketLeapArray(int sampleCount, int intervalInMs) {
+        super(sampleCount, intervalInMs);
+        this.borrowArray = new FutureBucketLeapArray(sampleCount, intervalInMs);
+    }
+
+    @Override
+    protected void onWindowActivated(WindowWrap<MetricBucket> windowWrap, long startTime) {
+        MetricBucket borrowBucket = borrowArray.getWindowValue(startTime);
+        if (borrowBucket != null) {
+            windowWrap.value().addPass((int)borrowBucket.pass());
+        }
+    }
+
+    @Override
+    public long currentWaiting() {
+        borrowArray.currentWindow();
+        long currentWaiting = 0;
+        List<MetricBucket> list = borrowArray.values();
+
+        for (MetricBucket window : list) {
+            currentWaiting += window.pass();
+        }
+        return currentWaiting;
+    }
+
+    @Override
+    public void addWaiting(long time, int acquireCount) {
+        WindowWrap<MetricBucket> window = borrowArray.currentWindow(time);
+        window.value().add(MetricEvent.PASS, acquireCount);
+    }
+}
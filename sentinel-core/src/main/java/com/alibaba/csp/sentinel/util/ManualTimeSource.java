@@ -0,0 +1,68 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util;
+
+/**
+ * <p>
+ * A {@link TimeSource} whose time only moves when it is set or advanced manually.
+ * </p>
+ * <p>
+ * It is useful for deterministic tests and benchmarks of time-based components
+ * (e.g. {@code LeapArray} and traffic shaping controllers):
+ * </p>
+ * <pre>
+ * ManualTimeSource timeSource = new ManualTimeSource(0);
+ * TimeUtil.setTimeSource(timeSource);
+ * // ...
+ * timeSource.advance(500);
+ * // ...
+ * TimeUtil.resetTimeSource();
+ * </pre>
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+public final class ManualTimeSource implements TimeSource {
+
+    private volatile long currentTimeMillis;
+
+    public ManualTimeSource(long currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+
+    public ManualTimeSource setCurrentTimeMillis(long currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+        return this;
+    }
+
+    /**
+     * Move the time forward.
+     *
+     * @param millis time to move forward in milliseconds
+     * @return the current time after advancing
+     */
+    public synchronized long advance(long millis) {
+        AssertUtil.isTrue(millis >= 0, "millis should not be negative");
+        long time = currentTimeMillis + millis;
+        this.currentTimeMillis = time;
+        return time;
+    }
+}
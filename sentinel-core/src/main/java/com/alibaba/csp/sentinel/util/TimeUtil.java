@@ -16,37 +16,187 @@
 package com.alibaba.csp.sentinel.util;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Provides millisecond-level time of OS.
+ * <p>Provides millisecond-level time of OS.</p>
+ *
+ * <p>
+ * The clock adapts to the read frequency:
+ * <ul>
+ * <li>Under low traffic ({@code STATE_IDLE}), the time is read from {@link System#currentTimeMillis()} directly,
+ * and the {@code sentinel-time-tick-thread} is parked, so there is no wakeup at all when the process is idle.</li>
+ * <li>Once the reads exceed {@code IDLE_READS_UPPER_BOUND} within {@code IDLE_CHECK_INTERVAL_MS},
+ * the tick thread is woken up ({@code STATE_TICKING}) and refreshes the cached time every millisecond,
+ * so that readers only read a volatile field.</li>
+ * <li>The tick thread samples whether the cached time has been read during each tick. If fewer than
+ * {@code TICKING_TOUCHED_LOWER_BOUND} of the last {@code TICKING_CHECK_TICKS} ticks have been read,
+ * it switches back to direct reads and parks itself.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>A custom {@link TimeSource} (e.g. {@link ManualTimeSource}) could be plugged in via
+ * {@link #setTimeSource(TimeSource)}, which is useful for deterministic tests and benchmarks.</p>
  *
  * @author qinan.qn
+ * @author agent
  */
 public final class TimeUtil {
 
-    private static volatile long currentTimeMillis;
+    static final int STATE_IDLE = 0;
+    static final int STATE_TICKING = 1;
+    static final int STATE_CUSTOM = 2;
+
+    static final long IDLE_CHECK_INTERVAL_MS = 1000;
+    static final long IDLE_READS_UPPER_BOUND = 1000;
+    static final int TICKING_CHECK_TICKS = 3000;
+    static final int TICKING_TOUCHED_LOWER_BOUND = 300;
+
+    public static long currentTimeMillis() {
+        return AdaptiveClock.read();
+    }
+
+    /**
+     * Plug in a custom time source. All later reads of {@link #currentTimeMillis()} will be served by the source
+     * until {@link #resetTimeSource()} is invoked.
+     *
+     * @param source valid time source
+     * @since 1.8.0
+     */
+    public static void setTimeSource(TimeSource source) {
+        AssertUtil.notNull(source, "timeSource cannot be null");
+        AdaptiveClock.setTimeSource(source);
+    }
+
+    /**
+     * Restore the OS time source (starting with direct reads).
+     *
+     * @since 1.8.0
+     */
+    public static void resetTimeSource() {
+        AdaptiveClock.resetTimeSource();
+    }
+
+    static int getState() {
+        return AdaptiveClock.state.get();
+    }
+
+    /**
+     * Holds the clock state and the tick thread. It's kept out of {@link TimeUtil} so that mocking the static
+     * methods of {@link TimeUtil} in tests won't break the real clock.
+     */
+    private static final class AdaptiveClock {
+
+        static final AtomicInteger state = new AtomicInteger(STATE_IDLE);
+
+        static volatile long currentTimeMillis;
+        /**
+         * Whether the cached time has been read since the last tick.
+         */
+        static volatile boolean touched = false;
+
+        static final AtomicLong idleReads = new AtomicLong();
+        static volatile long idleWindowStart;
+
+        static volatile TimeSource timeSource;
+
+        static final Thread TICK_THREAD;
 
-    static {
-        currentTimeMillis = System.currentTimeMillis();
-        Thread daemon = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                while (true) {
-                    currentTimeMillis = System.currentTimeMillis();
-                    try {
-                        TimeUnit.MILLISECONDS.sleep(1);
-                    } catch (Throwable e) {
+        static {
+            currentTimeMillis = System.currentTimeMillis();
+            idleWindowStart = currentTimeMillis;
+            TICK_THREAD = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    tickLoop();
+                }
+            });
+            TICK_THREAD.setDaemon(true);
+            TICK_THREAD.setName("sentinel-time-tick-thread");
+            TICK_THREAD.start();
+        }
+
+        static long read() {
+            int s = state.get();
+            if (s == STATE_TICKING) {
+                if (!touched) {
+                    touched = true;
+                }
+                return currentTimeMillis;
+            }
+            if (s == STATE_IDLE) {
+                return readInIdle();
+            }
+            TimeSource source = timeSource;
+            return source == null ? System.currentTimeMillis() : source.currentTimeMillis();
+        }
+
+        static void setTimeSource(TimeSource source) {
+            timeSource = source;
+            state.set(STATE_CUSTOM);
+        }
+
+        static void resetTimeSource() {
+            if (state.compareAndSet(STATE_CUSTOM, STATE_IDLE)) {
+                idleReads.set(0);
+                idleWindowStart = System.currentTimeMillis();
+            }
+            timeSource = null;
+        }
+
+        static long readInIdle() {
+            long now = System.currentTimeMillis();
+            if (now - idleWindowStart >= IDLE_CHECK_INTERVAL_MS) {
+                // Start a new window. The race here only makes the estimation a little inaccurate.
+                idleWindowStart = now;
+                idleReads.set(0);
+            }
+            if (idleReads.incrementAndGet() >= IDLE_READS_UPPER_BOUND) {
+                currentTimeMillis = now;
+                if (state.compareAndSet(STATE_IDLE, STATE_TICKING)) {
+                    LockSupport.unpark(TICK_THREAD);
+                }
+            }
+            return now;
+        }
 
+        static void tickLoop() {
+            int ticks = 0;
+            int touchedTicks = 0;
+            while (true) {
+                if (state.get() != STATE_TICKING) {
+                    ticks = 0;
+                    touchedTicks = 0;
+                    // No traffic (or a custom time source), just park until the readers wake the thread up.
+                    LockSupport.park(AdaptiveClock.class);
+                    continue;
+                }
+                currentTimeMillis = System.currentTimeMillis();
+                if (touched) {
+                    touched = false;
+                    touchedTicks++;
+                }
+                if (++ticks >= TICKING_CHECK_TICKS) {
+                    if (touchedTicks < TICKING_TOUCHED_LOWER_BOUND
+                        && state.compareAndSet(STATE_TICKING, STATE_IDLE)) {
+                        idleReads.set(0);
+                        idleWindowStart = currentTimeMillis;
                     }
+                    ticks = 0;
+                    touchedTicks = 0;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(1);
+                } catch (Throwable e) {
+                    // Ignore.
                 }
             }
-        });
-        daemon.setDaemon(true);
-        daemon.setName("sentinel-time-tick-thread");
-        daemon.start();
-    }
+        }
 
-    public static long currentTimeMillis() {
-        return currentTimeMillis;
+        private AdaptiveClock() {}
     }
+
+    private TimeUtil() {}
 }
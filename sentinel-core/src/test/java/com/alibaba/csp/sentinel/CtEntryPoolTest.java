@@ -0,0 +1,111 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import java.util.Collections;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextTestUtil;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link CtEntryPool}.
+ *
+ * @author agent
+ */
+public class CtEntryPoolTest {
+
+    @Before
+    public void setUp() {
+        ContextTestUtil.cleanUpContext();
+        Constants.ENTRY_POOL_ON = true;
+    }
+
+    @After
+    public void tearDown() {
+        Constants.ENTRY_POOL_ON = false;
+        FlowRuleManager.loadRules(null);
+        ContextTestUtil.cleanUpContext();
+    }
+
+    @Test
+    public void testRecycleEntryAndContext() throws BlockException {
+        ResourceHandle handle = SphU.resource("testRecycleEntryAndContext");
+        Entry first = SphU.entry(handle);
+        Context firstContext = ContextUtil.getContext();
+        assertTrue(first instanceof CtEntry);
+        assertTrue(((CtEntry)first).pooled);
+        first.exit();
+        assertNull(ContextUtil.getContext());
+
+        Entry second = SphU.entry(handle);
+        assertSame(first, second);
+        assertSame(firstContext, ContextUtil.getContext());
+        assertSame(second, ContextUtil.getContext().getCurEntry());
+        assertNull(second.getBlockError());
+        assertSame(handle.getResource(), second.getResourceWrapper());
+        second.exit();
+    }
+
+    @Test
+    public void testNestedEntries() throws BlockException {
+        int pooledSize = CtEntryPool.pooledSize();
+        Entry outer = SphU.entry("testNestedEntriesOuter");
+        Entry inner = SphU.entry("testNestedEntriesInner");
+        assertNotSame(outer, inner);
+        assertSame(outer, ((CtEntry)inner).parent);
+
+        inner.exit();
+        assertSame(outer, ContextUtil.getContext().getCurEntry());
+        outer.exit();
+        assertNull(ContextUtil.getContext());
+        // Both entries are recycled for later nested invocations.
+        assertEquals(Math.max(pooledSize, 2), CtEntryPool.pooledSize());
+    }
+
+    @Test
+    public void testDuplicateExitShouldNotRecycleTwice() throws BlockException {
+        Entry entry = SphU.entry("testDuplicateExitShouldNotRecycleTwice");
+        entry.exit();
+        int pooledSize = CtEntryPool.pooledSize();
+        entry.exit();
+        assertEquals(pooledSize, CtEntryPool.pooledSize());
+    }
+
+    @Test
+    public void testBlockedEntryRecycled() throws BlockException {
+        String resourceName = "testBlockedEntryRecycled";
+        FlowRuleManager.loadRules(Collections.singletonList(new FlowRule(resourceName).setCount(0)));
+        SphU.entry("testBlockedEntryRecycledWarmUp").exit();
+        int pooledSize = CtEntryPool.pooledSize();
+        try {
+            SphU.entry(resourceName);
+            fail("should be blocked");
+        } catch (BlockException ex) {
+            assertNull(ContextUtil.getContext());
+        }
+        assertEquals(pooledSize, CtEntryPool.pooledSize());
+    }
+}
@@ -18,12 +18,18 @@ package com.alibaba.csp.sentinel;
 import static org.junit.Assert.*;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 
 import org.junit.Test;
 
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slotchain.ResourceIdRegistry;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowException;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 
 /**
  * Test cases for {@link SphU}.
@@ -157,4 +163,47 @@ public class SphUTest {
 
         e.exit(2, arg0, arg1);
     }
+
+    @Test
+    public void testResourceIdAssignedWithSlotChain() throws BlockException {
+        String resourceName = "testResourceIdAssignedWithSlotChain";
+        StringResourceWrapper wrapper = new StringResourceWrapper(resourceName, EntryType.IN);
+        assertEquals(ResourceIdRegistry.NO_ID, wrapper.getResourceId());
+        assertEquals(ResourceIdRegistry.NO_ID, ResourceIdRegistry.getId(resourceName));
+
+        SphU.entry(resourceName).exit();
+        // The registry may be filled by other tests, but the wrapper should resolve the same ID lazily.
+        assertEquals(ResourceIdRegistry.getId(resourceName), wrapper.getResourceId());
+    }
+
+    @Test
+    public void testResourceHandleEntry() throws BlockException {
+        ResourceHandle handle = SphU.resource("testResourceHandleEntry", EntryType.IN);
+        assertEquals("testResourceHandleEntry", handle.getName());
+        assertEquals(handle.getResourceId(), SphU.resource("testResourceHandleEntry").getResourceId());
+
+        Entry e = SphU.entry(handle);
+        // The ID is assigned with the slot chain rather than the resource wrapper.
+        assertEquals(ResourceIdRegistry.getId("testResourceHandleEntry"), handle.getResourceId());
+        assertSame(handle.getResource(), e.resourceWrapper);
+        assertEquals(EntryType.IN, e.resourceWrapper.getEntryType());
+        e.exit();
+
+        Entry asyncEntry = SphU.asyncEntry(handle);
+        assertSame(handle.getResource(), asyncEntry.resourceWrapper);
+        asyncEntry.exit();
+    }
+
+    @Test(expected = FlowException.class)
+    public void testResourceHandleEntryBlocked() throws BlockException {
+        String resourceName = "testResourceHandleEntryBlocked";
+        ResourceHandle handle = SphU.resource(resourceName);
+        FlowRule rule = new FlowRule(resourceName).setCount(0);
+        FlowRuleManager.loadRules(Collections.singletonList(rule));
+        try {
+            SphU.entry(handle);
+        } finally {
+            FlowRuleManager.loadRules(null);
+        }
+    }
 }
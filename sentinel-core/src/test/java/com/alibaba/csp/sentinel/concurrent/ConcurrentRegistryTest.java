@@ -0,0 +1,131 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.util.function.Function;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ConcurrentRegistry}.
+ *
+ * @author agent
+ */
+public class ConcurrentRegistryTest {
+
+    @Test
+    public void testGetOrCreate() {
+        ConcurrentRegistry<String, Object> registry = new ConcurrentRegistry<>();
+        final AtomicInteger created = new AtomicInteger();
+        Function<String, Object> factory = new Function<String, Object>() {
+            @Override
+            public Object apply(String s) {
+                created.incrementAndGet();
+                return new Object();
+            }
+        };
+        assertNull(registry.get("a"));
+        Object a = registry.getOrCreate("a", factory);
+        assertNotNull(a);
+        assertSame(a, registry.getOrCreate("a", factory));
+        assertSame(a, registry.get("a"));
+        assertEquals(1, created.get());
+        assertEquals(1, registry.size());
+        assertTrue(registry.asMap().containsKey("a"));
+
+        registry.clear();
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        ConcurrentRegistry<Integer, Integer> registry = new ConcurrentRegistry<>(2);
+        Function<Integer, Integer> factory = new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer i) {
+                return i;
+            }
+        };
+        assertEquals(Integer.valueOf(1), registry.getOrCreate(1, factory));
+        assertEquals(Integer.valueOf(2), registry.getOrCreate(2, factory));
+        assertNull(registry.getOrCreate(3, factory));
+        // Present values are still available.
+        assertEquals(Integer.valueOf(1), registry.getOrCreate(1, factory));
+    }
+
+    @Test
+    public void testConcurrentCreateOnlyOnce() throws Exception {
+        final ConcurrentRegistry<Integer, Object> registry = new ConcurrentRegistry<>();
+        final AtomicInteger created = new AtomicInteger();
+        final Function<Integer, Object> factory = new Function<Integer, Object>() {
+            @Override
+            public Object apply(Integer i) {
+                created.incrementAndGet();
+                return new Object();
+            }
+        };
+        final int nThreads = 16;
+        final int keys = 500;
+        final CountDownLatch latch = new CountDownLatch(nThreads);
+        for (int t = 0; t < nThreads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < keys; i++) {
+                        registry.getOrCreate(i, factory);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertEquals(keys, registry.size());
+        assertEquals(keys, created.get());
+    }
+
+    @Test
+    public void testMaxSizeIsStrictUnderConcurrency() throws Exception {
+        final int maxSize = 100;
+        final ConcurrentRegistry<Integer, Object> registry = new ConcurrentRegistry<>(maxSize);
+        final Function<Integer, Object> factory = new Function<Integer, Object>() {
+            @Override
+            public Object apply(Integer i) {
+                return new Object();
+            }
+        };
+        final int nThreads = 16;
+        final CountDownLatch latch = new CountDownLatch(nThreads);
+        for (int t = 0; t < nThreads; t++) {
+            final int offset = t * 1000;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        registry.getOrCreate(offset + i, factory);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertEquals(maxSize, registry.size());
+    }
+}
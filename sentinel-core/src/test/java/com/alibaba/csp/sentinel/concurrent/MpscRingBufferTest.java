@@ -0,0 +1,92 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MpscRingBuffer}.
+ *
+ * @author agent
+ */
+public class MpscRingBufferTest {
+
+    @Test
+    public void testOfferAndPoll() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<Integer>(3);
+        assertEquals(4, buffer.capacity());
+        assertNull(buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(Integer.valueOf(0), buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testMultipleProducers() throws Exception {
+        final MpscRingBuffer<Long> buffer = new MpscRingBuffer<Long>(64);
+        final int producers = 4;
+        final int perProducer = 20000;
+        final CountDownLatch latch = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            final long base = (long)p * perProducer;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+
+        long[] lastOfProducer = new long[producers];
+        for (int p = 0; p < producers; p++) {
+            lastOfProducer[p] = (long)p * perProducer - 1;
+        }
+        int received = 0;
+        while (received < producers * perProducer) {
+            Long value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            int p = (int)(value / perProducer);
+            // Elements of the same producer are received in order, without loss or duplication.
+            assertEquals(lastOfProducer[p] + 1, value.longValue());
+            lastOfProducer[p] = value;
+            received++;
+        }
+        latch.await();
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.concurrent;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link SettableFuture}.
+ *
+ * @author agent
+ */
+public class SettableFutureTest {
+
+    @Test
+    public void testSetAndNotifyListeners() throws Exception {
+        SettableFuture<String> future = new SettableFuture<>();
+        final AtomicInteger notified = new AtomicInteger();
+        Consumer<SettableFuture<String>> listener = new Consumer<SettableFuture<String>>() {
+            @Override
+            public void accept(SettableFuture<String> f) {
+                assertEquals("ok", f.getNow());
+                notified.incrementAndGet();
+            }
+        };
+        future.addListener(listener);
+        assertFalse(future.isDone());
+        assertEquals(0, notified.get());
+
+        assertTrue(future.set("ok"));
+        assertFalse(future.set("again"));
+        assertEquals(1, notified.get());
+        assertTrue(future.isSuccess());
+        assertEquals("ok", future.get());
+
+        // Listeners added after completion are invoked immediately.
+        future.addListener(listener);
+        assertEquals(2, notified.get());
+    }
+
+    @Test
+    public void testSetException() throws Exception {
+        SettableFuture<String> future = new SettableFuture<>();
+        IllegalStateException cause = new IllegalStateException("failed");
+        assertTrue(future.setException(cause));
+        assertFalse(future.isSuccess());
+        assertSame(cause, future.getCause());
+        assertNull(future.getNow());
+        try {
+            future.get();
+            fail("should fail");
+        } catch (ExecutionException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancel() throws Exception {
+        SettableFuture<String> future = new SettableFuture<>();
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        assertFalse(future.set("ok"));
+        future.get();
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testGetTimeout() throws Exception {
+        new SettableFuture<String>().get(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testGetFromAnotherThread() throws Exception {
+        final SettableFuture<Integer> future = new SettableFuture<>();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                future.set(42);
+            }
+        }).start();
+        assertEquals(42, (int)future.get(5, TimeUnit.SECONDS));
+    }
+}
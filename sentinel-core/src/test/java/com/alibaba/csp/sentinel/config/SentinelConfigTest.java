@@ -26,6 +26,8 @@ public class SentinelConfigTest {
         assertEquals(SentinelConfig.DEFAULT_TOTAL_METRIC_FILE_COUNT, SentinelConfig.totalMetricFileCount());
         assertEquals(SentinelConfig.DEFAULT_COLD_FACTOR, SentinelConfig.coldFactor());
         assertEquals(SentinelConfig.DEFAULT_STATISTIC_MAX_RT, SentinelConfig.statisticMaxRt());
+        assertEquals(SentinelConfig.DEFAULT_STATISTIC_LOCK_FREE_WINDOW, SentinelConfig.lockFreeStatisticWindow());
+        assertEquals(SentinelConfig.DEFAULT_ENTRY_POOL_ENABLED, SentinelConfig.entryPoolEnabled());
     }
 
     //    add JVM parameter
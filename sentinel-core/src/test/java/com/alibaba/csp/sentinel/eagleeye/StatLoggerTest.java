@@ -0,0 +1,131 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.eagleeye;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link StatLogger}.
+ *
+ * @author agent
+ */
+public class StatLoggerTest {
+
+    @Test
+    public void testCountConcurrently() throws Exception {
+        final StatLogger logger = newLogger(new CapturingAppender(), 100);
+        final int threads = 4;
+        final int perThread = 10000;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        logger.count("res" + (i % 10), "FlowException", "default", "", 1);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // The entry counted via StatEntry is the same one.
+        logger.stat("res0", "FlowException", "default", "").count(5);
+
+        Map<String, Long> counts = countsOf(logger.rolling());
+        assertEquals(10, counts.size());
+        assertEquals(Long.valueOf(threads * perThread / 10 + 5), counts.get("res0,FlowException,default,"));
+        assertEquals(Long.valueOf(threads * perThread / 10), counts.get("res9,FlowException,default,"));
+        assertEquals(0, logger.getRollingData().getStatCount());
+    }
+
+    @Test
+    public void testSwapWhenFull() throws Exception {
+        CapturingAppender appender = new CapturingAppender();
+        StatLogger logger = newLogger(appender, 2);
+        logger.count("a", null, 1);
+        logger.count("b", null, 2);
+        // The table is full, so the entries above are written in advance.
+        logger.count("c", null, 3);
+        logger.count("a", null, 4);
+
+        Map<String, Long> counts = countsOf(logger.getRollingData());
+        assertEquals(2, counts.size());
+        assertEquals(Long.valueOf(3), counts.get("c,null"));
+        assertEquals(Long.valueOf(4), counts.get("a,null"));
+
+        assertTrue(appender.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(2, appender.logs.size());
+    }
+
+    @Test
+    public void testGrowAndSizeFromPreviousSlot() {
+        StatLogger logger = newLogger(new CapturingAppender(), 6000);
+        StatRollingData data = logger.getRollingData();
+        // An idle logger only holds a small table.
+        assertEquals(16, data.getCapacity());
+        for (int i = 0; i < 100; i++) {
+            logger.count("res" + i, null, i);
+        }
+        assertSame(data, logger.getRollingData());
+        assertEquals(100, data.getStatCount());
+        assertEquals(256, data.getCapacity());
+        Map<String, Long> counts = countsOf(data);
+        assertEquals(100, counts.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Long.valueOf(i), counts.get("res" + i + ",null"));
+        }
+
+        logger.rolling();
+        assertEquals(256, logger.getRollingData().getCapacity());
+        logger.rolling();
+        assertEquals(16, logger.getRollingData().getCapacity());
+    }
+
+    private StatLogger newLogger(EagleEyeAppender appender, int maxEntryCount) {
+        return new StatLogger("test", appender, TimeUnit.MINUTES.toMillis(1), maxEntryCount, '|', ',', ',');
+    }
+
+    private Map<String, Long> countsOf(StatRollingData data) {
+        Map<String, Long> counts = new HashMap<String, Long>();
+        for (StatRollingData.Slot slot : data.getStatSlots()) {
+            StringBuilder keys = new StringBuilder();
+            slot.entry.appendTo(keys, ',');
+            counts.put(keys.toString(), (Long)slot.func.getValues()[0]);
+        }
+        return counts;
+    }
+
+    private static class CapturingAppender extends EagleEyeAppender {
+        final List<String> logs = new CopyOnWriteArrayList<String>();
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        @Override
+        public void append(String log) {
+            logs.add(log);
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.log.jul;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link AsyncLogHandler}.
+ *
+ * @author agent
+ */
+public class AsyncLogHandlerTest {
+
+    @Test
+    public void testPublishInFlusherThread() throws Exception {
+        CapturingHandler delegate = new CapturingHandler(null);
+        AsyncLogHandler handler = new AsyncLogHandler(delegate, 16, false, "test");
+        for (int i = 0; i < 10; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message-" + i));
+        }
+        handler.close();
+
+        assertTrue(delegate.closed);
+        assertEquals(10, delegate.records.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("message-" + i, delegate.records.get(i).getMessage());
+        }
+        assertFalse(delegate.threads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CapturingHandler delegate = new CapturingHandler(blocker);
+        AsyncLogHandler handler = new AsyncLogHandler(delegate, 4, false, "test-drop");
+        // The first record blocks the flusher, so the buffer holds at most 4 records.
+        handler.publish(new LogRecord(Level.INFO, "first"));
+        while (handler.getPendingCount() > 0) {
+            Thread.sleep(1);
+        }
+        for (int i = 0; i < 10; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message-" + i));
+        }
+        assertEquals(6, handler.getDroppedCount());
+        blocker.countDown();
+        handler.close();
+
+        // The first record, the 4 buffered ones and the warning of the dropped records.
+        assertEquals(6, delegate.records.size());
+        LogRecord warning = delegate.records.get(5);
+        assertEquals(Level.WARNING, warning.getLevel());
+        assertTrue(warning.getMessage().contains("6 log records dropped"));
+    }
+
+    private static class CapturingHandler extends Handler {
+        final List<LogRecord> records = new CopyOnWriteArrayList<LogRecord>();
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+        final CountDownLatch blocker;
+        volatile boolean closed = false;
+
+        CapturingHandler(CountDownLatch blocker) {
+            this.blocker = blocker;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+            threads.add(Thread.currentThread());
+            if (blocker != null) {
+                try {
+                    blocker.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignore) {
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
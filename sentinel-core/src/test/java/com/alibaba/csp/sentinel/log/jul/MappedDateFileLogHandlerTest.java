@@ -0,0 +1,149 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.log.jul;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link MappedDateFileLogHandler}.
+ *
+ * @author agent
+ */
+public class MappedDateFileLogHandlerTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("sentinel-mmap-log", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testWriteAndAppend() throws Exception {
+        String pattern = dir.getAbsolutePath() + File.separator + "record.log.%d";
+        MappedDateFileLogHandler handler = newHandler(pattern, 1024 * 1024, 1);
+        handler.publish(new LogRecord(Level.INFO, "hello"));
+        handler.publish(new LogRecord(Level.WARNING, "你好"));
+        String fileName = handler.getCurrentFileName();
+        handler.close();
+
+        String content = read(fileName);
+        String[] lines = content.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].endsWith(" INFO hello"));
+        assertTrue(lines[1].endsWith(" WARNING 你好"));
+
+        // Continue after the existing content.
+        handler = newHandler(pattern, 1024 * 1024, 1);
+        handler.publish(new LogRecord(Level.INFO, "again"));
+        handler.close();
+        lines = read(fileName).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].endsWith(" INFO again"));
+    }
+
+    @Test
+    public void testRotateSegments() throws Exception {
+        String pattern = dir.getAbsolutePath() + File.separator + "record.log.%d";
+        // About 3 records per segment.
+        MappedDateFileLogHandler handler = newHandler(pattern, 128, 3);
+        for (int i = 0; i < 10; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message-" + i));
+        }
+        String fileName = handler.getCurrentFileName();
+        handler.close();
+
+        assertTrue(fileName.endsWith(".0"));
+        String baseFileName = fileName.substring(0, fileName.length() - 2);
+        assertTrue(read(fileName).contains("message-9"));
+        assertTrue(new File(baseFileName + ".1").exists());
+        assertTrue(new File(baseFileName + ".2").exists());
+        assertFalse(new File(baseFileName + ".3").exists());
+        assertFalse(read(baseFileName + ".2").contains("message-0"));
+        for (String name : new String[] {fileName, baseFileName + ".1", baseFileName + ".2"}) {
+            assertTrue(new File(name).length() <= 128);
+            assertFalse(read(name).contains("\0"));
+        }
+    }
+
+    @Test
+    public void testGrowByWindows() throws Exception {
+        assertTrue(MappedDateFileLogHandler.isSupported());
+        String pattern = dir.getAbsolutePath() + File.separator + "record.log.%d";
+        int limit = MappedDateFileLogHandler.WINDOW_SIZE * 8;
+        MappedDateFileLogHandler handler = newHandler(pattern, limit, 1);
+        handler.publish(new LogRecord(Level.INFO, "hello"));
+        String fileName = handler.getCurrentFileName();
+        // Only a window is mapped, rather than the whole segment.
+        assertEquals(MappedDateFileLogHandler.WINDOW_SIZE, new File(fileName).length());
+
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 1024; i++) {
+            message.append('x');
+        }
+        int records = MappedDateFileLogHandler.WINDOW_SIZE / 1024 + 1;
+        for (int i = 0; i < records; i++) {
+            handler.publish(new LogRecord(Level.INFO, message.toString()));
+        }
+        long length = new File(fileName).length();
+        assertTrue(length > MappedDateFileLogHandler.WINDOW_SIZE && length < limit);
+        handler.close();
+
+        String content = read(fileName);
+        assertFalse(content.contains("\0"));
+        assertEquals(records + 1, content.split("\n").length);
+    }
+
+    private MappedDateFileLogHandler newHandler(String pattern, int limit, int count) throws Exception {
+        MappedDateFileLogHandler handler = new MappedDateFileLogHandler(pattern, limit, count, true);
+        handler.setFormatter(new CspFormatter());
+        handler.setEncoding("utf-8");
+        return handler;
+    }
+
+    private String read(String fileName) throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(fileName, "r");
+        try {
+            byte[] bytes = new byte[(int)raf.length()];
+            raf.readFully(bytes);
+            return new String(bytes, Charset.forName("utf-8"));
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -15,6 +15,13 @@
  */
 package com.alibaba.csp.sentinel.node;
 
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -27,6 +34,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.*;
 
@@ -125,4 +133,165 @@ public class ClusterNodeTest {
             }
         }
     }
+
+    @Test
+    public void testOriginsBeyondLimitShareOtherNode() {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_MAX_ORIGINS, "2");
+        try {
+            ClusterNode clusterNode = new ClusterNode("testLimitedOrigins");
+            Node originNode1 = clusterNode.getOrCreateOriginNode("origin1");
+            Node originNode2 = clusterNode.getOrCreateOriginNode("origin2");
+            assertNull(clusterNode.getOtherOriginNode());
+
+            Node otherNode = clusterNode.getOrCreateOriginNode("origin3");
+            assertSame(clusterNode.getOtherOriginNode(), otherNode);
+            assertSame(otherNode, clusterNode.getOrCreateOriginNode("origin4"));
+            assertNotSame(originNode1, otherNode);
+            assertNotSame(originNode2, otherNode);
+            assertEquals(2, clusterNode.getOriginCountMap().size());
+            assertTrue(clusterNode.estimateOtherOriginCount("origin3") >= 1);
+        } finally {
+            SentinelConfig.removeConfig(SentinelConfig.STATISTIC_MAX_ORIGINS);
+        }
+    }
+
+    @Test
+    public void testNamedOriginBeyondLimitHasOwnNode() {
+        final String resourceName = "testNamedOriginBeyondLimit";
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_MAX_ORIGINS, "1");
+        FlowRule rule = new FlowRule(resourceName).setCount(10);
+        rule.setLimitApp("namedOrigin");
+        FlowRuleManager.loadRules(Collections.singletonList(rule));
+        Predicate<String> namedOrigins = new Predicate<String>() {
+            @Override
+            public boolean test(String origin) {
+                return FlowRuleManager.isNamedOrigin(new StringResourceWrapper(resourceName, EntryType.IN), origin);
+            }
+        };
+        try {
+            ClusterNode clusterNode = new ClusterNode(resourceName);
+            // The named origins are not counted in the limit.
+            Node namedNode = clusterNode.getOrCreateOriginNode("namedOrigin", namedOrigins);
+            Node originNode1 = clusterNode.getOrCreateOriginNode("origin1", namedOrigins);
+            assertNotSame(namedNode, originNode1);
+            assertNull(clusterNode.getOtherOriginNode());
+
+            Node otherNode = clusterNode.getOrCreateOriginNode("origin2", namedOrigins);
+            assertSame(clusterNode.getOtherOriginNode(), otherNode);
+            assertSame(namedNode, clusterNode.getOrCreateOriginNode("namedOrigin", namedOrigins));
+            assertSame(namedNode, clusterNode.getOriginCountMap().get("namedOrigin"));
+        } finally {
+            FlowRuleManager.loadRules(null);
+            SentinelConfig.removeConfig(SentinelConfig.STATISTIC_MAX_ORIGINS);
+        }
+    }
+
+    @Test
+    public void testHotOtherOriginReplacesColdestOrigin() {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_MAX_ORIGINS, "2");
+        try {
+            ClusterNode clusterNode = new ClusterNode("testHotOtherOrigin");
+            clusterNode.getOrCreateOriginNode("coldOrigin");
+            clusterNode.getOrCreateOriginNode("hotOrigin1").addPassRequest(100);
+
+            Node node = null;
+            for (int i = 0; i < 16; i++) {
+                node = clusterNode.getOrCreateOriginNode("hotOrigin2");
+            }
+            assertNotSame(clusterNode.getOtherOriginNode(), node);
+            assertSame(node, clusterNode.getOriginCountMap().get("hotOrigin2"));
+            assertTrue(clusterNode.getOriginCountMap().containsKey("hotOrigin1"));
+            assertFalse(clusterNode.getOriginCountMap().containsKey("coldOrigin"));
+        } finally {
+            SentinelConfig.removeConfig(SentinelConfig.STATISTIC_MAX_ORIGINS);
+        }
+    }
+
+    @Test
+    public void testPromotedOriginIsNotReplacedImmediately() {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_MAX_ORIGINS, "1");
+        try {
+            ClusterNode clusterNode = new ClusterNode("testPromotedOrigin");
+            clusterNode.getOrCreateOriginNode("coldOrigin");
+            for (int i = 0; i < 16; i++) {
+                clusterNode.getOrCreateOriginNode("hotOrigin1");
+            }
+            assertTrue(clusterNode.getOriginCountMap().containsKey("hotOrigin1"));
+
+            // The promoted origin starts from 0, but is kept for a while.
+            for (int i = 0; i < 64; i++) {
+                assertSame(clusterNode.getOtherOriginNode(), clusterNode.getOrCreateOriginNode("hotOrigin2"));
+            }
+            assertTrue(clusterNode.getOriginCountMap().containsKey("hotOrigin1"));
+            assertFalse(clusterNode.getOriginCountMap().containsKey("hotOrigin2"));
+        } finally {
+            SentinelConfig.removeConfig(SentinelConfig.STATISTIC_MAX_ORIGINS);
+        }
+    }
+
+    @Test
+    public void testDemotedNamedOriginCountedInLimit() {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_MAX_ORIGINS, "1");
+        final AtomicBoolean named = new AtomicBoolean(true);
+        Predicate<String> namedOrigins = new Predicate<String>() {
+            @Override
+            public boolean test(String origin) {
+                return named.get() && "namedOrigin".equals(origin);
+            }
+        };
+        try {
+            ClusterNode clusterNode = new ClusterNode("testDemotedNamedOrigin");
+            clusterNode.getOrCreateOriginNode("namedOrigin", namedOrigins);
+            clusterNode.getOrCreateOriginNode("origin1", namedOrigins).addPassRequest(100);
+            assertEquals(1, clusterNode.getOtherOriginCount());
+
+            // The rule of the named origin is removed, so its node could be taken over.
+            named.set(false);
+            for (int i = 0; i < 16; i++) {
+                clusterNode.getOrCreateOriginNode("hotOrigin", namedOrigins);
+            }
+            assertFalse(clusterNode.getOriginCountMap().containsKey("namedOrigin"));
+            assertTrue(clusterNode.getOriginCountMap().containsKey("hotOrigin"));
+            assertEquals(2, clusterNode.getOriginCountMap().size());
+            assertEquals(2, clusterNode.getOtherOriginCount());
+        } finally {
+            SentinelConfig.removeConfig(SentinelConfig.STATISTIC_MAX_ORIGINS);
+        }
+    }
+
+    @Test
+    public void testNewlyNamedOriginNotCountedInLimit() {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_MAX_ORIGINS, "1");
+        final AtomicBoolean named = new AtomicBoolean(false);
+        Predicate<String> namedOrigins = new Predicate<String>() {
+            @Override
+            public boolean test(String origin) {
+                return named.get() && "origin1".equals(origin);
+            }
+        };
+        try {
+            ClusterNode clusterNode = new ClusterNode("testNewlyNamedOrigin");
+            clusterNode.getOrCreateOriginNode("origin1", namedOrigins);
+            assertEquals(1, clusterNode.getOtherOriginCount());
+
+            named.set(true);
+            for (int i = 0; i < 16; i++) {
+                clusterNode.getOrCreateOriginNode("origin2", namedOrigins);
+            }
+            assertEquals(0, clusterNode.getOtherOriginCount());
+            Node node = clusterNode.getOrCreateOriginNode("origin3", namedOrigins);
+            assertSame(node, clusterNode.getOriginCountMap().get("origin3"));
+        } finally {
+            SentinelConfig.removeConfig(SentinelConfig.STATISTIC_MAX_ORIGINS);
+        }
+    }
+
+    @Test
+    public void testTailSketchWidth() {
+        assertEquals(256, ClusterNode.tailSketchWidth(1, 0));
+        assertEquals(100 * 16, ClusterNode.tailSketchWidth(100, 0));
+        assertEquals(1 << 14, ClusterNode.tailSketchWidth(Integer.MAX_VALUE, 0));
+        assertEquals(64, ClusterNode.tailSketchWidth(100, 64));
+        assertEquals(1 << 24, ClusterNode.tailSketchWidth(100, Integer.MAX_VALUE));
+    }
 }
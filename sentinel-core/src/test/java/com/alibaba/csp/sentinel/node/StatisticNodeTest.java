@@ -16,9 +16,15 @@
 package com.alibaba.csp.sentinel.node;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricNodeBuffer;
+import com.alibaba.csp.sentinel.node.metric.MetricWriter;
+import com.alibaba.csp.sentinel.util.ManualTimeSource;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -36,7 +42,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
 /**
  * Test cases for {@link StatisticNode}.
@@ -325,4 +336,85 @@ public class StatisticNodeTest {
     }
 
 
+
+    @Test
+    public void testRtPercentiles() {
+        ManualTimeSource timeSource = new ManualTimeSource(100000L);
+        TimeUtil.setTimeSource(timeSource);
+        try {
+            StatisticNode node = new StatisticNode();
+            node.addRtAndSuccess(10, 1);
+            assertFalse(node.isRtHistogramEnabled());
+            assertEquals(-1, node.rtPercentile(0.99));
+
+            node.enableRtHistogram();
+            for (int i = 0; i < 99; i++) {
+                node.addRtAndSuccess(2, 1);
+            }
+            node.addRtAndSuccess(100, 1);
+            assertEquals(2, node.rtPercentile(0.5));
+            assertEquals(2, node.rtPercentile(0.99));
+            assertTrue(node.rtPercentile(0.999) >= 100);
+
+            timeSource.advance(1000);
+            assertEquals(-1, node.rtPercentile(0.99));
+            Map<Long, MetricNode> metrics = node.metrics();
+            MetricNode metricNode = metrics.get(100000L);
+            assertEquals(2, metricNode.getRtP50());
+            assertEquals(2, metricNode.getRtP99());
+            assertTrue(metricNode.getRtP999() >= 100);
+
+            node.disableRtHistogram();
+            assertEquals(-1, node.rtPercentile(0.5));
+        } finally {
+            TimeUtil.resetTimeSource();
+        }
+    }
+
+    @Test
+    public void testFetchMetricsStreaming() {
+        ManualTimeSource timeSource = new ManualTimeSource(100000L);
+        TimeUtil.setTimeSource(timeSource);
+        try {
+            StatisticNode node = new StatisticNode();
+            MetricNodeBuffer buffer = new MetricNodeBuffer();
+            buffer.setResource("abc", 1);
+            node.addPassRequest(3);
+            timeSource.advance(2000);
+            node.addPassRequest(5);
+            node.addRtAndSuccess(20, 5);
+            timeSource.advance(1000);
+
+            // Second 101000 has no traffic, and the current second is not completed.
+            assertEquals(2, node.fetchMetrics(TimeUtil.currentTimeMillis(), buffer));
+            assertEquals(2, buffer.size());
+            // Nothing new since the last fetch.
+            assertEquals(0, node.fetchMetrics(TimeUtil.currentTimeMillis(), buffer));
+
+            MetricWriter writer = mock(MetricWriter.class);
+            final List<String> lines = new ArrayList<>();
+            try {
+                doAnswer(new Answer<Void>() {
+                    @Override
+                    public Void answer(InvocationOnMock invocation) {
+                        @SuppressWarnings("unchecked")
+                        List<MetricNode> nodes = (List<MetricNode>)invocation.getArguments()[1];
+                        for (MetricNode metricNode : nodes) {
+                            lines.add(metricNode.toThinString());
+                        }
+                        return null;
+                    }
+                }).when(writer).write(anyLong(), anyListOf(MetricNode.class));
+                buffer.drainTo(writer);
+            } catch (Exception ex) {
+                throw new AssertionError(ex);
+            }
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).startsWith("100000|abc|3|0|0|0|0|"));
+            assertTrue(lines.get(1).startsWith("102000|abc|5|0|5|0|4|"));
+            assertEquals(0, buffer.size());
+        } finally {
+            TimeUtil.resetTimeSource();
+        }
+    }
 }
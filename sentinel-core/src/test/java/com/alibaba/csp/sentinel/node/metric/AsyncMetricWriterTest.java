@@ -0,0 +1,114 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.PidUtil;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link AsyncMetricWriter}.
+ *
+ * @author agent
+ */
+public class AsyncMetricWriterTest {
+
+    private final String baseFileName = MetricWriter.formMetricFileName(SentinelConfig.getAppName(),
+        PidUtil.getPid(), true);
+
+    @After
+    public void tearDown() throws Exception {
+        for (String fileName : MetricWriter.listMetricFiles(MetricWriter.METRIC_BASE_DIR, baseFileName)) {
+            new File(fileName).delete();
+            new File(BinaryMetricSegment.formDictFileName(fileName)).delete();
+        }
+    }
+
+    @Test
+    public void testWriteInBatch() throws Exception {
+        AsyncMetricWriter writer = new AsyncMetricWriter(1024 * 1024, 6, true, 5, 50, 10);
+        assertEquals(8, writer.getBufferCapacity());
+
+        long time = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        List<MetricNode> nodes = new ArrayList<>();
+        MetricNode node = new MetricNode();
+        node.setResource("abc");
+        nodes.add(node);
+        for (int i = 0; i < 3; i++) {
+            // The nodes are reused by the caller, so the writer must keep its own copy.
+            node.setPassQps(i + 1);
+            writer.write(time + i * 1000, nodes);
+        }
+        writer.close();
+
+        assertEquals(0, writer.getPendingSeconds());
+        assertEquals(3, writer.getWrittenSeconds());
+        assertEquals(0, writer.getDroppedSeconds());
+        assertEquals(0, writer.getFailureCount());
+        assertTrue(writer.getFlushCount() >= 1);
+
+        MetricSearcher searcher = new MetricSearcher(MetricWriter.METRIC_BASE_DIR, baseFileName,
+            Charset.forName(SentinelConfig.charset()), true);
+        List<MetricNode> result = searcher.findByTimeAndResource(time, time + 2000, "abc");
+        assertEquals(3, result.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(time + i * 1000, result.get(i).getTimestamp());
+            assertEquals(i + 1, result.get(i).getPassQps());
+        }
+    }
+
+    @Test
+    public void testSkipFailedSecond() throws Exception {
+        final long time = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        AsyncMetricWriter writer = new AsyncMetricWriter(1024 * 1024, 6, true, 5, 50, 0) {
+            @Override
+            synchronized void append(long t, List<MetricNode> nodes) throws Exception {
+                if (t == time + 1000) {
+                    throw new IllegalStateException("mock failure");
+                }
+                super.append(t, nodes);
+            }
+        };
+        List<MetricNode> nodes = new ArrayList<>();
+        MetricNode node = new MetricNode();
+        node.setResource("abc");
+        nodes.add(node);
+        for (int i = 0; i < 3; i++) {
+            writer.write(time + i * 1000, nodes);
+        }
+        writer.close();
+
+        assertEquals(2, writer.getWrittenSeconds());
+        assertEquals(1, writer.getFailedSeconds());
+        assertEquals(0, writer.getFailureCount());
+
+        MetricSearcher searcher = new MetricSearcher(MetricWriter.METRIC_BASE_DIR, baseFileName,
+            Charset.forName(SentinelConfig.charset()), true);
+        List<MetricNode> result = searcher.findByTimeAndResource(time, time + 2000, "abc");
+        assertEquals(2, result.size());
+        assertEquals(time, result.get(0).getTimestamp());
+        assertEquals(time + 2000, result.get(1).getTimestamp());
+    }
+}
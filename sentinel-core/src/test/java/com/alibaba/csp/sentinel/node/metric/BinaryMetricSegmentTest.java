@@ -0,0 +1,156 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.PidUtil;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for the binary metric segment format.
+ *
+ * @author agent
+ */
+public class BinaryMetricSegmentTest {
+
+    private final String baseFileName = MetricWriter.formMetricFileName(SentinelConfig.getAppName(),
+        PidUtil.getPid(), true);
+
+    @After
+    public void tearDown() throws Exception {
+        for (String fileName : MetricWriter.listMetricFiles(MetricWriter.METRIC_BASE_DIR, baseFileName)) {
+            new File(fileName).delete();
+            new File(BinaryMetricSegment.formDictFileName(fileName)).delete();
+        }
+    }
+
+    @Test
+    public void testWriteAndSearch() throws Exception {
+        MetricWriter writer = new MetricWriter(1024 * 1024, 6, true);
+        long time = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        for (int i = 0; i < 5; i++) {
+            writer.write(time + i * 1000, Arrays.asList(newNode("resA", i), newNode("resB", i * 10)));
+        }
+        writer.close();
+
+        MetricSearcher searcher = new MetricSearcher(MetricWriter.METRIC_BASE_DIR, baseFileName,
+            Charset.forName(SentinelConfig.charset()), true);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(time + 1000, time + 3000, "resB");
+        assertEquals(3, nodes.size());
+        for (int i = 0; i < 3; i++) {
+            MetricNode node = nodes.get(i);
+            assertEquals("resB", node.getResource());
+            assertEquals(time + (i + 1) * 1000, node.getTimestamp());
+            assertEquals((i + 1) * 10, node.getPassQps());
+            assertEquals(7, node.getConcurrency());
+            assertEquals(2, node.getClassification());
+            assertEquals(99, node.getRtP99());
+        }
+
+        assertEquals(4, searcher.findByTimeAndResource(time + 3000, time + 10000, null).size());
+        assertTrue(searcher.findByTimeAndResource(time, time + 10000, "absent").isEmpty());
+
+        // Records of the same second are never split.
+        nodes = searcher.find(time + 2000, 3);
+        assertEquals(4, nodes.size());
+        assertEquals(time + 3000, nodes.get(3).getTimestamp());
+    }
+
+    @Test
+    public void testLowerBoundAndPartialBlock() throws Exception {
+        MetricWriter writer = new MetricWriter(1024 * 1024, 6, true);
+        long time = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        writer.write(time, Arrays.asList(newNode("resA", 1)));
+        writer.write(time + 2000, Arrays.asList(newNode("resA", 2), newNode("resB", -1)));
+        writer.close();
+
+        String fileName = MetricWriter.listMetricFiles(MetricWriter.METRIC_BASE_DIR, baseFileName).get(0);
+        // Append a partially written block, which should be invisible to the reader.
+        FileOutputStream out = new FileOutputStream(fileName, true);
+        out.write(new byte[] {0, 0, 0, 100, 0, 0});
+        out.close();
+
+        BinaryMetricSegment segment = new BinaryMetricSegment(fileName);
+        RandomAccessFile raf = new RandomAccessFile(fileName, "r");
+        try {
+            assertTrue(segment.refresh(raf.getChannel()));
+            assertEquals(2, segment.getBlockCount());
+            assertEquals(0, segment.lowerBound(time / 1000));
+            assertEquals(1, segment.lowerBound(time / 1000 + 1));
+            assertEquals(2, segment.lowerBound(time / 1000 + 3));
+
+            List<MetricNode> nodes = new ArrayList<>();
+            segment.readBlock(raf.getChannel(), 1, null, null, nodes);
+            assertEquals(2, nodes.size());
+            assertEquals(2, nodes.get(0).getPassQps());
+            assertEquals(time + 2000, nodes.get(0).getTimestamp());
+            assertEquals("resB", nodes.get(1).getResource());
+            assertEquals(-1, nodes.get(1).getPassQps());
+            assertEquals(120, nodes.get(1).getRtP999());
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testSmallerThanTextFormat() throws Exception {
+        List<MetricNode> nodes = Arrays.asList(newNode("resA", 1000), newNode("resB", 20));
+        ByteBuffer buf = BinaryMetricSegment.encodeBlock(System.currentTimeMillis(), nodes, new int[] {0, 1}, null);
+        int textSize = 0;
+        for (MetricNode node : nodes) {
+            textSize += node.toFatString().getBytes(SentinelConfig.charset()).length;
+        }
+        assertTrue(buf.limit() < textSize / 2);
+    }
+
+    @Test
+    public void testVarLong() throws Exception {
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        long[] values = {0, 1, -1, 127, 128, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long v : values) {
+            BinaryMetricSegment.putVarLong(buf, BinaryMetricSegment.zigZag(v));
+        }
+        buf.flip();
+        for (long v : values) {
+            assertEquals(v, BinaryMetricSegment.unZigZag(BinaryMetricSegment.getVarLong(buf)));
+        }
+    }
+
+    private MetricNode newNode(String resource, long passQps) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setPassQps(passQps);
+        node.setSuccessQps(passQps);
+        node.setRt(5);
+        node.setConcurrency(7);
+        node.setClassification(2);
+        node.setRtP50(3).setRtP99(99).setRtP999(120);
+        return node;
+    }
+}
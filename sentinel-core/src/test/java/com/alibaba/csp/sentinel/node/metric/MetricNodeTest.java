@@ -34,4 +34,33 @@ public class MetricNodeTest {
         assertEquals(2, node.getConcurrency());
         assertEquals(1, node.getSuccessQps());
     }
+
+    @Test
+    public void testRtPercentilesRoundTrip() {
+        MetricNode node = new MetricNode();
+        node.setTimestamp(1564382218000L);
+        node.setResource("abc");
+        node.setSuccessQps(10);
+        node.setRt(30);
+        node.setConcurrency(2);
+        node.setRtP50(2).setRtP99(27).setRtP999(31);
+
+        MetricNode thin = MetricNode.fromThinString(node.toThinString());
+        assertEquals(2, thin.getConcurrency());
+        assertEquals(2, thin.getRtP50());
+        assertEquals(27, thin.getRtP99());
+        assertEquals(31, thin.getRtP999());
+
+        String fat = node.toFatString();
+        MetricNode parsed = MetricNode.fromFatString(fat.substring(0, fat.length() - 1));
+        assertEquals(2, parsed.getConcurrency());
+        assertEquals(2, parsed.getRtP50());
+        assertEquals(27, parsed.getRtP99());
+        assertEquals(31, parsed.getRtP999());
+
+        // Lines without percentiles keep the legacy format.
+        node.setRtP50(0).setRtP99(0).setRtP999(0);
+        assertEquals(10, node.toThinString().split("\\|").length);
+        assertEquals(0, MetricNode.fromThinString(node.toThinString()).getRtP99());
+    }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.PidUtil;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for the resource index of text metric files.
+ *
+ * @author agent
+ */
+public class MetricResourceIndexTest {
+
+    private final String baseFileName = MetricWriter.formMetricFileName(SentinelConfig.getAppName(),
+        PidUtil.getPid(), false);
+
+    @After
+    public void tearDown() throws Exception {
+        for (String fileName : MetricWriter.listMetricFiles(MetricWriter.METRIC_BASE_DIR, baseFileName)) {
+            new File(fileName).delete();
+            new File(MetricWriter.formIndexFileName(fileName)).delete();
+            new File(MetricResourceIndexWriter.formResourceIndexFileName(fileName)).delete();
+            new File(BinaryMetricSegment.formDictFileName(fileName)).delete();
+        }
+    }
+
+    @Test
+    public void testFindByResourceIndex() throws Exception {
+        long time = writeMetrics();
+        assertTrue(new File(MetricResourceIndexWriter.formResourceIndexFileName(lastMetricFile())).exists());
+
+        MetricSearcher searcher = newSearcher();
+        List<MetricNode> nodes = searcher.findByTimeAndResource(time + 1000, time + 3000, "res3");
+        assertEquals(3, nodes.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("res3", nodes.get(i).getResource());
+            assertEquals(time + (i + 1) * 1000, nodes.get(i).getTimestamp());
+            assertEquals(3 + i + 1, nodes.get(i).getPassQps());
+        }
+
+        nodes = searcher.findByTimeAndResources(time, time + 10000, Arrays.asList("res1", "res7", "absent"));
+        assertEquals(10, nodes.size());
+        for (MetricNode node : nodes) {
+            assertTrue("res1".equals(node.getResource()) || "res7".equals(node.getResource()));
+        }
+        assertTrue(searcher.findByTimeAndResource(time, time + 10000, "absent").isEmpty());
+        // The cached index gives the same result.
+        assertEquals(3, searcher.findByTimeAndResource(time + 1000, time + 3000, "res3").size());
+        assertEquals(20, searcher.findByTimeAndResource(time + 3000, time + 10000, null).size());
+    }
+
+    @Test
+    public void testSameResultWithoutResourceIndex() throws Exception {
+        long time = writeMetrics();
+        List<String> resources = Arrays.asList("res2", "res5");
+        List<MetricNode> indexed = newSearcher().findByTimeAndResources(time + 1000, time + 2000, resources);
+
+        assertTrue(new File(MetricResourceIndexWriter.formResourceIndexFileName(lastMetricFile())).delete());
+        List<MetricNode> scanned = newSearcher().findByTimeAndResources(time + 1000, time + 2000, resources);
+
+        assertEquals(4, indexed.size());
+        assertEquals(toFatStrings(scanned), toFatStrings(indexed));
+    }
+
+    @Test
+    public void testRefreshIncrementally() throws Exception {
+        String metricFileName = MetricWriter.METRIC_BASE_DIR + baseFileName + ".incremental";
+        File indexFile = new File(MetricResourceIndexWriter.formResourceIndexFileName(metricFileName));
+        File dictFile = new File(BinaryMetricSegment.formDictFileName(metricFileName));
+        MetricResourceIndexWriter writer = new MetricResourceIndexWriter(metricFileName, false);
+        RandomAccessFile raf = null;
+        try {
+            writer.add("b", 0, 10);
+            writer.add("a", 10, 10);
+            writer.endBlock(100);
+            writer.flush(false);
+
+            MetricResourceIndex index = new MetricResourceIndex(metricFileName);
+            raf = new RandomAccessFile(indexFile, "r");
+            assertTrue(index.refresh(raf.getChannel()));
+            assertEquals(1, index.getBlockCount());
+            assertArrayEquals(new int[] {1}, index.resourceIdsOf(Collections.singleton("a")));
+
+            writer.add("c", 20, 10);
+            writer.endBlock(101);
+            writer.add("a", 30, 10);
+            writer.endBlock(103);
+            writer.flush(false);
+            assertTrue(index.refresh(raf.getChannel()));
+            assertEquals(3, index.getBlockCount());
+            assertEquals(2, index.lowerBound(102));
+            assertEquals(103, index.blockSecondAt(2));
+            assertArrayEquals(new int[] {1, 2}, index.resourceIdsOf(new HashSet<String>(Arrays.asList("a", "c"))));
+
+            // Entries are sorted by resource ID.
+            ByteBuffer entries = index.readEntries(raf.getChannel(), 0, null);
+            assertEquals(2, index.blockEntryCountAt(0));
+            assertEquals(0, entries.getInt(0));
+            assertEquals(1, entries.getInt(MetricResourceIndexWriter.ENTRY_SIZE));
+            assertEquals(10L, entries.getLong(MetricResourceIndexWriter.ENTRY_SIZE + 4));
+        } finally {
+            writer.close();
+            if (raf != null) {
+                raf.close();
+            }
+            indexFile.delete();
+            dictFile.delete();
+        }
+    }
+
+    private long writeMetrics() throws Exception {
+        MetricWriter writer = new MetricWriter(1024 * 1024, 6, false, MetricWriter.DEFAULT_BUFFER_SIZE, true);
+        long time = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        for (int i = 0; i < 5; i++) {
+            List<MetricNode> nodes = new ArrayList<MetricNode>();
+            // Resources are written in descending order, so the index has to sort the entries.
+            for (int r = 9; r >= 0; r--) {
+                nodes.add(newNode("res" + r, r + i));
+            }
+            writer.write(time + i * 1000, nodes);
+        }
+        writer.close();
+        return time;
+    }
+
+    private String lastMetricFile() throws Exception {
+        List<String> fileNames = MetricWriter.listMetricFiles(MetricWriter.METRIC_BASE_DIR, baseFileName);
+        return fileNames.get(fileNames.size() - 1);
+    }
+
+    private MetricSearcher newSearcher() {
+        return new MetricSearcher(MetricWriter.METRIC_BASE_DIR, baseFileName,
+            Charset.forName(SentinelConfig.charset()), false);
+    }
+
+    private List<String> toFatStrings(List<MetricNode> nodes) {
+        List<String> lines = new ArrayList<String>();
+        for (MetricNode node : nodes) {
+            lines.add(node.toFatString());
+        }
+        return lines;
+    }
+
+    private MetricNode newNode(String resource, long passQps) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setPassQps(passQps);
+        node.setSuccessQps(passQps);
+        node.setRt(5);
+        node.setClassification(1);
+        return node;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric.exporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class MetricExporterProviderTest {
+
+    @Test
+    public void testExportAsynchronously() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final List<String> exported = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch done = new CountDownLatch(2);
+        MetricExporter exporter = new MetricExporter() {
+            @Override
+            public void export(long timestamp, List<MetricNode> nodes) throws Exception {
+                // A slow exporter does not block the caller.
+                blocked.await(5, TimeUnit.SECONDS);
+                exported.add(nodes.get(0).getResource() + "@" + timestamp);
+                done.countDown();
+            }
+        };
+        MetricExporterProvider.addMetricExporter(exporter);
+        try {
+            MetricNode node = new MetricNode();
+            node.setResource("a");
+            List<MetricNode> nodes = Collections.singletonList(node);
+            MetricExporterProvider.exportAll(1000, nodes);
+            // The nodes are copied, so they could be reused by the caller.
+            node.setResource("b");
+            MetricExporterProvider.exportAll(2000, nodes);
+            assertTrue(exported.isEmpty());
+
+            blocked.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals("a@1000", exported.get(0));
+            assertEquals("b@2000", exported.get(1));
+        } finally {
+            MetricExporterProvider.removeMetricExporter(exporter);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric.exporter;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class OpenMetricsExporterTest {
+
+    @Test
+    public void testAccumulateAndExpose() {
+        OpenMetricsExporter exporter = new OpenMetricsExporter();
+        exporter.export(1000, Arrays.asList(node("a", 10, 1, 20), node("b\"\\", 5, 0, 3)));
+        exporter.export(2000, Collections.singletonList(node("a", 7, 2, 30)));
+
+        assertEquals(2, exporter.size());
+        String text = exporter.toText();
+        assertTrue(text.contains("# TYPE sentinel_pass_requests counter\n"));
+        assertTrue(text.contains("sentinel_pass_requests_total{resource=\"a\",classification=\"0\"} 17\n"));
+        assertTrue(text.contains("sentinel_block_requests_total{resource=\"a\",classification=\"0\"} 3\n"));
+        assertTrue(text.contains("sentinel_pass_requests_total{resource=\"b\\\"\\\\\",classification=\"0\"} 5\n"));
+        // Gauges of the latest second, and 0 for the idle resources.
+        assertTrue(text.contains("sentinel_rt_milliseconds{resource=\"a\",classification=\"0\"} 30\n"));
+        assertTrue(text.contains("sentinel_rt_milliseconds{resource=\"b\\\"\\\\\",classification=\"0\"} 0\n"));
+        assertFalse(text.contains("quantile="));
+        assertTrue(text.endsWith("# EOF\n"));
+    }
+
+    @Test
+    public void testRtQuantiles() {
+        OpenMetricsExporter exporter = new OpenMetricsExporter();
+        MetricNode node = node("a", 1, 0, 5).setRtP50(4).setRtP99(9).setRtP999(12);
+        exporter.export(1000, Collections.singletonList(node));
+
+        String text = exporter.toText();
+        assertTrue(text.contains("sentinel_rt_quantile_milliseconds{resource=\"a\",classification=\"0\",quantile=\"0.5\"} 4\n"));
+        assertTrue(text.contains("sentinel_rt_quantile_milliseconds{resource=\"a\",classification=\"0\",quantile=\"0.999\"} 12\n"));
+    }
+
+    @Test
+    public void testExpireIdleResources() {
+        OpenMetricsExporter exporter = new OpenMetricsExporter(10000);
+        exporter.export(1000, Arrays.asList(node("a", 1, 0, 5), node("b", 1, 0, 5)));
+        for (long t = 2000; t <= 11000; t += 1000) {
+            exporter.export(t, Collections.singletonList(node("a", 1, 0, 5)));
+        }
+        assertEquals(2, exporter.size());
+
+        exporter.export(12000, Collections.singletonList(node("a", 1, 0, 5)));
+        assertEquals(1, exporter.size());
+        assertFalse(exporter.toText().contains("resource=\"b\""));
+
+        // The counters of an expired resource start from 0 again.
+        exporter.export(13000, Collections.singletonList(node("b", 2, 0, 5)));
+        assertTrue(exporter.toText().contains("sentinel_pass_requests_total{resource=\"b\",classification=\"0\"} 2\n"));
+    }
+
+    private static MetricNode node(String resource, long pass, long block, long rt) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setPassQps(pass);
+        node.setBlockQps(block);
+        node.setRt(rt);
+        return node;
+    }
+}
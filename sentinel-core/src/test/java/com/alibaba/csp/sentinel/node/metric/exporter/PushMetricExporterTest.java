@@ -0,0 +1,84 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric.exporter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class PushMetricExporterTest {
+
+    @Test
+    public void testBatchAndDrop() {
+        RecordingExporter exporter = new RecordingExporter(3);
+        try {
+            // The push thread is started lazily.
+            assertFalse(exporter.isStarted());
+            List<MetricNode> nodes = new ArrayList<>(Arrays.asList(node("a", 1000), node("b", 1000)));
+            exporter.export(1000, nodes);
+            assertTrue(exporter.isStarted());
+            // The source nodes could be reused by the caller.
+            nodes.get(0).setResource("changed");
+            exporter.export(2000, Arrays.asList(node("a", 2000), node("b", 2000)));
+            assertEquals(1, exporter.getDroppedNodes());
+
+            exporter.pushPending();
+            assertEquals(Arrays.asList("a@1000", "b@1000", "a@2000"), exporter.pushed);
+            assertEquals(3, exporter.getPushedNodes());
+
+            // Nothing to push.
+            exporter.pushPending();
+            assertEquals(3, exporter.pushed.size());
+
+            exporter.export(3000, Arrays.asList(node("c", 3000)));
+            exporter.pushPending();
+            assertEquals("c@3000", exporter.pushed.get(3));
+        } finally {
+            exporter.close();
+        }
+    }
+
+    private static MetricNode node(String resource, long timestamp) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setTimestamp(timestamp);
+        return node;
+    }
+
+    private static class RecordingExporter extends PushMetricExporter {
+        final List<String> pushed = new ArrayList<>();
+
+        RecordingExporter(int maxPendingNodes) {
+            super(60 * 1000, maxPendingNodes);
+        }
+
+        @Override
+        protected void push(List<MetricNode> nodes) {
+            for (MetricNode node : nodes) {
+                pushed.add(node.getResource() + "@" + node.getTimestamp());
+            }
+        }
+    }
+}
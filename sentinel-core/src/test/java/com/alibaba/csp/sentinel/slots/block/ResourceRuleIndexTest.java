@@ -0,0 +1,59 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.slotchain.ResourceIdRegistry;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link ResourceRuleIndex}.
+ *
+ * @author agent
+ */
+public class ResourceRuleIndexTest {
+
+    @Test
+    public void testEmptyIndex() {
+        assertNull(ResourceRuleIndex.<String>empty().get(new StringResourceWrapper("abc", EntryType.IN)));
+        assertSame(ResourceRuleIndex.empty(), ResourceRuleIndex.build(new HashMap<String, String>()));
+        assertSame(ResourceRuleIndex.empty(), ResourceRuleIndex.<String>build(null));
+    }
+
+    @Test
+    public void testBuildAndGet() {
+        Map<String, String> ruleMap = new HashMap<>();
+        ruleMap.put("indexResA", "ruleA");
+        ruleMap.put("indexResB", "ruleB");
+        ResourceRuleIndex<String> index = ResourceRuleIndex.build(ruleMap);
+
+        // Resources beyond the bound of the registry (e.g. filled by other tests) have no ID,
+        // whose rules are looked up by name.
+        assertEquals(ResourceIdRegistry.getId("indexResA"),
+            new StringResourceWrapper("indexResA", EntryType.IN).getResourceId());
+        assertEquals("ruleA", index.get(new StringResourceWrapper("indexResA", EntryType.IN)));
+        assertEquals("ruleB", index.get(new StringResourceWrapper("indexResB", EntryType.OUT)));
+        // Resources registered after the index has been built should have no rules.
+        assertNull(index.get(new StringResourceWrapper("indexResC-" + System.nanoTime(), EntryType.IN)));
+    }
+}
@@ -52,6 +52,10 @@ public class AuthorityRuleCheckerTest {
             assertFalse(AuthorityRuleChecker.passCheck(ruleB, ContextUtil.getContext()));
             assertFalse(AuthorityRuleChecker.passCheck(ruleC, ContextUtil.getContext()));
             assertTrue(AuthorityRuleChecker.passCheck(ruleD, ContextUtil.getContext()));
+
+            // The parsed limitApp set is cached on the rule, and parsed again once the limitApp is modified.
+            ruleB.setLimitApp(origin);
+            assertTrue(AuthorityRuleChecker.passCheck(ruleB, ContextUtil.getContext()));
         } finally {
             ContextUtil.exit();
         }
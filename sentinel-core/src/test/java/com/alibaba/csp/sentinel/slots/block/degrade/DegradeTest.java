@@ -15,139 +15,301 @@
  */
 package com.alibaba.csp.sentinel.slots.block.degrade;
 
-import com.alibaba.csp.sentinel.EntryType;
-import com.alibaba.csp.sentinel.context.Context;
-import com.alibaba.csp.sentinel.node.ClusterNode;
-import com.alibaba.csp.sentinel.node.DefaultNode;
-import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import java.util.Collections;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.Tracer;
+import com.alibaba.csp.sentinel.context.ContextTestUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
-import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
-import org.junit.Test;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker.State;
+import com.alibaba.csp.sentinel.util.ManualTimeSource;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
-import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.junit.Assert.*;
 
 /**
  * @author jialiang.linjl
+ * @author agent
  */
 public class DegradeTest {
 
-    @Test
-    public void testAverageRtDegrade() throws InterruptedException {
-        String key = "test_degrade_average_rt";
-        ClusterNode cn = mock(ClusterNode.class);
-        ClusterBuilderSlot.getClusterNodeMap().put(new StringResourceWrapper(key, EntryType.IN), cn);
+    private final ManualTimeSource timeSource = new ManualTimeSource(100000L);
 
-        Context context = mock(Context.class);
-        DefaultNode node = mock(DefaultNode.class);
-        when(node.getClusterNode()).thenReturn(cn);
-        when(cn.avgRt()).thenReturn(2d);
+    @Before
+    public void setUp() {
+        ContextTestUtil.cleanUpContext();
+        TimeUtil.setTimeSource(timeSource);
+        DegradeRuleManager.loadRules(null);
+    }
 
-        int rtSlowRequestAmount = 10;
-        DegradeRule rule = new DegradeRule();
-        rule.setCount(1);
-        rule.setResource(key);
-        rule.setTimeWindow(2);
-        rule.setGrade(RuleConstant.DEGRADE_GRADE_RT);
-        rule.setRtSlowRequestAmount(rtSlowRequestAmount);
-
-        //Will true
-        for (int i = 0; i < rtSlowRequestAmount - 1; i++) {
-            assertTrue(rule.passCheck(context, node, 1));
+    @After
+    public void tearDown() {
+        DegradeRuleManager.loadRules(null);
+        TimeUtil.resetTimeSource();
+        ContextTestUtil.cleanUpContext();
+    }
+
+    @Test
+    public void testSlowRatioDegrade() throws Exception {
+        String key = "test_degrade_slow_ratio";
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_RT)
+            .setCount(10)
+            .setSlowRatioThreshold(0.5)
+            .setMinRequestAmount(4)
+            .setRtSlowRequestAmount(1)
+            .setStatIntervalMs(1000)
+            .setTimeWindow(2);
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+
+        // 1 slow request among 2 requests: not enough requests.
+        assertTrue(entryAndExit(key, 20, null));
+        assertTrue(entryAndExit(key, 1, null));
+        // Ratio (1 / 3) does not exceed the threshold.
+        assertTrue(entryAndExit(key, 1, null));
+        assertEquals(State.CLOSED, currentState(key));
+        // Ratio (3 / 5) exceeds the threshold.
+        assertTrue(entryAndExit(key, 20, null));
+        assertTrue(entryAndExit(key, 20, null));
+        assertEquals(State.OPEN, currentState(key));
+        assertFalse(entryAndExit(key, 1, null));
+
+        // Recover after the time window, and the slow probe request re-opens the circuit breaker.
+        timeSource.advance(2000);
+        assertTrue(entryAndExit(key, 20, null));
+        assertEquals(State.OPEN, currentState(key));
+        assertFalse(entryAndExit(key, 1, null));
+
+        // The normal probe request closes the circuit breaker.
+        timeSource.advance(2000);
+        assertTrue(entryAndExit(key, 1, null));
+        assertEquals(State.CLOSED, currentState(key));
+        assertTrue(entryAndExit(key, 1, null));
+    }
+
+    @Test
+    public void testOnlyOneProbeWhenHalfOpen() throws Exception {
+        String key = "test_degrade_half_open_probe";
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(1)
+            .setMinRequestAmount(1)
+            .setTimeWindow(1);
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+
+        // The exception count reaches the threshold.
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.OPEN, currentState(key));
+
+        timeSource.advance(1000);
+        Entry probe = SphU.entry(key);
+        assertEquals(State.HALF_OPEN, currentState(key));
+        try {
+            SphU.entry(key);
+            fail("Only the probe request should pass in HALF_OPEN state");
+        } catch (DegradeException ex) {
+            assertEquals(rule, ex.getRule());
         }
+        probe.exit();
+        assertEquals(State.CLOSED, currentState(key));
+    }
 
-        // The third time will fail.
-        assertFalse(rule.passCheck(context, node, 1));
-        assertFalse(rule.passCheck(context, node, 1));
+    @Test
+    public void testReplaceLostProbeWhenHalfOpen() throws Exception {
+        String key = "test_degrade_lost_probe";
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(1)
+            .setMinRequestAmount(1)
+            .setTimeWindow(1);
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+
+        // The exception count reaches the threshold.
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.OPEN, currentState(key));
+
+        timeSource.advance(1000);
+        // The probe request never exits.
+        SphU.entry(key);
+        ContextTestUtil.cleanUpContext();
+        assertEquals(State.HALF_OPEN, currentState(key));
+        assertFalse(entryAndExit(key, 1, null));
+
+        // After the recovery timeout, the next request probes instead.
+        timeSource.advance(1000);
+        assertTrue(entryAndExit(key, 1, null));
+        assertEquals(State.CLOSED, currentState(key));
+    }
 
-        // Restore.
-        TimeUnit.MILLISECONDS.sleep(2200);
-        assertTrue(rule.passCheck(context, node, 1));
+    @Test
+    public void testDefaultStatInterval() {
+        assertEquals(RuleConstant.DEGRADE_DEFAULT_EXCEPTION_COUNT_STAT_INTERVAL_MS,
+            new DegradeRule("a").setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT).getStatIntervalMs());
+        assertEquals(RuleConstant.DEGRADE_DEFAULT_STAT_INTERVAL_MS,
+            new DegradeRule("a").setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO).getStatIntervalMs());
+        assertEquals(RuleConstant.DEGRADE_DEFAULT_STAT_INTERVAL_MS,
+            new DegradeRule("a").setGrade(RuleConstant.DEGRADE_GRADE_RT).getStatIntervalMs());
+        assertEquals(5000, new DegradeRule("a").setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setStatIntervalMs(5000).getStatIntervalMs());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testPassCheckDelegatesToCircuitBreaker() throws Exception {
+        String key = "test_degrade_pass_check";
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(1)
+            .setMinRequestAmount(1)
+            .setTimeWindow(10);
+        assertTrue(rule.passCheck(null, null, 1));
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+
+        // The exception count reaches the threshold.
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.OPEN, currentState(key));
+        assertFalse(rule.passCheck(null, null, 1));
     }
 
     @Test
-    public void testExceptionRatioModeDegrade() throws Throwable {
+    public void testExceptionRatioModeDegrade() throws Exception {
         String key = "test_degrade_exception_ratio";
-        ClusterNode cn = mock(ClusterNode.class);
-        ClusterBuilderSlot.getClusterNodeMap().put(new StringResourceWrapper(key, EntryType.IN), cn);
-
-        Context context = mock(Context.class);
-        DefaultNode node = mock(DefaultNode.class);
-        when(node.getClusterNode()).thenReturn(cn);
-
-        DegradeRule rule = new DegradeRule();
-        rule.setCount(0.15);
-        rule.setResource(key);
-        rule.setTimeWindow(2);
-        rule.setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO);
-        rule.setMinRequestAmount(20);
-
-
-        // Will true. While totalQps < minRequestAmount
-        when(cn.totalQps()).thenReturn(8d);
-        assertTrue(rule.passCheck(context, node, 1));
-
-        // Will true.
-        when(cn.totalQps()).thenReturn(21d);
-        when(cn.successQps()).thenReturn(9d);
-        when(cn.exceptionQps()).thenReturn(9d);
-        assertTrue(rule.passCheck(context, node, 1));
-
-
-        // Will true. While totalQps > minRequestAmount and  exceptionRation < count
-        when(cn.totalQps()).thenReturn(100d);
-        when(cn.successQps()).thenReturn(90d);
-        when(cn.exceptionQps()).thenReturn(10d);
-        assertTrue(rule.passCheck(context, node, 1));
-
-        // Will fail. While totalQps > minRequestAmount and exceptionRation > count
-        rule.setMinRequestAmount(5);
-        when(cn.totalQps()).thenReturn(12d);
-        when(cn.successQps()).thenReturn(8d);
-        when(cn.exceptionQps()).thenReturn(6d);
-        assertFalse(rule.passCheck(context, node, 1));
-
-        // Restore from the degrade timeout.
-        TimeUnit.MILLISECONDS.sleep(2200);
-
-        // Will pass.
-        when(cn.totalQps()).thenReturn(106d);
-        when(cn.successQps()).thenReturn(100d);
-        assertTrue(rule.passCheck(context, node, 1));
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO)
+            .setCount(0.5)
+            .setMinRequestAmount(5)
+            .setStatIntervalMs(10000)
+            .setTimeWindow(2);
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        }
+        // Total amount is less than minRequestAmount.
+        assertEquals(State.CLOSED, currentState(key));
+        assertTrue(entryAndExit(key, 1, null));
+        // Ratio (3 / 5) exceeds the threshold.
+        assertTrue(entryAndExit(key, 1, null));
+        assertEquals(State.OPEN, currentState(key));
+        assertFalse(entryAndExit(key, 1, null));
+
+        // Failed probe request.
+        timeSource.advance(2000);
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.OPEN, currentState(key));
+
+        // Successful probe request.
+        timeSource.advance(2000);
+        assertTrue(entryAndExit(key, 1, null));
+        assertEquals(State.CLOSED, currentState(key));
     }
 
     @Test
-    public void testExceptionCountModeDegrade() throws Throwable {
+    public void testExceptionCountModeDegrade() throws Exception {
         String key = "test_degrade_exception_count";
-        ClusterNode cn = mock(ClusterNode.class);
-        when(cn.totalException()).thenReturn(10L);
-        ClusterBuilderSlot.getClusterNodeMap().put(new StringResourceWrapper(key, EntryType.IN), cn);
-
-        Context context = mock(Context.class);
-        DefaultNode node = mock(DefaultNode.class);
-        when(node.getClusterNode()).thenReturn(cn);
-
-        DegradeRule rule = new DegradeRule();
-        rule.setCount(4);
-        rule.setResource(key);
-        rule.setTimeWindow(2);
-        rule.setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT);
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(3)
+            .setMinRequestAmount(100)
+            .setStatIntervalMs(1000)
+            .setTimeWindow(2);
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.CLOSED, currentState(key));
+
+        // The exceptions of the previous interval have slid out.
+        timeSource.advance(1100);
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.CLOSED, currentState(key));
+
+        // The exceptions in the previous bucket are still counted in the sliding interval,
+        // and minRequestAmount does not apply to exception count mode.
+        timeSource.advance(600);
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.OPEN, currentState(key));
+        assertFalse(entryAndExit(key, 1, null));
+    }
 
-        when(cn.totalException()).thenReturn(4L);
+    @Test
+    public void testExceptionRatioModeDegradeWithMaxThreshold() throws Exception {
+        String key = "test_degrade_exception_ratio_max";
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO)
+            .setCount(1.0)
+            .setMinRequestAmount(2)
+            .setTimeWindow(2);
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertTrue(entryAndExit(key, 1, null));
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.CLOSED, currentState(key));
+
+        // All requests failed in the interval.
+        timeSource.advance(2000);
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.OPEN, currentState(key));
+    }
 
-        // Will fail.
-        assertFalse(rule.passCheck(context, node, 1));
+    @Test
+    public void testKeepCircuitBreakerStateForSameRule() throws Exception {
+        String key = "test_degrade_keep_state";
+        DegradeRule rule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(0)
+            .setMinRequestAmount(1)
+            .setTimeWindow(10);
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+        assertTrue(entryAndExit(key, 1, new IllegalStateException()));
+        assertEquals(State.OPEN, currentState(key));
+
+        DegradeRule sameRule = new DegradeRule(key)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(0)
+            .setMinRequestAmount(1)
+            .setTimeWindow(10);
+        DegradeRuleManager.loadRules(Collections.singletonList(sameRule));
+        assertEquals(State.OPEN, currentState(key));
+
+        DegradeRuleManager.loadRules(Collections.singletonList(sameRule.setTimeWindow(5)));
+        assertEquals(State.CLOSED, currentState(key));
+    }
 
-        // Restore from the degrade timeout.
-        TimeUnit.MILLISECONDS.sleep(2200);
+    private State currentState(String key) {
+        return DegradeRuleManager.getCircuitBreakers(key).get(0).currentState();
+    }
 
-        when(cn.totalException()).thenReturn(0L);
-        // Will pass.
-        assertTrue(rule.passCheck(context, node, 1));
+    /**
+     * Enter the resource, advance the time by {@code rt} and then exit.
+     *
+     * @return whether the request passed
+     */
+    private boolean entryAndExit(String key, long rt, Throwable error) {
+        Entry entry = null;
+        try {
+            entry = SphU.entry(key);
+            timeSource.advance(rt);
+            if (error != null) {
+                Tracer.traceEntry(error, entry);
+            }
+            return true;
+        } catch (BlockException ex) {
+            return false;
+        } finally {
+            if (entry != null) {
+                entry.exit();
+            }
+        }
     }
 
     @Test
@@ -0,0 +1,139 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test cases for {@link FlowRulePlan}.
+ *
+ * @author agent
+ */
+public class FlowRulePlanTest {
+
+    @Test
+    public void testCompileKeepsRuleOrder() {
+        String resourceName = "testCompileKeepsRuleOrder";
+        FlowRule clusterRule = new FlowRule(resourceName).setCount(10).setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig().setFlowId(1L));
+        FlowRule queueingRule = new FlowRule(resourceName).setCount(10)
+            .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER);
+        FlowRule defaultRule = new FlowRule(resourceName).setCount(20);
+        FlowRule originRule = new FlowRule(resourceName).setCount(5).setLimitApp("appA").as(FlowRule.class);
+
+        Map<String, List<FlowRule>> ruleMap = FlowRuleUtil.buildFlowRuleMap(
+            Arrays.asList(clusterRule, queueingRule, defaultRule, originRule));
+        FlowRulePlan plan = FlowRulePlan.compile(ruleMap).get(resourceName);
+
+        FlowRule[] rules = plan.getRules();
+        assertEquals(4, rules.length);
+        // The order of the rule map (sorted by FlowRuleComparator) is kept.
+        assertArrayEquals(ruleMap.get(resourceName).toArray(), rules);
+        assertSame(originRule, rules[0]);
+        assertSame(clusterRule, rules[3]);
+        for (FlowRule rule : rules) {
+            assertNotNull(rule.getNodeSelector());
+        }
+    }
+
+    @Test
+    public void testCompileSelector() {
+        String resourceName = "testCompileSelector";
+        FlowRule defaultRule = new FlowRule(resourceName).setCount(1);
+        FlowRule otherRule = new FlowRule(resourceName).setCount(1)
+            .setLimitApp(RuleConstant.LIMIT_APP_OTHER).as(FlowRule.class);
+        FlowRule relateRule = new FlowRule(resourceName).setCount(1).setLimitApp("appA").as(FlowRule.class)
+            .setStrategy(RuleConstant.STRATEGY_RELATE).setRefResource("refRes");
+        FlowRule chainRuleWithoutRef = new FlowRule(resourceName).setCount(1)
+            .setStrategy(RuleConstant.STRATEGY_CHAIN);
+
+        FlowRulePlan.NodeSelector selector = FlowRulePlan.compileSelector(defaultRule, null);
+        assertEquals(FlowRulePlan.LIMIT_DEFAULT, selector.getLimitAppType());
+        assertEquals(FlowRulePlan.SELECT_CLUSTER_NODE, selector.getSelectType());
+
+        selector = FlowRulePlan.compileSelector(otherRule, null);
+        assertEquals(FlowRulePlan.LIMIT_OTHER, selector.getLimitAppType());
+        assertEquals(FlowRulePlan.SELECT_ORIGIN_NODE, selector.getSelectType());
+
+        selector = FlowRulePlan.compileSelector(relateRule, null);
+        assertEquals(FlowRulePlan.LIMIT_ORIGIN, selector.getLimitAppType());
+        assertEquals(FlowRulePlan.SELECT_RELATE_NODE, selector.getSelectType());
+
+        selector = FlowRulePlan.compileSelector(chainRuleWithoutRef, null);
+        assertEquals(FlowRulePlan.SELECT_NONE, selector.getSelectType());
+    }
+
+    @Test
+    public void testSelectorCachedOnRule() {
+        FlowRule rule = new FlowRule("testSelectorCachedOnRule").setCount(1);
+        DefaultNode node = mock(DefaultNode.class);
+        ClusterNode clusterNode = mock(ClusterNode.class);
+        when(node.getClusterNode()).thenReturn(clusterNode);
+        DefaultNode originNode = mock(DefaultNode.class);
+        Context context = mock(Context.class);
+        when(context.getOriginNode()).thenReturn(originNode);
+        when(context.getOrigin()).thenReturn("appA");
+
+        assertSame(clusterNode, FlowRuleChecker.selectNodeByRequesterAndStrategy(rule, context, node));
+        FlowRulePlan.NodeSelector selector = rule.getNodeSelector();
+        assertNotNull(selector);
+        FlowRuleChecker.selectNodeByRequesterAndStrategy(rule, context, node);
+        assertSame(selector, rule.getNodeSelector());
+
+        // The cached selector should be recompiled once the rule is modified.
+        rule.setLimitApp("appA");
+        assertSame(originNode, FlowRuleChecker.selectNodeByRequesterAndStrategy(rule, context, node));
+        assertNotSame(selector, rule.getNodeSelector());
+    }
+
+    @Test
+    public void testOtherOriginSelectNode() {
+        String resourceName = "testOtherOriginSelectNode";
+        FlowRule originRule = new FlowRule(resourceName).setCount(1).setLimitApp("appA").as(FlowRule.class);
+        FlowRule otherRule = new FlowRule(resourceName).setCount(1)
+            .setLimitApp(RuleConstant.LIMIT_APP_OTHER).as(FlowRule.class);
+        FlowRulePlan.compile(FlowRuleUtil.buildFlowRuleMap(Arrays.asList(originRule, otherRule)));
+
+        DefaultNode node = mock(DefaultNode.class);
+        when(node.getClusterNode()).thenReturn(mock(ClusterNode.class));
+        DefaultNode originNode = mock(DefaultNode.class);
+        Context context = mock(Context.class);
+        when(context.getOriginNode()).thenReturn(originNode);
+
+        when(context.getOrigin()).thenReturn("appA");
+        assertSame(originNode, FlowRuleChecker.selectNodeByRequesterAndStrategy(originRule, context, node));
+        assertNull(FlowRuleChecker.selectNodeByRequesterAndStrategy(otherRule, context, node));
+
+        when(context.getOrigin()).thenReturn("appB");
+        assertNull(FlowRuleChecker.selectNodeByRequesterAndStrategy(originRule, context, node));
+        assertSame(originNode, FlowRuleChecker.selectNodeByRequesterAndStrategy(otherRule, context, node));
+
+        when(context.getOrigin()).thenReturn("");
+        assertNull(FlowRuleChecker.selectNodeByRequesterAndStrategy(otherRule, context, node));
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow.controller;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -24,6 +25,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
+import com.alibaba.csp.sentinel.slots.block.flow.AsyncTrafficShapingController;
+import com.alibaba.csp.sentinel.slots.block.flow.QueueingUtil;
+import com.alibaba.csp.sentinel.util.ManualTimeSource;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.node.Node;
 
@@ -95,4 +99,47 @@ public class RateLimiterControllerTest {
             assertTrue(paceController.canPass(node, 0));
         }
     }
+
+    @Test
+    public void testPaceControllerTryAcquire() {
+        ManualTimeSource timeSource = new ManualTimeSource(10000);
+        TimeUtil.setTimeSource(timeSource);
+        try {
+            RateLimiterController paceController = new RateLimiterController(500, 10d);
+            Node node = mock(Node.class);
+
+            assertEquals(0, paceController.tryAcquire(node, 1, false));
+            // Requests should queue with the interval of 100 ms.
+            for (int i = 1; i <= 5; i++) {
+                assertEquals(100 * i, paceController.tryAcquire(node, 1, false));
+            }
+            assertEquals(AsyncTrafficShapingController.BLOCKED, paceController.tryAcquire(node, 1, false));
+
+            timeSource.advance(1000);
+            assertEquals(0, paceController.tryAcquire(node, 1, false));
+        } finally {
+            TimeUtil.resetTimeSource();
+        }
+    }
+
+    @Test
+    public void testPaceControllerNonBlocking() {
+        RateLimiterController paceController = new RateLimiterController(500, 10d);
+        Node node = mock(Node.class);
+
+        long start = System.currentTimeMillis();
+        QueueingUtil.enterNonBlocking();
+        long delayMs;
+        try {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(paceController.canPass(node, 1));
+            }
+        } finally {
+            delayMs = QueueingUtil.exitNonBlocking();
+        }
+        assertFalse(QueueingUtil.isNonBlocking());
+        // The caller thread is not blocked, while the queueing time is accumulated.
+        assertTrue(System.currentTimeMillis() - start < 200);
+        assertTrue(delayMs >= 400);
+    }
 }
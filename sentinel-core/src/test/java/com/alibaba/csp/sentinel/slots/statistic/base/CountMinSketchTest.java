@@ -0,0 +1,66 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.base;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class CountMinSketchTest {
+
+    @Test
+    public void testEstimateNeverLessThanCount() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("key-" + i, 1);
+        }
+        assertTrue(sketch.add("hot", 100) >= 100);
+        sketch.add("hot", 1);
+        assertTrue(sketch.estimate("hot") >= 101);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(sketch.estimate("key-" + i) >= 1);
+        }
+    }
+
+    @Test
+    public void testEstimateIsCloseForHeavyKeys() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("key-" + i, 1);
+        }
+        sketch.add("hot", 500);
+        long estimate = sketch.estimate("hot");
+        assertTrue(estimate >= 500 && estimate <= 600);
+        assertTrue(sketch.estimate("absent") <= 100);
+    }
+
+    @Test
+    public void testReset() {
+        CountMinSketch sketch = new CountMinSketch(2, 10);
+        sketch.add("a", 5);
+        assertEquals(5, sketch.estimate("a"));
+        sketch.reset();
+        assertEquals(0, sketch.estimate("a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalDepth() {
+        new CountMinSketch(9, 16);
+    }
+}
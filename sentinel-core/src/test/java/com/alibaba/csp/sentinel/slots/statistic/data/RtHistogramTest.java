@@ -0,0 +1,78 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link RtHistogram}.
+ *
+ * @author agent
+ */
+public class RtHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long rt = 0; rt <= RtHistogram.MAX_TRACKABLE_RT; rt++) {
+            int idx = RtHistogram.bucketIndex(rt);
+            long highest = RtHistogram.highestValueOf(idx);
+            assertTrue(highest >= rt);
+            // The relative error is bounded by the sub-bucket resolution.
+            assertTrue(highest - rt <= rt / 16);
+        }
+        assertEquals(RtHistogram.BUCKET_COUNT - 1, RtHistogram.bucketIndex(RtHistogram.MAX_TRACKABLE_RT));
+        assertEquals(RtHistogram.BUCKET_COUNT - 1, RtHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, RtHistogram.bucketIndex(-1));
+    }
+
+    @Test
+    public void testPercentile() {
+        RtHistogram histogram = new RtHistogram();
+        assertEquals(-1, histogram.percentile(0.5));
+
+        for (int rt = 1; rt <= 1000; rt++) {
+            histogram.add(rt, 1);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(500, histogram.percentile(0.5), 500 / 16);
+        assertEquals(990, histogram.percentile(0.99), 990 / 16);
+        assertEquals(1000, histogram.percentile(1.0), 1000 / 16);
+        assertEquals(1, histogram.percentile(0.001));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        histogram.add(7, 99);
+        histogram.add(3000, 1);
+        assertEquals(7, histogram.percentile(0.99));
+        assertTrue(histogram.percentile(0.999) >= 3000);
+    }
+
+    @Test
+    public void testMergeSnapshot() {
+        RtHistogram h1 = new RtHistogram();
+        RtHistogram h2 = new RtHistogram();
+        h1.add(5, 10);
+        h2.add(10, 10);
+
+        long[] snapshot = RtHistogram.newSnapshot();
+        h1.mergeTo(snapshot);
+        h2.mergeTo(snapshot);
+        assertEquals(5, RtHistogram.percentile(snapshot, 0.5));
+        assertEquals(10, RtHistogram.percentile(snapshot, 0.51));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.data;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link StripedMetricBucket}.
+ *
+ * @author agent
+ */
+public class StripedMetricBucketTest {
+
+    @Test
+    public void testStripes() {
+        assertEquals(1, new StripedMetricBucket(1).stripes());
+        assertEquals(4, new StripedMetricBucket(3).stripes());
+        assertEquals(StripedMetricBucket.MAX_STRIPES, new StripedMetricBucket(1000).stripes());
+    }
+
+    @Test
+    public void testAddAndReset() {
+        StripedMetricBucket bucket = new StripedMetricBucket(4);
+        bucket.addPass(3);
+        // No stripe table without contention.
+        assertFalse(bucket.isInflated());
+        bucket.addBlock(2);
+        bucket.addRT(20);
+        bucket.addRT(10);
+        assertEquals(3, bucket.pass());
+        assertEquals(2, bucket.block());
+        assertEquals(30, bucket.rt());
+        assertEquals(10, bucket.minRt());
+        assertEquals(0, bucket.exception());
+
+        MetricBucket other = new MetricBucket();
+        other.addPass(5);
+        other.addSuccess(1);
+        bucket.reset(other);
+        assertEquals(5, bucket.pass());
+        assertEquals(1, bucket.success());
+        assertEquals(0, bucket.block());
+
+        bucket.reset();
+        for (MetricEvent event : MetricEvent.values()) {
+            assertEquals(0, bucket.get(event));
+        }
+    }
+
+    @Test
+    public void testMultiThreadAdd() throws Exception {
+        final StripedMetricBucket bucket = new StripedMetricBucket(4);
+        final int nThreads = 16;
+        final int count = 10000;
+        final CountDownLatch latch = new CountDownLatch(nThreads);
+        for (int i = 0; i < nThreads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < count; j++) {
+                        bucket.addPass(1);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertEquals(nThreads * count, bucket.pass());
+    }
+}
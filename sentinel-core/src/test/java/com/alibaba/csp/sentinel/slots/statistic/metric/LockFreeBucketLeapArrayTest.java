@@ -0,0 +1,119 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.metric;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link LockFreeBucketLeapArray}.
+ *
+ * @author agent
+ */
+public class LockFreeBucketLeapArrayTest {
+
+    private final int windowLengthInMs = 500;
+    private final int intervalInMs = 1000;
+    private final int sampleCount = intervalInMs / windowLengthInMs;
+
+    @Test
+    public void testNewWindow() {
+        LockFreeBucketLeapArray leapArray = new LockFreeBucketLeapArray(sampleCount, intervalInMs);
+        long time = TimeUtil.currentTimeMillis();
+        WindowWrap<MetricBucket> window = leapArray.currentWindow(time);
+
+        assertEquals(windowLengthInMs, window.windowLength());
+        assertEquals(time - time % windowLengthInMs, window.windowStart());
+        assertEquals(0L, window.value().pass());
+        assertSame(window, leapArray.currentWindow(time + 1 - time % windowLengthInMs));
+        assertEquals(1, leapArray.list(time).size());
+    }
+
+    @Test
+    public void testRotateToCleanBucket() {
+        LockFreeBucketLeapArray leapArray = new LockFreeBucketLeapArray(sampleCount, intervalInMs);
+        long time = 10 * intervalInMs;
+
+        WindowWrap<MetricBucket> first = leapArray.currentWindow(time);
+        first.value().addPass(3);
+        leapArray.currentWindow(time + windowLengthInMs).value().addPass(2);
+        assertEquals(2, leapArray.values(time + windowLengthInMs).size());
+
+        // The slot of the first bucket rotates to the next round.
+        WindowWrap<MetricBucket> next = leapArray.currentWindow(time + intervalInMs);
+        assertNotSame(first, next);
+        assertEquals(time + intervalInMs, next.windowStart());
+        assertEquals(0L, next.value().pass());
+        // The retired bucket has been cleaned for later rounds.
+        assertEquals(0L, first.value().pass());
+
+        // Rotate back to the first bucket, without allocating new buckets.
+        WindowWrap<MetricBucket> third = leapArray.currentWindow(time + 2 * intervalInMs);
+        assertSame(first, third);
+        assertEquals(time + 2 * intervalInMs, third.windowStart());
+        assertEquals(0L, third.value().pass());
+    }
+
+    @Test
+    public void testDeprecatedTime() {
+        LockFreeBucketLeapArray leapArray = new LockFreeBucketLeapArray(sampleCount, intervalInMs);
+        long time = 10 * intervalInMs;
+        WindowWrap<MetricBucket> current = leapArray.currentWindow(time);
+        current.value().addPass(1);
+
+        WindowWrap<MetricBucket> behind = leapArray.currentWindow(time - intervalInMs);
+        assertNotSame(current, behind);
+        assertEquals(1L, leapArray.currentWindow(time).value().pass());
+    }
+
+    @Test
+    public void testMultiThreadRotation() throws Exception {
+        final long time = 10 * intervalInMs;
+        final int nThreads = 16;
+        final LockFreeBucketLeapArray leapArray = new LockFreeBucketLeapArray(sampleCount, intervalInMs);
+        leapArray.currentWindow(time).value().addPass(100);
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(nThreads);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // All threads try to rotate the same deprecated bucket.
+                leapArray.currentWindow(time + intervalInMs).value().addPass(1);
+                latch.countDown();
+            }
+        };
+        for (int i = 0; i < nThreads; i++) {
+            new Thread(task).start();
+        }
+        startLatch.countDown();
+        latch.await();
+
+        assertEquals(nThreads, leapArray.currentWindow(time + intervalInMs).value().pass());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link TimeUtil}.
+ *
+ * @author agent
+ */
+public class TimeUtilTest {
+
+    @After
+    public void tearDown() {
+        TimeUtil.resetTimeSource();
+    }
+
+    @Test
+    public void testManualTimeSource() {
+        ManualTimeSource timeSource = new ManualTimeSource(1000);
+        TimeUtil.setTimeSource(timeSource);
+        assertEquals(TimeUtil.STATE_CUSTOM, TimeUtil.getState());
+        assertEquals(1000, TimeUtil.currentTimeMillis());
+
+        assertEquals(1500, timeSource.advance(500));
+        assertEquals(1500, TimeUtil.currentTimeMillis());
+        timeSource.setCurrentTimeMillis(200);
+        assertEquals(200, TimeUtil.currentTimeMillis());
+
+        TimeUtil.resetTimeSource();
+        assertEquals(TimeUtil.STATE_IDLE, TimeUtil.getState());
+        assertTrue(Math.abs(System.currentTimeMillis() - TimeUtil.currentTimeMillis()) < 1000);
+    }
+
+    @Test
+    public void testSwitchBetweenDirectReadsAndTicking() throws Exception {
+        // Restore the initial state (direct reads).
+        TimeUtil.setTimeSource(new ManualTimeSource(0));
+        TimeUtil.resetTimeSource();
+        assertEquals(TimeUtil.STATE_IDLE, TimeUtil.getState());
+
+        // High read frequency should wake up the tick thread.
+        for (int i = 0; i < TimeUtil.IDLE_READS_UPPER_BOUND * 2 && TimeUtil.getState() == TimeUtil.STATE_IDLE; i++) {
+            TimeUtil.currentTimeMillis();
+        }
+        assertEquals(TimeUtil.STATE_TICKING, TimeUtil.getState());
+        Thread.sleep(20);
+        assertTrue(Math.abs(System.currentTimeMillis() - TimeUtil.currentTimeMillis()) < 100);
+
+        // No reads for a while, so the tick thread should go back to sleep.
+        long deadline = System.currentTimeMillis() + TimeUtil.TICKING_CHECK_TICKS * 4;
+        while (TimeUtil.getState() == TimeUtil.STATE_TICKING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(TimeUtil.STATE_IDLE, TimeUtil.getState());
+    }
+}
@@ -21,7 +21,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -34,6 +33,7 @@ import com.alibaba.csp.sentinel.cluster.server.EmbeddedClusterTokenServerProvide
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.QueueingUtil;
 import com.alibaba.csp.sentinel.slots.statistic.cache.CacheMap;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 
@@ -238,7 +238,7 @@ public final class ParamFlowChecker {
                     if (waitTime > 0) {
                         lastPastTimeRef.set(expectedTime);
                         try {
-                            TimeUnit.MILLISECONDS.sleep(waitTime);
+                            QueueingUtil.waitFor(waitTime);
                         } catch (InterruptedException e) {
                             RecordLog.warn("passThrottleLocalCheck: wait interrupted", e);
                         }
@@ -32,7 +32,7 @@ import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
 @CommandMapping(name = "cnode", desc = "get clusterNode metrics by id, request param: id={resourceName}")
 public class FetchClusterNodeHumanCommandHandler implements CommandHandler<String> {
 
-    private final static String FORMAT = "%-4s%-80s%-10s%-10s%-10s%-11s%-9s%-6s%-10s%-11s%-9s%-11s";
+    private final static String FORMAT = "%-4s%-80s%-10s%-10s%-10s%-11s%-9s%-6s%-10s%-11s%-9s%-11s%-7s%-7s%-7s";
     private final static int MAX_LEN = 79;
 
     @Override
@@ -63,7 +63,7 @@ public class FetchClusterNodeHumanCommandHandler implements CommandHandler<Strin
         String format = FORMAT.replaceAll("80", String.valueOf(nameLength + 1));
 
         sb.append(String.format(format, "idx", "id", "thread", "pass", "blocked", "success", "total", "aRt",
-            "1m-pass", "1m-block", "1m-all", "exception")).append("\n");
+            "1m-pass", "1m-block", "1m-all", "exception", "p50", "p99", "p999")).append("\n");
         for (Entry<ResourceWrapper, ClusterNode> e : ClusterBuilderSlot.getClusterNodeMap().entrySet()) {
             if (e.getKey().getName().contains(name)) {
                 ClusterNode node = e.getValue();
@@ -73,12 +73,13 @@ public class FetchClusterNodeHumanCommandHandler implements CommandHandler<Strin
                 sb.append(String.format(format, i + 1, lenNum == 0 ? id : id.substring(0, nameLength),
                     node.curThreadNum(), node.passQps(), node.blockQps(), node.successQps(), node.totalQps(),
                     node.avgRt(), node.totalRequest() - node.blockRequest(), node.blockRequest(),
-                    node.totalRequest(), node.exceptionQps())).append("\n");
+                    node.totalRequest(), node.exceptionQps(), formatRtPercentile(node, 0.5),
+                    formatRtPercentile(node, 0.99), formatRtPercentile(node, 0.999))).append("\n");
                 for (int j = 1; j <= lenNum; ++j) {
                     int start = nameLength * j;
                     int end = j == lenNum ? id.length() : nameLength * (j + 1);
                     sb.append(String.format(format, "", id.substring(start, end), "", "", "", "", "", "", "", "", "",
-                        "", "", "")).append("\n");
+                        "", "", "", "")).append("\n");
                 }
 
                 if (++i == 30) {
@@ -89,4 +90,9 @@ public class FetchClusterNodeHumanCommandHandler implements CommandHandler<Strin
 
         return CommandResponse.ofSuccess(sb.toString());
     }
+
+    private static String formatRtPercentile(ClusterNode node, double quantile) {
+        long rt = node.rtPercentile(quantile);
+        return rt < 0 ? "-" : String.valueOf(rt);
+    }
 }
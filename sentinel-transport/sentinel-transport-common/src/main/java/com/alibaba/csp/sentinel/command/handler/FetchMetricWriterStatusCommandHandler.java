@@ -0,0 +1,58 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command.handler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
+import com.alibaba.csp.sentinel.node.metric.AsyncMetricWriter;
+import com.alibaba.csp.sentinel.node.metric.MetricTimerListener;
+import com.alibaba.csp.sentinel.node.metric.MetricWriter;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Get the status of the metric writer, so that the backpressure of the {@link AsyncMetricWriter}
+ * (pending, dropped and failed seconds) could be monitored.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+@CommandMapping(name = "metricWriterStatus", desc = "get status of the metric writer")
+public class FetchMetricWriterStatusCommandHandler implements CommandHandler<String> {
+
+    @Override
+    public CommandResponse<String> handle(CommandRequest request) {
+        MetricWriter writer = MetricTimerListener.getMetricWriter();
+        Map<String, Object> status = new HashMap<String, Object>();
+        status.put("async", writer instanceof AsyncMetricWriter);
+        if (writer instanceof AsyncMetricWriter) {
+            AsyncMetricWriter asyncWriter = (AsyncMetricWriter)writer;
+            status.put("bufferCapacity", asyncWriter.getBufferCapacity());
+            status.put("pendingSeconds", asyncWriter.getPendingSeconds());
+            status.put("maxPendingSeconds", asyncWriter.getMaxPendingSeconds());
+            status.put("writtenSeconds", asyncWriter.getWrittenSeconds());
+            status.put("droppedSeconds", asyncWriter.getDroppedSeconds());
+            status.put("failedSeconds", asyncWriter.getFailedSeconds());
+            status.put("flushCount", asyncWriter.getFlushCount());
+            status.put("flushFailureCount", asyncWriter.getFailureCount());
+        }
+        return CommandResponse.ofSuccess(JSONObject.toJSONString(status));
+    }
+}
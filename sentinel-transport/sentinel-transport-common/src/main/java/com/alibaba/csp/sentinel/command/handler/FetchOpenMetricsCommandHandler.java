@@ -0,0 +1,46 @@
+/*
+ * Copyright 1999-2020 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command.handler;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.node.metric.exporter.MetricExporterProvider;
+import com.alibaba.csp.sentinel.node.metric.exporter.OpenMetricsExporter;
+
+/**
+ * Expose the metrics of all resources in the OpenMetrics text format, which could be scraped
+ * by Prometheus directly. The {@link OpenMetricsExporter} should be enabled via
+ * {@link SentinelConfig#METRIC_EXPORTER_OPEN_METRICS}.
+ *
+ * @author agent
+ * @since 1.8.0
+ */
+@CommandMapping(name = "openmetrics", desc = "get metrics of all resources in OpenMetrics text format")
+public class FetchOpenMetricsCommandHandler implements CommandHandler<String> {
+
+    @Override
+    public CommandResponse<String> handle(CommandRequest request) {
+        OpenMetricsExporter exporter = MetricExporterProvider.getMetricExporter(OpenMetricsExporter.class);
+        if (exporter == null) {
+            return CommandResponse.ofFailure(new IllegalStateException("OpenMetrics exporter is disabled, please set "
+                + SentinelConfig.METRIC_EXPORTER_OPEN_METRICS + "=true"));
+        }
+        return CommandResponse.ofSuccess(exporter.toText());
+    }
+}
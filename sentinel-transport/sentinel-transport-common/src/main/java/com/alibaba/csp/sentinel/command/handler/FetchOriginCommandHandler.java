@@ -24,6 +24,7 @@ import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.node.StatisticNode;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
 
 /**
@@ -106,6 +107,14 @@ public class FetchOriginCommandHandler implements CommandHandler<String> {
             }
 
         }
+        StatisticNode otherNode = cNode.getOtherOriginNode();
+        if (otherNode != null) {
+            sb.append(String
+                .format(format, "", RuleConstant.LIMIT_APP_OTHER, otherNode.curThreadNum(), otherNode.passQps(),
+                    otherNode.blockQps(), otherNode.totalQps(), otherNode.avgRt(),
+                    otherNode.totalRequest() - otherNode.blockRequest(), otherNode.blockRequest(),
+                    otherNode.totalRequest())).append("\n");
+        }
 
         return CommandResponse.ofSuccess(sb.toString());
     }
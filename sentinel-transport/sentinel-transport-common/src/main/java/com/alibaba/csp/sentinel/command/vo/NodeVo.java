@@ -37,6 +37,14 @@ public class NodeVo {
     private Long blockQps;
     private Long totalQps;
     private Long averageRt;
+    /**
+     * RT percentiles of the recent second, only present when the RT histogram of the resource is enabled.
+     *
+     * @since 1.8.0
+     */
+    private Long rtP50;
+    private Long rtP99;
+    private Long rtP999;
     private Long successQps;
     private Long exceptionQps;
     private Long oneMinutePass;
@@ -113,6 +121,11 @@ public class NodeVo {
         vo.oneMinuteBlock = node.blockRequest();
         vo.oneMinuteTotal = node.totalRequest();
         vo.timestamp = System.currentTimeMillis();
+        if (node.isRtHistogramEnabled()) {
+            vo.rtP50 = Math.max(node.rtPercentile(0.5), 0);
+            vo.rtP99 = Math.max(node.rtPercentile(0.99), 0);
+            vo.rtP999 = Math.max(node.rtPercentile(0.999), 0);
+        }
         return vo;
     }
 
@@ -180,6 +193,30 @@ public class NodeVo {
         this.averageRt = averageRt;
     }
 
+    public Long getRtP50() {
+        return rtP50;
+    }
+
+    public void setRtP50(Long rtP50) {
+        this.rtP50 = rtP50;
+    }
+
+    public Long getRtP99() {
+        return rtP99;
+    }
+
+    public void setRtP99(Long rtP99) {
+        this.rtP99 = rtP99;
+    }
+
+    public Long getRtP999() {
+        return rtP999;
+    }
+
+    public void setRtP999(Long rtP999) {
+        this.rtP999 = rtP999;
+    }
+
     public Long getSuccessQps() {
         return successQps;
     }